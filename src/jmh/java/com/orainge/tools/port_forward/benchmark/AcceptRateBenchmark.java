@@ -0,0 +1,126 @@
+package com.orainge.tools.port_forward.benchmark;
+
+import com.orainge.tools.port_forward.consts.PortForwardEngine;
+import com.orainge.tools.port_forward.jmh.ForwardFixture;
+import com.orainge.tools.port_forward.jmh.LoopbackTarget;
+import com.orainge.tools.port_forward.server.PortForwardServer;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 建连速率基准测试<br>
+ * 在本机启动一个目标端口 (建立连接后写出 1 个字节并关闭) 和端口转发服务，
+ * 多个客户端线程循环执行 [连接转发服务 -> 读到目标端口的数据 -> 关闭]，统计每秒完成的连接数，用于对比不同监听线程数的建连能力
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class AcceptRateBenchmark {
+    /**
+     * 启动方法
+     *
+     * @param args [-e engine] 转发引擎 (BLOCKING / DIRECT / NIO，默认为 NIO)<br>
+     *             [-a acceptors] 监听线程数 (默认为 1)<br>
+     *             [-c clients] 客户端线程数 (默认为 64)<br>
+     *             [-d seconds] 测试时长 (秒，默认为 10)<br>
+     *             [-p port] 转发服务监听端口 (默认为 18080)
+     */
+    public static void main(String[] args) throws Exception {
+        PortForwardEngine engine = PortForwardEngine.NIO;
+        int acceptors = 1, clients = 64, seconds = 10, port = 18080;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-e":
+                    engine = PortForwardEngine.valueOf(value.toUpperCase());
+                    break;
+                case "-a":
+                    acceptors = Integer.parseInt(value);
+                    break;
+                case "-c":
+                    clients = Integer.parseInt(value);
+                    break;
+                case "-d":
+                    seconds = Integer.parseInt(value);
+                    break;
+                case "-p":
+                    port = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知的参数: " + args[i]);
+            }
+        }
+
+        // 启动目标端口
+        LoopbackTarget target = LoopbackTarget.greeting();
+
+        // 启动端口转发服务
+        PortForwardServer server = new PortForwardServer("127.0.0.1", port, "127.0.0.1", target.getPort())
+                .setEngine(engine)
+                .setAcceptors(acceptors)
+                .setBacklog(4096)
+                .setAcceptThreads(256, 65536);
+        server.start();
+        ForwardFixture.waitForListening(port);
+
+        // 启动客户端
+        final int listeningPort = port;
+        LongAdder completed = new LongAdder();
+        LongAdder failed = new LongAdder();
+        List<Thread> clientThreads = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        for (int i = 0; i < clients; i++) {
+            clientThreads.add(ForwardFixture.startDaemon(() -> {
+                byte[] buffer = new byte[16];
+                while (System.nanoTime() < deadline) {
+                    try (Socket socket = new Socket()) {
+                        // 由客户端发送 RST 关闭，避免客户端端口处于 TIME_WAIT 被耗尽
+                        socket.setSoLinger(true, 0);
+                        socket.connect(new InetSocketAddress("127.0.0.1", listeningPort), 5000);
+                        socket.setSoTimeout(5000);
+
+                        InputStream in = socket.getInputStream();
+                        if (in.read(buffer) == 1) {
+                            completed.increment();
+                        } else {
+                            failed.increment();
+                        }
+                    } catch (Exception e) {
+                        failed.increment();
+                    }
+                }
+            }, "benchmark-client-" + i));
+        }
+
+        // 每秒输出一次速率
+        long lastCompleted = 0;
+        long start = System.nanoTime();
+        for (int second = 1; second <= seconds; second++) {
+            Thread.sleep(1000);
+            long current = completed.sum();
+            System.out.println("[建连速率] 第 " + second + " 秒: " + (current - lastCompleted) + " 连接/秒");
+            lastCompleted = current;
+        }
+
+        for (Thread thread : clientThreads) {
+            thread.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        server.stop();
+        target.close();
+
+        // 机器可读的结果
+        System.out.printf("result engine=%s acceptors=%d clients=%d seconds=%.1f completed=%d failed=%d rate=%.0f%n",
+                engine, acceptors, clients, elapsed, completed.sum(), failed.sum(), completed.sum() / elapsed);
+        System.exit(0);
+    }
+}
@@ -0,0 +1,161 @@
+package com.orainge.tools.port_forward.benchmark;
+
+import com.orainge.tools.port_forward.acl.AccessRules;
+import com.orainge.tools.port_forward.acl.CidrBlock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 访问规则基准测试<br>
+ * 随机生成大量 IPv4 和 IPv6 的允许、拒绝网段编译为访问规则，测量每次查找的耗时；
+ * 并用逐个网段比较的最长前缀匹配 (线性扫描) 检查随机地址的结果，两者不一致时失败
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class AccessRulesBenchmark {
+    /**
+     * 启动方法
+     *
+     * @param args [-n prefixes] 每种地址的网段数 (默认为 10000，允许和拒绝各一半)<br>
+     *             [-l lookups] 查找的次数 (默认为 10000000)<br>
+     *             [-c checks] 与线性扫描比较结果的次数 (默认为 20000)<br>
+     *             [-s seed] 随机数种子 (默认为 42)
+     */
+    public static void main(String[] args) {
+        int prefixes = 10000, lookups = 10_000_000, checks = 20000;
+        long seed = 42;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-n":
+                    prefixes = Integer.parseInt(value);
+                    break;
+                case "-l":
+                    lookups = Integer.parseInt(value);
+                    break;
+                case "-c":
+                    checks = Integer.parseInt(value);
+                    break;
+                case "-s":
+                    seed = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知的参数: " + args[i]);
+            }
+        }
+
+        Random random = new Random(seed);
+        List<String> allow = new ArrayList<>();
+        List<String> deny = new ArrayList<>();
+        for (int i = 0; i < prefixes; i++) {
+            (i % 2 == 0 ? allow : deny).add(randomCidr(random, 4));
+            (i % 2 == 0 ? allow : deny).add(randomCidr(random, 16));
+        }
+
+        long start = System.nanoTime();
+        AccessRules rules = AccessRules.of(allow, deny);
+        double compileMillis = (System.nanoTime() - start) / 1e6;
+
+        // 查找的地址一半落在随机网段内，一半完全随机
+        byte[][] addresses = new byte[4096][];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = randomAddress(random, i % 2 == 0 ? 4 : 16, i % 4 < 2 ? rules : null);
+        }
+
+        // 与线性扫描比较结果
+        int mismatches = 0;
+        for (int i = 0; i < checks; i++) {
+            byte[] address = randomAddress(random, i % 2 == 0 ? 4 : 16, i % 4 < 2 ? rules : null);
+            if (rules.isAllowed(address) != linearScan(rules, address)) {
+                mismatches++;
+            }
+        }
+
+        // 预热后测量
+        int allowed = 0;
+        for (int round = 0; round < 2; round++) {
+            allowed = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                if (rules.isAllowed(addresses[i & (addresses.length - 1)])) {
+                    allowed++;
+                }
+            }
+        }
+        double lookupNanos = (double) (System.nanoTime() - start) / lookups;
+
+        boolean ok = mismatches == 0;
+        System.out.printf("result prefixes=%d compileMillis=%.1f lookupNanos=%.1f allowedPct=%.1f checks=%d mismatches=%d ok=%s%n",
+                allow.size() + deny.size(), compileMillis, lookupNanos, allowed * 100.0 / lookups, checks, mismatches, ok);
+        System.exit(ok ? 0 : 1);
+    }
+
+    private static String randomCidr(Random random, int bytes) {
+        byte[] address = new byte[bytes];
+        random.nextBytes(address);
+        int prefixLength = bytes == 4 ? 8 + random.nextInt(25) : 16 + random.nextInt(113);
+        StringBuilder builder = new StringBuilder();
+
+        if (bytes == 4) {
+            for (int i = 0; i < 4; i++) {
+                builder.append(i > 0 ? "." : "").append(address[i] & 0xFF);
+            }
+        } else {
+            for (int i = 0; i < 16; i += 2) {
+                builder.append(i > 0 ? ":" : "").append(Integer.toHexString(((address[i] & 0xFF) << 8) | (address[i + 1] & 0xFF)));
+            }
+        }
+        return builder.append('/').append(prefixLength).toString();
+    }
+
+    /**
+     * 生成随机地址 (指定访问规则时，落在其中一个随机网段内)
+     */
+    private static byte[] randomAddress(Random random, int bytes, AccessRules rules) {
+        byte[] address = new byte[bytes];
+        random.nextBytes(address);
+        if (rules == null) {
+            return address;
+        }
+
+        List<CidrBlock> blocks = random.nextBoolean() ? rules.getAllowList() : rules.getDenyList();
+        CidrBlock block;
+        do {
+            block = blocks.get(random.nextInt(blocks.size()));
+        } while (block.isIpv4() != (bytes == 4));
+
+        byte[] prefix = block.getAddress();
+        for (int i = 0; i < bytes; i++) {
+            int bits = Math.min(Math.max(block.getPrefixLength() - i * 8, 0), 8);
+            int mask = (0xFF << (8 - bits)) & 0xFF;
+            address[i] = (byte) ((prefix[i] & mask) | (address[i] & ~mask));
+        }
+        return address;
+    }
+
+    /**
+     * 逐个网段比较的最长前缀匹配
+     */
+    private static boolean linearScan(AccessRules rules, byte[] address) {
+        int best = -1;
+        boolean allowed = rules.isDefaultAllowed();
+
+        for (CidrBlock block : rules.getAllowList()) {
+            if (block.contains(address) && block.getPrefixLength() > best) {
+                best = block.getPrefixLength();
+                allowed = true;
+            }
+        }
+        for (CidrBlock block : rules.getDenyList()) {
+            if (block.contains(address) && block.getPrefixLength() >= best) {
+                best = block.getPrefixLength();
+                allowed = false;
+            }
+        }
+        return allowed;
+    }
+}
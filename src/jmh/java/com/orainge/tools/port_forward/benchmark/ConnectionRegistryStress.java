@@ -0,0 +1,178 @@
+package com.orainge.tools.port_forward.benchmark;
+
+import com.orainge.tools.port_forward.bean.PortForwardConnection;
+import com.orainge.tools.port_forward.consts.PortForwardEngine;
+import com.orainge.tools.port_forward.jmh.ForwardFixture;
+import com.orainge.tools.port_forward.jmh.LoopbackTarget;
+import com.orainge.tools.port_forward.server.PortForwardServer;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 连接注册表并发压力测试<br>
+ * 客户端线程不断建立和关闭连接，同时管理线程不断遍历连接快照、按 ID 查找和关闭连接；
+ * 结束后检查注册表、连接名额和目标端口的活跃连接数都回到 0，最后保持一批连接并停止服务，检查批量关闭是否关闭了所有连接
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class ConnectionRegistryStress {
+    /**
+     * 启动方法
+     *
+     * @param args [-e engine] 转发引擎 (BLOCKING / DIRECT / NIO，默认为 NIO)<br>
+     *             [-c clients] 客户端线程数 (默认为 32)<br>
+     *             [-k killers] 管理线程数 (默认为 4)<br>
+     *             [-h held] 停止服务时保持的连接数 (默认为 500)<br>
+     *             [-d seconds] 测试时长 (秒，默认为 10)<br>
+     *             [-p port] 转发服务监听端口 (默认为 18081)
+     */
+    public static void main(String[] args) throws Exception {
+        PortForwardEngine engine = PortForwardEngine.NIO;
+        int clients = 32, killers = 4, held = 500, seconds = 10, port = 18081;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-e":
+                    engine = PortForwardEngine.valueOf(value.toUpperCase());
+                    break;
+                case "-c":
+                    clients = Integer.parseInt(value);
+                    break;
+                case "-k":
+                    killers = Integer.parseInt(value);
+                    break;
+                case "-h":
+                    held = Integer.parseInt(value);
+                    break;
+                case "-d":
+                    seconds = Integer.parseInt(value);
+                    break;
+                case "-p":
+                    port = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知的参数: " + args[i]);
+            }
+        }
+
+        // 启动回显的目标端口
+        LoopbackTarget target = LoopbackTarget.echo();
+
+        // 启动端口转发服务
+        PortForwardServer server = new PortForwardServer("127.0.0.1", port, "127.0.0.1", target.getPort())
+                .setEngine(engine)
+                .setBacklog(4096)
+                .setAcceptThreads(256, 65536);
+        server.start();
+        ForwardFixture.waitForListening(port);
+
+        final int listeningPort = port;
+        LongAdder completed = new LongAdder();
+        LongAdder failed = new LongAdder();
+        LongAdder killed = new LongAdder();
+        LongAdder lookups = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        // 客户端线程: 建立连接 -> 回显一个字节 -> 关闭 (连接被管理线程关闭时计为失败)
+        for (int i = 0; i < clients; i++) {
+            threads.add(ForwardFixture.startDaemon(() -> {
+                while (System.nanoTime() < deadline) {
+                    try (Socket socket = new Socket()) {
+                        socket.setSoLinger(true, 0);
+                        socket.connect(new InetSocketAddress("127.0.0.1", listeningPort), 5000);
+                        socket.setSoTimeout(5000);
+                        socket.getOutputStream().write(1);
+
+                        if (socket.getInputStream().read() == 1) {
+                            completed.increment();
+                        } else {
+                            failed.increment();
+                        }
+                    } catch (Exception e) {
+                        failed.increment();
+                    }
+                }
+            }, "stress-client-" + i));
+        }
+
+        // 管理线程: 遍历快照，按 ID 查找并随机关闭连接
+        for (int i = 0; i < killers; i++) {
+            threads.add(ForwardFixture.startDaemon(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    for (PortForwardConnection connection : server.getConnections()) {
+                        if (server.getConnection(connection.getId()) != null) {
+                            lookups.increment();
+                        }
+                        if (random.nextInt(64) == 0) {
+                            server.closeConnection(connection.getId());
+                            killed.increment();
+                        }
+                    }
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+                }
+            }, "stress-killer-" + i));
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // 检查所有连接都已移除，连接名额和目标端口的活跃连接数都已释放
+        boolean drained = ForwardFixture.waitUntil(() -> server.getConnectionCount() == 0
+                && server.getActiveConnections() == 0
+                && server.getTargets().get(0).getActiveConnections() == 0);
+        System.out.println("[压力测试] 连接数: " + server.getConnectionCount()
+                + ", 占用的连接名额: " + server.getActiveConnections()
+                + ", 目标端口活跃连接数: " + server.getTargets().get(0).getActiveConnections());
+
+        // 保持一批连接后停止服务，检查批量关闭
+        List<Socket> heldSockets = new ArrayList<>();
+        for (int i = 0; i < held; i++) {
+            Socket socket = new Socket();
+            socket.connect(new InetSocketAddress("127.0.0.1", listeningPort), 5000);
+            socket.setSoTimeout(5000);
+            socket.getOutputStream().write(1);
+            socket.getInputStream().read();
+            heldSockets.add(socket);
+        }
+        int registeredBeforeStop = server.getConnectionCount();
+
+        long stopStart = System.nanoTime();
+        server.stop();
+        double stopMillis = (System.nanoTime() - stopStart) / 1e6;
+
+        int closedByServer = 0;
+        for (Socket socket : heldSockets) {
+            try (Socket s = socket) {
+                if (s.getInputStream().read() < 0) {
+                    closedByServer++;
+                }
+            } catch (Exception e) {
+                // 连接被重置同样代表已被关闭
+                closedByServer++;
+            }
+        }
+        target.close();
+
+        boolean ok = drained && registeredBeforeStop == held && closedByServer == held
+                && server.getConnectionCount() == 0 && completed.sum() > 0;
+
+        // 机器可读的结果
+        System.out.printf("result engine=%s clients=%d killers=%d completed=%d failed=%d killed=%d lookups=%d "
+                        + "held=%d registered=%d closed=%d stopMillis=%.1f ok=%s%n",
+                engine, clients, killers, completed.sum(), failed.sum(), killed.sum(), lookups.sum(),
+                held, registeredBeforeStop, closedByServer, stopMillis, ok);
+        System.exit(ok ? 0 : 1);
+    }
+}
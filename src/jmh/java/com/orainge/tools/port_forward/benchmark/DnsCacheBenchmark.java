@@ -0,0 +1,228 @@
+package com.orainge.tools.port_forward.benchmark;
+
+import com.orainge.tools.port_forward.consts.PortForwardEngine;
+import com.orainge.tools.port_forward.dns.DnsCache;
+import com.orainge.tools.port_forward.jmh.ForwardFixture;
+import com.orainge.tools.port_forward.jmh.LoopbackTarget;
+import com.orainge.tools.port_forward.loadtest.LatencyHistogram;
+import com.orainge.tools.port_forward.loadtest.StubHostResolver;
+import com.orainge.tools.port_forward.server.PortForwardServer;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DNS 缓存基准测试<br>
+ * 转发的目标为主机名，由本地的解析器解析为 3 个回环地址，每次解析耗时 delayMillis 毫秒；按固定间隔建立连接并往返 1 个字节，依次执行五个阶段：<br>
+ * 0. 没有缓存: 清空缓存后同时建立多个连接，检查解析期间所有连接都已被接收 (监听线程和事件循环不等待解析)，解析完成后都成功<br>
+ * 1. 正常: 持续 3 个 TTL，检查建立连接的最大耗时小于一次解析的耗时 (连接不等待解析)，且 3 个地址都有连接<br>
+ * 2. 解析失败: 持续 2 个 TTL，检查所有连接都成功 (继续使用过期的地址)<br>
+ * 3. 记录变更: 解析恢复并只返回 127.0.0.3，等待刷新后检查所有连接都连到新的地址<br>
+ * 4. 部分地址不可用: 解析结果为 127.0.0.4 (目标端口没有监听，连接失败) 和 127.0.0.2，等待刷新后检查所有连接都成功、
+ * 都连到 127.0.0.2，且不计入目标端口的连接失败次数 (一个地址失败时尝试其他地址)
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class DnsCacheBenchmark {
+    private static final String HOST = "target.port-forward.test";
+
+    /**
+     * 没有缓存时同时建立的连接数
+     */
+    private static final int COLD_CLIENTS = 3;
+
+    /**
+     * 启动方法
+     *
+     * @param args [-e engine] 转发引擎 (BLOCKING / DIRECT / NIO，默认为 NIO)<br>
+     *             [-t ttlMillis] DNS 缓存时间 (毫秒，默认为 1000)<br>
+     *             [-d delayMillis] 每次解析的耗时 (毫秒，默认为 300)<br>
+     *             [-i intervalMillis] 建立连接的间隔 (毫秒，默认为 10)<br>
+     *             [-p port] 转发服务监听端口 (默认为 18090)
+     */
+    public static void main(String[] args) throws Exception {
+        PortForwardEngine engine = PortForwardEngine.NIO;
+        long ttlMillis = 1000, delayMillis = 300, intervalMillis = 10;
+        int port = 18090;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-e":
+                    engine = PortForwardEngine.valueOf(value.toUpperCase());
+                    break;
+                case "-t":
+                    ttlMillis = Long.parseLong(value);
+                    break;
+                case "-d":
+                    delayMillis = Long.parseLong(value);
+                    break;
+                case "-i":
+                    intervalMillis = Long.parseLong(value);
+                    break;
+                case "-p":
+                    port = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知的参数: " + args[i]);
+            }
+        }
+
+        // 启动回显的目标端口 (监听 3 个回环地址，按连接的本地地址区分解析结果；127.0.0.4 没有监听)
+        LoopbackTarget target = LoopbackTarget.echo("127.0.0.1", "127.0.0.2", "127.0.0.3");
+
+        StubHostResolver resolver = new StubHostResolver()
+                .setRecords(HOST, "127.0.0.1", "127.0.0.2", "127.0.0.3")
+                .setDelayMillis(delayMillis);
+        long negativeTtlMillis = Math.max(ttlMillis / 2, 1);
+        DnsCache dnsCache = new DnsCache(resolver, ttlMillis, negativeTtlMillis,
+                DnsCache.DEFAULT_MAX_STALE_MILLIS, Math.max(delayMillis / 6, 1), "benchmark-dns");
+
+        PortForwardServer server = new PortForwardServer("127.0.0.1", port, HOST, target.getPort())
+                .setEngine(engine)
+                .setDnsCache(dnsCache)
+                .setJmxEnabled(false);
+        server.start();
+        ForwardFixture.waitForListening(port);
+
+        // 等待启动时的提前解析完成
+        Thread.sleep(delayMillis + 100);
+
+        // 阶段 0: 没有缓存
+        dnsCache.clear();
+        long[] cold = coldStart(server, port, COLD_CLIENTS, delayMillis);
+        boolean coldOk = cold[0] == COLD_CLIENTS && cold[1] == 0;
+        System.out.printf("[DNS 缓存] 没有缓存: 连接 %d 次, 解析期间接收 %d 次, 失败 %d 次%n", COLD_CLIENTS, cold[0], cold[1]);
+
+        // 阶段 1: 正常
+        LatencyHistogram normalLatency = new LatencyHistogram();
+        long[] normal = run(port, 3 * ttlMillis, intervalMillis, normalLatency);
+        LatencyHistogram.Snapshot normalSnapshot = normalLatency.snapshot();
+        Map<String, Long> normalAddresses = target.getAcceptedCounts();
+        int usedAddresses = normalAddresses.size();
+        long normalLookups = resolver.getLookupCount();
+        System.out.printf("[DNS 缓存] 正常: 连接 %d 次, 失败 %d 次, p50 %d 微秒, p99 %d 微秒, 最大 %d 微秒, 解析 %d 次, 使用的地址 %s%n",
+                normal[0], normal[1], normalSnapshot.getPercentile(0.5), normalSnapshot.getPercentile(0.99), normalSnapshot.getMax(),
+                normalLookups, normalAddresses);
+
+        // 阶段 2: 解析失败
+        resolver.setFailing(true);
+        LatencyHistogram failingLatency = new LatencyHistogram();
+        long[] failing = run(port, 2 * ttlMillis, intervalMillis, failingLatency);
+        long staleCount = dnsCache.getStatistics().get("STALE");
+        LatencyHistogram.Snapshot failingSnapshot = failingLatency.snapshot();
+        System.out.printf("[DNS 缓存] 解析失败: 连接 %d 次, 失败 %d 次, p50 %d 微秒, p99 %d 微秒, 最大 %d 微秒, 使用过期地址 %d 次%n",
+                failing[0], failing[1], failingSnapshot.getPercentile(0.5), failingSnapshot.getPercentile(0.99), failingSnapshot.getMax(), staleCount);
+
+        // 阶段 3: 记录变更，等待重试间隔和一次解析后检查
+        resolver.setRecords(HOST, "127.0.0.3").setFailing(false);
+        run(port, negativeTtlMillis + delayMillis * 2, intervalMillis, new LatencyHistogram());
+        target.resetAcceptedCounts();
+        long[] changed = run(port, ttlMillis / 2, intervalMillis, new LatencyHistogram());
+        Map<String, Long> changedAddresses = target.getAcceptedCounts();
+        boolean switched = changedAddresses.size() == 1 && changedAddresses.containsKey("127.0.0.3");
+        System.out.printf("[DNS 缓存] 记录变更: 连接 %d 次, 失败 %d 次, 使用的地址 %s%n", changed[0], changed[1], changedAddresses);
+
+        // 阶段 4: 部分地址不可用，等待刷新后检查
+        resolver.setRecords(HOST, "127.0.0.4", "127.0.0.2");
+        run(port, ttlMillis + delayMillis * 2, intervalMillis, new LatencyHistogram());
+        target.resetAcceptedCounts();
+        long failuresBefore = server.getTargets().get(0).getFailureCount();
+        long[] partial = run(port, ttlMillis / 2, intervalMillis, new LatencyHistogram());
+        long targetFailures = server.getTargets().get(0).getFailureCount() - failuresBefore;
+        Map<String, Long> partialAddresses = target.getAcceptedCounts();
+        boolean failedOver = partial[1] == 0 && targetFailures == 0
+                && partialAddresses.size() == 1 && partialAddresses.containsKey("127.0.0.2");
+        System.out.printf("[DNS 缓存] 部分地址不可用: 连接 %d 次, 失败 %d 次, 目标端口失败 %d 次, 使用的地址 %s%n",
+                partial[0], partial[1], targetFailures, partialAddresses);
+
+        server.stop();
+        dnsCache.shutdown();
+        target.close();
+
+        boolean ok = coldOk && normal[1] == 0 && failing[1] == 0 && changed[1] == 0
+                && normalSnapshot.getMax() < delayMillis * 1000 && usedAddresses == 3 && staleCount > 0 && switched && failedOver;
+
+        // 机器可读的结果
+        System.out.printf("result engine=%s ttlMillis=%d delayMillis=%d connections=%d failed=%d p99Micros=%d maxMicros=%d "
+                        + "lookups=%d staleServed=%d addresses=%d switched=%s coldAccepted=%d failedOver=%s ok=%s%n",
+                engine, ttlMillis, delayMillis, normal[0] + failing[0] + changed[0] + partial[0], normal[1] + failing[1] + changed[1] + partial[1],
+                normalSnapshot.getPercentile(0.99), normalSnapshot.getMax(), normalLookups, staleCount, usedAddresses, switched, cold[0],
+                failedOver, ok);
+        System.exit(ok ? 0 : 1);
+    }
+
+    /**
+     * 同时建立多个连接并往返 1 个字节，在解析完成前 (delayMillis 的一半) 统计转发服务已接收的连接数
+     *
+     * @return [0]: 解析期间接收的连接数 [1]: 失败次数
+     */
+    private static long[] coldStart(PortForwardServer server, int port, int clients, long delayMillis) throws InterruptedException {
+        long acceptedBefore = server.getMetrics().getAcceptedConnections();
+        LongAdder failed = new LongAdder();
+        Thread[] threads = new Thread[clients];
+
+        for (int i = 0; i < clients; i++) {
+            threads[i] = ForwardFixture.startDaemon(() -> {
+                if (!roundTrip(port, null)) {
+                    failed.increment();
+                }
+            }, "benchmark-cold-client-" + i);
+        }
+
+        Thread.sleep(delayMillis / 2);
+        long accepted = server.getMetrics().getAcceptedConnections() - acceptedBefore;
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return new long[]{accepted, failed.sum()};
+    }
+
+    /**
+     * 按固定间隔建立连接并往返 1 个字节
+     *
+     * @return [0]: 连接次数 [1]: 失败次数
+     */
+    private static long[] run(int port, long durationMillis, long intervalMillis, LatencyHistogram latency) throws InterruptedException {
+        long[] result = new long[2];
+        long end = System.currentTimeMillis() + durationMillis;
+
+        while (System.currentTimeMillis() < end) {
+            if (!roundTrip(port, latency)) {
+                result[1]++;
+            }
+            result[0]++;
+            Thread.sleep(intervalMillis);
+        }
+        return result;
+    }
+
+    /**
+     * 建立一个连接并往返 1 个字节
+     *
+     * @param latency 记录成功时的耗时 (可以为 null)
+     * @return 是否成功
+     */
+    private static boolean roundTrip(int port, LatencyHistogram latency) {
+        long start = System.nanoTime();
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("127.0.0.1", port), 5000);
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(5000);
+            socket.getOutputStream().write(1);
+            if (socket.getInputStream().read() != 1) {
+                throw new IllegalStateException("回显的数据不正确");
+            }
+            if (latency != null) {
+                latency.record(System.nanoTime() - start);
+            }
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.orainge.tools.port_forward.benchmark;
+
+import com.orainge.tools.port_forward.bean.PortForwardConnection;
+import com.orainge.tools.port_forward.consts.CloseReason;
+import com.orainge.tools.port_forward.consts.ConnectionPhase;
+import com.orainge.tools.port_forward.consts.HandlerOverflowPolicy;
+import com.orainge.tools.port_forward.consts.PortForwardEngine;
+import com.orainge.tools.port_forward.handler.ConnectionHandler;
+import com.orainge.tools.port_forward.handler.HandlerDispatcher;
+import com.orainge.tools.port_forward.jmh.ForwardFixture;
+import com.orainge.tools.port_forward.jmh.LoopbackTarget;
+import com.orainge.tools.port_forward.loadtest.LatencyHistogram;
+import com.orainge.tools.port_forward.server.PortForwardServer;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+/**
+ * Handler 事件分发基准测试<br>
+ * 使用每次执行耗时 handlerMicros 微秒的 Handler (模拟写数据库)，依次在同步执行和三种队列已满的处理策略下，
+ * 逐个建立连接并往返 1 个字节后关闭，测量建立连接到收到回显的耗时；结束后检查每个连接的事件顺序：<br>
+ * 1. 同步: 建立连接的耗时包括执行 Handler 的耗时 (作为对比)<br>
+ * 2. DROP / COALESCE: 建立连接的中位耗时小于执行一次 Handler 的耗时 (转发不等待 Handler)<br>
+ * 3. 所有方式: 同一个连接的事件按照 afterConnected、afterClosed 的顺序执行；同步和 BLOCK 时每个连接的事件都完整；
+ * 异步执行时所有 Handler 都在同一个分发线程中执行，等待执行的事件数不超过队列容量的 2 倍 (COALESCE 的暂存有上限)
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class HandlerDispatchBenchmark {
+    /**
+     * 允许丢弃事件时的合法事件序列 (C: 连接成功 E: 异常 X: 关闭)
+     */
+    private static final Pattern PARTIAL_SEQUENCE = Pattern.compile("C(E*X?)");
+
+    /**
+     * 完整的事件序列
+     */
+    private static final Pattern COMPLETE_SEQUENCE = Pattern.compile("CE*X");
+
+    /**
+     * 启动方法
+     *
+     * @param args [-e engine] 转发引擎 (BLOCKING / DIRECT / NIO，默认为 NIO)<br>
+     *             [-c connections] 每种方式建立的连接数 (默认为 500)<br>
+     *             [-d handlerMicros] 每次执行 Handler 的耗时 (微秒，默认为 5000)<br>
+     *             [-q capacity] 事件队列容量 (默认为 64)<br>
+     *             [-p port] 转发服务监听端口 (默认为 18095，每种方式依次加 1)
+     */
+    public static void main(String[] args) throws Exception {
+        PortForwardEngine engine = PortForwardEngine.NIO;
+        int connections = 500, capacity = 64, port = 18095;
+        long handlerMicros = 5000;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-e":
+                    engine = PortForwardEngine.valueOf(value.toUpperCase());
+                    break;
+                case "-c":
+                    connections = Integer.parseInt(value);
+                    break;
+                case "-d":
+                    handlerMicros = Long.parseLong(value);
+                    break;
+                case "-q":
+                    capacity = Integer.parseInt(value);
+                    break;
+                case "-p":
+                    port = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知的参数: " + args[i]);
+            }
+        }
+
+        // 启动回显的目标端口
+        LoopbackTarget target = LoopbackTarget.echo();
+
+        // null 代表同步执行
+        HandlerOverflowPolicy[] policies = {null, HandlerOverflowPolicy.DROP, HandlerOverflowPolicy.BLOCK, HandlerOverflowPolicy.COALESCE};
+        boolean ok = true;
+        long syncP50 = 0;
+        StringBuilder result = new StringBuilder();
+
+        for (int i = 0; i < policies.length; i++) {
+            HandlerOverflowPolicy policy = policies[i];
+            int listeningPort = port + i;
+            RecordingHandler handler = new RecordingHandler(handlerMicros);
+
+            PortForwardServer server = new PortForwardServer("127.0.0.1", listeningPort, "127.0.0.1", target.getPort()) {
+                @Override
+                protected ConnectionHandler initConnectionHandler() {
+                    return handler;
+                }
+            }.setEngine(engine).setJmxEnabled(false);
+            if (policy != null) {
+                server.setAsyncHandler(capacity, policy);
+            }
+            server.start();
+            ForwardFixture.waitForListening(listeningPort);
+
+            // 建立连接期间采样等待执行的事件数
+            HandlerDispatcher dispatcher = server.getHandlerDispatcher();
+            AtomicLong maxPending = new AtomicLong(0);
+            AtomicBoolean sampling = new AtomicBoolean(true);
+            Thread sampler = ForwardFixture.startDaemon(() -> {
+                while (sampling.get()) {
+                    maxPending.accumulateAndGet(dispatcher.getPendingCount(), Math::max);
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                }
+            }, "benchmark-pending-sampler");
+
+            LatencyHistogram latency = new LatencyHistogram();
+            int failed = run(listeningPort, connections, latency);
+            sampling.set(false);
+            sampler.join();
+
+            // 等待所有连接关闭、事件执行完成
+            ForwardFixture.waitUntil(() -> server.getConnectionCount() == 0);
+            boolean flushed = dispatcher.flush(60000);
+            // 连接移除后才写入关闭事件，BLOCK 时转发线程可能仍在等待写入，稍后再等待一次
+            Thread.sleep(100);
+            flushed &= dispatcher.flush(60000);
+            Map<String, Long> statistics = dispatcher.getStatistics();
+            server.stop();
+
+            // 检查事件顺序 (忽略等待转发服务启动时的探测连接)
+            int complete = 0, invalid = 0;
+            for (String sequence : handler.sequences.values()) {
+                if (COMPLETE_SEQUENCE.matcher(sequence).matches()) {
+                    complete++;
+                } else if (!dropsEvents(policy) || !PARTIAL_SEQUENCE.matcher(sequence).matches()) {
+                    invalid++;
+                }
+            }
+            boolean ordered = invalid == 0 && (policy == null || handler.threads.size() == 1);
+            boolean completed = dropsEvents(policy) || complete >= connections;
+            boolean bounded = maxPending.get() <= 2L * dispatcher.getCapacity();
+
+            LatencyHistogram.Snapshot snapshot = latency.snapshot();
+            long p50 = snapshot.getPercentile(0.5);
+            boolean fast = policy != HandlerOverflowPolicy.DROP && policy != HandlerOverflowPolicy.COALESCE || p50 < handlerMicros;
+            if (policy == null) {
+                syncP50 = p50;
+            }
+
+            String name = policy == null ? "SYNC" : policy.name();
+            System.out.printf("[Handler 事件分发] %s: 连接 %d 次, 失败 %d 次, p50 %d 微秒, p99 %d 微秒, 完整 %d 个, 顺序错误 %d 个, "
+                            + "执行线程 %d 个, 最多等待 %d 个事件, 统计 %s%n",
+                    name, connections, failed, p50, snapshot.getPercentile(0.99), complete, invalid, handler.threads.size(),
+                    maxPending.get(), statistics);
+
+            ok &= failed == 0 && flushed && ordered && completed && fast && bounded;
+            result.append(' ').append(name.toLowerCase()).append("P50Micros=").append(p50)
+                    .append(' ').append(name.toLowerCase()).append("Dropped=").append(statistics.get("DROPPED"));
+        }
+        target.close();
+
+        // 同步执行时建立连接需要等待 Handler
+        ok &= syncP50 >= handlerMicros;
+
+        // 机器可读的结果
+        System.out.printf("result engine=%s connections=%d handlerMicros=%d capacity=%d%s ok=%s%n",
+                engine, connections, handlerMicros, capacity, result, ok);
+        System.exit(ok ? 0 : 1);
+    }
+
+    /**
+     * 是否允许丢弃事件 (DROP，以及暂存已满的 COALESCE)
+     */
+    private static boolean dropsEvents(HandlerOverflowPolicy policy) {
+        return policy == HandlerOverflowPolicy.DROP || policy == HandlerOverflowPolicy.COALESCE;
+    }
+
+    /**
+     * 逐个建立连接，往返 1 个字节后关闭
+     *
+     * @return 失败次数
+     */
+    private static int run(int port, int connections, LatencyHistogram latency) {
+        int failed = 0;
+
+        for (int i = 0; i < connections; i++) {
+            long start = System.nanoTime();
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress("127.0.0.1", port), 5000);
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout(30000);
+                socket.getOutputStream().write(1);
+                if (socket.getInputStream().read() != 1) {
+                    throw new IllegalStateException("回显的数据不正确");
+                }
+                latency.record(System.nanoTime() - start);
+            } catch (Exception e) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * 记录每个连接的事件序列，每次执行耗时固定时间的 Handler
+     */
+    private static class RecordingHandler implements ConnectionHandler {
+        private final long handlerNanos;
+
+        /**
+         * {连接 ID: 事件序列}
+         */
+        final Map<String, String> sequences = new ConcurrentHashMap<>();
+
+        /**
+         * 执行 Handler 的线程名称
+         */
+        final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        RecordingHandler(long handlerMicros) {
+            this.handlerNanos = TimeUnit.MICROSECONDS.toNanos(handlerMicros);
+        }
+
+        @Override
+        public void afterConnected(PortForwardConnection connection) {
+            record(connection, "C");
+        }
+
+        @Override
+        public void afterClosed(PortForwardConnection connection) {
+            record(connection, "X");
+        }
+
+        @Override
+        public void afterClosed(PortForwardConnection connection, CloseReason reason) {
+            record(connection, "X");
+        }
+
+        @Override
+        public void onError(PortForwardConnection connection, Exception e) {
+        }
+
+        @Override
+        public void onError(PortForwardConnection connection, Exception e, ConnectionPhase phase) {
+            if (connection != null) {
+                record(connection, "E");
+            }
+        }
+
+        private void record(PortForwardConnection connection, String event) {
+            threads.add(Thread.currentThread().getName());
+            sequences.merge(connection.getConnectionId(), event, String::concat);
+
+            // 模拟较慢的 Handler
+            long deadline = System.nanoTime() + handlerNanos;
+            while (System.nanoTime() < deadline) {
+                LockSupport.parkNanos(deadline - System.nanoTime());
+            }
+        }
+    }
+}
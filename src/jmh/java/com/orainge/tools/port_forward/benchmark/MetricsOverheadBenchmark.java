@@ -0,0 +1,226 @@
+package com.orainge.tools.port_forward.benchmark;
+
+import com.orainge.tools.port_forward.bean.PortForwardConnection;
+import com.orainge.tools.port_forward.consts.PortForwardEngine;
+import com.orainge.tools.port_forward.consts.PortForwardType;
+import com.orainge.tools.port_forward.jmh.ForwardFixture;
+import com.orainge.tools.port_forward.jmh.LoopbackTarget;
+import com.orainge.tools.port_forward.server.PortForwardServer;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 指标开销基准测试<br>
+ * 分别在统计和不统计转发字节数的情况下，测量单字节往返的延迟和大块数据的吞吐量 (多轮交替执行，取最好的一轮)；
+ * 再取一个已建立的连接，在多个线程中循环调用每次读到数据时执行的 recordActivity，得到指标在每次读取上增加的纳秒数，
+ * 与开销预算 (默认 50 纳秒) 比较<br>
+ * 端到端的结果受系统调用和调度的影响波动较大，只作为参考输出，是否超出预算以每次读取增加的纳秒数为准
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class MetricsOverheadBenchmark {
+    /**
+     * 启动方法
+     *
+     * @param args [-e engine] 转发引擎 (BLOCKING / DIRECT / NIO，默认为 NIO)<br>
+     *             [-m messages] 每轮单字节往返的次数 (默认为 20000)<br>
+     *             [-s megabytes] 每轮吞吐量测试的数据量 (MB，默认为 256)<br>
+     *             [-r rounds] 轮数 (默认为 3)<br>
+     *             [-t threads] 测量每次读取开销的线程数 (默认为 2)<br>
+     *             [-b nanos] 每次读取的开销预算 (纳秒，默认为 50)<br>
+     *             [-p port] 转发服务监听端口 (默认为 18082，每次启动依次加 1)
+     */
+    public static void main(String[] args) throws Exception {
+        PortForwardEngine engine = PortForwardEngine.NIO;
+        int messages = 20000, megabytes = 256, rounds = 3, threads = 2, budgetNanos = 50, port = 18082;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-e":
+                    engine = PortForwardEngine.valueOf(value.toUpperCase());
+                    break;
+                case "-m":
+                    messages = Integer.parseInt(value);
+                    break;
+                case "-s":
+                    megabytes = Integer.parseInt(value);
+                    break;
+                case "-r":
+                    rounds = Integer.parseInt(value);
+                    break;
+                case "-t":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "-b":
+                    budgetNanos = Integer.parseInt(value);
+                    break;
+                case "-p":
+                    port = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知的参数: " + args[i]);
+            }
+        }
+
+        // 启动回显的目标端口
+        LoopbackTarget target = LoopbackTarget.echo();
+
+        // [0]: 不统计 [1]: 统计
+        double[] rttMicros = {Double.MAX_VALUE, Double.MAX_VALUE};
+        double[] throughput = {0, 0};
+        double[] recordNanos = {Double.MAX_VALUE, Double.MAX_VALUE};
+        int nextPort = port;
+
+        for (int round = 1; round <= rounds; round++) {
+            for (int step = 0; step < 2; step++) {
+                // 每轮交换两种情况的先后顺序，避免预热对先执行的一方不利
+                int mode = (round & 1) == 1 ? step : 1 - step;
+                PortForwardServer server = new PortForwardServer("127.0.0.1", nextPort, "127.0.0.1", target.getPort())
+                        .setEngine(engine)
+                        .setTrafficMetricsEnabled(mode == 1)
+                        .setJmxEnabled(false);
+                server.start();
+                ForwardFixture.waitForListening(nextPort);
+
+                double rtt = pingPong(nextPort, messages);
+                double mbps = bulk(nextPort, megabytes);
+                double nanos = recordActivity(server, nextPort, threads);
+                server.stop();
+
+                rttMicros[mode] = Math.min(rttMicros[mode], rtt);
+                throughput[mode] = Math.max(throughput[mode], mbps);
+                recordNanos[mode] = Math.min(recordNanos[mode], nanos);
+                System.out.printf("[指标开销] 第 %d 轮 [%s]: 往返 %.2f 微秒, 吞吐量 %.1f MB/s, 每次读取 %.1f 纳秒%n",
+                        round, mode == 1 ? "统计" : "不统计", rtt, mbps, nanos);
+                nextPort++;
+            }
+        }
+        target.close();
+
+        double metricsNanos = recordNanos[1] - recordNanos[0];
+        boolean ok = metricsNanos <= budgetNanos;
+
+        // 机器可读的结果
+        System.out.printf("result engine=%s rttOffMicros=%.2f rttOnMicros=%.2f rttOverheadPct=%.1f "
+                        + "mbpsOff=%.1f mbpsOn=%.1f throughputOverheadPct=%.1f "
+                        + "recordOffNanos=%.1f recordOnNanos=%.1f metricsNanos=%.1f budgetNanos=%d ok=%s%n",
+                engine, rttMicros[0], rttMicros[1], (rttMicros[1] / rttMicros[0] - 1) * 100,
+                throughput[0], throughput[1], (1 - throughput[1] / throughput[0]) * 100,
+                recordNanos[0], recordNanos[1], metricsNanos, budgetNanos, ok);
+        System.exit(ok ? 0 : 1);
+    }
+
+    /**
+     * 单字节往返 (每次读取只有 1 个字节，指标开销的占比最大)
+     *
+     * @return 平均往返时间 (微秒)
+     */
+    private static double pingPong(int port, int messages) throws Exception {
+        try (Socket socket = connect(port)) {
+            socket.setTcpNoDelay(true);
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+
+            // 预热
+            for (int i = 0; i < Math.min(messages, 2000); i++) {
+                out.write(1);
+                in.read();
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < messages; i++) {
+                out.write(1);
+                if (in.read() != 1) {
+                    throw new IllegalStateException("回显的数据不正确");
+                }
+            }
+            return (System.nanoTime() - start) / 1e3 / messages;
+        }
+    }
+
+    /**
+     * 大块数据的吞吐量 (一个线程写出，当前线程读回显的数据)
+     *
+     * @return 吞吐量 (MB/s)
+     */
+    private static double bulk(int port, int megabytes) throws Exception {
+        long total = (long) megabytes << 20;
+
+        try (Socket socket = connect(port)) {
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+
+            long start = System.nanoTime();
+            Thread writer = ForwardFixture.startDaemon(() -> {
+                byte[] buffer = new byte[64 * 1024];
+                try {
+                    for (long written = 0; written < total; written += buffer.length) {
+                        out.write(buffer, 0, (int) Math.min(buffer.length, total - written));
+                    }
+                } catch (Exception ignored) {
+                }
+            }, "benchmark-writer");
+
+            byte[] buffer = new byte[64 * 1024];
+            long read = 0;
+            int len;
+            while (read < total && (len = in.read(buffer)) > 0) {
+                read += len;
+            }
+            writer.join();
+            return read / 1048576d / ((System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    /**
+     * 在多个线程中循环调用一个已建立连接的 recordActivity
+     *
+     * @return 每次调用的平均耗时 (纳秒，按线程数折算为单个线程的耗时)
+     */
+    private static double recordActivity(PortForwardServer server, int port, int threads) throws Exception {
+        int iterations = 20_000_000;
+
+        try (Socket socket = connect(port)) {
+            socket.getOutputStream().write(1);
+            socket.getInputStream().read();
+            PortForwardConnection connection = server.getConnections().get(0);
+
+            // 预热
+            for (int i = 0; i < iterations / 10; i++) {
+                connection.recordActivity((i & 1) == 0 ? PortForwardType.CLIENT_TO_TARGET : PortForwardType.TARGET_TO_CLIENT, 1);
+            }
+
+            List<Thread> workers = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                // 各线程分别模拟两个转发方向
+                PortForwardType type = (t & 1) == 0 ? PortForwardType.CLIENT_TO_TARGET : PortForwardType.TARGET_TO_CLIENT;
+                workers.add(ForwardFixture.startDaemon(() -> {
+                    for (int i = 0; i < iterations; i++) {
+                        connection.recordActivity(type, 1);
+                    }
+                }, "benchmark-record-" + t));
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+
+            int cpus = Runtime.getRuntime().availableProcessors();
+            return (System.nanoTime() - start) * (double) Math.min(threads, cpus) / threads / iterations;
+        }
+    }
+
+    private static Socket connect(int port) throws Exception {
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress("127.0.0.1", port), 5000);
+        socket.setSoTimeout(30000);
+        return socket;
+    }
+}
@@ -0,0 +1,68 @@
+package com.orainge.tools.port_forward.jmh;
+
+import com.orainge.tools.port_forward.consts.PortForwardEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 建连速率基准测试<br>
+ * 每次操作连接转发服务，读到目标端口写出的 1 个字节后关闭 (客户端发送 RST，避免端口处于 TIME_WAIT 被耗尽)，
+ * 结果的 ops/s 即每秒完成的连接数；可以用 -t 指定并发的客户端线程数
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configuration=log4j-jmh.properties")
+@State(Scope.Benchmark)
+public class ConnectionSetupBenchmark {
+    @Param({"BLOCKING", "DIRECT", "NIO"})
+    public PortForwardEngine engine;
+
+    private ForwardFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        fixture = new ForwardFixture(engine, LoopbackTarget.greeting());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    /**
+     * 每个基准测试线程的读缓冲区
+     */
+    @State(Scope.Thread)
+    public static class Client {
+        private final byte[] buffer = new byte[1];
+    }
+
+    @Benchmark
+    public int connect(Client client) throws IOException {
+        try (Socket socket = fixture.connect()) {
+            socket.setSoLinger(true, 0);
+            ForwardFixture.readFully(socket.getInputStream(), client.buffer, 1);
+            return client.buffer[0];
+        }
+    }
+}
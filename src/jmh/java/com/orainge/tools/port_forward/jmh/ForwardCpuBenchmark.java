@@ -0,0 +1,189 @@
+package com.orainge.tools.port_forward.jmh;
+
+import com.orainge.tools.port_forward.consts.PortForwardEngine;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 转发 CPU 开销基准测试<br>
+ * 通过一个连接持续向目标端口写出大数据块 (目标端口丢弃数据，每收满一个数据块回复 1 个字节)，
+ * 统计转发服务的线程 (转发线程、事件循环等) 消耗的 CPU 时间，用于比较 BLOCKING (字节数组复制) 和 DIRECT (直接缓冲区) 的开销，NIO 作为参考<br>
+ * 结果中的 cpuMillis 和 forwardedMB 为所有测量迭代的合计，每个参数组合结束时输出每转发 1 GB 数据消耗的 CPU 秒数
+ * (result ... cpuSecondsPerGB=...，JMH 转发的子进程输出不保证编码，所以只输出 ASCII)<br>
+ * CPU 时间由 ThreadMXBean 按线程统计，不包括基准测试线程 (客户端) 和目标端口的线程；只在单个基准测试线程 (默认的 -t 1) 时有意义
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 4)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configuration=log4j-jmh.properties")
+@State(Scope.Benchmark)
+public class ForwardCpuBenchmark {
+    /**
+     * 目标端口的线程名称前缀 (见 {@link LoopbackTarget})
+     */
+    private static final String TARGET_THREAD_PREFIX = "jmh-target";
+
+    @Param({"BLOCKING", "DIRECT", "NIO"})
+    public PortForwardEngine engine;
+
+    @Param({"65536", "1048576"})
+    public int payloadSize;
+
+    private ForwardFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        fixture = new ForwardFixture(engine, LoopbackTarget.sink(payloadSize));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    /**
+     * 每个基准测试线程使用一个连接
+     */
+    @State(Scope.Thread)
+    public static class Client {
+        private Socket socket;
+
+        private InputStream in;
+
+        private OutputStream out;
+
+        private byte[] payload;
+
+        private final byte[] ack = new byte[1];
+
+        @Setup(Level.Trial)
+        public void setup(ForwardCpuBenchmark benchmark) throws IOException {
+            socket = benchmark.fixture.connect();
+            in = socket.getInputStream();
+            out = socket.getOutputStream();
+            payload = new byte[benchmark.payloadSize];
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            socket.close();
+        }
+    }
+
+    /**
+     * CPU 时间统计<br>
+     * JMH 将 EVENTS 类型的计数按迭代累加，所以只输出累计的 CPU 时间和转发的数据量，比值在结束时计算
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CpuTime {
+        /**
+         * 本次迭代转发服务消耗的 CPU 毫秒数
+         */
+        public double cpuMillis;
+
+        /**
+         * 本次迭代转发的 MB 数
+         */
+        public double forwardedMB;
+
+        private long forwardedBytes;
+
+        private long startCpuNanos;
+
+        private long clientThreadId;
+
+        private boolean measuring;
+
+        /**
+         * 所有测量迭代合计的 CPU 纳秒数和转发的字节数
+         */
+        private long totalCpuNanos, totalForwardedBytes;
+
+        @Setup(Level.Iteration)
+        public void start(IterationParams params) {
+            // 迭代的 Setup 在基准测试线程中执行
+            clientThreadId = Thread.currentThread().getId();
+            measuring = params.getType() == IterationType.MEASUREMENT;
+            forwardedBytes = 0;
+            startCpuNanos = forwarderCpuNanos(clientThreadId);
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop() {
+            long cpuNanos = forwarderCpuNanos(clientThreadId) - startCpuNanos;
+            cpuMillis = cpuNanos / 1e6;
+            forwardedMB = forwardedBytes / 1048576d;
+            if (measuring) {
+                totalCpuNanos += cpuNanos;
+                totalForwardedBytes += forwardedBytes;
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void report(ForwardCpuBenchmark benchmark) {
+            double cpuSecondsPerGB = totalForwardedBytes == 0 ? 0 : totalCpuNanos / 1e9 * (1L << 30) / totalForwardedBytes;
+            System.out.printf("%nresult engine=%s payloadSize=%d forwardedMB=%d cpuSecondsPerGB=%.3f%n",
+                    benchmark.engine, benchmark.payloadSize, totalForwardedBytes >> 20, cpuSecondsPerGB);
+        }
+
+        /**
+         * 获取转发服务的存活线程累计消耗的 CPU 时间 (纳秒)
+         *
+         * @param clientThreadId 基准测试线程的 ID (不计入)
+         */
+        private static long forwarderCpuNanos(long clientThreadId) {
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            if (!threadMXBean.isThreadCpuTimeEnabled()) {
+                threadMXBean.setThreadCpuTimeEnabled(true);
+            }
+
+            long total = 0;
+            for (ThreadInfo info : threadMXBean.getThreadInfo(threadMXBean.getAllThreadIds())) {
+                if (info == null || info.getThreadId() == clientThreadId || info.getThreadName().startsWith(TARGET_THREAD_PREFIX)) {
+                    continue;
+                }
+                long nanos = threadMXBean.getThreadCpuTime(info.getThreadId());
+                if (nanos > 0) {
+                    total += nanos;
+                }
+            }
+            return total;
+        }
+    }
+
+    @Benchmark
+    public int forward(Client client, CpuTime cpuTime) throws IOException {
+        client.out.write(client.payload);
+        ForwardFixture.readFully(client.in, client.ack, 1);
+        cpuTime.forwardedBytes += client.payload.length;
+        return client.ack[0];
+    }
+}
@@ -0,0 +1,139 @@
+package com.orainge.tools.port_forward.jmh;
+
+import com.orainge.tools.port_forward.consts.PortForwardEngine;
+import com.orainge.tools.port_forward.server.PortForwardServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 基准测试使用的进程内端口转发服务<br>
+ * 在本机的空闲端口上启动转发到 {@link LoopbackTarget} 的 PortForwardServer，不注册 MBean；
+ * 静态方法供 JMH 基准测试、benchmark 和 loadtest 包下的测试程序共用
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class ForwardFixture implements Closeable {
+    private final LoopbackTarget target;
+
+    private final PortForwardServer server;
+
+    private final int port;
+
+    /**
+     * 启动端口转发服务 (等待开始监听后返回)
+     *
+     * @param engine 转发引擎
+     * @param target 转发的目标端口 (关闭转发服务时一起关闭)
+     */
+    public ForwardFixture(PortForwardEngine engine, LoopbackTarget target) throws IOException, InterruptedException {
+        this.target = target;
+        this.port = freePort();
+        this.server = new PortForwardServer("127.0.0.1", port, "127.0.0.1", target.getPort())
+                .setEngine(engine)
+                .setBacklog(4096)
+                .setJmxEnabled(false);
+        server.start();
+        waitForListening(port);
+    }
+
+    /**
+     * 连接转发服务
+     */
+    public Socket connect() throws IOException {
+        Socket socket = new Socket();
+        socket.setTcpNoDelay(true);
+        socket.connect(new InetSocketAddress("127.0.0.1", port), 5000);
+        socket.setSoTimeout(30000);
+        return socket;
+    }
+
+    public PortForwardServer getServer() {
+        return server;
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.stop();
+        target.close();
+    }
+
+    /**
+     * 读满指定长度的数据
+     */
+    public static void readFully(InputStream in, byte[] buffer, int length) throws IOException {
+        int read = 0;
+        while (read < length) {
+            int len = in.read(buffer, read, length - read);
+            if (len < 0) {
+                throw new IOException("连接已关闭");
+            }
+            read += len;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * 等待本机 (127.0.0.1) 的转发服务开始监听 (最多 5 秒)
+     *
+     * @param port 监听端口
+     */
+    public static void waitForListening(int port) throws InterruptedException {
+        waitForListening("127.0.0.1", port);
+    }
+
+    /**
+     * 等待转发服务开始监听 (最多 5 秒)
+     *
+     * @param host 监听地址
+     * @param port 监听端口
+     */
+    public static void waitForListening(String host, int port) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            try (Socket socket = new Socket()) {
+                socket.setSoLinger(true, 0);
+                socket.connect(new InetSocketAddress(host, port), 100);
+                return;
+            } catch (IOException e) {
+                Thread.sleep(50);
+            }
+        }
+        throw new IllegalStateException("转发服务未启动");
+    }
+
+    /**
+     * 等待条件成立 (最多 10 秒)
+     *
+     * @return 条件是否成立
+     */
+    public static boolean waitUntil(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return condition.getAsBoolean();
+    }
+
+    /**
+     * 启动守护线程
+     */
+    public static Thread startDaemon(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+}
@@ -0,0 +1,139 @@
+package com.orainge.tools.port_forward.jmh;
+
+import com.orainge.tools.port_forward.consts.PortForwardEngine;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 转发吞吐量基准测试<br>
+ * 每次操作通过转发服务向目标端口写出一个指定大小的数据块，目标端口收满后回复 1 个字节；
+ * 吞吐量 (字节/秒) = 结果的 ops/s * payloadSize<br>
+ * 同时统计每转发 1 MB 数据时整个进程 (包括转发线程和事件循环) 在堆上分配的字节数 (allocatedBytesPerMB)，
+ * 只在单个基准测试线程 (默认的 -t 1) 时有意义
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configuration=log4j-jmh.properties")
+@State(Scope.Benchmark)
+public class ForwardThroughputBenchmark {
+    @Param({"BLOCKING", "DIRECT", "NIO"})
+    public PortForwardEngine engine;
+
+    @Param({"64", "1024", "16384", "65536", "1048576"})
+    public int payloadSize;
+
+    private ForwardFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        fixture = new ForwardFixture(engine, LoopbackTarget.sink(payloadSize));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+    }
+
+    /**
+     * 每个基准测试线程使用一个连接
+     */
+    @State(Scope.Thread)
+    public static class Client {
+        private Socket socket;
+
+        private InputStream in;
+
+        private OutputStream out;
+
+        private byte[] payload;
+
+        private final byte[] ack = new byte[1];
+
+        @Setup(Level.Trial)
+        public void setup(ForwardThroughputBenchmark benchmark) throws IOException {
+            socket = benchmark.fixture.connect();
+            in = socket.getInputStream();
+            out = socket.getOutputStream();
+            payload = new byte[benchmark.payloadSize];
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            socket.close();
+        }
+    }
+
+    /**
+     * 堆内存分配统计 (每次测量迭代结束时计算)
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Allocation {
+        /**
+         * 每转发 1 MB 数据分配的字节数
+         */
+        public double allocatedBytesPerMB;
+
+        private long forwardedBytes;
+
+        private long startAllocatedBytes;
+
+        @Setup(Level.Iteration)
+        public void start() {
+            forwardedBytes = 0;
+            startAllocatedBytes = totalAllocatedBytes();
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop() {
+            long allocated = totalAllocatedBytes() - startAllocatedBytes;
+            allocatedBytesPerMB = forwardedBytes == 0 ? 0 : allocated * 1048576d / forwardedBytes;
+        }
+
+        /**
+         * 获取所有存活线程累计分配的字节数 (已结束的线程不计入)
+         */
+        private static long totalAllocatedBytes() {
+            com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long total = 0;
+            for (long bytes : threadMXBean.getThreadAllocatedBytes(threadMXBean.getAllThreadIds())) {
+                if (bytes > 0) {
+                    total += bytes;
+                }
+            }
+            return total;
+        }
+    }
+
+    @Benchmark
+    public int forward(Client client, Allocation allocation) throws IOException {
+        client.out.write(client.payload);
+        ForwardFixture.readFully(client.in, client.ack, 1);
+        allocation.forwardedBytes += client.payload.length;
+        return client.ack[0];
+    }
+}
@@ -0,0 +1,167 @@
+package com.orainge.tools.port_forward.jmh;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基准测试使用的本机目标端口<br>
+ * 支持三种行为：回显收到的数据、收满指定字节数后回复 1 个字节 (每个连接由一个守护线程处理)、
+ * 建立连接后写出 1 个字节并关闭 (在接收连接的线程中直接处理，避免为短连接创建线程影响建连速率)<br>
+ * 默认监听 127.0.0.1，也可以在多个回环地址上监听同一个端口 (按连接的本地地址统计连接数，用于检查转发使用的解析结果)
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class LoopbackTarget implements Closeable {
+    /**
+     * 目标端口的行为
+     */
+    private interface Behavior {
+        void handle(Socket socket) throws IOException;
+    }
+
+    private static final String DEFAULT_HOST = "127.0.0.1";
+
+    /**
+     * 每个监听地址一个 ServerSocket (端口相同)
+     */
+    private final List<ServerSocket> serverSockets = new ArrayList<>();
+
+    /**
+     * {连接的本地地址: 连接数}
+     */
+    private final Map<String, LongAdder> acceptedCounts = new ConcurrentHashMap<>();
+
+    /**
+     * @param behavior 目标端口的行为
+     * @param inline   是否在接收连接的线程中直接处理 (只适用于不会阻塞的行为)
+     * @param hosts    监听的回环地址 (为空时监听 127.0.0.1)
+     */
+    private LoopbackTarget(Behavior behavior, boolean inline, String... hosts) throws IOException {
+        int port = 0;
+
+        try {
+            for (String host : hosts.length == 0 ? new String[]{DEFAULT_HOST} : hosts) {
+                ServerSocket serverSocket = new ServerSocket();
+                serverSockets.add(serverSocket);
+                serverSocket.bind(new InetSocketAddress(host, port), 4096);
+                port = serverSocket.getLocalPort();
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+
+        for (ServerSocket serverSocket : serverSockets) {
+            ForwardFixture.startDaemon(() -> accept(serverSocket, behavior, inline), "jmh-target");
+        }
+    }
+
+    private void accept(ServerSocket serverSocket, Behavior behavior, boolean inline) {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                acceptedCounts.computeIfAbsent(socket.getLocalAddress().getHostAddress(), k -> new LongAdder()).increment();
+                if (inline) {
+                    handle(socket, behavior);
+                } else {
+                    ForwardFixture.startDaemon(() -> handle(socket, behavior), "jmh-target-connection");
+                }
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static void handle(Socket socket, Behavior behavior) {
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true);
+            behavior.handle(s);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * 回显收到的数据
+     *
+     * @param hosts 监听的回环地址 (为空时监听 127.0.0.1)
+     */
+    public static LoopbackTarget echo(String... hosts) throws IOException {
+        return new LoopbackTarget(socket -> {
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            byte[] buffer = new byte[64 * 1024];
+            int len;
+            while ((len = in.read(buffer)) > 0) {
+                out.write(buffer, 0, len);
+            }
+        }, false, hosts);
+    }
+
+    /**
+     * 丢弃收到的数据，每收满指定的字节数回复 1 个字节
+     *
+     * @param ackBytes 每次回复前需要收到的字节数
+     */
+    public static LoopbackTarget sink(int ackBytes) throws IOException {
+        return new LoopbackTarget(socket -> {
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            byte[] buffer = new byte[64 * 1024];
+            long received = 0;
+            int len;
+            while ((len = in.read(buffer)) > 0) {
+                received += len;
+                while (received >= ackBytes) {
+                    received -= ackBytes;
+                    out.write(1);
+                }
+            }
+        }, false);
+    }
+
+    /**
+     * 建立连接后写出 1 个字节并关闭
+     */
+    public static LoopbackTarget greeting() throws IOException {
+        return new LoopbackTarget(socket -> socket.getOutputStream().write(1), true);
+    }
+
+    public int getPort() {
+        return serverSockets.get(0).getLocalPort();
+    }
+
+    /**
+     * 获取按连接的本地地址统计的连接数<br>
+     * {本地地址: 连接数}
+     */
+    public Map<String, Long> getAcceptedCounts() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        acceptedCounts.forEach((address, count) -> result.put(address, count.sum()));
+        return result;
+    }
+
+    /**
+     * 清空按本地地址统计的连接数
+     */
+    public void resetAcceptedCounts() {
+        acceptedCounts.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (ServerSocket serverSocket : serverSockets) {
+            serverSocket.close();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.orainge.tools.port_forward.jmh;
+
+import com.orainge.tools.port_forward.consts.PortForwardEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 往返延迟基准测试<br>
+ * 每次操作通过转发服务向回显的目标端口写出一条消息并读回，按采样模式输出延迟的分位数 (p50、p90、p99、p99.9 等)
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configuration=log4j-jmh.properties")
+@State(Scope.Thread)
+public class RoundTripLatencyBenchmark {
+    @Param({"BLOCKING", "DIRECT", "NIO"})
+    public PortForwardEngine engine;
+
+    @Param({"64", "4096"})
+    public int messageSize;
+
+    private ForwardFixture fixture;
+
+    private Socket socket;
+
+    private InputStream in;
+
+    private OutputStream out;
+
+    private byte[] message;
+
+    private byte[] response;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        fixture = new ForwardFixture(engine, LoopbackTarget.echo());
+        socket = fixture.connect();
+        in = socket.getInputStream();
+        out = socket.getOutputStream();
+        message = new byte[messageSize];
+        response = new byte[messageSize];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        socket.close();
+        fixture.close();
+    }
+
+    @Benchmark
+    public byte[] roundTrip() throws IOException {
+        out.write(message);
+        ForwardFixture.readFully(in, response, messageSize);
+        return response;
+    }
+}
@@ -0,0 +1,97 @@
+package com.orainge.tools.port_forward.loadtest;
+
+import com.orainge.tools.port_forward.metrics.RuleMetrics;
+
+import javax.management.MBeanServerConnection;
+import javax.management.ObjectName;
+import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
+import javax.management.remote.JMXServiceURL;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * 转发服务的资源探针<br>
+ * 通过 JMX 读取转发服务进程的堆内存、线程数和已建立的连接数 (所有转发规则的 ActiveConnections 之和)；
+ * 可以读取远程进程 (转发服务需要开启 com.sun.management.jmxremote) 或当前进程 (嵌入运行转发服务时)
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class ForwarderProbe implements Closeable {
+    private final JMXConnector connector;
+
+    private final MBeanServerConnection connection;
+
+    private final MemoryMXBean memoryMXBean;
+
+    private final ThreadMXBean threadMXBean;
+
+    private final ObjectName rulePattern;
+
+    private ForwarderProbe(JMXConnector connector, MBeanServerConnection connection) throws IOException {
+        this.connector = connector;
+        this.connection = connection;
+        this.memoryMXBean = ManagementFactory.newPlatformMXBeanProxy(connection, ManagementFactory.MEMORY_MXBEAN_NAME, MemoryMXBean.class);
+        this.threadMXBean = ManagementFactory.newPlatformMXBeanProxy(connection, ManagementFactory.THREAD_MXBEAN_NAME, ThreadMXBean.class);
+
+        try {
+            this.rulePattern = new ObjectName(RuleMetrics.JMX_DOMAIN + ":type=Rule,*");
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 读取当前进程
+     */
+    public static ForwarderProbe local() throws IOException {
+        return new ForwarderProbe(null, ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * 读取远程进程
+     *
+     * @param address JMX 地址 (host:port)
+     */
+    public static ForwarderProbe remote(String address) throws IOException {
+        JMXServiceURL url = new JMXServiceURL("service:jmx:rmi:///jndi/rmi://" + address + "/jmxrmi");
+        JMXConnector connector = JMXConnectorFactory.connect(url);
+        return new ForwarderProbe(connector, connector.getMBeanServerConnection());
+    }
+
+    /**
+     * 获取已使用的堆内存 (字节)
+     */
+    public long getHeapUsed() {
+        return memoryMXBean.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * 获取线程数
+     */
+    public int getThreadCount() {
+        return threadMXBean.getThreadCount();
+    }
+
+    /**
+     * 获取所有转发规则已建立的连接数 (未注册 MBean 时返回 -1)
+     */
+    public long getForwarderConnections() throws Exception {
+        long total = -1;
+        for (ObjectName name : connection.queryNames(rulePattern, null)) {
+            total = Math.max(total, 0) + ((Number) connection.getAttribute(name, "ActiveConnections")).longValue();
+        }
+        return total;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (connector != null) {
+            connector.close();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.orainge.tools.port_forward.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 延迟直方图<br>
+ * 以微秒为单位记录延迟，32 微秒以下每个值一个桶，之后每个 2 的幂区间分为 16 个桶 (相对误差约 3%)；
+ * 记录时只增加一个桶的计数，多个事件循环线程可以同时记录，不需要加锁<br>
+ * 通过两次快照相减可以得到一个时间段内的分位数
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class LatencyHistogram {
+    /**
+     * 每个 2 的幂区间的桶数 (2 的 SUB_BUCKET_BITS 次方)
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * 小于此值 (微秒) 的延迟每个值一个桶
+     */
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+
+    /**
+     * LINEAR_LIMIT 对应的指数 (log2)
+     */
+    private static final int LINEAR_EXPONENT = SUB_BUCKET_BITS + 1;
+
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (63 - LINEAR_EXPONENT) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * 记录一次延迟
+     *
+     * @param nanos 延迟 (纳秒)
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(indexOf(Math.max(nanos / 1000, 0)));
+    }
+
+    /**
+     * 获取当前所有桶计数的快照
+     */
+    public Snapshot snapshot() {
+        long[] values = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            values[i] = counts.get(i);
+        }
+        return new Snapshot(values);
+    }
+
+    private static int indexOf(long micros) {
+        if (micros < LINEAR_LIMIT) {
+            return (int) micros;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - LINEAR_EXPONENT) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * 桶代表的延迟 (桶的中间值，微秒)
+     */
+    private static long valueOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+
+        int exponent = (index - LINEAR_LIMIT) / SUB_BUCKETS + LINEAR_EXPONENT;
+        int subBucket = (index - LINEAR_LIMIT) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + subBucket * width + width / 2;
+    }
+
+    /**
+     * 直方图的快照
+     */
+    public static class Snapshot {
+        private final long[] counts;
+
+        private final long total;
+
+        private Snapshot(long[] counts) {
+            this.counts = counts;
+
+            long sum = 0;
+            for (long count : counts) {
+                sum += count;
+            }
+            this.total = sum;
+        }
+
+        /**
+         * 与之前的快照相减，得到两次快照之间记录的延迟
+         *
+         * @param previous 之前的快照
+         */
+        public Snapshot minus(Snapshot previous) {
+            long[] values = new long[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                values[i] = counts[i] - previous.counts[i];
+            }
+            return new Snapshot(values);
+        }
+
+        /**
+         * 获取记录的次数
+         */
+        public long getCount() {
+            return total;
+        }
+
+        /**
+         * 获取分位数 (微秒，没有记录时返回 0)
+         *
+         * @param quantile 分位 (0 ~ 1，如 0.99)
+         */
+        public long getPercentile(double quantile) {
+            if (total == 0) {
+                return 0;
+            }
+
+            long rank = Math.max((long) Math.ceil(quantile * total), 1);
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= rank) {
+                    return valueOf(i);
+                }
+            }
+            return getMax();
+        }
+
+        /**
+         * 获取最大值 (微秒，没有记录时返回 0)
+         */
+        public long getMax() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] > 0) {
+                    return valueOf(i);
+                }
+            }
+            return 0;
+        }
+    }
+}
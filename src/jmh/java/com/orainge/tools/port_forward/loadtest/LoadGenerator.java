@@ -0,0 +1,819 @@
+package com.orainge.tools.port_forward.loadtest;
+
+import com.orainge.tools.port_forward.consts.PortForwardEngine;
+import com.orainge.tools.port_forward.jmh.ForwardFixture;
+import com.orainge.tools.port_forward.nio.NioChannelHandler;
+import com.orainge.tools.port_forward.nio.NioEventLoop;
+import com.orainge.tools.port_forward.nio.NioEventLoopGroup;
+import com.orainge.tools.port_forward.server.PortForwardServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 负载生成器<br>
+ * 在 NIO 事件循环中保持大量到转发服务的连接 (可以达到 10 万级别)，按比例混合四种负载：<br>
+ * INTERACTIVE: 发送一条消息，收到完整的回显后记录往返延迟，等待思考时间后发送下一条<br>
+ * BULK: 持续写出大块数据，并读走所有返回的数据<br>
+ * CHURN: 建立连接，完成一次往返后关闭 (发送 RST)，立即重新连接，记录 [建立连接 + 第一次往返] 的延迟<br>
+ * SLOW: 每 100 毫秒写出 4 KB，但每秒只读取指定的字节数 (慢速消费者，考验转发服务的背压)<br>
+ * 目标端口应为回显服务 (如 {@link LoadTarget} 的 ECHO 或 DELAY 模式)；连接异常断开后等待 1 秒重新连接，保持并发连接数<br>
+ * 每个统计间隔输出一行 sample，结束时输出一行 result，均为 key=value 格式，便于比较不同的运行结果
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class LoadGenerator {
+    /**
+     * 每个事件循环线程共用的读缓冲区
+     */
+    private static final ThreadLocal<ByteBuffer> READ_BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(64 * 1024));
+
+    /**
+     * 连接异常断开或连接失败后，重新连接前的等待时间 (毫秒)
+     */
+    private static final long RECONNECT_DELAY_MILLIS = 1000;
+
+    /**
+     * 慢速消费者写出和读取的周期 (毫秒)
+     */
+    private static final long SLOW_TICK_MILLIS = 100;
+
+    /**
+     * 慢速消费者每个周期写出的字节数
+     */
+    private static final int SLOW_WRITE_BYTES = 4096;
+
+    /**
+     * 负载的类型
+     */
+    public enum Workload {
+        INTERACTIVE, BULK, CHURN, SLOW
+    }
+
+    private final InetSocketAddress address;
+
+    private final List<InetAddress> sourceAddresses;
+
+    private final long timeoutMillis;
+
+    private final long thinkMillis;
+
+    private final int slowReadBytesPerSecond;
+
+    /**
+     * 交互消息 (只读，每次发送时复制位置)
+     */
+    private final ByteBuffer message;
+
+    /**
+     * 大块数据 (只读)
+     */
+    private final ByteBuffer chunk;
+
+    private final ByteBuffer slowChunk = ByteBuffer.allocateDirect(SLOW_WRITE_BYTES).asReadOnlyBuffer();
+
+    private final NioEventLoopGroup eventLoopGroup;
+
+    private volatile boolean running = true;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final LatencyHistogram churnLatency = new LatencyHistogram();
+
+    private final LongAdder operations = new LongAdder();
+
+    private final LongAdder churnOperations = new LongAdder();
+
+    private final LongAdder sentBytes = new LongAdder();
+
+    private final LongAdder receivedBytes = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder connectErrors = new LongAdder();
+
+    private final LongAdder timeouts = new LongAdder();
+
+    private final LongAdder opened = new LongAdder();
+
+    private final LongAdder closed = new LongAdder();
+
+    private final AtomicInteger established = new AtomicInteger(0);
+
+    /**
+     * 启动方法
+     *
+     * @param args [-h host] 转发服务地址 (默认为 127.0.0.1)<br>
+     *             [-p port] 转发服务端口 (默认为 18080)<br>
+     *             [-c connections] 并发连接数 (默认为 1000)<br>
+     *             [-mix i:b:c:s] INTERACTIVE / BULK / CHURN / SLOW 连接数的比例 (默认为 70:10:15:5)<br>
+     *             [-ms bytes] 交互消息的大小 (默认为 64)<br>
+     *             [-think millis] 交互连接的思考时间 (毫秒，默认为 100)<br>
+     *             [-bs bytes] 大块数据每次写出的大小 (默认为 65536)<br>
+     *             [-slow bytes] 慢速消费者每秒读取的字节数 (默认为 8192)<br>
+     *             [-timeout millis] 等待回显的超时时间 (毫秒，默认为 10000)<br>
+     *             [-ramp connections] 每秒新建的连接数 (默认为 2000)<br>
+     *             [-src ip,ip] 客户端绑定的本机 IP (轮流使用，突破单个 IP 的临时端口数量限制)<br>
+     *             [-io threads] 事件循环线程数 (默认为 CPU 核数)<br>
+     *             [-d seconds] 测试时长 (秒，默认为 60)<br>
+     *             [-i seconds] 统计间隔 (秒，默认为 5)<br>
+     *             [-jmx host:port] 转发服务的 JMX 地址 (用于读取转发服务的堆内存和线程数)<br>
+     *             [-e engine] 在当前进程中启动转发服务 (监听 -p 端口)，使用指定的转发引擎<br>
+     *             [-dh ip] 嵌入的转发服务的目标 IP (默认为 127.0.0.1)<br>
+     *             [-dp port] 嵌入的转发服务的目标端口 (不指定时在当前进程中启动 LoadTarget)<br>
+     *             [-tm mode] 当前进程中的 LoadTarget 的模式 (ECHO / DELAY，默认为 ECHO)<br>
+     *             [-td millis] 当前进程中的 LoadTarget 的回显延迟 (毫秒，默认为 50)
+     */
+    public static void main(String[] args) throws Exception {
+        String host = "127.0.0.1", jmx = null, targetHost = "127.0.0.1", mix = "70:10:15:5", sources = null;
+        int port = 18080, connections = 1000, messageSize = 64, bulkSize = 65536, slowBytes = 8192, ramp = 2000;
+        int ioThreads = Runtime.getRuntime().availableProcessors(), seconds = 60, interval = 5;
+        long thinkMillis = 100, timeoutMillis = 10000, targetDelayMillis = 50;
+        Integer targetPort = null;
+        PortForwardEngine engine = null;
+        LoadTarget.Mode targetMode = LoadTarget.Mode.ECHO;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-h":
+                    host = value;
+                    break;
+                case "-p":
+                    port = Integer.parseInt(value);
+                    break;
+                case "-c":
+                    connections = Integer.parseInt(value);
+                    break;
+                case "-mix":
+                    mix = value;
+                    break;
+                case "-ms":
+                    messageSize = Integer.parseInt(value);
+                    break;
+                case "-think":
+                    thinkMillis = Long.parseLong(value);
+                    break;
+                case "-bs":
+                    bulkSize = Integer.parseInt(value);
+                    break;
+                case "-slow":
+                    slowBytes = Integer.parseInt(value);
+                    break;
+                case "-timeout":
+                    timeoutMillis = Long.parseLong(value);
+                    break;
+                case "-ramp":
+                    ramp = Integer.parseInt(value);
+                    break;
+                case "-src":
+                    sources = value;
+                    break;
+                case "-io":
+                    ioThreads = Integer.parseInt(value);
+                    break;
+                case "-d":
+                    seconds = Integer.parseInt(value);
+                    break;
+                case "-i":
+                    interval = Integer.parseInt(value);
+                    break;
+                case "-jmx":
+                    jmx = value;
+                    break;
+                case "-e":
+                    engine = PortForwardEngine.valueOf(value.toUpperCase());
+                    break;
+                case "-dh":
+                    targetHost = value;
+                    break;
+                case "-dp":
+                    targetPort = Integer.parseInt(value);
+                    break;
+                case "-tm":
+                    targetMode = LoadTarget.Mode.valueOf(value.toUpperCase());
+                    break;
+                case "-td":
+                    targetDelayMillis = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知的参数: " + args[i]);
+            }
+        }
+
+        int[] weights = parseMix(mix);
+        List<InetAddress> sourceAddresses = new ArrayList<>();
+        if (sources != null) {
+            for (String source : sources.split(",")) {
+                sourceAddresses.add(InetAddress.getByName(source.trim()));
+            }
+        }
+
+        // 嵌入运行转发服务 (和目标端口)
+        LoadTarget target = null;
+        PortForwardServer server = null;
+        if (engine != null) {
+            if (targetPort == null) {
+                target = new LoadTarget("127.0.0.1", 0, targetMode, targetDelayMillis, ioThreads, 4096);
+                target.start();
+                targetPort = target.getPort();
+            }
+            server = new PortForwardServer(host, port, targetHost, targetPort)
+                    .setEngine(engine)
+                    .setBacklog(4096);
+            server.start();
+            ForwardFixture.waitForListening(host, port);
+        }
+
+        ForwarderProbe probe = null;
+        if (jmx != null) {
+            probe = ForwarderProbe.remote(jmx);
+        } else if (server != null) {
+            probe = ForwarderProbe.local();
+        }
+
+        System.out.printf("config host=%s port=%d connections=%d mix=%s messageSize=%d thinkMillis=%d bulkSize=%d "
+                        + "slowBytes=%d ramp=%d sources=%d ioThreads=%d seconds=%d interval=%d engine=%s probe=%s%n",
+                host, port, connections, mix, messageSize, thinkMillis, bulkSize, slowBytes, ramp,
+                Math.max(sourceAddresses.size(), 1), ioThreads, seconds, interval,
+                engine != null ? engine : "external", jmx != null ? "remote" : (server != null ? "local" : "none"));
+
+        LoadGenerator generator = new LoadGenerator(new InetSocketAddress(host, port), sourceAddresses,
+                messageSize, thinkMillis, bulkSize, slowBytes, timeoutMillis, ioThreads);
+        generator.run(connections, weights, ramp, seconds, interval, probe);
+
+        if (probe != null) {
+            probe.close();
+        }
+        if (server != null) {
+            server.stop();
+        }
+        if (target != null) {
+            target.stop();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * 创建负载生成器
+     *
+     * @param address                转发服务地址
+     * @param sourceAddresses        客户端绑定的本机 IP (为空时由系统选择)
+     * @param messageSize            交互消息的大小
+     * @param thinkMillis            交互连接的思考时间 (毫秒)
+     * @param bulkSize               大块数据每次写出的大小
+     * @param slowReadBytesPerSecond 慢速消费者每秒读取的字节数
+     * @param timeoutMillis          等待回显的超时时间 (毫秒)
+     * @param ioThreads              事件循环线程数
+     */
+    public LoadGenerator(InetSocketAddress address, List<InetAddress> sourceAddresses, int messageSize, long thinkMillis,
+                         int bulkSize, int slowReadBytesPerSecond, long timeoutMillis, int ioThreads) throws IOException {
+        if (messageSize <= 0 || bulkSize <= 0) {
+            throw new IllegalArgumentException("消息和数据块的大小必须大于 0");
+        }
+        this.address = address;
+        this.sourceAddresses = sourceAddresses;
+        this.thinkMillis = thinkMillis;
+        this.slowReadBytesPerSecond = slowReadBytesPerSecond;
+        this.timeoutMillis = timeoutMillis;
+        this.message = ByteBuffer.allocateDirect(messageSize).asReadOnlyBuffer();
+        this.chunk = ByteBuffer.allocateDirect(bulkSize).asReadOnlyBuffer();
+        this.eventLoopGroup = new NioEventLoopGroup(ioThreads, "load-generator");
+    }
+
+    /**
+     * 按比例建立连接，运行指定时长，期间每个统计间隔输出一行 sample，最后输出一行 result
+     *
+     * @param connections 并发连接数
+     * @param weights     四种负载连接数的比例
+     * @param ramp        每秒新建的连接数
+     * @param seconds     测试时长 (秒)
+     * @param interval    统计间隔 (秒)
+     * @param probe       转发服务的资源探针 (可以为 null)
+     */
+    public void run(int connections, int[] weights, int ramp, int seconds, int interval, ForwarderProbe probe) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+
+        // 每个事件循环检查自己的连接是否等待回显超时
+        List<List<LoadConnection>> loopConnections = new ArrayList<>();
+        List<NioEventLoop> eventLoops = new ArrayList<>();
+        for (int i = 0; i < eventLoopGroup.getThreads(); i++) {
+            NioEventLoop eventLoop = eventLoopGroup.next();
+            List<LoadConnection> list = new ArrayList<>();
+            eventLoops.add(eventLoop);
+            loopConnections.add(list);
+            eventLoop.execute(() -> checkTimeouts(eventLoop, list));
+        }
+
+        // 按比例和速率逐步建立连接 (随机数种子固定，每次运行的负载分配相同)
+        ForwardFixture.startDaemon(() -> {
+            Random random = new Random(42);
+            int total = weights[0] + weights[1] + weights[2] + weights[3];
+            long rampStart = System.nanoTime();
+
+            for (int i = 0; i < connections && running; i++) {
+                int slot = random.nextInt(total);
+                Workload workload = Workload.values()[0];
+                for (int w = 0; w < weights.length; w++) {
+                    if (slot < weights[w]) {
+                        workload = Workload.values()[w];
+                        break;
+                    }
+                    slot -= weights[w];
+                }
+
+                int loopIndex = i % eventLoops.size();
+                NioEventLoop eventLoop = eventLoops.get(loopIndex);
+                List<LoadConnection> list = loopConnections.get(loopIndex);
+                LoadConnection connection = newConnection(workload, eventLoop, i);
+                eventLoop.execute(() -> {
+                    list.add(connection);
+                    connection.connect();
+                });
+
+                // 控制建立连接的速率
+                if (ramp > 0) {
+                    long expected = rampStart + (long) ((i + 1) * 1e9 / ramp);
+                    long sleepNanos = expected - System.nanoTime();
+                    if (sleepNanos > 0) {
+                        try {
+                            TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+            }
+        }, "load-generator-ramp");
+
+        // 定期输出统计
+        LatencyHistogram.Snapshot firstLatency = latency.snapshot();
+        LatencyHistogram.Snapshot firstChurnLatency = churnLatency.snapshot();
+        LatencyHistogram.Snapshot lastLatency = firstLatency;
+        LatencyHistogram.Snapshot lastChurnLatency = firstChurnLatency;
+        long[] last = counters();
+        long lastTime = start;
+
+        while (System.nanoTime() < deadline) {
+            long sleepNanos = Math.min(TimeUnit.SECONDS.toNanos(interval), deadline - System.nanoTime());
+            TimeUnit.NANOSECONDS.sleep(Math.max(sleepNanos, 0));
+
+            long now = System.nanoTime();
+            long[] current = counters();
+            LatencyHistogram.Snapshot currentLatency = latency.snapshot();
+            LatencyHistogram.Snapshot currentChurnLatency = churnLatency.snapshot();
+
+            printLine("sample", (now - start) / 1e9, (now - lastTime) / 1e9, last, current,
+                    currentLatency.minus(lastLatency), currentChurnLatency.minus(lastChurnLatency), probe);
+
+            last = current;
+            lastTime = now;
+            lastLatency = currentLatency;
+            lastChurnLatency = currentChurnLatency;
+        }
+
+        // 停止负载，输出整个测试期间的结果
+        running = false;
+        long end = System.nanoTime();
+        printLine("result", (end - start) / 1e9, (end - start) / 1e9, new long[last.length], counters(),
+                latency.snapshot().minus(firstLatency), churnLatency.snapshot().minus(firstChurnLatency), probe);
+        eventLoopGroup.shutdown();
+    }
+
+    /**
+     * 当前的累计计数<br>
+     * [操作数, CHURN 操作数, 写出字节数, 读取字节数, 异常数, 连接失败数, 超时数, 建立的连接数, 关闭的连接数]
+     */
+    private long[] counters() {
+        return new long[]{operations.sum(), churnOperations.sum(), sentBytes.sum(), receivedBytes.sum(),
+                errors.sum(), connectErrors.sum(), timeouts.sum(), opened.sum(), closed.sum()};
+    }
+
+    private void printLine(String type, double time, double seconds, long[] last, long[] current,
+                           LatencyHistogram.Snapshot latency, LatencyHistogram.Snapshot churnLatency, ForwarderProbe probe) {
+        long heapUsed = -1, threads = -1, forwarderConnections = -1;
+        if (probe != null) {
+            try {
+                heapUsed = probe.getHeapUsed();
+                threads = probe.getThreadCount();
+                forwarderConnections = probe.getForwarderConnections();
+            } catch (Exception e) {
+                // 转发服务的 JMX 不可用时输出 -1
+            }
+        }
+
+        System.out.printf("%s t=%.1f conns=%d opened=%d closed=%d ops=%d opsPerSec=%.0f churnPerSec=%.0f "
+                        + "txMBps=%.2f rxMBps=%.2f p50Us=%d p99Us=%d p999Us=%d maxUs=%d churnP50Us=%d churnP99Us=%d "
+                        + "errors=%d connectErrors=%d timeouts=%d heapMB=%.1f threads=%d fwdConns=%d%n",
+                type, time, established.get(), current[7] - last[7], current[8] - last[8],
+                current[0] - last[0], (current[0] - last[0]) / seconds, (current[1] - last[1]) / seconds,
+                (current[2] - last[2]) / 1048576d / seconds, (current[3] - last[3]) / 1048576d / seconds,
+                latency.getPercentile(0.5), latency.getPercentile(0.99), latency.getPercentile(0.999), latency.getMax(),
+                churnLatency.getPercentile(0.5), churnLatency.getPercentile(0.99),
+                current[4] - last[4], current[5] - last[5], current[6] - last[6],
+                heapUsed < 0 ? -1 : heapUsed / 1048576d, threads, forwarderConnections);
+    }
+
+    /**
+     * 每秒检查一次事件循环中的连接是否等待回显超时
+     */
+    private void checkTimeouts(NioEventLoop eventLoop, List<LoadConnection> connections) {
+        if (!running) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        for (LoadConnection connection : connections) {
+            connection.checkTimeout(now);
+        }
+        eventLoop.schedule(() -> checkTimeouts(eventLoop, connections), 1000);
+    }
+
+    private LoadConnection newConnection(Workload workload, NioEventLoop eventLoop, int index) {
+        InetAddress source = sourceAddresses.isEmpty() ? null : sourceAddresses.get(index % sourceAddresses.size());
+
+        switch (workload) {
+            case BULK:
+                return new BulkConnection(eventLoop, source);
+            case CHURN:
+                return new ChurnConnection(eventLoop, source);
+            case SLOW:
+                return new SlowConnection(eventLoop, source);
+            default:
+                return new InteractiveConnection(eventLoop, source);
+        }
+    }
+
+    /**
+     * 解析四种负载连接数的比例
+     */
+    private static int[] parseMix(String mix) {
+        String[] parts = mix.split(":");
+        if (parts.length != Workload.values().length) {
+            throw new IllegalArgumentException("负载比例的格式应为 interactive:bulk:churn:slow");
+        }
+
+        int[] weights = new int[parts.length];
+        int total = 0;
+        for (int i = 0; i < parts.length; i++) {
+            weights[i] = Integer.parseInt(parts[i].trim());
+            if (weights[i] < 0) {
+                throw new IllegalArgumentException("负载比例不能小于 0");
+            }
+            total += weights[i];
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("负载比例之和必须大于 0");
+        }
+        return weights;
+    }
+
+    /**
+     * 负载连接 (只在所属的事件循环线程中访问)<br>
+     * 连接对象在整个测试期间保留，断开后由自己重新连接
+     */
+    private abstract class LoadConnection implements NioChannelHandler {
+        final NioEventLoop eventLoop;
+
+        private final InetAddress source;
+
+        SocketChannel channel;
+
+        SelectionKey key;
+
+        boolean connected = false;
+
+        /**
+         * 连接的代数 (每次重新连接加 1，使上一个连接的定时任务失效)
+         */
+        int generation = 0;
+
+        /**
+         * 开始连接的时间 (纳秒)
+         */
+        long connectStart;
+
+        /**
+         * 开始等待回显的时间 (纳秒，0 代表没有等待)
+         */
+        long waitingSince = 0;
+
+        LoadConnection(NioEventLoop eventLoop, InetAddress source) {
+            this.eventLoop = eventLoop;
+            this.source = source;
+        }
+
+        void connect() {
+            if (!running) {
+                return;
+            }
+
+            generation++;
+            connectStart = System.nanoTime();
+
+            try {
+                channel = null;
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                if (source != null) {
+                    channel.bind(new InetSocketAddress(source, 0));
+                }
+
+                if (channel.connect(address)) {
+                    onConnected();
+                } else {
+                    key = eventLoop.register(channel, SelectionKey.OP_CONNECT, this);
+                }
+            } catch (IOException e) {
+                onConnectFailed();
+            }
+        }
+
+        private void onConnected() throws IOException {
+            connected = true;
+            opened.increment();
+            established.incrementAndGet();
+            channel.socket().setTcpNoDelay(true);
+            key = eventLoop.register(channel, SelectionKey.OP_READ, this);
+            onActive();
+        }
+
+        private void onConnectFailed() {
+            connectErrors.increment();
+            closeChannel();
+            eventLoop.schedule(this::connect, RECONNECT_DELAY_MILLIS);
+        }
+
+        @Override
+        public void handle(SelectionKey key) {
+            if (!connected) {
+                try {
+                    channel.finishConnect();
+                    onConnected();
+                } catch (IOException e) {
+                    onConnectFailed();
+                }
+                return;
+            }
+
+            try {
+                if (key.isReadable()) {
+                    onReadable();
+                }
+                if (connected && key.isValid() && key.isWritable()) {
+                    onWritable();
+                }
+            } catch (IOException e) {
+                fail();
+            }
+        }
+
+        /**
+         * 连接异常断开，等待后重新连接
+         */
+        void fail() {
+            errors.increment();
+            closeChannel();
+            eventLoop.schedule(this::connect, RECONNECT_DELAY_MILLIS);
+        }
+
+        void closeChannel() {
+            if (connected) {
+                connected = false;
+                established.decrementAndGet();
+                closed.increment();
+            }
+            waitingSince = 0;
+
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+
+        void checkTimeout(long now) {
+            if (connected && waitingSince != 0 && now - waitingSince > TimeUnit.MILLISECONDS.toNanos(timeoutMillis)) {
+                timeouts.increment();
+                fail();
+            }
+        }
+
+        /**
+         * 在当前连接上延迟执行任务 (连接已断开或重新连接后不执行)
+         */
+        void schedule(IoTask task, long delayMillis) {
+            int currentGeneration = generation;
+            eventLoop.schedule(() -> {
+                if (currentGeneration == generation && connected && running) {
+                    try {
+                        task.run();
+                    } catch (IOException e) {
+                        fail();
+                    }
+                }
+            }, delayMillis);
+        }
+
+        /**
+         * 读取数据 (读到 EOF 时抛出异常)
+         *
+         * @param limit 最多读取的字节数
+         */
+        int read(int limit) throws IOException {
+            ByteBuffer buffer = READ_BUFFER.get();
+            buffer.clear();
+            buffer.limit(Math.min(limit, buffer.capacity()));
+
+            int len = channel.read(buffer);
+            if (len < 0) {
+                throw new IOException("连接已被关闭");
+            }
+            receivedBytes.add(len);
+            return len;
+        }
+
+        int write(ByteBuffer data) throws IOException {
+            int len = channel.write(data);
+            sentBytes.add(len);
+            return len;
+        }
+
+        abstract void onActive() throws IOException;
+
+        abstract void onReadable() throws IOException;
+
+        void onWritable() throws IOException {
+        }
+    }
+
+    private interface IoTask {
+        void run() throws IOException;
+    }
+
+    /**
+     * 交互连接: 发送消息 -> 读满回显 -> 记录延迟 -> 思考时间后发送下一条
+     */
+    private class InteractiveConnection extends LoadConnection {
+        private ByteBuffer outgoing;
+
+        private int received;
+
+        InteractiveConnection(NioEventLoop eventLoop, InetAddress source) {
+            super(eventLoop, source);
+        }
+
+        @Override
+        void onActive() throws IOException {
+            send();
+        }
+
+        void send() throws IOException {
+            outgoing = message.duplicate();
+            received = 0;
+            waitingSince = System.nanoTime();
+            onWritable();
+        }
+
+        @Override
+        void onWritable() throws IOException {
+            if (outgoing == null) {
+                return;
+            }
+
+            write(outgoing);
+            if (outgoing.hasRemaining()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            } else {
+                outgoing = null;
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        @Override
+        void onReadable() throws IOException {
+            received += read(Integer.MAX_VALUE);
+
+            if (waitingSince != 0 && received >= message.capacity()) {
+                onResponse(System.nanoTime());
+            }
+        }
+
+        void onResponse(long now) throws IOException {
+            latency.record(now - waitingSince);
+            operations.increment();
+            waitingSince = 0;
+
+            if (thinkMillis > 0) {
+                schedule(this::send, thinkMillis);
+            } else {
+                send();
+            }
+        }
+    }
+
+    /**
+     * 短连接: 建立连接 -> 一次往返 -> 关闭 (发送 RST，避免客户端端口处于 TIME_WAIT 被耗尽) -> 立即重新连接
+     */
+    private class ChurnConnection extends InteractiveConnection {
+        ChurnConnection(NioEventLoop eventLoop, InetAddress source) {
+            super(eventLoop, source);
+        }
+
+        @Override
+        void onResponse(long now) {
+            churnLatency.record(now - connectStart);
+            churnOperations.increment();
+
+            try {
+                channel.socket().setSoLinger(true, 0);
+            } catch (IOException ignored) {
+            }
+            closeChannel();
+            connect();
+        }
+    }
+
+    /**
+     * 大块数据连接: 持续写出数据块，并读走所有返回的数据
+     */
+    private class BulkConnection extends LoadConnection {
+        /**
+         * 每次可写事件最多写出的数据块数 (避免一个连接占用事件循环太久)
+         */
+        private static final int MAX_WRITES_PER_EVENT = 16;
+
+        private ByteBuffer outgoing;
+
+        BulkConnection(NioEventLoop eventLoop, InetAddress source) {
+            super(eventLoop, source);
+        }
+
+        @Override
+        void onActive() {
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+
+        @Override
+        void onWritable() throws IOException {
+            for (int i = 0; i < MAX_WRITES_PER_EVENT; i++) {
+                if (outgoing == null || !outgoing.hasRemaining()) {
+                    outgoing = chunk.duplicate();
+                }
+                if (write(outgoing) == 0) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        void onReadable() throws IOException {
+            read(Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * 慢速消费者: 每个周期写出 4 KB，但只读取限定的字节数，读满后暂停读取直到下一个周期
+     */
+    private class SlowConnection extends LoadConnection {
+        private int readBudget;
+
+        SlowConnection(NioEventLoop eventLoop, InetAddress source) {
+            super(eventLoop, source);
+        }
+
+        @Override
+        void onActive() throws IOException {
+            tick();
+        }
+
+        private void tick() throws IOException {
+            write(slowChunk.duplicate());
+
+            readBudget = (int) (slowReadBytesPerSecond * SLOW_TICK_MILLIS / 1000);
+            key.interestOps(readBudget > 0 ? SelectionKey.OP_READ : 0);
+            schedule(this::tick, SLOW_TICK_MILLIS);
+        }
+
+        @Override
+        void onReadable() throws IOException {
+            readBudget -= read(readBudget);
+            if (readBudget <= 0) {
+                key.interestOps(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.orainge.tools.port_forward.loadtest;
+
+import com.orainge.tools.port_forward.nio.NioChannelHandler;
+import com.orainge.tools.port_forward.nio.NioEventLoop;
+import com.orainge.tools.port_forward.nio.NioEventLoopGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 负载测试的目标端口<br>
+ * 代替真实的目标服务，在 NIO 事件循环中处理大量连接，支持三种模式：<br>
+ * ECHO: 回显收到的数据 (写不出去时暂停读取，由 TCP 把压力传回转发服务)<br>
+ * SINK: 丢弃收到的数据<br>
+ * DELAY: 收到数据后等待指定时间再回显 (模拟处理耗时的服务)
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class LoadTarget {
+    private static final Logger log = LoggerFactory.getLogger(LoadTarget.class);
+
+    /**
+     * 每个事件循环线程共用的读缓冲区
+     */
+    private static final ThreadLocal<ByteBuffer> READ_BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(64 * 1024));
+
+    /**
+     * 目标端口的模式
+     */
+    public enum Mode {
+        ECHO, SINK, DELAY
+    }
+
+    private final String ip;
+
+    private final int port;
+
+    private final Mode mode;
+
+    private final long delayMillis;
+
+    private final int ioThreads;
+
+    private final int backlog;
+
+    private final AtomicInteger connections = new AtomicInteger(0);
+
+    private final LongAdder receivedBytes = new LongAdder();
+
+    private final LongAdder sentBytes = new LongAdder();
+
+    private NioEventLoopGroup eventLoopGroup;
+
+    private ServerSocketChannel serverChannel;
+
+    /**
+     * 启动方法
+     *
+     * @param args [-h ip] 监听 IP (默认为 0.0.0.0)<br>
+     *             [-p port] 监听端口 (默认为 19000)<br>
+     *             [-m mode] 模式 (ECHO / SINK / DELAY，默认为 ECHO)<br>
+     *             [-d millis] DELAY 模式的回显延迟 (毫秒，默认为 50)<br>
+     *             [-io threads] 事件循环线程数 (默认为 CPU 核数)<br>
+     *             [-b backlog] 监听队列长度 (默认为 4096)<br>
+     *             [-i seconds] 输出统计的间隔 (秒，默认为 10，0 代表不输出)
+     */
+    public static void main(String[] args) throws Exception {
+        String ip = "0.0.0.0";
+        int port = 19000, ioThreads = Runtime.getRuntime().availableProcessors(), backlog = 4096, interval = 10;
+        Mode mode = Mode.ECHO;
+        long delayMillis = 50;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-h":
+                    ip = value;
+                    break;
+                case "-p":
+                    port = Integer.parseInt(value);
+                    break;
+                case "-m":
+                    mode = Mode.valueOf(value.toUpperCase());
+                    break;
+                case "-d":
+                    delayMillis = Long.parseLong(value);
+                    break;
+                case "-io":
+                    ioThreads = Integer.parseInt(value);
+                    break;
+                case "-b":
+                    backlog = Integer.parseInt(value);
+                    break;
+                case "-i":
+                    interval = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知的参数: " + args[i]);
+            }
+        }
+
+        LoadTarget target = new LoadTarget(ip, port, mode, delayMillis, ioThreads, backlog);
+        target.start();
+
+        // 机器可读的统计
+        while (interval > 0) {
+            Thread.sleep(interval * 1000L);
+            System.out.printf("target mode=%s conns=%d rxBytes=%d txBytes=%d%n",
+                    mode, target.getConnections(), target.getReceivedBytes(), target.getSentBytes());
+        }
+    }
+
+    /**
+     * 创建负载测试的目标端口
+     *
+     * @param ip          监听 IP
+     * @param port        监听端口 (0 代表随机端口)
+     * @param mode        模式
+     * @param delayMillis DELAY 模式的回显延迟 (毫秒)
+     * @param ioThreads   事件循环线程数
+     * @param backlog     监听队列长度
+     */
+    public LoadTarget(String ip, int port, Mode mode, long delayMillis, int ioThreads, int backlog) {
+        if (mode == null) {
+            throw new NullPointerException("目标端口的模式不能为空");
+        }
+        if (ioThreads <= 0) {
+            throw new IllegalArgumentException("事件循环线程数必须大于 0");
+        }
+        this.ip = ip;
+        this.port = port;
+        this.mode = mode;
+        this.delayMillis = delayMillis;
+        this.ioThreads = ioThreads;
+        this.backlog = backlog;
+    }
+
+    /**
+     * 开始监听
+     */
+    public void start() throws IOException {
+        eventLoopGroup = new NioEventLoopGroup(ioThreads, "load-target-" + port);
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(ip, port), backlog);
+
+        NioEventLoop acceptLoop = eventLoopGroup.next();
+        acceptLoop.execute(() -> {
+            try {
+                acceptLoop.register(serverChannel, SelectionKey.OP_ACCEPT, key -> accept());
+            } catch (IOException e) {
+                log.error("[负载测试目标端口] - 注册监听失败", e);
+            }
+        });
+
+        log.info("[负载测试目标端口] - 已启动 [{}] [{}]", serverChannel.getLocalAddress(), mode);
+    }
+
+    /**
+     * 关闭监听和所有连接
+     */
+    public void stop() {
+        try {
+            serverChannel.close();
+        } catch (IOException ignored) {
+        }
+        eventLoopGroup.shutdown();
+    }
+
+    private void accept() {
+        while (true) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (IOException e) {
+                log.warn("[负载测试目标端口] - 接收连接失败: {}", e.getMessage());
+                return;
+            }
+            if (channel == null) {
+                return;
+            }
+
+            NioEventLoop eventLoop = eventLoopGroup.next();
+            eventLoop.execute(() -> new TargetConnection(eventLoop, channel).start());
+        }
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    public long getReceivedBytes() {
+        return receivedBytes.sum();
+    }
+
+    public long getSentBytes() {
+        return sentBytes.sum();
+    }
+
+    /**
+     * 目标端口的一个连接 (只在所属的事件循环线程中访问)
+     */
+    private class TargetConnection implements NioChannelHandler {
+        private final NioEventLoop eventLoop;
+
+        private final SocketChannel channel;
+
+        private SelectionKey key;
+
+        /**
+         * 未写出的数据 (没有时为 null)
+         */
+        private ByteBuffer pending;
+
+        TargetConnection(NioEventLoop eventLoop, SocketChannel channel) {
+            this.eventLoop = eventLoop;
+            this.channel = channel;
+        }
+
+        void start() {
+            try {
+                channel.socket().setTcpNoDelay(true);
+                key = eventLoop.register(channel, SelectionKey.OP_READ, this);
+                connections.incrementAndGet();
+            } catch (IOException e) {
+                closeQuietly();
+            }
+        }
+
+        @Override
+        public void handle(SelectionKey key) {
+            try {
+                if (key.isReadable()) {
+                    onReadable();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    onWritable();
+                }
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private void onReadable() throws IOException {
+            ByteBuffer buffer = READ_BUFFER.get();
+            buffer.clear();
+
+            int len = channel.read(buffer);
+            if (len < 0) {
+                close();
+                return;
+            }
+            if (len == 0) {
+                return;
+            }
+            receivedBytes.add(len);
+            buffer.flip();
+
+            if (Mode.ECHO.equals(mode)) {
+                write(buffer);
+            } else if (Mode.DELAY.equals(mode)) {
+                ByteBuffer copy = ByteBuffer.allocate(len);
+                copy.put(buffer).flip();
+                eventLoop.schedule(() -> {
+                    if (channel.isOpen()) {
+                        try {
+                            write(copy);
+                        } catch (IOException e) {
+                            close();
+                        }
+                    }
+                }, delayMillis);
+            }
+        }
+
+        private void write(ByteBuffer data) throws IOException {
+            if (pending == null) {
+                sentBytes.add(channel.write(data));
+                if (!data.hasRemaining()) {
+                    return;
+                }
+
+                pending = ByteBuffer.allocate(data.remaining());
+                pending.put(data).flip();
+            } else {
+                // DELAY 模式下可能还有定时写出的数据，追加到未写出的数据之后
+                ByteBuffer merged = ByteBuffer.allocate(pending.remaining() + data.remaining());
+                merged.put(pending).put(data).flip();
+                pending = merged;
+            }
+
+            // 写不出去时暂停读取，等待对端读走数据
+            key.interestOps(SelectionKey.OP_WRITE);
+        }
+
+        private void onWritable() throws IOException {
+            sentBytes.add(channel.write(pending));
+
+            if (!pending.hasRemaining()) {
+                pending = null;
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        private void close() {
+            if (channel.isOpen()) {
+                connections.decrementAndGet();
+            }
+            closeQuietly();
+        }
+
+        private void closeQuietly() {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
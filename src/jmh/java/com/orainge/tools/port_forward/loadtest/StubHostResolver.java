@@ -0,0 +1,101 @@
+package com.orainge.tools.port_forward.loadtest;
+
+import com.orainge.tools.port_forward.dns.HostResolver;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地的主机名解析器<br>
+ * 代替真实的 DNS，按照设置的记录返回地址，可以模拟解析耗时和解析失败；测试 DNS 缓存或让转发服务把主机名解析到本地的目标端口时使用
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class StubHostResolver implements HostResolver {
+    /**
+     * 解析记录<br>
+     * {主机名: 地址列表}
+     */
+    private final Map<String, InetAddress[]> records = new ConcurrentHashMap<>();
+
+    /**
+     * 查询次数
+     */
+    private final LongAdder lookupCount = new LongAdder();
+
+    /**
+     * 每次查询的耗时 (毫秒)
+     */
+    private volatile long delayMillis = 0;
+
+    /**
+     * 是否模拟解析失败 (所有查询都失败)
+     */
+    private volatile boolean failing = false;
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        lookupCount.increment();
+
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UnknownHostException(host + ": 解析被中断");
+            }
+        }
+
+        InetAddress[] addresses = records.get(host);
+        if (failing || addresses == null) {
+            throw new UnknownHostException(host + ": 解析失败 (模拟)");
+        }
+        return addresses.clone();
+    }
+
+    /**
+     * 设置主机名的记录 (替换之前的记录)
+     *
+     * @param host 主机名
+     * @param ips  IP 地址 (IPv4 或 IPv6)
+     */
+    public StubHostResolver setRecords(String host, String... ips) throws UnknownHostException {
+        InetAddress[] addresses = new InetAddress[ips.length];
+        for (int i = 0; i < ips.length; i++) {
+            addresses[i] = InetAddress.getByName(ips[i]);
+        }
+        records.put(host, addresses);
+        return this;
+    }
+
+    /**
+     * 删除主机名的记录
+     *
+     * @param host 主机名
+     */
+    public StubHostResolver removeRecords(String host) {
+        records.remove(host);
+        return this;
+    }
+
+    public StubHostResolver setDelayMillis(long delayMillis) {
+        this.delayMillis = delayMillis;
+        return this;
+    }
+
+    public StubHostResolver setFailing(boolean failing) {
+        this.failing = failing;
+        return this;
+    }
+
+    /**
+     * 获取查询次数
+     */
+    public long getLookupCount() {
+        return lookupCount.sum();
+    }
+}
@@ -1,7 +1,16 @@
 package com.orainge.tools.port_forward;
 
+import com.orainge.tools.port_forward.acl.AccessRules;
+import com.orainge.tools.port_forward.consts.HandlerOverflowPolicy;
+import com.orainge.tools.port_forward.consts.LoadBalanceStrategy;
+import com.orainge.tools.port_forward.consts.PortForwardEngine;
+import com.orainge.tools.port_forward.server.PortForwardManager;
 import com.orainge.tools.port_forward.server.PortForwardServer;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * 端口转发类 Demo
  *
@@ -15,11 +24,36 @@ public class PortForwardDemo {
      * @param args [-h ip] 服务端监听 IP<br>
      *             [-p port] 服务端监听端口<br>
      *             [-dh ip] 要转发的目标 IP<br>
-     *             [-dp port] 要转发的目标端口
+     *             [-dp port] 要转发的目标端口<br>
+     *             [-dt ip:port] 其他要转发的目标 (可重复指定)<br>
+     *             [-lb strategy] 多个目标的负载均衡策略 (ROUND_ROBIN / LEAST_CONNECTIONS / CONSISTENT_HASH，默认为 ROUND_ROBIN)<br>
+     *             [-e engine] 转发引擎 (BLOCKING / DIRECT / NIO，默认为 BLOCKING)<br>
+     *             [-vt] 使用虚拟线程 (需要 JDK 21 及以上版本)<br>
+     *             [-it seconds] 空闲超时时间 (秒，任意一个方向超过此时间没有数据时关闭连接)<br>
+     *             [-lt seconds] 连接的最长存活时间 (秒)<br>
+     *             [-bc bytesPerSecond[:burstBytes]] 单个连接每个方向的带宽限制 (字节/秒，突发容量默认为 1 秒的数据量)<br>
+     *             [-bi bytesPerSecond[:burstBytes]] 单个客户端 IP 每个方向的带宽限制<br>
+     *             [-bg bytesPerSecond[:burstBytes]] 整个转发服务每个方向的带宽限制<br>
+     *             [-allow cidr[,cidr]] 允许访问的客户端网段 (可重复指定，指定后其他网段都不允许)<br>
+     *             [-deny cidr[,cidr]] 拒绝访问的客户端网段 (可重复指定)<br>
+     *             [-cl maxConnections[:connectionsPerSecond]] 单个客户端 IP 的最大并发连接数和每秒最多新建的连接数 (0 代表不限制)<br>
+     *             [-ah capacity[:policy]] 异步执行 Handler 的事件队列容量和队列已满的处理策略 (DROP / BLOCK / COALESCE，默认为 COALESCE)<br>
+     *             [-r [listenIp:]listenPort:targetIp:targetPort] 转发规则 (可重复指定，指定后忽略 -h/-p/-dh/-dp，所有规则在同一进程中运行)
      */
     public static void main(String[] args) {
         String listeningIp = null, targetIp = null;
         Integer listeningPort = null, targetPort = null;
+        PortForwardEngine engine = PortForwardEngine.BLOCKING;
+        LoadBalanceStrategy loadBalanceStrategy = LoadBalanceStrategy.ROUND_ROBIN;
+        List<String> extraTargets = new ArrayList<>();
+        boolean virtualThreadEnabled = false;
+        long idleTimeoutMillis = 0, maxLifetimeMillis = 0;
+        long[] connectionBandwidth = {0, 0}, clientBandwidth = {0, 0}, globalBandwidth = {0, 0};
+        int[] clientLimit = {0, 0};
+        int asyncHandlerCapacity = 0;
+        HandlerOverflowPolicy handlerOverflowPolicy = HandlerOverflowPolicy.COALESCE;
+        List<String> rules = new ArrayList<>();
+        List<String> allowList = new ArrayList<>(), denyList = new ArrayList<>();
 
         for (int i = 0; i < args.length; i++) {
             String arg = args[i];
@@ -59,10 +93,179 @@ public class PortForwardDemo {
                 } else {
                     throw new NullPointerException("请填写有效的目标转发端口");
                 }
+            } else if ("-dt".equals(arg)) {
+                // 其他要转发的目标
+                if (i + 1 < args.length && args[i + 1].lastIndexOf(':') > 0) {
+                    extraTargets.add(args[i + 1]);
+                } else {
+                    throw new NullPointerException("请填写有效的目标转发地址");
+                }
+            } else if ("-lb".equals(arg)) {
+                // 负载均衡策略
+                if (i + 1 < args.length) {
+                    try {
+                        loadBalanceStrategy = LoadBalanceStrategy.valueOf(args[i + 1].toUpperCase());
+                    } catch (Exception e) {
+                        throw new NullPointerException("请填写有效的负载均衡策略");
+                    }
+                } else {
+                    throw new NullPointerException("请填写有效的负载均衡策略");
+                }
+            } else if ("-e".equals(arg)) {
+                // 转发引擎
+                if (i + 1 < args.length) {
+                    try {
+                        engine = PortForwardEngine.valueOf(args[i + 1].toUpperCase());
+                    } catch (Exception e) {
+                        throw new NullPointerException("请填写有效的转发引擎");
+                    }
+                } else {
+                    throw new NullPointerException("请填写有效的转发引擎");
+                }
+            } else if ("-vt".equals(arg)) {
+                // 使用虚拟线程
+                virtualThreadEnabled = true;
+            } else if ("-it".equals(arg)) {
+                // 空闲超时时间
+                if (i + 1 < args.length) {
+                    try {
+                        idleTimeoutMillis = Long.parseLong(args[i + 1]) * 1000;
+                    } catch (Exception e) {
+                        throw new NullPointerException("请填写有效的空闲超时时间");
+                    }
+                } else {
+                    throw new NullPointerException("请填写有效的空闲超时时间");
+                }
+            } else if ("-lt".equals(arg)) {
+                // 最长存活时间
+                if (i + 1 < args.length) {
+                    try {
+                        maxLifetimeMillis = Long.parseLong(args[i + 1]) * 1000;
+                    } catch (Exception e) {
+                        throw new NullPointerException("请填写有效的最长存活时间");
+                    }
+                } else {
+                    throw new NullPointerException("请填写有效的最长存活时间");
+                }
+            } else if ("-bc".equals(arg) || "-bi".equals(arg) || "-bg".equals(arg)) {
+                // 带宽限制
+                if (i + 1 < args.length) {
+                    long[] bandwidth = "-bc".equals(arg) ? connectionBandwidth : "-bi".equals(arg) ? clientBandwidth : globalBandwidth;
+                    try {
+                        String[] parts = args[i + 1].split(":");
+                        bandwidth[0] = Long.parseLong(parts[0]);
+                        bandwidth[1] = parts.length > 1 ? Long.parseLong(parts[1]) : bandwidth[0];
+                    } catch (Exception e) {
+                        throw new NullPointerException("请填写有效的带宽限制");
+                    }
+                } else {
+                    throw new NullPointerException("请填写有效的带宽限制");
+                }
+            } else if ("-allow".equals(arg) || "-deny".equals(arg)) {
+                // 访问规则
+                if (i + 1 < args.length) {
+                    Collections.addAll("-allow".equals(arg) ? allowList : denyList, args[i + 1].split(","));
+                } else {
+                    throw new NullPointerException("请填写有效的客户端网段");
+                }
+            } else if ("-cl".equals(arg)) {
+                // 单个客户端 IP 的连接限制
+                if (i + 1 < args.length) {
+                    try {
+                        String[] parts = args[i + 1].split(":");
+                        clientLimit[0] = Integer.parseInt(parts[0]);
+                        clientLimit[1] = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+                    } catch (Exception e) {
+                        throw new NullPointerException("请填写有效的客户端连接限制");
+                    }
+                } else {
+                    throw new NullPointerException("请填写有效的客户端连接限制");
+                }
+            } else if ("-ah".equals(arg)) {
+                // 异步执行 Handler
+                if (i + 1 < args.length) {
+                    try {
+                        String[] parts = args[i + 1].split(":");
+                        asyncHandlerCapacity = Integer.parseInt(parts[0]);
+                        if (parts.length > 1) {
+                            handlerOverflowPolicy = HandlerOverflowPolicy.valueOf(parts[1].toUpperCase());
+                        }
+                    } catch (Exception e) {
+                        throw new NullPointerException("请填写有效的 Handler 事件队列设置");
+                    }
+                } else {
+                    throw new NullPointerException("请填写有效的 Handler 事件队列设置");
+                }
+            } else if ("-r".equals(arg)) {
+                // 转发规则
+                if (i + 1 < args.length) {
+                    rules.add(args[i + 1]);
+                } else {
+                    throw new NullPointerException("请填写有效的转发规则");
+                }
+            }
+        }
+
+        // 编译访问规则 (所有转发规则共用)
+        AccessRules accessRules = allowList.isEmpty() && denyList.isEmpty() ? null : AccessRules.of(allowList, denyList);
+
+        // 多条转发规则，由管理器在同一进程中运行
+        if (!rules.isEmpty()) {
+            PortForwardManager manager = new PortForwardManager().setVirtualThreadEnabled(virtualThreadEnabled);
+
+            for (String rule : rules) {
+                String[] parts = rule.split(":");
+                if (parts.length != 3 && parts.length != 4) {
+                    throw new NullPointerException("请填写有效的转发规则: " + rule);
+                }
+
+                int offset = parts.length - 3;
+                try {
+                    PortForwardServer server = new PortForwardServer(offset == 0 ? null : parts[0], Integer.parseInt(parts[offset]),
+                            parts[offset + 1], Integer.parseInt(parts[offset + 2]));
+                    manager.addRule(rule, server.setEngine(engine)
+                            .setIdleTimeout(idleTimeoutMillis, idleTimeoutMillis)
+                            .setMaxLifetime(maxLifetimeMillis)
+                            .setConnectionBandwidth(connectionBandwidth[0], connectionBandwidth[1])
+                            .setClientBandwidth(clientBandwidth[0], clientBandwidth[1])
+                            .setGlobalBandwidth(globalBandwidth[0], globalBandwidth[1])
+                            .setAccessRules(accessRules)
+                            .setClientLimit(clientLimit[0], clientLimit[1])
+                            .setAsyncHandler(asyncHandlerCapacity, handlerOverflowPolicy)
+                            .setAlwaysRun(true));
+                } catch (NumberFormatException e) {
+                    throw new NullPointerException("请填写有效的转发规则: " + rule);
+                }
+            }
+            return;
+        }
+
+        // 创建监听服务
+        PortForwardServer server = new PortForwardServer(listeningIp, listeningPort, targetIp, targetPort);
+
+        // 添加其他要转发的目标
+        for (String target : extraTargets) {
+            int index = target.lastIndexOf(':');
+            try {
+                server.addTarget(target.substring(0, index), Integer.parseInt(target.substring(index + 1)));
+            } catch (NumberFormatException e) {
+                throw new NullPointerException("请填写有效的目标转发地址: " + target);
             }
         }
 
         // 启动监听服务
-        (new PortForwardServer(listeningIp, listeningPort, targetIp, targetPort)).setAlwaysRun(true).start();
+        server.setLoadBalanceStrategy(loadBalanceStrategy)
+                .setEngine(engine)
+                .setVirtualThreadEnabled(virtualThreadEnabled)
+                .setIdleTimeout(idleTimeoutMillis, idleTimeoutMillis)
+                .setMaxLifetime(maxLifetimeMillis)
+                .setConnectionBandwidth(connectionBandwidth[0], connectionBandwidth[1])
+                .setClientBandwidth(clientBandwidth[0], clientBandwidth[1])
+                .setGlobalBandwidth(globalBandwidth[0], globalBandwidth[1])
+                .setAccessRules(accessRules)
+                .setClientLimit(clientLimit[0], clientLimit[1])
+                .setAsyncHandler(asyncHandlerCapacity, handlerOverflowPolicy)
+                .setAlwaysRun(true)
+                .start();
     }
 }
@@ -0,0 +1,108 @@
+package com.orainge.tools.port_forward.acl;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 客户端访问规则 (不可变)<br>
+ * 由允许和拒绝的 CIDR 网段列表编译为 IPv4 和 IPv6 两棵前缀树 ({@link RadixTrie})，按最长前缀匹配决定是否允许：
+ * 匹配的最长网段在允许列表中则允许，在拒绝列表中则拒绝 (同一网段同时在两个列表中时拒绝)；
+ * 没有匹配的网段时，有允许列表则拒绝 (白名单)，否则允许 (黑名单)<br>
+ * 例如允许 10.0.0.0/8、拒绝 10.1.0.0/16 时，10.2.0.1 被允许，10.1.0.1 和 192.168.0.1 被拒绝<br>
+ * 规则编译后只读，可以被所有监听线程同时使用；修改规则时编译一个新的对象整体替换
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public final class AccessRules {
+    private final List<CidrBlock> allowList;
+
+    private final List<CidrBlock> denyList;
+
+    private final RadixTrie<Boolean> ipv4 = new RadixTrie<>();
+
+    private final RadixTrie<Boolean> ipv6 = new RadixTrie<>();
+
+    /**
+     * 没有匹配的网段时是否允许
+     */
+    private final boolean defaultAllowed;
+
+    private AccessRules(List<CidrBlock> allowList, List<CidrBlock> denyList) {
+        this.allowList = Collections.unmodifiableList(allowList);
+        this.denyList = Collections.unmodifiableList(denyList);
+        this.defaultAllowed = allowList.isEmpty();
+
+        // 先添加允许的网段，再添加拒绝的网段，相同的网段以拒绝为准
+        for (CidrBlock block : allowList) {
+            trieOf(block).put(block.getAddress(), block.getPrefixLength(), Boolean.TRUE);
+        }
+        for (CidrBlock block : denyList) {
+            trieOf(block).put(block.getAddress(), block.getPrefixLength(), Boolean.FALSE);
+        }
+    }
+
+    /**
+     * 编译访问规则 (任意一个网段格式无效时抛出异常，不会得到部分生效的规则)
+     *
+     * @param allow 允许的 CIDR 网段 (可以为 null)
+     * @param deny  拒绝的 CIDR 网段 (可以为 null)
+     * @throws IllegalArgumentException 网段格式无效
+     */
+    public static AccessRules of(Collection<String> allow, Collection<String> deny) {
+        return new AccessRules(parse(allow), parse(deny));
+    }
+
+    private static List<CidrBlock> parse(Collection<String> cidrs) {
+        List<CidrBlock> blocks = new ArrayList<>();
+        if (cidrs != null) {
+            for (String cidr : cidrs) {
+                blocks.add(CidrBlock.parse(cidr));
+            }
+        }
+        return blocks;
+    }
+
+    private RadixTrie<Boolean> trieOf(CidrBlock block) {
+        return block.isIpv4() ? ipv4 : ipv6;
+    }
+
+    /**
+     * 是否允许该地址访问
+     *
+     * @param address 客户端地址
+     */
+    public boolean isAllowed(InetAddress address) {
+        return isAllowed(address.getAddress());
+    }
+
+    /**
+     * 是否允许该地址访问
+     *
+     * @param address 客户端地址 (IPv4 为 4 字节，IPv6 为 16 字节)
+     */
+    public boolean isAllowed(byte[] address) {
+        Boolean allowed = (address.length == 4 ? ipv4 : ipv6).longestMatch(address);
+        return allowed != null ? allowed : defaultAllowed;
+    }
+
+    public List<CidrBlock> getAllowList() {
+        return allowList;
+    }
+
+    public List<CidrBlock> getDenyList() {
+        return denyList;
+    }
+
+    public boolean isDefaultAllowed() {
+        return defaultAllowed;
+    }
+
+    @Override
+    public String toString() {
+        return "允许 " + allowList + " 拒绝 " + denyList + " 其他" + (defaultAllowed ? "允许" : "拒绝");
+    }
+}
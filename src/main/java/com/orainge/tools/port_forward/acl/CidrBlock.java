@@ -0,0 +1,141 @@
+package com.orainge.tools.port_forward.acl;
+
+import com.orainge.tools.port_forward.util.IpAddressUtil;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+
+/**
+ * CIDR 网段 (不可变)<br>
+ * 支持 IPv4 (如 10.0.0.0/8) 和 IPv6 (如 2001:db8::/32)，不带前缀长度时代表单个地址；
+ * 主机位会被清零，如 10.1.2.3/8 等同于 10.0.0.0/8
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public final class CidrBlock {
+    /**
+     * 网络地址 (IPv4 为 4 字节，IPv6 为 16 字节)
+     */
+    private final byte[] address;
+
+    /**
+     * 前缀长度
+     */
+    private final int prefixLength;
+
+    private CidrBlock(byte[] address, int prefixLength) {
+        this.address = address;
+        this.prefixLength = prefixLength;
+
+        // 清零主机位
+        for (int i = 0; i < address.length; i++) {
+            int bits = prefixLength - i * 8;
+            if (bits <= 0) {
+                address[i] = 0;
+            } else if (bits < 8) {
+                address[i] &= (byte) (0xFF << (8 - bits));
+            }
+        }
+    }
+
+    /**
+     * 解析 CIDR 网段 (只接受 IP 地址，不解析域名)
+     *
+     * @param cidr CIDR 网段，如 192.168.0.0/16、2001:db8::/32、10.0.0.1
+     * @throws IllegalArgumentException 格式无效
+     */
+    public static CidrBlock parse(String cidr) {
+        if (cidr == null || cidr.trim().isEmpty()) {
+            throw new IllegalArgumentException("CIDR 网段不能为空");
+        }
+
+        String text = cidr.trim();
+        int slash = text.indexOf('/');
+        String ip = slash < 0 ? text : text.substring(0, slash);
+        boolean ipv6 = ip.indexOf(':') >= 0;
+
+        InetAddress inetAddress = IpAddressUtil.toInetAddress(ip);
+        if (inetAddress == null) {
+            throw new IllegalArgumentException("无效的 CIDR 网段: " + cidr);
+        }
+
+        byte[] address = inetAddress.getAddress();
+        int maxLength = address.length * 8;
+        int prefixLength = maxLength;
+
+        if (slash >= 0) {
+            try {
+                prefixLength = Integer.parseInt(text.substring(slash + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("无效的 CIDR 网段: " + cidr);
+            }
+
+            // IPv4 映射的 IPv6 地址 (::ffff:a.b.c.d/n) 会被解析为 IPv4 地址，前缀长度按 IPv4 计算
+            if (ipv6 && inetAddress instanceof Inet4Address) {
+                prefixLength -= 96;
+            }
+        }
+
+        if (prefixLength < 0 || prefixLength > maxLength) {
+            throw new IllegalArgumentException("无效的 CIDR 前缀长度: " + cidr);
+        }
+
+        return new CidrBlock(address, prefixLength);
+    }
+
+    /**
+     * 地址是否在网段内
+     *
+     * @param address 地址 (IPv4 为 4 字节，IPv6 为 16 字节)
+     */
+    public boolean contains(byte[] address) {
+        return address.length == this.address.length && RadixTrie.matches(address, this.address, prefixLength);
+    }
+
+    /**
+     * 是否为 IPv4 网段
+     */
+    public boolean isIpv4() {
+        return address.length == 4;
+    }
+
+    /**
+     * 获取网络地址 (副本)
+     */
+    public byte[] getAddress() {
+        return address.clone();
+    }
+
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CidrBlock)) {
+            return false;
+        }
+        CidrBlock that = (CidrBlock) o;
+        return prefixLength == that.prefixLength && Arrays.equals(address, that.address);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(address) + prefixLength;
+    }
+
+    @Override
+    public String toString() {
+        try {
+            return InetAddress.getByAddress(address).getHostAddress() + "/" + prefixLength;
+        } catch (UnknownHostException e) {
+            return Arrays.toString(address) + "/" + prefixLength;
+        }
+    }
+}
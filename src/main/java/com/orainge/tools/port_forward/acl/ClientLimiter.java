@@ -0,0 +1,264 @@
+package com.orainge.tools.port_forward.acl;
+
+import com.orainge.tools.port_forward.consts.ClientLimitReason;
+
+import java.net.InetAddress;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个客户端 IP 的并发连接数和建连速率限制<br>
+ * 按 IP 分段保存计数，每段一把锁，不同 IP 的连接分散在各段上，不会竞争同一把锁；
+ * 建连速率使用令牌桶，突发容量为 1 秒的连接数<br>
+ * 没有连接且令牌桶已满的 IP 与从未出现过的 IP 等价，访问所在段时顺带清理 (最近最少使用的优先)；
+ * 段已满时清理最近最少使用的、没有连接的 IP (只会丢失该 IP 的部分速率状态)，
+ * 因此大量伪造源地址的连接不会让计数表无限增长，计数表的大小只会因为仍有连接的 IP 超出上限
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class ClientLimiter {
+    /**
+     * 默认的计数表大小 (IP 数)
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 65536;
+
+    /**
+     * 分段数
+     */
+    private static final int SEGMENTS = 64;
+
+    /**
+     * 每次访问段时最多检查的 IP 数
+     */
+    private static final int EVICT_SCAN_LIMIT = 8;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    /**
+     * 单个 IP 的最大并发连接数 (0 代表不限制)
+     */
+    private volatile int maxConnections = 0;
+
+    /**
+     * 单个 IP 每秒最多新建的连接数 (0 代表不限制)
+     */
+    private volatile int connectionsPerSecond = 0;
+
+    /**
+     * 各原因被限制的连接数 (下标为 ClientLimitReason 的序号)
+     */
+    private final LongAdder[] limitedCounts = new LongAdder[ClientLimitReason.values().length];
+
+    /**
+     * 创建客户端 IP 的连接限制
+     *
+     * @param maxEntries 计数表大小 (IP 数)
+     */
+    public ClientLimiter(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("计数表大小必须大于 0");
+        }
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(Math.max(maxEntries / SEGMENTS, 1));
+        }
+        for (int i = 0; i < limitedCounts.length; i++) {
+            limitedCounts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 获取一个连接名额 (接收连接后、连接目标端口前调用；成功后连接结束时须调用 {@link #release(InetAddress)})
+     *
+     * @param address 客户端地址
+     * @return 被限制的原因 (null 代表允许)
+     */
+    public ClientLimitReason tryAcquire(InetAddress address) {
+        ClientLimitReason reason = segmentOf(address).tryAcquire(address, System.nanoTime());
+        if (reason != null) {
+            limitedCounts[reason.ordinal()].increment();
+        }
+        return reason;
+    }
+
+    /**
+     * 释放连接名额
+     *
+     * @param address 客户端地址
+     */
+    public void release(InetAddress address) {
+        segmentOf(address).release(address);
+    }
+
+    private Segment segmentOf(InetAddress address) {
+        int hash = address.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * 获取计数表中的 IP 数
+     */
+    public int getEntryCount() {
+        int count = 0;
+        for (Segment segment : segments) {
+            count += segment.size();
+        }
+        return count;
+    }
+
+    /**
+     * 获取指定原因被限制的连接数
+     *
+     * @param reason 原因
+     */
+    public long getLimitedCount(ClientLimitReason reason) {
+        return limitedCounts[reason.ordinal()].sum();
+    }
+
+    /**
+     * 清零被限制的连接数
+     */
+    public void reset() {
+        for (LongAdder adder : limitedCounts) {
+            adder.reset();
+        }
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getConnectionsPerSecond() {
+        return connectionsPerSecond;
+    }
+
+    /**
+     * 设置限制 (可以在运行期间调整，立即生效)
+     *
+     * @param maxConnections       单个 IP 的最大并发连接数 (0 代表不限制)
+     * @param connectionsPerSecond 单个 IP 每秒最多新建的连接数 (0 代表不限制)
+     */
+    public void setLimits(int maxConnections, int connectionsPerSecond) {
+        if (maxConnections < 0 || connectionsPerSecond < 0) {
+            throw new IllegalArgumentException("客户端 IP 的连接限制不能小于 0");
+        }
+        this.maxConnections = maxConnections;
+        this.connectionsPerSecond = connectionsPerSecond;
+    }
+
+    /**
+     * 一段计数表 (最近访问的 IP 在最后)
+     */
+    private class Segment {
+        private final int capacity;
+
+        private final LinkedHashMap<InetAddress, Entry> entries;
+
+        Segment(int capacity) {
+            this.capacity = capacity;
+            this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        }
+
+        synchronized ClientLimitReason tryAcquire(InetAddress address, long now) {
+            int max = maxConnections;
+            int rate = connectionsPerSecond;
+            evict(now, rate, false);
+
+            Entry entry = entries.get(address);
+            if (entry == null) {
+                if (entries.size() >= capacity) {
+                    evict(now, rate, true);
+                }
+                entry = new Entry(now, rate);
+                entries.put(address, entry);
+            }
+
+            if (rate > 0) {
+                entry.refill(now, rate);
+                if (entry.tokens < 1) {
+                    return ClientLimitReason.CONNECTION_RATE;
+                }
+            }
+            if (max > 0 && entry.connections >= max) {
+                return ClientLimitReason.MAX_CONNECTIONS;
+            }
+
+            if (rate > 0) {
+                entry.tokens -= 1;
+            }
+            entry.connections++;
+            return null;
+        }
+
+        synchronized void release(InetAddress address) {
+            Entry entry = entries.get(address);
+
+            // 运行期间才开启限制时，之前建立的连接没有计数
+            if (entry != null && entry.connections > 0) {
+                entry.connections--;
+            }
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        /**
+         * 从最近最少访问的 IP 开始，清理没有连接且令牌桶已满的 IP
+         *
+         * @param force 是否清理没有连接、但令牌桶未满的 IP (段已满时)
+         */
+        private void evict(long now, int rate, boolean force) {
+            Iterator<Map.Entry<InetAddress, Entry>> iterator = entries.entrySet().iterator();
+
+            for (int i = 0; i < EVICT_SCAN_LIMIT && iterator.hasNext(); i++) {
+                Entry entry = iterator.next().getValue();
+                if (entry.connections > 0) {
+                    continue;
+                }
+
+                if (force) {
+                    iterator.remove();
+                    return;
+                }
+
+                entry.refill(now, rate);
+                if (rate <= 0 || entry.tokens >= rate) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * 一个 IP 的计数 (由所在段的锁保护)
+     */
+    private static class Entry {
+        /**
+         * 当前连接数
+         */
+        int connections = 0;
+
+        /**
+         * 令牌数 (最多为每秒的连接数)
+         */
+        double tokens;
+
+        /**
+         * 上次补充令牌的时间 (纳秒)
+         */
+        long refillTime;
+
+        Entry(long now, int rate) {
+            this.tokens = rate;
+            this.refillTime = now;
+        }
+
+        void refill(long now, int rate) {
+            tokens = Math.min(rate, tokens + (now - refillTime) * rate / 1e9);
+            refillTime = now;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.orainge.tools.port_forward.acl;
+
+/**
+ * 路径压缩的二进制前缀树 (Patricia 树)，用于地址的最长前缀匹配<br>
+ * 只有分叉处和网段本身有节点，单一路径被压缩为一个节点，节点数不超过网段数的 2 倍；
+ * 查找时沿着地址的比特向下走，每个节点比较一次前缀，耗时与前缀长度成正比，与网段数无关<br>
+ * 构建完成后只读，可以被多个线程同时查找
+ *
+ * @param <V> 网段对应的值
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class RadixTrie<V> {
+    private Node<V> root = null;
+
+    private int size = 0;
+
+    /**
+     * 添加网段 (已存在时替换原来的值，须在开始查找前完成)
+     *
+     * @param prefix       网络地址
+     * @param prefixLength 前缀长度
+     * @param value        值 (不能为 null)
+     */
+    public void put(byte[] prefix, int prefixLength, V value) {
+        if (value == null) {
+            throw new NullPointerException("网段对应的值不能为空");
+        }
+        root = insert(root, prefix, prefixLength, value);
+    }
+
+    private Node<V> insert(Node<V> node, byte[] key, int length, V value) {
+        if (node == null) {
+            size++;
+            return new Node<>(key, length, value);
+        }
+
+        int common = commonPrefixLength(node.key, key, Math.min(node.length, length));
+
+        if (common == node.length && common == length) {
+            // 相同的网段 (可能是之前的分叉节点)
+            if (node.value == null) {
+                size++;
+            }
+            node.value = value;
+            return node;
+        }
+
+        if (common == node.length) {
+            // 新网段在当前节点之下
+            if (bitAt(key, common) == 0) {
+                node.left = insert(node.left, key, length, value);
+            } else {
+                node.right = insert(node.right, key, length, value);
+            }
+            return node;
+        }
+
+        if (common == length) {
+            // 新网段包含当前节点
+            size++;
+            Node<V> parent = new Node<>(key, length, value);
+            parent.setChild(bitAt(node.key, common), node);
+            return parent;
+        }
+
+        // 在第 common 位分叉，插入不带值的分叉节点
+        size++;
+        Node<V> fork = new Node<>(key, common, null);
+        fork.setChild(bitAt(node.key, common), node);
+        fork.setChild(bitAt(key, common), new Node<>(key, length, value));
+        return fork;
+    }
+
+    /**
+     * 最长前缀匹配
+     *
+     * @param address 地址
+     * @return 包含该地址的最长网段的值 (没有匹配的网段时为 null)
+     */
+    public V longestMatch(byte[] address) {
+        int maxLength = address.length * 8;
+        V result = null;
+        Node<V> node = root;
+
+        // 父节点已经比较过的前缀不再重复比较
+        int matched = 0;
+        while (node != null && node.length <= maxLength && matches(address, node.key, matched, node.length)) {
+            if (node.value != null) {
+                result = node.value;
+            }
+            if (node.length == maxLength) {
+                break;
+            }
+            matched = node.length;
+            node = bitAt(address, matched) == 0 ? node.left : node.right;
+        }
+        return result;
+    }
+
+    /**
+     * 获取网段数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 地址的第 from 位到第 to 位 (不含) 是否与前缀相同
+     */
+    static boolean matches(byte[] address, byte[] prefix, int from, int to) {
+        int index = from >>> 3;
+        int end = to >>> 3;
+        int headMask = 0xFF >>> (from & 7);
+
+        if (index < end) {
+            if (((address[index] ^ prefix[index]) & headMask) != 0) {
+                return false;
+            }
+            for (index++; index < end; index++) {
+                if (address[index] != prefix[index]) {
+                    return false;
+                }
+            }
+            headMask = 0xFF;
+        }
+
+        int bits = to & 7;
+        if (bits == 0) {
+            return true;
+        }
+        int mask = (0xFF << (8 - bits)) & headMask;
+        return ((address[end] ^ prefix[end]) & mask) == 0;
+    }
+
+    /**
+     * 地址的前 length 位是否与前缀相同
+     */
+    static boolean matches(byte[] address, byte[] prefix, int length) {
+        int bytes = length >>> 3;
+        for (int i = 0; i < bytes; i++) {
+            if (address[i] != prefix[i]) {
+                return false;
+            }
+        }
+
+        int bits = length & 7;
+        if (bits == 0) {
+            return true;
+        }
+        int mask = 0xFF << (8 - bits);
+        return ((address[bytes] ^ prefix[bytes]) & mask) == 0;
+    }
+
+    /**
+     * 两个地址在前 limit 位中相同的前缀长度
+     */
+    private static int commonPrefixLength(byte[] a, byte[] b, int limit) {
+        int length = 0;
+        while (length < limit) {
+            int index = length >>> 3;
+            int diff = (a[index] ^ b[index]) & 0xFF;
+            if (diff == 0) {
+                length += 8;
+                continue;
+            }
+            length += Integer.numberOfLeadingZeros(diff) - 24;
+            break;
+        }
+        return Math.min(length, limit);
+    }
+
+    private static int bitAt(byte[] address, int index) {
+        return (address[index >>> 3] >>> (7 - (index & 7))) & 1;
+    }
+
+    private static class Node<V> {
+        /**
+         * 前缀 (只有前 length 位有效)
+         */
+        final byte[] key;
+
+        /**
+         * 前缀长度
+         */
+        final int length;
+
+        /**
+         * 网段的值 (分叉节点为 null)
+         */
+        V value;
+
+        /**
+         * 下一位为 0 的子节点
+         */
+        Node<V> left;
+
+        /**
+         * 下一位为 1 的子节点
+         */
+        Node<V> right;
+
+        Node(byte[] key, int length, V value) {
+            this.key = key;
+            this.length = length;
+            this.value = value;
+        }
+
+        void setChild(int bit, Node<V> child) {
+            if (bit == 0) {
+                left = child;
+            } else {
+                right = child;
+            }
+        }
+    }
+}
@@ -1,15 +1,29 @@
 package com.orainge.tools.port_forward.bean;
 
+import com.orainge.tools.port_forward.consts.CloseReason;
+import com.orainge.tools.port_forward.consts.ConnectionState;
+import com.orainge.tools.port_forward.consts.PortForwardEngine;
 import com.orainge.tools.port_forward.consts.PortForwardType;
-import com.orainge.tools.port_forward.handler.ConnectionHandler;
+import com.orainge.tools.port_forward.metrics.HeavyHitterTracker;
+import com.orainge.tools.port_forward.metrics.RuleMetrics;
+import com.orainge.tools.port_forward.metrics.TargetMetrics;
 import com.orainge.tools.port_forward.server.PortForwardServer;
-import com.orainge.tools.port_forward.util.UUIDUtil;
+import com.orainge.tools.port_forward.shaping.ConnectionShaper;
+import com.orainge.tools.port_forward.timer.HashedWheelTimer;
+import com.orainge.tools.port_forward.upstream.UpstreamTarget;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 端口转发连接<br>
@@ -21,15 +35,61 @@ import java.net.SocketException;
 public class PortForwardConnection {
     private static final Logger log = LoggerFactory.getLogger(PortForwardConnection.class);
 
+    /**
+     * 连接 ID 序列 (进程内单调递增)
+     */
+    private static final AtomicLong ID_SEQUENCE = new AtomicLong(0);
+
     /**
      * 使用此连接的服务端
      */
     private final PortForwardServer server;
 
     /**
-     * 连接 ID
+     * 连接 ID (数字)
+     */
+    private final long id = ID_SEQUENCE.incrementAndGet();
+
+    /**
+     * 连接 ID (字符串，第一次使用时生成)
+     */
+    private volatile String connectionId = null;
+
+    /**
+     * 连接的目标端口
+     */
+    private final UpstreamTarget upstreamTarget;
+
+    /**
+     * 转发规则的指标 (不统计转发的字节数时为 null，以下相同)
+     */
+    private final RuleMetrics ruleMetrics;
+
+    /**
+     * 目标端口的指标
+     */
+    private final TargetMetrics targetMetrics;
+
+    /**
+     * 热点统计 (不统计转发的字节数或关闭热点统计时为 null)
+     */
+    private final HeavyHitterTracker heavyHitters;
+
+    /**
+     * 每个转发方向累积的、尚未汇总到热点统计的字节数 (下标 0: [客户端->目标端口] 1: [目标端口->客户端])<br>
+     * 每个方向只由该方向的转发线程或事件循环线程访问
+     */
+    private final long[] unreportedBytes = new long[2];
+
+    /**
+     * 每个转发方向上一次汇总到热点统计的时间 (纳秒)
+     */
+    private final long[] reportedTime = new long[2];
+
+    /**
+     * 连接的流量整形器
      */
-    private final String connectionId;
+    private final ConnectionShaper shaper;
 
     /**
      * [客户端->代理] 的连接
@@ -42,19 +102,65 @@ public class PortForwardConnection {
     private final Socket listenToTarget;
 
     /**
-     * [客户端->目标端口] 的转发线程
+     * [客户端->目标端口] 的转发线程 (NIO 引擎下为 null)
      */
     private final PortForwardThread clientToTargetThread;
 
     /**
-     * [目标端口->客户端] 的转发线程
+     * [目标端口->客户端] 的转发线程 (NIO 引擎下为 null)
      */
     private final PortForwardThread targetToClientThread;
 
     /**
-     * 当前连接包含的两个连接 Socket 是否已经关闭
+     * 连接状态<br>
+     * 状态变化都通过 CAS 完成，转发线程、事件循环和服务端不需要获取锁；只有把状态改为 CLOSING 的线程执行关闭流程
+     */
+    private final AtomicReference<ConnectionState> state = new AtomicReference<>(ConnectionState.CONNECTING);
+
+    /**
+     * 关闭的原因 (开始关闭前为 null)
+     */
+    private volatile CloseReason closeReason = null;
+
+    /**
+     * [客户端->目标端口] 方向最后一次读到数据的时间 (纳秒)
+     */
+    private volatile long clientToTargetActiveTime = System.nanoTime();
+
+    /**
+     * [目标端口->客户端] 方向最后一次读到数据的时间 (纳秒)
+     */
+    private volatile long targetToClientActiveTime = System.nanoTime();
+
+    /**
+     * [客户端->目标端口] 方向的来源端是否已发送 FIN (之后不再检查该方向的空闲超时)
+     */
+    private volatile boolean clientToTargetFinished = false;
+
+    /**
+     * [目标端口->客户端] 方向的来源端是否已发送 FIN
+     */
+    private volatile boolean targetToClientFinished = false;
+
+    /**
+     * [客户端->目标端口] 方向的空闲超时检查
+     */
+    private volatile HashedWheelTimer.Timeout clientToTargetIdleTimeout = null;
+
+    /**
+     * [目标端口->客户端] 方向的空闲超时检查
+     */
+    private volatile HashedWheelTimer.Timeout targetToClientIdleTimeout = null;
+
+    /**
+     * 最长存活时间的超时检查
+     */
+    private volatile HashedWheelTimer.Timeout lifetimeTimeout = null;
+
+    /**
+     * 连接关闭后执行的钩子
      */
-    private volatile boolean isAllConnectionClosed = false;
+    private final List<Runnable> closeHooks = new CopyOnWriteArrayList<>();
 
     /**
      * 连接的信息<br>
@@ -64,20 +170,27 @@ public class PortForwardConnection {
     private final Object[] connInfo = new Object[8];
 
     /**
-     * 创建 [客户端->目标端口] 的端口转发连接
+     * 使用已建立的 [代理->目标端口] 连接创建端口转发连接<br>
+     * 阻塞 IO 引擎和通道直连引擎会创建两个转发线程 (由 {@link #startForwardThreads()} 启动)；NIO 引擎由事件循环负责转发，不创建转发线程
      *
      * @param server         转发服务端
      * @param clientToListen [客户端->代理] 的 Socket 连接
+     * @param listenToTarget [代理->目标端口] 的 Socket 连接
+     * @param upstreamTarget 连接的目标端口
      */
-    public PortForwardConnection(PortForwardServer server, Socket clientToListen) throws Exception {
+    public PortForwardConnection(PortForwardServer server, Socket clientToListen, Socket listenToTarget, UpstreamTarget upstreamTarget) {
         this.server = server;
-        this.connectionId = generateConnectionId();
+        this.upstreamTarget = upstreamTarget;
+        this.ruleMetrics = server.isTrafficMetricsEnabled() ? server.getMetrics() : null;
+        this.targetMetrics = server.isTrafficMetricsEnabled() ? upstreamTarget.getMetrics() : null;
+        this.heavyHitters = server.isTrafficMetricsEnabled() ? server.getHeavyHitters() : null;
+        this.reportedTime[0] = this.reportedTime[1] = System.nanoTime();
 
         // 保存 [客户端->代理] 的连接
         this.clientToListen = clientToListen;
 
-        // 创建 [代理->目标端口] 的连接并保存
-        this.listenToTarget = new Socket(server.getTargetIp(), server.getTargetPort());
+        // 保存 [代理->目标端口] 的连接
+        this.listenToTarget = listenToTarget;
 
         // 保存 [客户端->代理] 连接的信息
         InetSocketAddress ctlAddress = (InetSocketAddress) clientToListen.getRemoteSocketAddress();
@@ -85,7 +198,6 @@ public class PortForwardConnection {
         connInfo[1] = ctlAddress.getPort(); // 客户端端口
         connInfo[2] = clientToListen.getLocalAddress().getHostAddress(); // 代理监听 IP
         connInfo[3] = clientToListen.getLocalPort(); // 代理监听端口
-        log.debug("[端口转发连接 {}] - [{}] 已连接", connectionId, PortForwardType.CLIENT_TO_LISTEN.getDescription());
 
         // 保存 [代理->目标端口] 连接的信息
         InetSocketAddress lttAddress = (InetSocketAddress) listenToTarget.getRemoteSocketAddress();
@@ -93,26 +205,85 @@ public class PortForwardConnection {
         connInfo[5] = listenToTarget.getLocalPort(); // 连接目标端口时代理服务的客户端端口
         connInfo[6] = lttAddress.getAddress().getHostAddress(); // 目标 IP
         connInfo[7] = lttAddress.getPort(); // 目标端口
-        log.debug("[端口转发连接 {}] - [{}] 已连接", connectionId, PortForwardType.LISTEN_TO_TARGET.getDescription());
 
-        // 创建 [客户端->目标端口] 的转发线程
-        this.clientToTargetThread = new PortForwardThread(this, PortForwardType.CLIENT_TO_TARGET);
+        // 字符串形式的连接 ID 只在实际输出日志时生成
+        if (log.isDebugEnabled()) {
+            log.debug("[端口转发连接 {}] - [{}] 已连接", getConnectionId(), PortForwardType.CLIENT_TO_LISTEN.getDescription());
+            log.debug("[端口转发连接 {}] - [{}] 已连接", getConnectionId(), PortForwardType.LISTEN_TO_TARGET.getDescription());
+        }
+
+        // 按客户端 IP 共用令牌桶 (连接关闭后释放)
+        this.shaper = server.getTrafficShaper().newConnectionShaper((String) connInfo[0]);
 
-        // 创建 [目标端口->客户端] 的转发线程
-        this.targetToClientThread = new PortForwardThread(this, PortForwardType.TARGET_TO_CLIENT);
+        // 计入目标端口的活跃连接数 (连接关闭后由监听服务减去)
+        upstreamTarget.incrementActiveConnections();
 
-        // 启动 [客户端->目标端口] 的转发线程
-        this.clientToTargetThread.start();
+        if (!PortForwardEngine.NIO.equals(server.getEngine())) {
+            // 创建 [客户端->目标端口] 的转发线程
+            this.clientToTargetThread = new PortForwardThread(this, PortForwardType.CLIENT_TO_TARGET);
+
+            // 创建 [目标端口->客户端] 的转发线程
+            this.targetToClientThread = new PortForwardThread(this, PortForwardType.TARGET_TO_CLIENT);
+        } else {
+            // 由事件循环负责转发
+            this.clientToTargetThread = null;
+            this.targetToClientThread = null;
+        }
+    }
+
+    /**
+     * 启动两个转发线程 (连接进入 ACTIVE 状态后由服务端调用；NIO 引擎下不执行任何操作)
+     */
+    public void startForwardThreads() {
+        if (clientToTargetThread == null) {
+            return;
+        }
+
+        // 启动 [客户端->目标端口] 的转发线程 (线程名称使用数字 ID)
+        server.newThread(this.clientToTargetThread, "port-forward-" + id + "-c2t").start();
 
         // 启动 [目标端口->客户端] 的转发线程
-        this.targetToClientThread.start();
+        server.newThread(this.targetToClientThread, "port-forward-" + id + "-t2c").start();
+    }
+
+    /**
+     * 获取使用此连接的服务端
+     */
+    public PortForwardServer getServer() {
+        return this.server;
+    }
+
+    /**
+     * 获取连接的目标端口
+     */
+    public UpstreamTarget getUpstreamTarget() {
+        return this.upstreamTarget;
+    }
+
+    /**
+     * 获取连接 ID (数字)
+     */
+    public long getId() {
+        return this.id;
     }
 
     /**
-     * 获取连接 ID
+     * 获取连接 ID (字符串)
      */
     public String getConnectionId() {
-        return this.connectionId;
+        String connectionId = this.connectionId;
+        if (connectionId == null) {
+            connectionId = generateConnectionId();
+            this.connectionId = connectionId;
+        }
+        return connectionId;
+    }
+
+    /**
+     * 获取连接的流量整形器
+     */
+    public ConnectionShaper getShaper() {
+        return this.shaper;
     }
 
     /**
@@ -144,81 +315,315 @@ public class PortForwardConnection {
     }
 
     /**
-     * 关闭端口转发连接
+     * 获取连接状态
      */
-    public synchronized void close() {
-        if (!isAllConnectionClosed) {
-            // 关闭 [客户端->代理] 的连接
-            try {
-                if (!clientToListen.isClosed()) {
-                    clientToListen.close();
-                }
-                log.debug("[端口转发连接 {}] - [{}] 已关闭", connectionId, PortForwardType.CLIENT_TO_LISTEN.getDescription());
-            } catch (Exception e) {
-                if (e instanceof SocketException) {
-                    log.debug("[端口转发连接 {}] - [{}] 已关闭", connectionId, PortForwardType.CLIENT_TO_LISTEN.getDescription());
-                    return;
-                }
-                log.error("[端口转发连接 (" + connectionId + ")] - [" + PortForwardType.CLIENT_TO_LISTEN.getDescription() + "] 关闭异常", e);
-            }
+    public ConnectionState getState() {
+        return state.get();
+    }
+
+    /**
+     * 获取关闭的原因 (开始关闭前为 null)
+     */
+    public CloseReason getCloseReason() {
+        return closeReason;
+    }
+
+    /**
+     * 连接建立完成，开始转发 (CONNECTING -> ACTIVE)
+     *
+     * @return true: 状态已改为 ACTIVE false: 连接在建立过程中已经关闭
+     */
+    public boolean activate() {
+        return state.compareAndSet(ConnectionState.CONNECTING, ConnectionState.ACTIVE);
+    }
 
-            // 关闭 [代理->目标端口] 的连接
-            try {
-                if (!listenToTarget.isClosed()) {
-                    listenToTarget.close();
-                }
-                log.debug("[端口转发连接 {}] - [{}] 已关闭", connectionId, PortForwardType.LISTEN_TO_TARGET.getDescription());
-            } catch (Exception e) {
-                if (e instanceof SocketException) {
-                    return;
-                }
-                log.error("[端口转发连接 (" + connectionId + ")] - [" + PortForwardType.LISTEN_TO_TARGET.getDescription() + "] 关闭异常", e);
+    /**
+     * 一个转发方向已经结束，另一个方向继续转发 (ACTIVE -> HALF_CLOSED)
+     *
+     * @return true: 状态已改为 HALF_CLOSED false: 连接不处于 ACTIVE 状态
+     */
+    public boolean halfClose() {
+        return state.compareAndSet(ConnectionState.ACTIVE, ConnectionState.HALF_CLOSED);
+    }
+
+    /**
+     * 启动空闲超时和最长存活时间的检查 (连接进入 ACTIVE 状态后由服务端调用)<br>
+     * 超时检查由时间轮定时器驱动：到期时如果期间有数据，按最后一次读到数据的时间重新设置，否则关闭连接<br>
+     * 定时器只有一个工作线程，关闭连接 (关闭 Socket、执行 Handler 等) 交给 closeExecutor 执行，不阻塞其他连接的超时检查
+     *
+     * @param timer                    定时器
+     * @param closeExecutor            超时后执行关闭的线程 (NIO 引擎为连接所属的事件循环，其他引擎为连接建立线程池)
+     * @param clientToTargetIdleMillis [客户端->目标端口] 方向的空闲超时时间 (毫秒，小于等于 0 代表不检查)
+     * @param targetToClientIdleMillis [目标端口->客户端] 方向的空闲超时时间 (毫秒，小于等于 0 代表不检查)
+     * @param maxLifetimeMillis        最长存活时间 (毫秒，小于等于 0 代表不限制)
+     */
+    public void startTimeouts(HashedWheelTimer timer, Executor closeExecutor,
+                              long clientToTargetIdleMillis, long targetToClientIdleMillis, long maxLifetimeMillis) {
+        if (clientToTargetIdleMillis > 0) {
+            checkIdle(timer, closeExecutor, PortForwardType.CLIENT_TO_TARGET, TimeUnit.MILLISECONDS.toNanos(clientToTargetIdleMillis));
+        }
+        if (targetToClientIdleMillis > 0) {
+            checkIdle(timer, closeExecutor, PortForwardType.TARGET_TO_CLIENT, TimeUnit.MILLISECONDS.toNanos(targetToClientIdleMillis));
+        }
+        if (maxLifetimeMillis > 0) {
+            lifetimeTimeout = timer.newTimeout(() -> closeOn(closeExecutor, CloseReason.MAX_LIFETIME), maxLifetimeMillis, TimeUnit.MILLISECONDS);
+        }
+
+        // 设置期间连接已经关闭，取消刚设置的检查
+        if (isClosed()) {
+            cancelTimeouts();
+        }
+    }
+
+    /**
+     * 检查一个转发方向是否空闲超时，未超时则在剩余时间后再次检查
+     */
+    private void checkIdle(HashedWheelTimer timer, Executor closeExecutor, PortForwardType type, long idleNanos) {
+        boolean clientToTarget = PortForwardType.CLIENT_TO_TARGET.equals(type);
+        if (isClosed() || (clientToTarget ? clientToTargetFinished : targetToClientFinished)) {
+            return;
+        }
+
+        long activeTime = clientToTarget ? clientToTargetActiveTime : targetToClientActiveTime;
+        long delay = activeTime + idleNanos - System.nanoTime();
+
+        if (delay <= 0) {
+            if (log.isDebugEnabled()) {
+                log.debug("[端口转发连接 {}] - [{}] 空闲超时", getConnectionId(), type.getDescription());
             }
+            closeOn(closeExecutor, CloseReason.IDLE_TIMEOUT);
+            return;
+        }
+
+        HashedWheelTimer.Timeout timeout = timer.newTimeout(() -> checkIdle(timer, closeExecutor, type, idleNanos), delay, TimeUnit.NANOSECONDS);
+        if (clientToTarget) {
+            clientToTargetIdleTimeout = timeout;
+        } else {
+            targetToClientIdleTimeout = timeout;
+        }
+    }
+
+    /**
+     * 在指定的线程中关闭连接 (由定时器调用，只提交任务)<br>
+     * 线程池已满或已关闭时在当前线程关闭，保证超时的连接一定会被关闭
+     */
+    private void closeOn(Executor closeExecutor, CloseReason reason) {
+        try {
+            closeExecutor.execute(() -> close(reason));
+        } catch (RejectedExecutionException e) {
+            close(reason);
+        }
+    }
 
-            // 设置连接已经关闭
-            isAllConnectionClosed = true;
+    /**
+     * 记录转发方向读到了数据，更新空闲时间和转发的字节数 (由转发线程或 NIO 转发器调用，每次读到数据调用一次)
+     *
+     * @param type  转发方向 (CLIENT_TO_TARGET 或 TARGET_TO_CLIENT)
+     * @param bytes 读到的字节数
+     */
+    public void recordActivity(PortForwardType type, int bytes) {
+        long now = System.nanoTime();
+        int index;
+        if (PortForwardType.CLIENT_TO_TARGET.equals(type)) {
+            clientToTargetActiveTime = now;
+            index = 0;
+        } else {
+            targetToClientActiveTime = now;
+            index = 1;
+        }
 
-            // 告诉监听服务连接已经关闭
-            server.removeConnection(connectionId);
+        if (ruleMetrics != null) {
+            ruleMetrics.addBytes(type, bytes);
+            targetMetrics.addBytes(type, bytes);
+        }
 
-            // 执行 Handler
-            ConnectionHandler handler = server.getConnectionHandler();
-            if (handler != null) {
-                handler.afterClosed(this);
+        if (heavyHitters != null) {
+            // 累积到一定字节数或时间后再汇总，热点统计的锁不在每次读取的路径上
+            long pending = unreportedBytes[index] += bytes;
+            if (pending >= HeavyHitterTracker.REPORT_BYTES
+                    || now - reportedTime[index] >= TimeUnit.MILLISECONDS.toNanos(HeavyHitterTracker.REPORT_MILLIS)) {
+                reportBytes(index, now);
             }
         }
     }
 
     /**
-     * 任意一个连接是否已经断开
+     * 转发方向结束，汇总累积的字节数到热点统计 (由该方向的转发线程或事件循环线程调用)
+     *
+     * @param type 转发方向 (CLIENT_TO_TARGET 或 TARGET_TO_CLIENT)
+     */
+    public void flushActivity(PortForwardType type) {
+        if (heavyHitters != null) {
+            reportBytes(PortForwardType.CLIENT_TO_TARGET.equals(type) ? 0 : 1, System.nanoTime());
+        }
+    }
+
+    private void reportBytes(int index, long now) {
+        long pending = unreportedBytes[index];
+        if (pending > 0) {
+            heavyHitters.recordBytes((String) connInfo[0], upstreamTarget.toString(), pending);
+            unreportedBytes[index] = 0;
+        }
+        reportedTime[index] = now;
+    }
+
+    private void cancelTimeouts() {
+        cancelTimeout(clientToTargetIdleTimeout);
+        cancelTimeout(targetToClientIdleTimeout);
+        cancelTimeout(lifetimeTimeout);
+    }
+
+    private static void cancelTimeout(HashedWheelTimer.Timeout timeout) {
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * 一个转发方向的来源端已经发送 FIN，且数据已经全部写出<br>
+     * 第一个结束的方向关闭目标端的输出 (向目标端发送 FIN)，另一个方向继续转发；两个方向都结束后关闭连接
      *
-     * @return true: 连接已断开 false; 连接未断开
+     * @param type 结束的转发方向 (CLIENT_TO_TARGET 或 TARGET_TO_CLIENT)
      */
-    public synchronized boolean isClosed() {
-        // 如果连接已经关闭，就直接返回
-        if (isAllConnectionClosed) {
-            return true;
+    public void finishDirection(PortForwardType type) {
+        // 该方向不会再有数据，不再检查空闲超时
+        if (PortForwardType.CLIENT_TO_TARGET.equals(type)) {
+            clientToTargetFinished = true;
+            cancelTimeout(clientToTargetIdleTimeout);
+        } else {
+            targetToClientFinished = true;
+            cancelTimeout(targetToClientIdleTimeout);
         }
 
-        // 判断连接是否断开
-        boolean a = listenToTarget.isClosed() || !listenToTarget.isConnected();
-        boolean b = clientToListen.isClosed() || !clientToListen.isConnected();
+        if (!halfClose()) {
+            // 另一个方向已经结束 (或连接已经关闭)
+            close();
+            return;
+        }
 
-        if (a || b) {
-            // 断开连接
+        Socket target = PortForwardType.CLIENT_TO_TARGET.equals(type) ? listenToTarget : clientToListen;
+        try {
+            target.shutdownOutput();
+            if (log.isDebugEnabled()) {
+                log.debug("[端口转发连接 {}] - [{}] 来源端已关闭，已向目标端发送 FIN", getConnectionId(), type.getDescription());
+            }
+        } catch (Exception e) {
+            // 目标端已经关闭，无法继续转发另一个方向
+            if (log.isDebugEnabled()) {
+                log.debug("[端口转发连接 {}] - [{}] 半关闭失败: {}", getConnectionId(), type.getDescription(), e.getMessage());
+            }
             close();
         }
+    }
+
+    /**
+     * 关闭端口转发连接<br>
+     * 可以在任意线程中重复调用，只有第一次调用会关闭 Socket、执行关闭钩子和 Handler<br>
+     * 在 CONNECTING 状态下关闭 (建立转发失败) 时没有执行过 afterConnected，因此也不执行 afterClosed
+     */
+    public void close() {
+        close(CloseReason.NORMAL);
+    }
+
+    /**
+     * 关闭端口转发连接，并记录关闭的原因 (只有第一次调用的原因生效)
+     *
+     * @param reason 关闭的原因
+     */
+    public void close(CloseReason reason) {
+        // 抢占关闭流程
+        ConnectionState current;
+        do {
+            current = state.get();
+            if (current.isClosing()) {
+                return;
+            }
+        } while (!state.compareAndSet(current, ConnectionState.CLOSING));
+
+        closeReason = reason;
+        cancelTimeouts();
+
+        // 关闭 [客户端->代理] 的连接
+        closeSocket(clientToListen, PortForwardType.CLIENT_TO_LISTEN);
+
+        // 关闭 [代理->目标端口] 的连接
+        closeSocket(listenToTarget, PortForwardType.LISTEN_TO_TARGET);
+
+        // 释放客户端 IP 的令牌桶
+        shaper.close();
+
+        // 设置连接已经关闭 (之后添加的钩子会立即执行)
+        state.set(ConnectionState.CLOSED);
+
+        // 执行连接关闭的钩子 (移除成功的线程负责执行，避免与 addCloseHook 重复执行)
+        for (Runnable hook : closeHooks) {
+            if (closeHooks.remove(hook)) {
+                runCloseHook(hook);
+            }
+        }
+
+        // 告诉监听服务连接已经关闭
+        server.afterConnectionClosed(this);
+
+        // 执行 Handler
+        if (current != ConnectionState.CONNECTING) {
+            server.getHandlerDispatcher().afterClosed(this, reason);
+        }
+    }
+
+    private void closeSocket(Socket socket, PortForwardType type) {
+        try {
+            socket.close();
+        } catch (SocketException ignored) {
+            // 已经关闭
+        } catch (Exception e) {
+            log.error("[端口转发连接 (" + getConnectionId() + ")] - [" + type.getDescription() + "] 关闭异常", e);
+            return;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("[端口转发连接 {}] - [{}] 已关闭", getConnectionId(), type.getDescription());
+        }
+    }
 
-        // 返回结果
-        return isAllConnectionClosed;
+    /**
+     * 添加连接关闭后执行的钩子 (如归还缓冲区)<br>
+     * 如果连接已经关闭，则立即执行
+     *
+     * @param hook 钩子
+     */
+    public void addCloseHook(Runnable hook) {
+        closeHooks.add(hook);
+
+        if (state.get() == ConnectionState.CLOSED && closeHooks.remove(hook)) {
+            runCloseHook(hook);
+        }
+    }
+
+    private void runCloseHook(Runnable hook) {
+        try {
+            hook.run();
+        } catch (Exception e) {
+            log.error("[端口转发连接 (" + getConnectionId() + ")] - 关闭钩子执行异常", e);
+        }
+    }
+
+    /**
+     * 连接是否已经关闭 (或正在关闭)<br>
+     * 只读取连接状态，不加锁也不检查 Socket，可以在转发循环中频繁调用
+     *
+     * @return true: 连接已关闭 false: 连接未关闭
+     */
+    public boolean isClosed() {
+        return state.get().isClosing();
     }
 
     /**
-     * 创建连接 ID<br>
-     * 可以重写此方法自定义获取 connectionId 的方法
+     * 创建字符串形式的连接 ID (默认为数字 ID 的 36 进制表示)<br>
+     * 可以重写此方法自定义获取 connectionId 的方法；连接注册表始终使用数字 ID
      */
     protected String generateConnectionId() {
-        return UUIDUtil.getShortUuid();
+        return Long.toString(id, 36);
     }
 
     /**
@@ -228,7 +633,7 @@ public class PortForwardConnection {
     public String toString() {
         String clientToListenLog = "[" + connInfo[0] + ":" + connInfo[1] + "->" + connInfo[2] + ":" + connInfo[3] + "]";
         String listenToTargetLog = "[" + connInfo[4] + ":" + connInfo[5] + "->" + connInfo[6] + ":" + connInfo[7] + "]";
-        return "[端口转发连接 " + connectionId + "] - " +
+        return "[端口转发连接 " + getConnectionId() + "] [" + state.get().getDescription() + "] - " +
                 "[客户端->代理] " + clientToListenLog + " - " + (clientToListen.isClosed() ? "断开" : "连接") +
                 ", [代理->目标端口] " + listenToTargetLog + " - " + (listenToTarget.isClosed() ? "断开" : "连接");
     }
@@ -1,6 +1,11 @@
 package com.orainge.tools.port_forward.bean;
 
+import com.orainge.tools.port_forward.buffer.AdaptiveBufferSizer;
+import com.orainge.tools.port_forward.buffer.ByteBufferPool;
+import com.orainge.tools.port_forward.consts.CloseReason;
+import com.orainge.tools.port_forward.consts.PortForwardEngine;
 import com.orainge.tools.port_forward.consts.PortForwardType;
+import com.orainge.tools.port_forward.shaping.ConnectionShaper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -8,14 +13,19 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * 转发连接线程
+ * 转发连接线程<br>
+ * 由服务端创建的平台线程或虚拟线程执行
  *
  * @author orainge
  * @since 2021/11/15
  */
-public class PortForwardThread extends Thread {
+public class PortForwardThread implements Runnable {
     private static final Logger log = LoggerFactory.getLogger(PortForwardThread.class);
 
     /**
@@ -38,6 +48,11 @@ public class PortForwardThread extends Thread {
      */
     private final PortForwardType type;
 
+    /**
+     * 是否已添加连接关闭时唤醒限速等待的钩子
+     */
+    private boolean unparkOnClose = false;
+
     public PortForwardThread(PortForwardConnection connection, PortForwardType type) {
         this.connection = connection;
         this.type = type;
@@ -56,28 +71,51 @@ public class PortForwardThread extends Thread {
 
     // in: code 1 out: code: 2
     @Override
-    @SuppressWarnings("all")
     public void run() {
-        boolean isDebugEnabled = log.isDebugEnabled();
-
-        try (InputStream in = sourceSocket.getInputStream();
-             OutputStream out = targetSocket.getOutputStream();
-        ) {
-            byte[] buffer = new byte[1024];
-            while (true) {
-                // 如果任意一方连接关闭，就退出 while 循环
-                if (connection.isClosed()) {
-                    // 写入缓冲区剩余的数据
-                    writeOutputStream(out, buffer);
-
-                    // 退出循环
-                    break;
-                }
+        boolean finished = PortForwardEngine.DIRECT.equals(connection.getServer().getEngine())
+                ? relayChannel()
+                : pumpStream();
+
+        // 汇总该方向累积的字节数
+        connection.flushActivity(type);
+
+        if (finished) {
+            // 来源端发送了 FIN，把半关闭传递给目标端，另一个方向继续转发
+            connection.finishDirection(type);
+        } else {
+            // 转发异常或连接已关闭，关闭两个 Socket
+            connection.close();
+        }
+    }
+
+    /**
+     * 通过输入输出流转发数据 (阻塞 IO 引擎)<br>
+     * 来源端已有更多数据到达时先继续读入缓冲区，缓冲区写满或来源端暂无数据时再一次性写出<br>
+     * 输入输出流不能关闭 (关闭流会关闭 Socket)，由连接负责关闭
+     *
+     * @return true: 来源端已发送 FIN 且数据已全部写出 false: 转发异常或连接已关闭
+     */
+    private boolean pumpStream() {
+        ByteBufferPool bufferPool = connection.getServer().getBufferPool();
+        AdaptiveBufferSizer bufferSizer = connection.getServer().newBufferSizer();
+        ByteBuffer pooledBuffer = bufferPool.allocate(bufferSizer.size(), false);
+
+        try {
+            InputStream in = sourceSocket.getInputStream();
+            OutputStream out = targetSocket.getOutputStream();
+            byte[] buffer = pooledBuffer.array();
+            int offset = pooledBuffer.arrayOffset();
+            int capacity = pooledBuffer.capacity();
+            ConnectionShaper shaper = connection.getShaper();
+            int limit = shaper.readLimit(capacity);
+            int pos = 0;
 
-                int len = 0;
+            // 如果连接已经关闭，就退出 while 循环
+            while (!connection.isClosed()) {
+                int len;
                 try {
-                    // 读入数据
-                    len = in.read(buffer);
+                    // 读入数据 (阻塞，直到有数据到达)
+                    len = in.read(buffer, offset + pos, limit - pos);
                 } catch (Exception e) {
                     if (!(e instanceof SocketException)) {
                         // 读取异常
@@ -85,35 +123,148 @@ public class PortForwardThread extends Thread {
                                 "] 从写入流 [in] 读取异常: 连接" + (sourceSocket.isClosed() ? "断开" : "正常"), e);
                     }
 
-                    len = -1;
+                    return false;
                 }
 
-                // 写入数据
-                if (!(writeOutputStream(out, buffer))) {
-                    break;
+                if (len == -1) {
+                    // 来源端已发送 FIN，写入缓冲区剩余的数据
+                    return pos == 0 || writeOutputStream(out, buffer, offset, pos);
                 }
 
-                if (len == -1) {
-                    // 退出循环
-                    break;
+                pos += len;
+                connection.recordActivity(type, len);
+
+                // 来源端已有更多数据到达，继续读入缓冲区
+                if (pos < limit && in.available() > 0) {
+                    continue;
+                }
+
+                // 写入读取到的数据
+                if (!writeOutputStream(out, buffer, offset, pos)) {
+                    return false;
+                }
+
+                // 根据本次转发的数据量调整缓冲区大小
+                bufferSizer.record(pos);
+                long delay = shaper.acquire(type, pos);
+                pos = 0;
+
+                if (bufferSizer.size() != capacity) {
+                    bufferPool.release(pooledBuffer);
+                    pooledBuffer = bufferPool.allocate(bufferSizer.size(), false);
+                    buffer = pooledBuffer.array();
+                    offset = pooledBuffer.arrayOffset();
+                    capacity = pooledBuffer.capacity();
                 }
+                limit = shaper.readLimit(capacity);
 
-                // 等待 300 毫秒
-                Thread.sleep(300);
+                // 超出带宽限制，等待令牌恢复后再读取
+                if (delay > 0) {
+                    throttle(delay);
+                }
             }
         } catch (SocketException e) {
             log.debug("[端口转发线程] - [" + type.getDescription() + "] 连接异常关闭");
         } catch (Exception e) {
-            log.error("[端口转发线程] - [" + type.getDescription() + "] 转发异常", e);
+            connection.getServer().onForwardError(connection, e);
+            connection.close(CloseReason.ERROR);
+        } finally {
+            bufferPool.release(pooledBuffer);
+            bufferSizer.close();
+        }
+
+        return false;
+    }
+
+    /**
+     * 通过直接内存缓冲区在两个 SocketChannel 之间转发数据 (通道直连引擎)<br>
+     * 数据由内核直接读入堆外缓冲区再写出，不经过 Java 堆上的 byte[]
+     *
+     * @return true: 来源端已发送 FIN 且数据已全部写出 false: 转发异常或连接已关闭
+     */
+    private boolean relayChannel() {
+        SocketChannel source = sourceSocket.getChannel();
+        SocketChannel target = targetSocket.getChannel();
+        ByteBufferPool bufferPool = connection.getServer().getBufferPool();
+        AdaptiveBufferSizer bufferSizer = connection.getServer().newBufferSizer();
+        ByteBuffer buffer = bufferPool.allocate(bufferSizer.size(), true);
+        ConnectionShaper shaper = connection.getShaper();
+
+        try {
+            while (!connection.isClosed()) {
+                // 读入数据 (阻塞，直到有数据到达)
+                buffer.limit(shaper.readLimit(buffer.capacity()));
+                int len = source.read(buffer);
+                if (len == -1) {
+                    // 来源端已发送 FIN
+                    return true;
+                }
+                connection.recordActivity(type, len);
+
+                // 写出读取到的全部数据
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+                buffer.clear();
+
+                // 根据本次读取的数据量调整缓冲区大小
+                bufferSizer.record(len);
+                if (bufferSizer.size() != buffer.capacity()) {
+                    bufferPool.release(buffer);
+                    buffer = bufferPool.allocate(bufferSizer.size(), true);
+                }
+
+                // 超出带宽限制，等待令牌恢复后再读取
+                long delay = shaper.acquire(type, len);
+                if (delay > 0) {
+                    throttle(delay);
+                }
+            }
+        } catch (ClosedChannelException | SocketException e) {
+            log.debug("[端口转发线程] - [" + type.getDescription() + "] 连接异常关闭");
+        } catch (Exception e) {
+            connection.getServer().onForwardError(connection, e);
+            connection.close(CloseReason.ERROR);
+        } finally {
+            bufferPool.release(buffer);
+            bufferSizer.close();
+        }
+
+        return false;
+    }
+
+    /**
+     * 超出带宽限制，暂停读取来源端 (转发线程自己等待，不占用额外线程；连接关闭时立即返回)
+     *
+     * @param delayNanos 等待时间 (纳秒)
+     */
+    private void throttle(long delayNanos) {
+        if (!unparkOnClose) {
+            Thread current = Thread.currentThread();
+            connection.addCloseHook(() -> LockSupport.unpark(current));
+            unparkOnClose = true;
         }
 
-        // 退出 while, 表示结束连接，关闭两个 Socket
-        connection.close();
+        long deadline = System.nanoTime() + delayNanos;
+        long remaining;
+        while (!connection.isClosed() && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
     }
 
-    private boolean writeOutputStream(OutputStream out, byte[] buffer) {
+    /**
+     * 写入数据到输出流
+     *
+     * @param out    输出流
+     * @param buffer 数据缓冲区
+     * @param offset 数据起始位置
+     * @param len    要写入的字节数
+     * @return true: 写入成功 false: 写入失败
+     */
+    private boolean writeOutputStream(OutputStream out, byte[] buffer, int offset, int len) {
         try {
-            out.write(buffer);
+            out.write(buffer, offset, len);
             out.flush();
             return true;
         } catch (Exception e) {
@@ -126,4 +277,4 @@ public class PortForwardThread extends Thread {
             return false;
         }
     }
-}
\ No newline at end of file
+}
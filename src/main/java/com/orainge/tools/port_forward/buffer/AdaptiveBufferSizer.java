@@ -0,0 +1,127 @@
+package com.orainge.tools.port_forward.buffer;
+
+/**
+ * 自适应缓冲区大小<br>
+ * 每个转发方向一个实例，在缓冲区池的规格之间调整下一次读取使用的缓冲区大小：<br>
+ * 一次读取就写满缓冲区时立即扩大一个规格；连续两次读取的数据量都不超过更小一个规格时缩小一个规格<br>
+ * 批量传输会逐步扩大到最大规格，交互式连接保持在最小规格，空闲连接不会浪费内存<br>
+ * 非线程安全，只能由所属的转发线程 (或事件循环线程) 调用
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class AdaptiveBufferSizer {
+    /**
+     * 大小分布统计 (可以为 null)
+     */
+    private final BufferSizeDistribution distribution;
+
+    /**
+     * 最小规格下标
+     */
+    private final int minIndex;
+
+    /**
+     * 最大规格下标
+     */
+    private final int maxIndex;
+
+    /**
+     * 当前规格下标
+     */
+    private int index;
+
+    /**
+     * 上一次读取的数据量是否已经偏小
+     */
+    private boolean decreaseNow = false;
+
+    /**
+     * 是否已经关闭
+     */
+    private boolean closed = false;
+
+    /**
+     * 创建自适应缓冲区大小
+     *
+     * @param minSize      最小缓冲区大小
+     * @param initialSize  初始缓冲区大小
+     * @param maxSize      最大缓冲区大小
+     * @param distribution 大小分布统计 (可以为 null)
+     */
+    public AdaptiveBufferSizer(int minSize, int initialSize, int maxSize, BufferSizeDistribution distribution) {
+        this.minIndex = indexOf(minSize);
+        this.maxIndex = Math.max(minIndex, indexOf(maxSize));
+        this.index = Math.min(Math.max(indexOf(initialSize), minIndex), maxIndex);
+        this.distribution = distribution;
+
+        if (distribution != null) {
+            distribution.increment(index);
+        }
+    }
+
+    /**
+     * 获取大小对应的规格下标，超过最大规格时使用最大规格
+     */
+    private static int indexOf(int size) {
+        int index = ByteBufferPool.sizeClassIndex(size);
+        return index < 0 ? ByteBufferPool.sizeClassCount() - 1 : index;
+    }
+
+    /**
+     * 获取下一次读取使用的缓冲区大小
+     */
+    public int size() {
+        return ByteBufferPool.sizeClass(index);
+    }
+
+    /**
+     * 记录一次读取的数据量，调整下一次读取使用的缓冲区大小
+     *
+     * @param bytes 读取的数据量
+     */
+    public void record(int bytes) {
+        if (closed) {
+            return;
+        }
+
+        int newIndex = index;
+
+        if (bytes >= size()) {
+            // 写满了缓冲区，立即扩大
+            newIndex = Math.min(index + 1, maxIndex);
+            decreaseNow = false;
+        } else if (index > minIndex && bytes <= ByteBufferPool.sizeClass(index - 1)) {
+            // 连续两次偏小才缩小，避免来回抖动
+            if (decreaseNow) {
+                newIndex = index - 1;
+                decreaseNow = false;
+            } else {
+                decreaseNow = true;
+            }
+        } else {
+            decreaseNow = false;
+        }
+
+        if (newIndex != index) {
+            if (distribution != null) {
+                distribution.decrement(index);
+                distribution.increment(newIndex);
+            }
+            index = newIndex;
+        }
+    }
+
+    /**
+     * 转发结束后关闭，从大小分布统计中移除
+     */
+    public void close() {
+        if (!closed) {
+            closed = true;
+
+            if (distribution != null) {
+                distribution.decrement(index);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.orainge.tools.port_forward.buffer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 缓冲区大小分布<br>
+ * 统计当前各个转发方向的自适应缓冲区分别处于哪个规格
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class BufferSizeDistribution {
+    /**
+     * 各个规格的转发方向数 (下标与缓冲区池的规格下标一致)
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(ByteBufferPool.sizeClassCount());
+
+    void increment(int index) {
+        counts.incrementAndGet(index);
+    }
+
+    void decrement(int index) {
+        counts.decrementAndGet(index);
+    }
+
+    /**
+     * 获取当前的大小分布
+     *
+     * @return {缓冲区大小 (字节): 转发方向数}
+     */
+    public Map<Integer, Long> snapshot() {
+        Map<Integer, Long> result = new LinkedHashMap<>();
+
+        for (int i = 0; i < counts.length(); i++) {
+            result.put(ByteBufferPool.sizeClass(i), counts.get(i));
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[缓冲区大小分布]");
+
+        for (Map.Entry<Integer, Long> entry : snapshot().entrySet()) {
+            builder.append(" ").append(entry.getKey() / 1024).append("KB: ").append(entry.getValue());
+        }
+
+        return builder.toString();
+    }
+}
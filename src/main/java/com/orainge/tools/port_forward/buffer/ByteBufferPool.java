@@ -0,0 +1,363 @@
+package com.orainge.tools.port_forward.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓冲区池<br>
+ * 按容量划分为若干个规格 (1KB、4KB、16KB、64KB、256KB)，申请时向上取整到对应的规格，超过最大规格的缓冲区不池化<br>
+ * 每个规格有一个全局共享的空闲队列；调用过 {@link #enableThreadCache()} 的长期线程 (如 NIO 事件循环线程) 额外拥有线程本地缓存，
+ * 申请和归还都无需竞争全局队列<br>
+ * 池中空闲缓冲区的总字节数不超过上限，超出上限时归还的缓冲区直接丢弃，交由 GC 回收
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class ByteBufferPool {
+    /**
+     * 缓冲区规格 (字节)
+     */
+    private static final int[] SIZE_CLASSES = new int[]{1024, 4 * 1024, 16 * 1024, 64 * 1024, 256 * 1024};
+
+    /**
+     * 每个线程本地缓存中，每个规格最多缓存的缓冲区个数
+     */
+    private static final int THREAD_CACHE_SIZE = 16;
+
+    /**
+     * 默认的缓冲区池 (池中空闲缓冲区上限 64MB)
+     */
+    private static final ByteBufferPool DEFAULT = new ByteBufferPool(64L * 1024 * 1024);
+
+    /**
+     * 当前线程在各个缓冲区池中创建的线程本地缓存 (null 代表当前线程未启用线程本地缓存)
+     */
+    private static final ThreadLocal<List<ThreadCache>> THREAD_CACHES = new ThreadLocal<>();
+
+    /**
+     * 池中空闲缓冲区的总字节数上限
+     */
+    private final long maxPooledBytes;
+
+    /**
+     * 直接内存缓冲区的全局空闲队列 (按规格)
+     */
+    private final Queue<ByteBuffer>[] directArenas;
+
+    /**
+     * 堆内存缓冲区的全局空闲队列 (按规格)
+     */
+    private final Queue<ByteBuffer>[] heapArenas;
+
+    /**
+     * 当前线程在此缓冲区池中的线程本地缓存
+     */
+    private final ThreadLocal<ThreadCache> threadCache = new ThreadLocal<>();
+
+    /**
+     * 池中空闲缓冲区的总字节数 (包括线程本地缓存)
+     */
+    private final AtomicLong pooledBytes = new AtomicLong(0);
+
+    /**
+     * 已借出未归还的缓冲区总字节数
+     */
+    private final LongAdder outstandingBytes = new LongAdder();
+
+    /**
+     * 命中次数 (从池中取到空闲缓冲区)
+     */
+    private final LongAdder hitCount = new LongAdder();
+
+    /**
+     * 未命中次数 (新分配缓冲区)
+     */
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * 创建缓冲区池
+     *
+     * @param maxPooledBytes 池中空闲缓冲区的总字节数上限
+     */
+    public ByteBufferPool(long maxPooledBytes) {
+        this.maxPooledBytes = maxPooledBytes;
+        this.directArenas = newArenas();
+        this.heapArenas = newArenas();
+    }
+
+    /**
+     * 创建每个尺寸等级一个的共享空闲队列
+     */
+    private static Queue<ByteBuffer>[] newArenas() {
+        // 不能直接创建泛型数组，Queue<?>[] 中只会放入 Queue<ByteBuffer>
+        @SuppressWarnings("unchecked")
+        Queue<ByteBuffer>[] arenas = (Queue<ByteBuffer>[]) new Queue<?>[SIZE_CLASSES.length];
+        for (int i = 0; i < arenas.length; i++) {
+            arenas[i] = new ConcurrentLinkedQueue<>();
+        }
+        return arenas;
+    }
+
+    /**
+     * 获取默认的缓冲区池
+     */
+    public static ByteBufferPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 为当前线程启用线程本地缓存<br>
+     * 只应在长期运行的线程中调用，线程退出前需要调用 {@link #disableThreadCache()} 将缓存归还到全局队列
+     */
+    public static void enableThreadCache() {
+        if (THREAD_CACHES.get() == null) {
+            THREAD_CACHES.set(new ArrayList<>());
+        }
+    }
+
+    /**
+     * 关闭当前线程的线程本地缓存，将缓存的缓冲区归还到各个缓冲区池的全局队列
+     */
+    public static void disableThreadCache() {
+        List<ThreadCache> caches = THREAD_CACHES.get();
+
+        if (caches != null) {
+            THREAD_CACHES.remove();
+
+            for (ThreadCache cache : caches) {
+                cache.flush();
+            }
+        }
+    }
+
+    /**
+     * 申请缓冲区<br>
+     * 返回的缓冲区处于写模式 (position = 0, limit = capacity)，容量可能大于申请的大小
+     *
+     * @param size   申请的大小 (字节)
+     * @param direct 是否为直接内存缓冲区
+     * @return 缓冲区
+     */
+    public ByteBuffer allocate(int size, boolean direct) {
+        int index = sizeClassIndex(size);
+
+        if (index < 0) {
+            // 超过最大规格，不池化
+            missCount.increment();
+            outstandingBytes.add(size);
+            return direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        }
+
+        int capacity = SIZE_CLASSES[index];
+        ByteBuffer buffer = null;
+
+        ThreadCache cache = threadCache();
+        if (cache != null) {
+            buffer = cache.poll(index, direct);
+        }
+
+        if (buffer == null) {
+            buffer = (direct ? directArenas : heapArenas)[index].poll();
+        }
+
+        if (buffer != null) {
+            hitCount.increment();
+            pooledBytes.addAndGet(-capacity);
+            buffer.clear();
+        } else {
+            missCount.increment();
+            buffer = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        }
+
+        outstandingBytes.add(capacity);
+        return buffer;
+    }
+
+    /**
+     * 归还缓冲区<br>
+     * 归还后调用方不能再使用该缓冲区
+     *
+     * @param buffer 缓冲区 (为 null 时忽略)
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+
+        int capacity = buffer.capacity();
+        outstandingBytes.add(-capacity);
+
+        int index = sizeClassIndex(capacity);
+        if (index < 0 || SIZE_CLASSES[index] != capacity) {
+            // 不是池化的缓冲区
+            return;
+        }
+
+        // 超过池的上限，直接丢弃
+        if (pooledBytes.addAndGet(capacity) > maxPooledBytes) {
+            pooledBytes.addAndGet(-capacity);
+            return;
+        }
+
+        ThreadCache cache = threadCache();
+        if (cache != null && cache.offer(index, buffer)) {
+            return;
+        }
+
+        (buffer.isDirect() ? directArenas : heapArenas)[index].offer(buffer);
+    }
+
+    /**
+     * 获取缓冲区规格的个数
+     */
+    public static int sizeClassCount() {
+        return SIZE_CLASSES.length;
+    }
+
+    /**
+     * 获取指定下标的缓冲区规格 (字节)
+     *
+     * @param index 规格下标
+     */
+    public static int sizeClass(int index) {
+        return SIZE_CLASSES[index];
+    }
+
+    /**
+     * 获取申请大小对应的规格下标
+     *
+     * @param size 申请的大小
+     * @return 规格下标 (超过最大规格时返回 -1)
+     */
+    public static int sizeClassIndex(int size) {
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            if (size <= SIZE_CLASSES[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 获取当前线程的线程本地缓存 (未启用时返回 null)
+     */
+    private ThreadCache threadCache() {
+        List<ThreadCache> caches = THREAD_CACHES.get();
+        if (caches == null) {
+            return null;
+        }
+
+        ThreadCache cache = threadCache.get();
+
+        if (cache == null) {
+            cache = new ThreadCache();
+            threadCache.set(cache);
+            caches.add(cache);
+        }
+
+        return cache;
+    }
+
+    /**
+     * 获取命中次数
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * 获取未命中次数
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 获取已借出未归还的缓冲区总字节数
+     */
+    public long getOutstandingBytes() {
+        return outstandingBytes.sum();
+    }
+
+    /**
+     * 获取池中空闲缓冲区的总字节数
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    public long getMaxPooledBytes() {
+        return maxPooledBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "[缓冲区池] - 命中: " + getHitCount() + ", 未命中: " + getMissCount() +
+                ", 借出: " + getOutstandingBytes() + " 字节, 空闲: " + getPooledBytes() + "/" + maxPooledBytes + " 字节";
+    }
+
+    /**
+     * 线程本地缓存，只由所属线程访问
+     */
+    private class ThreadCache {
+        private final ArrayDeque<ByteBuffer>[] direct;
+
+        private final ArrayDeque<ByteBuffer>[] heap;
+
+        ThreadCache() {
+            direct = newCaches();
+            heap = newCaches();
+        }
+
+        /**
+         * 创建每个尺寸等级一个的本地缓存队列
+         */
+        private ArrayDeque<ByteBuffer>[] newCaches() {
+            // 不能直接创建泛型数组，ArrayDeque<?>[] 中只会放入 ArrayDeque<ByteBuffer>
+            @SuppressWarnings("unchecked")
+            ArrayDeque<ByteBuffer>[] caches = (ArrayDeque<ByteBuffer>[]) new ArrayDeque<?>[SIZE_CLASSES.length];
+            for (int i = 0; i < caches.length; i++) {
+                caches[i] = new ArrayDeque<>();
+            }
+            return caches;
+        }
+
+        ByteBuffer poll(int index, boolean isDirect) {
+            return (isDirect ? direct : heap)[index].pollLast();
+        }
+
+        boolean offer(int index, ByteBuffer buffer) {
+            ArrayDeque<ByteBuffer> queue = (buffer.isDirect() ? direct : heap)[index];
+
+            if (queue.size() >= THREAD_CACHE_SIZE) {
+                return false;
+            }
+
+            queue.offerLast(buffer);
+            return true;
+        }
+
+        /**
+         * 将缓存的缓冲区归还到全局队列
+         */
+        void flush() {
+            threadCache.remove();
+
+            for (int i = 0; i < SIZE_CLASSES.length; i++) {
+                ByteBuffer buffer;
+                while ((buffer = direct[i].pollLast()) != null) {
+                    directArenas[i].offer(buffer);
+                }
+                while ((buffer = heap[i].pollLast()) != null) {
+                    heapArenas[i].offer(buffer);
+                }
+            }
+        }
+    }
+}
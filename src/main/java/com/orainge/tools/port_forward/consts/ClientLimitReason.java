@@ -0,0 +1,25 @@
+package com.orainge.tools.port_forward.consts;
+
+/**
+ * 单个客户端 IP 的连接被限制的原因
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public enum ClientLimitReason {
+    MAX_CONNECTIONS("并发连接数达到上限"),
+    CONNECTION_RATE("建连速率超过上限");
+
+    /**
+     * 原因描述
+     */
+    private final String description;
+
+    ClientLimitReason(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
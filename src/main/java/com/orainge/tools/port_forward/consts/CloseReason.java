@@ -0,0 +1,29 @@
+package com.orainge.tools.port_forward.consts;
+
+/**
+ * 端口转发连接关闭的原因
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public enum CloseReason {
+    NORMAL("连接断开"),
+    ERROR("转发异常"),
+    IDLE_TIMEOUT("空闲超时"),
+    MAX_LIFETIME("超过最长存活时间"),
+    MANUAL("手动关闭"),
+    SERVER_STOPPED("服务关闭");
+
+    /**
+     * 原因描述
+     */
+    private final String description;
+
+    CloseReason(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,26 @@
+package com.orainge.tools.port_forward.consts;
+
+/**
+ * 端口转发连接的阶段 (用于区分连接在哪个阶段失败)
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public enum ConnectionPhase {
+    CONNECT("连接目标端口"),
+    SETUP("建立转发"),
+    FORWARD("转发数据");
+
+    /**
+     * 阶段描述
+     */
+    private final String description;
+
+    ConnectionPhase(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,36 @@
+package com.orainge.tools.port_forward.consts;
+
+/**
+ * 端口转发连接的状态<br>
+ * 状态只会按照 CONNECTING -> ACTIVE -> HALF_CLOSED -> CLOSING -> CLOSED 的顺序向后变化 (可以跳过中间的状态)
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public enum ConnectionState {
+    CONNECTING("建立中"),
+    ACTIVE("转发中"),
+    HALF_CLOSED("半关闭"),
+    CLOSING("关闭中"),
+    CLOSED("已关闭");
+
+    /**
+     * 状态描述
+     */
+    private final String description;
+
+    ConnectionState(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 是否已经开始关闭 (CLOSING 或 CLOSED)
+     */
+    public boolean isClosing() {
+        return this.compareTo(CLOSING) >= 0;
+    }
+}
@@ -0,0 +1,26 @@
+package com.orainge.tools.port_forward.consts;
+
+/**
+ * 异步执行 Handler 时，事件队列已满的处理策略
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public enum HandlerOverflowPolicy {
+    DROP("丢弃新的事件 (丢弃了连接成功事件的连接，之后的事件也一起丢弃)"),
+    BLOCK("等待队列有空位 (会阻塞产生事件的线程，事件不会丢失)"),
+    COALESCE("暂存在队列之外并合并 (连续的错误事件和计数事件只保留最后一个；暂存的事件数最多与队列容量相同，暂存也满时按 DROP 处理)");
+
+    /**
+     * 处理策略描述
+     */
+    private final String description;
+
+    HandlerOverflowPolicy(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
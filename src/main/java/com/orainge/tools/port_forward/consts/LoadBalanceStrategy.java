@@ -0,0 +1,26 @@
+package com.orainge.tools.port_forward.consts;
+
+/**
+ * 多个目标端口的负载均衡策略
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public enum LoadBalanceStrategy {
+    ROUND_ROBIN("轮询"),
+    LEAST_CONNECTIONS("最少活跃连接"),
+    CONSISTENT_HASH("客户端 IP 一致性哈希");
+
+    /**
+     * 策略描述
+     */
+    private final String description;
+
+    LoadBalanceStrategy(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,26 @@
+package com.orainge.tools.port_forward.consts;
+
+/**
+ * 连接数达到上限时的处理策略
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public enum OverflowPolicy {
+    QUEUE("排队等待 (暂停接收新连接，由系统的监听队列缓冲)"),
+    REJECT("立即关闭新连接"),
+    RESET("发送 RST 立即重置新连接");
+
+    /**
+     * 处理策略描述
+     */
+    private final String description;
+
+    OverflowPolicy(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,36 @@
+package com.orainge.tools.port_forward.consts;
+
+/**
+ * 端口转发引擎
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public enum PortForwardEngine {
+    BLOCKING(false, "阻塞 IO 引擎 (每个连接使用两个转发线程)"),
+    DIRECT(true, "通道直连引擎 (每个连接使用两个转发线程，通过直接内存缓冲区在两个 SocketChannel 之间转发，数据不经过 Java 堆)"),
+    NIO(true, "NIO 事件循环引擎 (固定数量的事件循环线程多路复用所有连接)");
+
+    /**
+     * 连接是否需要由 SocketChannel 创建
+     */
+    private final boolean channelBased;
+
+    /**
+     * 转发引擎描述
+     */
+    private final String description;
+
+    PortForwardEngine(boolean channelBased, String description) {
+        this.channelBased = channelBased;
+        this.description = description;
+    }
+
+    public boolean isChannelBased() {
+        return channelBased;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
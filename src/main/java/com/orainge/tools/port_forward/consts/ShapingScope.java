@@ -0,0 +1,26 @@
+package com.orainge.tools.port_forward.consts;
+
+/**
+ * 带宽限制的范围
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public enum ShapingScope {
+    CONNECTION("单个连接"),
+    CLIENT("单个客户端 IP"),
+    GLOBAL("整个转发服务");
+
+    /**
+     * 范围描述
+     */
+    private final String description;
+
+    ShapingScope(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,511 @@
+package com.orainge.tools.port_forward.dns;
+
+import com.orainge.tools.port_forward.util.IpAddressUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 目标主机名的 DNS 缓存<br>
+ * 解析结果缓存固定的时间 (InetAddress 的 API 无法获取记录本身的 TTL)，保留主机名的所有地址 (A / AAAA 记录)；
+ * 同一个主机名同时只有一次查询，查询在后台线程中执行：<br>
+ * 1. 缓存命中时直接返回；超过 TTL 的 80% 后，由后台线程提前刷新，经常使用的主机名不会过期<br>
+ * 2. 缓存过期后，最多等待刷新结果 staleWaitMillis 毫秒，刷新较慢或失败时继续使用过期的地址 (最多保留 maxStaleMillis 毫秒)，
+ * 刷新失败后 negativeTtlMillis 毫秒内不再重试<br>
+ * 3. 没有缓存 (或过期的地址超过保留时间) 时等待查询完成；查询失败的结果缓存 negativeTtlMillis 毫秒<br>
+ * 不能阻塞的线程 (如 NIO 引擎的事件循环和监听线程) 使用 {@link #resolveAsync(String)}，缓存过期时不等待刷新，没有缓存时异步完成<br>
+ * 注意: 系统解析器自身也有缓存 (networkaddress.cache.ttl)，实际的刷新间隔可能更长
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class DnsCache {
+    private static final Logger log = LoggerFactory.getLogger(DnsCache.class);
+
+    /**
+     * 默认的缓存时间 (毫秒)
+     */
+    public static final long DEFAULT_TTL_MILLIS = 30 * 1000;
+
+    /**
+     * 默认的查询失败缓存时间 (毫秒)
+     */
+    public static final long DEFAULT_NEGATIVE_TTL_MILLIS = 5 * 1000;
+
+    /**
+     * 默认的过期地址保留时间 (毫秒)
+     */
+    public static final long DEFAULT_MAX_STALE_MILLIS = 10 * 60 * 1000;
+
+    /**
+     * 默认的缓存过期后等待刷新结果的时间 (毫秒)
+     */
+    public static final long DEFAULT_STALE_WAIT_MILLIS = 500;
+
+    /**
+     * 超过 TTL 的多少比例后提前刷新
+     */
+    private static final double REFRESH_AHEAD_RATIO = 0.8;
+
+    /**
+     * 最多同时进行的查询数 (查询线程数)
+     */
+    private static final int LOOKUP_THREADS = 4;
+
+    /**
+     * 默认的 DNS 缓存 (使用系统解析器)
+     */
+    private static final DnsCache DEFAULT = new DnsCache(HostResolver.SYSTEM, DEFAULT_TTL_MILLIS, DEFAULT_NEGATIVE_TTL_MILLIS,
+            DEFAULT_MAX_STALE_MILLIS, DEFAULT_STALE_WAIT_MILLIS, "port-forward-dns");
+
+    /**
+     * 主机名解析器
+     */
+    private final HostResolver resolver;
+
+    /**
+     * 缓存时间 (毫秒)
+     */
+    private final long ttlMillis;
+
+    /**
+     * 查询失败的缓存时间 (毫秒)
+     */
+    private final long negativeTtlMillis;
+
+    /**
+     * 过期地址的保留时间 (毫秒)
+     */
+    private final long maxStaleMillis;
+
+    /**
+     * 缓存过期后等待刷新结果的时间 (毫秒)
+     */
+    private final long staleWaitMillis;
+
+    /**
+     * 缓存的解析结果<br>
+     * {主机名: 解析结果}
+     */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 正在进行的查询<br>
+     * {主机名: 查询结果}
+     */
+    private final Map<String, CompletableFuture<Entry>> lookups = new ConcurrentHashMap<>();
+
+    /**
+     * 查询线程池 (没有查询时不保留线程)
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * 命中次数 (缓存未过期)
+     */
+    private final LongAdder hitCount = new LongAdder();
+
+    /**
+     * 未命中次数 (等待查询完成)
+     */
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * 使用过期地址的次数
+     */
+    private final LongAdder staleCount = new LongAdder();
+
+    /**
+     * 查询次数
+     */
+    private final LongAdder lookupCount = new LongAdder();
+
+    /**
+     * 查询失败次数
+     */
+    private final LongAdder failureCount = new LongAdder();
+
+    /**
+     * 创建 DNS 缓存
+     *
+     * @param resolver          主机名解析器
+     * @param ttlMillis         缓存时间 (毫秒)
+     * @param negativeTtlMillis 查询失败的缓存时间 (毫秒)
+     * @param maxStaleMillis    刷新失败时过期地址的保留时间 (毫秒，0 代表不使用过期的地址)
+     * @param staleWaitMillis   缓存过期后等待刷新结果的时间 (毫秒)
+     * @param name              缓存的名称 (同时作为查询线程名称)
+     */
+    public DnsCache(HostResolver resolver, long ttlMillis, long negativeTtlMillis,
+                    long maxStaleMillis, long staleWaitMillis, String name) {
+        if (resolver == null) {
+            throw new NullPointerException("主机名解析器不能为空");
+        }
+        if (ttlMillis <= 0 || negativeTtlMillis <= 0) {
+            throw new IllegalArgumentException("缓存时间必须大于 0");
+        }
+        if (maxStaleMillis < 0 || staleWaitMillis < 0) {
+            throw new IllegalArgumentException("过期地址的保留时间和等待时间不能小于 0");
+        }
+
+        this.resolver = resolver;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.maxStaleMillis = maxStaleMillis;
+        this.staleWaitMillis = staleWaitMillis;
+
+        AtomicInteger threadIndex = new AtomicInteger(0);
+        this.executor = new ThreadPoolExecutor(LOOKUP_THREADS, LOOKUP_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, name + "-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 获取默认的 DNS 缓存 (所有转发服务共用)
+     */
+    public static DnsCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 是否为 IP 地址字面量 (不需要解析，见 {@link IpAddressUtil#parseLiteral(String)})
+     *
+     * @param host 主机名或 IP 地址
+     */
+    public static boolean isLiteral(String host) {
+        return IpAddressUtil.isLiteral(host);
+    }
+
+    /**
+     * 获取主机名的所有地址
+     *
+     * @param host 主机名
+     * @return 地址列表 (调用方不能修改)
+     * @throws UnknownHostException 没有可用的地址
+     */
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(host);
+
+        if (entry == null || (entry.addresses == null && now >= entry.expiresAt) || isTooStale(entry, now)) {
+            // 没有可用的缓存，等待查询完成
+            missCount.increment();
+            return await(lookup(host), host);
+        }
+
+        if (entry.addresses == null) {
+            // 查询失败的结果未过期
+            throw new UnknownHostException(entry.error);
+        }
+
+        if (now < entry.expiresAt) {
+            hitCount.increment();
+            if (now >= entry.refreshAt && now >= entry.retryAt) {
+                lookup(host);
+            }
+            return entry.addresses;
+        }
+
+        // 缓存已过期: 刷新失败后的重试间隔内直接使用过期的地址，否则等待一段时间的刷新结果
+        if (now >= entry.retryAt) {
+            try {
+                Entry refreshed = lookup(host).get(staleWaitMillis, TimeUnit.MILLISECONDS);
+                if (refreshed.addresses != null && refreshed.expiresAt > now) {
+                    hitCount.increment();
+                    return refreshed.addresses;
+                }
+            } catch (TimeoutException | ExecutionException ignored) {
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        staleCount.increment();
+        return entry.addresses;
+    }
+
+    /**
+     * 异步获取主机名的所有地址 (不阻塞调用线程，用于事件循环等不能等待解析的线程)<br>
+     * 与 {@link #resolve(String)} 的区别: 缓存过期时不等待刷新结果，直接使用过期的地址并在后台刷新；
+     * 没有可用的缓存时，在查询线程完成查询后完成
+     *
+     * @param host 主机名
+     * @return 地址列表 (调用方不能修改)，没有可用的地址时以 UnknownHostException 异常完成
+     */
+    public CompletableFuture<InetAddress[]> resolveAsync(String host) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(host);
+
+        if (entry == null || (entry.addresses == null && now >= entry.expiresAt) || isTooStale(entry, now)) {
+            // 没有可用的缓存，查询完成后完成
+            missCount.increment();
+            return lookup(host).thenApply(result -> {
+                if (result.addresses == null) {
+                    throw new CompletionException(new UnknownHostException(result.error));
+                }
+                return result.addresses;
+            });
+        }
+
+        if (entry.addresses == null) {
+            // 查询失败的结果未过期
+            CompletableFuture<InetAddress[]> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new UnknownHostException(entry.error));
+            return failed;
+        }
+
+        if (now < entry.expiresAt) {
+            hitCount.increment();
+            if (now >= entry.refreshAt && now >= entry.retryAt) {
+                lookup(host);
+            }
+            return CompletableFuture.completedFuture(entry.addresses);
+        }
+
+        // 缓存已过期: 在后台刷新，刷新已经完成时使用新的地址，否则使用过期的地址
+        if (now >= entry.retryAt) {
+            Entry refreshed = lookup(host).getNow(null);
+            if (refreshed != null && refreshed.addresses != null && refreshed.expiresAt > now) {
+                hitCount.increment();
+                return CompletableFuture.completedFuture(refreshed.addresses);
+            }
+        }
+
+        staleCount.increment();
+        return CompletableFuture.completedFuture(entry.addresses);
+    }
+
+    /**
+     * 在后台查询主机名，提前填充缓存 (不等待查询完成)
+     *
+     * @param host 主机名
+     */
+    public void prefetch(String host) {
+        if (!entries.containsKey(host)) {
+            lookup(host);
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 停止查询线程 (默认的 DNS 缓存不需要停止)
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 获取缓存的主机名数量
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 获取主机名当前缓存的地址 (不触发查询，没有缓存或查询失败时返回 null)
+     *
+     * @param host 主机名
+     */
+    public InetAddress[] getCachedAddresses(String host) {
+        Entry entry = entries.get(host);
+        return entry != null && entry.addresses != null ? entry.addresses.clone() : null;
+    }
+
+    /**
+     * 获取各类结果的次数<br>
+     * {HIT / MISS / STALE / LOOKUP / FAILURE: 次数}
+     */
+    public Map<String, Long> getStatistics() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("HIT", hitCount.sum());
+        result.put("MISS", missCount.sum());
+        result.put("STALE", staleCount.sum());
+        result.put("LOOKUP", lookupCount.sum());
+        result.put("FAILURE", failureCount.sum());
+        return result;
+    }
+
+    /**
+     * 重置统计的次数
+     */
+    public void resetStatistics() {
+        hitCount.reset();
+        missCount.reset();
+        staleCount.reset();
+        lookupCount.reset();
+        failureCount.reset();
+    }
+
+    /**
+     * 过期的地址是否超过了保留时间
+     */
+    private boolean isTooStale(Entry entry, long now) {
+        return entry.addresses != null && now - entry.expiresAt > maxStaleMillis;
+    }
+
+    /**
+     * 开始查询主机名 (同一个主机名同时只有一次查询)
+     *
+     * @param host 主机名
+     * @return 查询结果
+     */
+    private CompletableFuture<Entry> lookup(String host) {
+        CompletableFuture<Entry> future = lookups.get(host);
+        if (future != null) {
+            return future;
+        }
+
+        CompletableFuture<Entry> created = new CompletableFuture<>();
+        future = lookups.putIfAbsent(host, created);
+        if (future != null) {
+            return future;
+        }
+
+        try {
+            executor.execute(() -> runLookup(host, created));
+        } catch (RejectedExecutionException e) {
+            // 查询线程已停止，在当前线程查询
+            runLookup(host, created);
+        }
+        return created;
+    }
+
+    /**
+     * 执行查询并更新缓存
+     */
+    private void runLookup(String host, CompletableFuture<Entry> future) {
+        lookupCount.increment();
+        Entry result;
+
+        try {
+            InetAddress[] addresses = resolver.resolve(host);
+            if (addresses == null || addresses.length == 0) {
+                throw new UnknownHostException(host + ": 没有可用的地址");
+            }
+
+            long now = System.currentTimeMillis();
+            result = new Entry(addresses.clone(), null, now + (long) (ttlMillis * REFRESH_AHEAD_RATIO), now + ttlMillis, 0);
+
+            Entry old = entries.get(host);
+            if (log.isDebugEnabled() && (old == null || !Arrays.equals(old.addresses, addresses))) {
+                log.debug("[DNS 缓存] - 解析 {}: {}", host, Arrays.toString(addresses));
+            }
+        } catch (Exception e) {
+            failureCount.increment();
+            long now = System.currentTimeMillis();
+            Entry old = entries.get(host);
+
+            if (old != null && old.addresses != null && !isTooStale(old, now)) {
+                // 保留过期的地址，一段时间内不再重试
+                result = new Entry(old.addresses, null, old.refreshAt, old.expiresAt, now + negativeTtlMillis);
+                log.warn("[DNS 缓存] - 解析 {} 失败，继续使用之前的地址: {}", host, e.toString());
+            } else {
+                String error = e instanceof UnknownHostException && e.getMessage() != null ? e.getMessage() : host + ": " + e;
+                result = new Entry(null, error, 0, now + negativeTtlMillis, now + negativeTtlMillis);
+                log.warn("[DNS 缓存] - 解析 {} 失败: {}", host, e.toString());
+            }
+        }
+
+        entries.put(host, result);
+        lookups.remove(host, future);
+        future.complete(result);
+    }
+
+    /**
+     * 等待查询完成
+     */
+    private static InetAddress[] await(CompletableFuture<Entry> future, String host) throws UnknownHostException {
+        Entry entry;
+        try {
+            entry = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UnknownHostException(host + ": 等待解析时被中断");
+        } catch (ExecutionException e) {
+            throw new UnknownHostException(host + ": " + e.getCause());
+        }
+
+        if (entry.addresses == null) {
+            throw new UnknownHostException(entry.error);
+        }
+        return entry.addresses;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public long getNegativeTtlMillis() {
+        return negativeTtlMillis;
+    }
+
+    public long getMaxStaleMillis() {
+        return maxStaleMillis;
+    }
+
+    public long getStaleWaitMillis() {
+        return staleWaitMillis;
+    }
+
+    /**
+     * 一个主机名的解析结果 (不可变，更新时整体替换)
+     */
+    private static class Entry {
+        /**
+         * 地址列表 (查询失败时为 null)
+         */
+        final InetAddress[] addresses;
+
+        /**
+         * 查询失败的原因
+         */
+        final String error;
+
+        /**
+         * 提前刷新的时间 (毫秒时间戳)
+         */
+        final long refreshAt;
+
+        /**
+         * 过期时间 (毫秒时间戳)
+         */
+        final long expiresAt;
+
+        /**
+         * 刷新失败后下次重试的时间 (毫秒时间戳，0 代表随时可以刷新)
+         */
+        final long retryAt;
+
+        Entry(InetAddress[] addresses, String error, long refreshAt, long expiresAt, long retryAt) {
+            this.addresses = addresses;
+            this.error = error;
+            this.refreshAt = refreshAt;
+            this.expiresAt = expiresAt;
+            this.retryAt = retryAt;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.orainge.tools.port_forward.dns;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * 主机名解析器<br>
+ * DNS 缓存通过此接口查询主机名的所有地址 (A / AAAA 记录)，可以替换为本地的解析器 (如负载测试中固定返回地址的解析器)
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+@FunctionalInterface
+public interface HostResolver {
+    /**
+     * 系统解析器 (InetAddress.getAllByName，地址的顺序由系统和 java.net.preferIPv6Addresses 决定)
+     */
+    HostResolver SYSTEM = InetAddress::getAllByName;
+
+    /**
+     * 查询主机名的所有地址 (可能阻塞)
+     *
+     * @param host 主机名
+     * @return 地址列表 (不能为空)
+     * @throws UnknownHostException 解析失败
+     */
+    InetAddress[] resolve(String host) throws UnknownHostException;
+}
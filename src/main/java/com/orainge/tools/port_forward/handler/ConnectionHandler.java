@@ -1,6 +1,8 @@
 package com.orainge.tools.port_forward.handler;
 
 import com.orainge.tools.port_forward.bean.PortForwardConnection;
+import com.orainge.tools.port_forward.consts.CloseReason;
+import com.orainge.tools.port_forward.consts.ConnectionPhase;
 
 /**
  * 端口转发 Handler
@@ -23,6 +25,17 @@ public interface ConnectionHandler {
      */
     void afterClosed(PortForwardConnection connection);
 
+    /**
+     * 当连接关闭后 (区分关闭的原因)<br>
+     * 默认调用 {@link #afterClosed(PortForwardConnection)}
+     *
+     * @param connection 转发连接
+     * @param reason     关闭的原因
+     */
+    default void afterClosed(PortForwardConnection connection, CloseReason reason) {
+        afterClosed(connection);
+    }
+
 
     /**
      * 当连接失败后
@@ -30,4 +43,16 @@ public interface ConnectionHandler {
      * @param connection 转发连接
      */
     void onError(PortForwardConnection connection, Exception e);
+
+    /**
+     * 当连接失败后 (区分失败的阶段)<br>
+     * 默认调用 {@link #onError(PortForwardConnection, Exception)}
+     *
+     * @param connection 转发连接 (连接目标端口阶段失败时为 null)
+     * @param e          异常
+     * @param phase      失败的阶段
+     */
+    default void onError(PortForwardConnection connection, Exception e, ConnectionPhase phase) {
+        onError(connection, e);
+    }
 }
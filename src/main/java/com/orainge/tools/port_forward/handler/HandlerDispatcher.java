@@ -0,0 +1,774 @@
+package com.orainge.tools.port_forward.handler;
+
+import com.orainge.tools.port_forward.bean.PortForwardConnection;
+import com.orainge.tools.port_forward.consts.ClientLimitReason;
+import com.orainge.tools.port_forward.consts.CloseReason;
+import com.orainge.tools.port_forward.consts.ConnectionPhase;
+import com.orainge.tools.port_forward.consts.HandlerOverflowPolicy;
+import com.orainge.tools.port_forward.server.PortForwardServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Handler 事件分发器<br>
+ * 同步模式下在产生事件的线程中直接执行 Handler (默认)；异步模式下事件写入有界的环形队列，
+ * 由一个分发线程按批取出并依次执行 Handler，转发线程和监听线程只负责写入队列，不会被执行较慢的 Handler 阻塞<br>
+ * 异步模式只有一个分发线程，同一个连接的事件按照产生的顺序执行；队列已满时按照 {@link HandlerOverflowPolicy} 处理
+ * (COALESCE 暂存的事件数最多与队列容量相同，暂存也满时按 DROP 处理)；Handler 抛出的异常只输出日志<br>
+ * 分发线程在没有事件一段时间后退出，有新的事件时重新创建
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class HandlerDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(HandlerDispatcher.class);
+
+    /**
+     * 每批最多取出的事件数
+     */
+    private static final int BATCH_SIZE = 256;
+
+    /**
+     * 分发线程没有事件时每次等待的时间 (纳秒)
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 分发线程没有事件多久后退出 (纳秒)
+     */
+    private static final long IDLE_EXIT_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    /**
+     * 队列已满并等待时，每次等待的时间 (纳秒)
+     */
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * 事件的类型
+     */
+    private enum EventType {
+        CONNECTED, CLOSED, ERROR, REJECTED, DENIED, CLIENT_LIMITED
+    }
+
+    private final PortForwardServer server;
+
+    private final ConnectionHandler connectionHandler;
+
+    private final ServerHandler serverHandler;
+
+    /**
+     * 是否异步执行
+     */
+    private final boolean async;
+
+    /**
+     * 队列已满的处理策略
+     */
+    private final HandlerOverflowPolicy overflowPolicy;
+
+    /**
+     * 分发线程名称
+     */
+    private final String name;
+
+    /**
+     * 环形队列 (容量为 2 的幂，没有启用异步时为 null)
+     */
+    private final AtomicReferenceArray<Event> ring;
+
+    /**
+     * 环形队列每个槽位的序号: 等于写入位置时可以写入，等于写入位置 + 1 时可以取出
+     */
+    private final AtomicLongArray sequences;
+
+    private final int mask;
+
+    /**
+     * 下一个写入的位置 (多个线程竞争)
+     */
+    private final AtomicLong tail = new AtomicLong(0);
+
+    /**
+     * 下一个取出的位置 (只由分发线程修改)
+     */
+    private volatile long head = 0;
+
+    /**
+     * 已经执行完成的位置 (只由分发线程修改)
+     */
+    private volatile long completed = 0;
+
+    /**
+     * 队列已满时暂存的合并事件 (COALESCE)<br>
+     * {连接或事件类型: 按顺序暂存的事件}
+     */
+    private final Map<Object, PendingEvents> overflow = new ConcurrentHashMap<>();
+
+    /**
+     * 暂存的事件数 (合并替换的事件不计入)
+     */
+    private final AtomicInteger overflowSize = new AtomicInteger(0);
+
+    /**
+     * 丢弃了连接成功事件的连接 (DROP，或 COALESCE 暂存已满时)
+     */
+    private final Set<PortForwardConnection> droppedConnections = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 分发线程是否在运行
+     */
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /**
+     * 分发线程 (没有运行时为 null)
+     */
+    private volatile Thread thread = null;
+
+    /**
+     * 分发线程是否在等待事件
+     */
+    private volatile boolean sleeping = false;
+
+    /**
+     * 分发线程是否正在执行暂存的事件
+     */
+    private volatile boolean deliveringOverflow = false;
+
+    private final LongAdder dispatchedCount = new LongAdder();
+
+    private final LongAdder droppedCount = new LongAdder();
+
+    private final LongAdder overflowedCount = new LongAdder();
+
+    private final LongAdder coalescedCount = new LongAdder();
+
+    private final LongAdder blockedNanos = new LongAdder();
+
+    private final LongAdder batchCount = new LongAdder();
+
+    /**
+     * 创建同步执行 Handler 的分发器
+     *
+     * @param server            端口转发服务
+     * @param connectionHandler 端口转发 Handler (可以为 null)
+     * @param serverHandler     端口转发服务的 Handler (可以为 null)
+     */
+    public HandlerDispatcher(PortForwardServer server, ConnectionHandler connectionHandler, ServerHandler serverHandler) {
+        this.server = server;
+        this.connectionHandler = connectionHandler;
+        this.serverHandler = serverHandler;
+        this.async = false;
+        this.overflowPolicy = null;
+        this.name = null;
+        this.ring = null;
+        this.sequences = null;
+        this.mask = 0;
+    }
+
+    /**
+     * 创建异步执行 Handler 的分发器
+     *
+     * @param server            端口转发服务
+     * @param connectionHandler 端口转发 Handler (可以为 null)
+     * @param serverHandler     端口转发服务的 Handler (可以为 null)
+     * @param capacity          队列容量 (向上取整为 2 的幂，至少为 2)
+     * @param overflowPolicy    队列已满的处理策略
+     * @param name              分发线程名称
+     */
+    public HandlerDispatcher(PortForwardServer server, ConnectionHandler connectionHandler, ServerHandler serverHandler,
+                             int capacity, HandlerOverflowPolicy overflowPolicy, String name) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("事件队列容量必须在 1 ~ 2^30 之间");
+        }
+        if (overflowPolicy == null) {
+            throw new NullPointerException("事件队列已满的处理策略不能为空");
+        }
+
+        // 至少 2 个槽位: 只有 1 个槽位时，写入后的序号与下一圈可以写入的序号相同，无法区分
+        int size = Math.max(Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1, 2);
+
+        this.server = server;
+        this.connectionHandler = connectionHandler;
+        this.serverHandler = serverHandler;
+        this.async = true;
+        this.overflowPolicy = overflowPolicy;
+        this.name = name;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 连接成功后
+     */
+    public void afterConnected(PortForwardConnection connection) {
+        if (connectionHandler == null) {
+            return;
+        }
+
+        if (async) {
+            dispatch(new Event(EventType.CONNECTED, connection, null, null, null, null, 0));
+        } else {
+            connectionHandler.afterConnected(connection);
+        }
+    }
+
+    /**
+     * 连接关闭后
+     */
+    public void afterClosed(PortForwardConnection connection, CloseReason reason) {
+        if (connectionHandler == null) {
+            return;
+        }
+
+        if (async) {
+            dispatch(new Event(EventType.CLOSED, connection, null, reason, null, null, 0));
+        } else {
+            connectionHandler.afterClosed(connection, reason);
+        }
+    }
+
+    /**
+     * 连接失败或转发异常后
+     */
+    public void onError(PortForwardConnection connection, Exception e, ConnectionPhase phase) {
+        if (connectionHandler == null) {
+            return;
+        }
+
+        if (async) {
+            dispatch(new Event(EventType.ERROR, connection, null, null, e, phase, 0));
+        } else {
+            connectionHandler.onError(connection, e, phase);
+        }
+    }
+
+    /**
+     * 连接数达到上限，拒绝连接后
+     */
+    public void onRejected(Socket socket, long rejectedCount) {
+        if (serverHandler == null) {
+            return;
+        }
+
+        if (async) {
+            dispatch(new Event(EventType.REJECTED, null, socket, null, null, null, rejectedCount));
+        } else {
+            serverHandler.onRejected(server, socket, rejectedCount);
+        }
+    }
+
+    /**
+     * 访问规则不允许，拒绝连接后
+     */
+    public void onDenied(Socket socket, long deniedCount) {
+        if (serverHandler == null) {
+            return;
+        }
+
+        if (async) {
+            dispatch(new Event(EventType.DENIED, null, socket, null, null, null, deniedCount));
+        } else {
+            serverHandler.onDenied(server, socket, deniedCount);
+        }
+    }
+
+    /**
+     * 单个客户端 IP 超出限制，拒绝连接后
+     */
+    public void onClientLimited(Socket socket, ClientLimitReason reason, long limitedCount) {
+        if (serverHandler == null) {
+            return;
+        }
+
+        if (async) {
+            dispatch(new Event(EventType.CLIENT_LIMITED, null, socket, reason, null, null, limitedCount));
+        } else {
+            serverHandler.onClientLimited(server, socket, reason, limitedCount);
+        }
+    }
+
+    /**
+     * 等待当前已产生的事件全部执行完成 (同步模式或在分发线程中调用时立即返回)
+     *
+     * @param timeoutMillis 最长等待时间 (毫秒)
+     * @return 是否全部执行完成
+     */
+    public boolean flush(long timeoutMillis) {
+        if (!async || Thread.currentThread() == thread) {
+            return true;
+        }
+
+        long target = tail.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        while (completed < target || !overflow.isEmpty() || deliveringOverflow) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            signal();
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    /**
+     * 写入事件，队列已满时按照处理策略处理
+     */
+    private void dispatch(Event event) {
+        PortForwardConnection connection = event.connection;
+
+        // 已经丢弃了连接成功事件的连接，之后的事件也一起丢弃
+        if (connection != null && !droppedConnections.isEmpty() && droppedConnections.contains(connection)) {
+            if (event.type == EventType.CLOSED) {
+                droppedConnections.remove(connection);
+            }
+            droppedCount.increment();
+            return;
+        }
+
+        if (HandlerOverflowPolicy.COALESCE.equals(overflowPolicy)) {
+            dispatchCoalescing(event);
+            return;
+        }
+
+        if (offer(event)) {
+            signal();
+            return;
+        }
+
+        if (HandlerOverflowPolicy.BLOCK.equals(overflowPolicy)) {
+            if (Thread.currentThread() == thread) {
+                // 分发线程中的 Handler 产生的事件 (如在 Handler 中关闭连接)，等待会死锁，直接执行
+                deliver(event);
+                return;
+            }
+
+            long start = System.nanoTime();
+            do {
+                signal();
+                LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+            } while (!offer(event));
+            blockedNanos.add(System.nanoTime() - start);
+            signal();
+            return;
+        }
+
+        // DROP
+        drop(event);
+    }
+
+    /**
+     * 丢弃事件 (丢弃了连接成功事件的连接，之后的事件也一起丢弃)
+     */
+    private void drop(Event event) {
+        if (event.type == EventType.CONNECTED) {
+            droppedConnections.add(event.connection);
+        }
+        droppedCount.increment();
+    }
+
+    /**
+     * 写入事件，队列已满时暂存并合并 (同一个连接或同一类事件已有暂存时，追加到暂存的事件之后，保证顺序)<br>
+     * 暂存的事件数达到队列容量后，不能合并的事件按 DROP 处理
+     */
+    private void dispatchCoalescing(Event event) {
+        Object key = event.coalesceKey();
+        // 是否暂存成功 (在 compute 中设置)
+        boolean[] stored = new boolean[1];
+
+        if (!overflow.isEmpty() && overflow.computeIfPresent(key, (k, pending) -> {
+            stored[0] = pending.add(event);
+            return pending;
+        }) != null) {
+            overflowed(event, stored[0]);
+            return;
+        }
+
+        if (offer(event)) {
+            signal();
+            return;
+        }
+
+        overflow.compute(key, (k, pending) -> {
+            if (pending != null) {
+                stored[0] = pending.add(event);
+                return pending;
+            }
+            if (!reserveOverflow()) {
+                return null;
+            }
+            stored[0] = true;
+            return new PendingEvents(event);
+        });
+        overflowed(event, stored[0]);
+    }
+
+    /**
+     * 记录暂存的结果，暂存已满时丢弃事件
+     */
+    private void overflowed(Event event, boolean stored) {
+        if (stored) {
+            overflowedCount.increment();
+        } else {
+            drop(event);
+        }
+        signal();
+    }
+
+    /**
+     * 占用一个暂存位置
+     *
+     * @return 暂存的事件数已达到队列容量时返回 false
+     */
+    private boolean reserveOverflow() {
+        int size;
+        do {
+            size = overflowSize.get();
+            if (size > mask) {
+                return false;
+            }
+        } while (!overflowSize.compareAndSet(size, size + 1));
+        return true;
+    }
+
+    /**
+     * 写入环形队列
+     *
+     * @return 队列已满时返回 false
+     */
+    private boolean offer(Event event) {
+        long position = tail.get();
+
+        while (true) {
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    ring.lazySet(index, event);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 从环形队列取出一个事件 (只由分发线程调用)
+     *
+     * @return 没有可以取出的事件时返回 null
+     */
+    private Event poll() {
+        long position = head;
+        int index = (int) (position & mask);
+
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+
+        Event event = ring.get(index);
+        ring.lazySet(index, null);
+        sequences.set(index, position + mask + 1);
+        head = position + 1;
+        return event;
+    }
+
+    /**
+     * 唤醒分发线程 (没有运行时创建)
+     */
+    private void signal() {
+        if (!running.get()) {
+            if (running.compareAndSet(false, true)) {
+                Thread t = new Thread(this::runLoop, name);
+                t.setDaemon(true);
+                thread = t;
+                t.start();
+            }
+        } else if (sleeping) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private boolean isEmpty() {
+        return tail.get() == head && overflow.isEmpty();
+    }
+
+    /**
+     * 分发线程: 按批取出事件并执行，之后执行暂存的事件
+     */
+    private void runLoop() {
+        long idleSince = System.nanoTime();
+
+        while (true) {
+            int count = 0;
+            Event event;
+            while (count < BATCH_SIZE && (event = poll()) != null) {
+                deliver(event);
+                completed = head;
+                count++;
+            }
+
+            if (!overflow.isEmpty()) {
+                count += deliverOverflow();
+            }
+
+            if (count > 0) {
+                batchCount.increment();
+                idleSince = System.nanoTime();
+                continue;
+            }
+
+            if (tail.get() != head) {
+                // 已经占用位置但还未写入完成的事件
+                Thread.yield();
+                continue;
+            }
+
+            if (System.nanoTime() - idleSince >= IDLE_EXIT_NANOS) {
+                // 退出前再检查一次，避免与写入事件的线程同时判断分发线程在运行
+                thread = null;
+                running.set(false);
+                if (isEmpty() || !running.compareAndSet(false, true)) {
+                    return;
+                }
+                thread = Thread.currentThread();
+                continue;
+            }
+
+            sleeping = true;
+            if (isEmpty()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            sleeping = false;
+        }
+    }
+
+    /**
+     * 执行暂存的事件 (每个连接或每类事件的暂存事件按顺序执行)<br>
+     * 暂存之前写入环形队列的事件全部执行后才执行，保证同一个连接的事件不会乱序
+     *
+     * @return 执行的事件数
+     */
+    private int deliverOverflow() {
+        int count = 0;
+        deliveringOverflow = true;
+
+        try {
+            for (Map.Entry<Object, PendingEvents> entry : overflow.entrySet()) {
+                PendingEvents pending = entry.getValue();
+                if (pending.barrier > head || !overflow.remove(entry.getKey(), pending)) {
+                    continue;
+                }
+
+                overflowSize.addAndGet(-pending.events.size());
+                for (Event event : pending.events) {
+                    deliver(event);
+                    count++;
+                }
+            }
+        } finally {
+            deliveringOverflow = false;
+        }
+        return count;
+    }
+
+    /**
+     * 执行 Handler 的方法
+     */
+    private void deliver(Event event) {
+        try {
+            switch (event.type) {
+                case CONNECTED:
+                    connectionHandler.afterConnected(event.connection);
+                    break;
+                case CLOSED:
+                    connectionHandler.afterClosed(event.connection, (CloseReason) event.reason);
+                    break;
+                case ERROR:
+                    connectionHandler.onError(event.connection, event.exception, event.phase);
+                    break;
+                case REJECTED:
+                    serverHandler.onRejected(server, event.socket, event.count);
+                    break;
+                case DENIED:
+                    serverHandler.onDenied(server, event.socket, event.count);
+                    break;
+                default:
+                    serverHandler.onClientLimited(server, event.socket, (ClientLimitReason) event.reason, event.count);
+                    break;
+            }
+        } catch (Throwable e) {
+            log.error("[Handler 事件分发] - 执行 Handler 异常 [" + event.type + "]", e);
+        }
+        dispatchedCount.increment();
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public HandlerOverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * 获取队列容量 (同步模式为 0)
+     */
+    public int getCapacity() {
+        return async ? mask + 1 : 0;
+    }
+
+    /**
+     * 获取等待执行的事件数 (包括暂存的事件数，最多为队列容量的 2 倍)
+     */
+    public long getPendingCount() {
+        return async ? tail.get() - head + overflowSize.get() : 0;
+    }
+
+    /**
+     * 获取各类事件的次数<br>
+     * {DISPATCHED / DROPPED / OVERFLOWED / COALESCED / BATCHES / BLOCKED_MILLIS / PENDING: 次数}
+     */
+    public Map<String, Long> getStatistics() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("DISPATCHED", dispatchedCount.sum());
+        result.put("DROPPED", droppedCount.sum());
+        result.put("OVERFLOWED", overflowedCount.sum());
+        result.put("COALESCED", coalescedCount.sum());
+        result.put("BATCHES", batchCount.sum());
+        result.put("BLOCKED_MILLIS", TimeUnit.NANOSECONDS.toMillis(blockedNanos.sum()));
+        result.put("PENDING", getPendingCount());
+        return result;
+    }
+
+    /**
+     * 重置统计的次数
+     */
+    public void resetStatistics() {
+        dispatchedCount.reset();
+        droppedCount.reset();
+        overflowedCount.reset();
+        coalescedCount.reset();
+        blockedNanos.reset();
+        batchCount.reset();
+    }
+
+    /**
+     * 一个 Handler 事件
+     */
+    private static class Event {
+        final EventType type;
+
+        final PortForwardConnection connection;
+
+        final Socket socket;
+
+        /**
+         * 关闭的原因或被限制的原因
+         */
+        final Enum<?> reason;
+
+        final Exception exception;
+
+        final ConnectionPhase phase;
+
+        /**
+         * 累计拒绝的连接数
+         */
+        final long count;
+
+        Event(EventType type, PortForwardConnection connection, Socket socket, Enum<?> reason,
+              Exception exception, ConnectionPhase phase, long count) {
+            this.type = type;
+            this.connection = connection;
+            this.socket = socket;
+            this.reason = reason;
+            this.exception = exception;
+            this.phase = phase;
+            this.count = count;
+        }
+
+        /**
+         * 暂存时的合并键: 连接的事件按连接合并，其他事件按类型 (和原因、阶段) 合并
+         */
+        Object coalesceKey() {
+            if (connection != null) {
+                return connection;
+            }
+            if (type == EventType.ERROR) {
+                return phase;
+            }
+            return reason != null ? reason : type;
+        }
+
+        /**
+         * 是否可以被之后的同类事件替换 (错误事件和计数事件)
+         */
+        boolean isReplaceableBy(Event next) {
+            return type == next.type && type != EventType.CONNECTED && type != EventType.CLOSED;
+        }
+    }
+
+    /**
+     * 暂存的事件 (按顺序，连续的同类错误事件和计数事件只保留最后一个)<br>
+     * 只在 overflow 的 compute 中修改，创建前需要先占用一个暂存位置
+     */
+    private class PendingEvents {
+        final List<Event> events = new ArrayList<>(2);
+
+        /**
+         * 开始暂存时环形队列的写入位置
+         */
+        final long barrier;
+
+        PendingEvents(Event event) {
+            events.add(event);
+            barrier = tail.get();
+        }
+
+        /**
+         * 追加或替换最后一个事件
+         *
+         * @return 需要追加但暂存的事件数已达到队列容量时返回 false
+         */
+        boolean add(Event event) {
+            int last = events.size() - 1;
+            if (events.get(last).isReplaceableBy(event)) {
+                events.set(last, event);
+                coalescedCount.increment();
+                return true;
+            }
+            if (!reserveOverflow()) {
+                return false;
+            }
+            events.add(event);
+            return true;
+        }
+    }
+}
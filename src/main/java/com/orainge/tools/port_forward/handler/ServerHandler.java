@@ -1,7 +1,10 @@
 package com.orainge.tools.port_forward.handler;
 
+import com.orainge.tools.port_forward.consts.ClientLimitReason;
 import com.orainge.tools.port_forward.server.PortForwardServer;
 
+import java.net.Socket;
+
 /**
  * 端口转发服务 Handler
  *
@@ -30,4 +33,38 @@ public interface ServerHandler {
      * @param server 端口转发服务
      */
     void onError(PortForwardServer server, Exception e);
+
+    /**
+     * 当连接被拒绝后 (连接数达到上限或连接建立线程池已满)<br>
+     * 调用时客户端连接已经关闭
+     *
+     * @param server        端口转发服务
+     * @param socket        被拒绝的客户端连接
+     * @param rejectedCount 累计拒绝的连接数
+     */
+    default void onRejected(PortForwardServer server, Socket socket, long rejectedCount) {
+    }
+
+    /**
+     * 当连接被访问规则拒绝后<br>
+     * 调用时客户端连接已经关闭
+     *
+     * @param server      端口转发服务
+     * @param socket      被拒绝的客户端连接
+     * @param deniedCount 累计因访问规则拒绝的连接数
+     */
+    default void onDenied(PortForwardServer server, Socket socket, long deniedCount) {
+    }
+
+    /**
+     * 当连接因为单个客户端 IP 的并发连接数或建连速率超出限制被拒绝后<br>
+     * 调用时客户端连接已经关闭
+     *
+     * @param server       端口转发服务
+     * @param socket       被拒绝的客户端连接
+     * @param reason       被限制的原因
+     * @param limitedCount 累计因该原因被拒绝的连接数
+     */
+    default void onClientLimited(PortForwardServer server, Socket socket, ClientLimitReason reason, long limitedCount) {
+    }
 }
@@ -0,0 +1,54 @@
+package com.orainge.tools.port_forward.metrics;
+
+/**
+ * 热点统计的一个结果 (不可变)
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public final class HeavyHitter {
+    private final String key;
+
+    /**
+     * 窗口内的计数 (不小于真实值)
+     */
+    private final long count;
+
+    /**
+     * 误差上限 (真实值不小于 count - error)
+     */
+    private final long error;
+
+    /**
+     * 窗口内平均每秒的计数
+     */
+    private final double perSecond;
+
+    public HeavyHitter(String key, long count, long error, double perSecond) {
+        this.key = key;
+        this.count = count;
+        this.error = error;
+        this.perSecond = perSecond;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getError() {
+        return error;
+    }
+
+    public double getPerSecond() {
+        return perSecond;
+    }
+
+    @Override
+    public String toString() {
+        return key + "=" + count + (error > 0 ? " (误差 " + error + ")" : "") + String.format(" [%.1f/s]", perSecond);
+    }
+}
@@ -0,0 +1,151 @@
+package com.orainge.tools.port_forward.metrics;
+
+import java.util.List;
+
+/**
+ * 转发服务的热点客户端和目标端口统计<br>
+ * 分别按字节数和连接数统计最近一个窗口内的客户端 IP 和目标端口，使用固定内存的近似算法 ({@link SlidingHeavyHitters})，
+ * 大量不同的客户端 IP 不会让内存增长；查询只合并固定数量的计数器，可以频繁调用<br>
+ * 连接数在接收连接 (客户端) 和连接目标端口成功 (目标端口) 时记录；字节数由连接按方向累积，
+ * 每累积 {@link #REPORT_BYTES} 字节、每隔 {@link #REPORT_MILLIS} 毫秒或转发方向结束时汇总一次
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class HeavyHitterTracker {
+    /**
+     * 默认的计数器数量
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * 默认的窗口长度 (毫秒)
+     */
+    public static final long DEFAULT_WINDOW_MILLIS = 60_000;
+
+    /**
+     * 窗口的时间片数量
+     */
+    public static final int SLOTS = 6;
+
+    /**
+     * 连接累积多少字节后汇总一次
+     */
+    public static final int REPORT_BYTES = 64 * 1024;
+
+    /**
+     * 连接最长多久汇总一次累积的字节数 (毫秒)
+     */
+    public static final long REPORT_MILLIS = 1000;
+
+    private final int capacity;
+
+    private final long windowMillis;
+
+    private final SlidingHeavyHitters clientBytes;
+
+    private final SlidingHeavyHitters clientConnections;
+
+    private final SlidingHeavyHitters targetBytes;
+
+    private final SlidingHeavyHitters targetConnections;
+
+    /**
+     * 创建热点统计
+     *
+     * @param capacity     每个时间片的计数器数量 (能够准确识别占总量 1 / capacity 以上的热点)
+     * @param windowMillis 窗口长度 (毫秒)
+     */
+    public HeavyHitterTracker(int capacity, long windowMillis) {
+        this.capacity = capacity;
+        this.windowMillis = windowMillis;
+        this.clientBytes = new SlidingHeavyHitters(capacity, windowMillis, SLOTS);
+        this.clientConnections = new SlidingHeavyHitters(capacity, windowMillis, SLOTS);
+        this.targetBytes = new SlidingHeavyHitters(capacity, windowMillis, SLOTS);
+        this.targetConnections = new SlidingHeavyHitters(capacity, windowMillis, SLOTS);
+    }
+
+    /**
+     * 记录接收了一个客户端连接
+     *
+     * @param clientIp 客户端 IP
+     */
+    public void recordClientConnection(String clientIp) {
+        clientConnections.add(clientIp, 1);
+    }
+
+    /**
+     * 记录连接了一次目标端口
+     *
+     * @param target 目标端口 (ip:port)
+     */
+    public void recordTargetConnection(String target) {
+        targetConnections.add(target, 1);
+    }
+
+    /**
+     * 记录一个连接累积转发的字节数
+     *
+     * @param clientIp 客户端 IP
+     * @param target   目标端口 (ip:port)
+     * @param bytes    字节数
+     */
+    public void recordBytes(String clientIp, String target, long bytes) {
+        clientBytes.add(clientIp, bytes);
+        targetBytes.add(target, bytes);
+    }
+
+    /**
+     * 清空统计
+     */
+    public void reset() {
+        clientBytes.clear();
+        clientConnections.clear();
+        targetBytes.clear();
+        targetConnections.clear();
+    }
+
+    /**
+     * 获取窗口内转发字节数 (两个方向之和) 最多的前 N 个客户端 IP
+     *
+     * @param n 数量
+     */
+    public List<HeavyHitter> getTopClientsByBytes(int n) {
+        return clientBytes.top(n);
+    }
+
+    /**
+     * 获取窗口内连接数最多的前 N 个客户端 IP (包括被拒绝的连接，每秒的计数即建连速率)
+     *
+     * @param n 数量
+     */
+    public List<HeavyHitter> getTopClientsByConnections(int n) {
+        return clientConnections.top(n);
+    }
+
+    /**
+     * 获取窗口内转发字节数最多的前 N 个目标端口
+     *
+     * @param n 数量
+     */
+    public List<HeavyHitter> getTopTargetsByBytes(int n) {
+        return targetBytes.top(n);
+    }
+
+    /**
+     * 获取窗口内连接数最多的前 N 个目标端口
+     *
+     * @param n 数量
+     */
+    public List<HeavyHitter> getTopTargetsByConnections(int n) {
+        return targetConnections.top(n);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+}
@@ -0,0 +1,317 @@
+package com.orainge.tools.port_forward.metrics;
+
+import com.orainge.tools.port_forward.acl.ClientLimiter;
+import com.orainge.tools.port_forward.consts.ClientLimitReason;
+import com.orainge.tools.port_forward.consts.CloseReason;
+import com.orainge.tools.port_forward.consts.ConnectionPhase;
+import com.orainge.tools.port_forward.consts.ShapingScope;
+import com.orainge.tools.port_forward.server.PortForwardServer;
+import com.orainge.tools.port_forward.shaping.BandwidthLimiter;
+import com.orainge.tools.port_forward.upstream.UpstreamTarget;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 转发规则的指标<br>
+ * 每个端口转发服务一个，汇总该服务所有连接的流量、连接数、连接耗时和各阶段的异常次数；
+ * 服务启动后以 MBean 的形式注册到平台 MBeanServer (可以用 JConsole、VisualVM 查看)，服务关闭后注销<br>
+ * 转发热点路径上每次读到数据只增加转发规则和目标端口各一个 LongAdder (约 10~20 纳秒，相比读写 Socket 的系统调用可以忽略)，
+ * 开销预算为每次读取不超过 50 纳秒，可以用 src/jmh 中的 benchmark.MetricsOverheadBenchmark 测量
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class RuleMetrics extends TrafficMetrics implements RuleMetricsMBean {
+    private static final Logger log = LoggerFactory.getLogger(RuleMetrics.class);
+
+    /**
+     * MBean 的域名
+     */
+    public static final String JMX_DOMAIN = "com.orainge.tools.port_forward";
+
+    /**
+     * MBean 中热点客户端的数量
+     */
+    private static final int TOP_N = 10;
+
+    private final PortForwardServer server;
+
+    private final LongAdder acceptedConnections = new LongAdder();
+
+    private final LongAdder failedConnections = new LongAdder();
+
+    /**
+     * 各阶段的异常次数 (下标为 ConnectionPhase 的序号)
+     */
+    private final LongAdder[] errors = newAdders(ConnectionPhase.values().length);
+
+    /**
+     * 各关闭原因的连接数 (下标为 CloseReason 的序号)
+     */
+    private final LongAdder[] closedConnections = newAdders(CloseReason.values().length);
+
+    /**
+     * 已注册的 MBean 名称
+     */
+    private final List<ObjectName> registeredNames = new ArrayList<>();
+
+    public RuleMetrics(PortForwardServer server) {
+        this.server = server;
+    }
+
+    private static LongAdder[] newAdders(int length) {
+        LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * 记录接收了一个客户端连接
+     */
+    public void recordAccepted() {
+        acceptedConnections.increment();
+    }
+
+    /**
+     * 记录一次异常
+     *
+     * @param phase      异常的阶段
+     * @param connFailed 连接是否因此建立失败
+     */
+    public void recordError(ConnectionPhase phase, boolean connFailed) {
+        errors[phase.ordinal()].increment();
+        if (connFailed) {
+            failedConnections.increment();
+        }
+    }
+
+    /**
+     * 记录一个连接已关闭
+     *
+     * @param reason 关闭的原因
+     */
+    public void recordClosed(CloseReason reason) {
+        closedConnections[(reason != null ? reason : CloseReason.NORMAL).ordinal()].increment();
+    }
+
+    /**
+     * 将转发规则和各个目标端口的指标注册为 MBean<br>
+     * 名称为 [域名:type=Rule,name="监听地址"] 和 [域名:type=Target,rule="监听地址",name="目标地址"]，
+     * 名称已被占用 (如同一个监听地址的服务重复启动) 时输出日志并跳过
+     */
+    public synchronized void registerMBeans() {
+        unregisterMBeans();
+
+        String rule = ObjectName.quote(getListeningAddress());
+        register(this, "type=Rule,name=" + rule);
+
+        for (UpstreamTarget target : server.getTargets()) {
+            register(target.getMetrics(), "type=Target,rule=" + rule + ",name=" + ObjectName.quote(target.toString()));
+        }
+    }
+
+    /**
+     * 注销已注册的 MBean
+     */
+    public synchronized void unregisterMBeans() {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        for (ObjectName name : registeredNames) {
+            try {
+                mBeanServer.unregisterMBean(name);
+            } catch (Exception e) {
+                log.debug("[端口转发指标] - 注销 MBean 失败 [{}]: {}", name, e.getMessage());
+            }
+        }
+        registeredNames.clear();
+    }
+
+    private void register(Object mBean, String properties) {
+        try {
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":" + properties);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(mBean, name);
+            registeredNames.add(name);
+        } catch (Exception e) {
+            log.warn("[端口转发指标] - 注册 MBean 失败 [{}]: {}", properties, e.getMessage());
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        acceptedConnections.reset();
+        failedConnections.reset();
+        for (LongAdder adder : errors) {
+            adder.reset();
+        }
+        for (LongAdder adder : closedConnections) {
+            adder.reset();
+        }
+        server.getTrafficShaper().reset();
+        if (server.getClientLimiter() != null) {
+            server.getClientLimiter().reset();
+        }
+        server.getHandlerDispatcher().resetStatistics();
+        if (server.getHeavyHitters() != null) {
+            server.getHeavyHitters().reset();
+        }
+    }
+
+    @Override
+    public String getListeningAddress() {
+        return server.getListeningIp() + ":" + server.getListeningPort();
+    }
+
+    @Override
+    public String getEngine() {
+        return server.getEngine().name();
+    }
+
+    @Override
+    public long getAcceptedConnections() {
+        return acceptedConnections.sum();
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return server.getConnectionCount();
+    }
+
+    @Override
+    public long getRejectedConnections() {
+        return server.getRejectedCount();
+    }
+
+    @Override
+    public long getDeniedConnections() {
+        return server.getDeniedCount();
+    }
+
+    @Override
+    public Map<String, Long> getClientLimitedConnections() {
+        ClientLimiter limiter = server.getClientLimiter();
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (ClientLimitReason reason : ClientLimitReason.values()) {
+            result.put(reason.name(), limiter != null ? limiter.getLimitedCount(reason) : 0L);
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getDnsResolutions() {
+        return server.getDnsCache().getStatistics();
+    }
+
+    @Override
+    public Map<String, Long> getHandlerEvents() {
+        return server.getHandlerDispatcher().getStatistics();
+    }
+
+    @Override
+    public long getFailedConnections() {
+        return failedConnections.sum();
+    }
+
+    @Override
+    public long getConnectErrors() {
+        return getErrors(ConnectionPhase.CONNECT);
+    }
+
+    @Override
+    public long getSetupErrors() {
+        return getErrors(ConnectionPhase.SETUP);
+    }
+
+    @Override
+    public long getForwardErrors() {
+        return getErrors(ConnectionPhase.FORWARD);
+    }
+
+    /**
+     * 获取指定阶段的异常次数
+     *
+     * @param phase 异常的阶段
+     */
+    public long getErrors(ConnectionPhase phase) {
+        return errors[phase.ordinal()].sum();
+    }
+
+    /**
+     * 获取指定原因关闭的连接数
+     *
+     * @param reason 关闭的原因
+     */
+    public long getClosedConnections(CloseReason reason) {
+        return closedConnections[reason.ordinal()].sum();
+    }
+
+    @Override
+    public Map<String, Long> getClosedConnections() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (CloseReason reason : CloseReason.values()) {
+            result.put(reason.name(), getClosedConnections(reason));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getThrottledCount() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (ShapingScope scope : ShapingScope.values()) {
+            result.put(scope.name(), server.getTrafficShaper().getLimiter(scope).getThrottledCount());
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getThrottledMillis() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (ShapingScope scope : ShapingScope.values()) {
+            result.put(scope.name(), TimeUnit.NANOSECONDS.toMillis(server.getTrafficShaper().getLimiter(scope).getThrottledNanos()));
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, String> getBandwidthLimits() {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (ShapingScope scope : ShapingScope.values()) {
+            BandwidthLimiter limiter = server.getTrafficShaper().getLimiter(scope);
+            result.put(scope.name(), limiter.getLimit().toString());
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getTopClientsByBytes() {
+        HeavyHitterTracker heavyHitters = server.getHeavyHitters();
+        return heavyHitters != null ? toMap(heavyHitters.getTopClientsByBytes(TOP_N)) : Collections.emptyMap();
+    }
+
+    @Override
+    public Map<String, Long> getTopClientsByConnections() {
+        HeavyHitterTracker heavyHitters = server.getHeavyHitters();
+        return heavyHitters != null ? toMap(heavyHitters.getTopClientsByConnections(TOP_N)) : Collections.emptyMap();
+    }
+
+    private static Map<String, Long> toMap(List<HeavyHitter> heavyHitters) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (HeavyHitter heavyHitter : heavyHitters) {
+            result.put(heavyHitter.getKey(), heavyHitter.getCount());
+        }
+        return result;
+    }
+}
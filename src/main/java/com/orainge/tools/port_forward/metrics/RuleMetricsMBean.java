@@ -0,0 +1,115 @@
+package com.orainge.tools.port_forward.metrics;
+
+import java.util.Map;
+
+/**
+ * 转发规则指标的 MBean 接口
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public interface RuleMetricsMBean extends TrafficMetricsMBean {
+    /**
+     * 获取监听地址
+     */
+    String getListeningAddress();
+
+    /**
+     * 获取转发引擎
+     */
+    String getEngine();
+
+    /**
+     * 获取接收的客户端连接数 (包括之后被拒绝或建立失败的连接)
+     */
+    long getAcceptedConnections();
+
+    /**
+     * 获取当前已建立的连接数
+     */
+    int getActiveConnections();
+
+    /**
+     * 获取连接数达到上限后被拒绝的连接数
+     */
+    long getRejectedConnections();
+
+    /**
+     * 获取被访问规则拒绝的连接数
+     */
+    long getDeniedConnections();
+
+    /**
+     * 获取因单个客户端 IP 的限制被拒绝的连接数<br>
+     * {原因 (MAX_CONNECTIONS / CONNECTION_RATE): 连接数}
+     */
+    Map<String, Long> getClientLimitedConnections();
+
+    /**
+     * 获取解析目标主机名的次数 (DNS 缓存可能被多个转发规则共用)<br>
+     * {HIT / MISS / STALE / LOOKUP / FAILURE: 次数}
+     */
+    Map<String, Long> getDnsResolutions();
+
+    /**
+     * 获取异步执行 Handler 的事件分发情况 (同步执行 Handler 时都为 0)<br>
+     * {DISPATCHED / DROPPED / OVERFLOWED / COALESCED / BATCHES / BLOCKED_MILLIS / PENDING: 次数}
+     */
+    Map<String, Long> getHandlerEvents();
+
+    /**
+     * 获取建立失败的连接数 (所有目标端口都连接失败或建立转发失败)
+     */
+    long getFailedConnections();
+
+    /**
+     * 获取连接目标端口阶段的异常次数
+     */
+    long getConnectErrors();
+
+    /**
+     * 获取建立转发阶段的异常次数
+     */
+    long getSetupErrors();
+
+    /**
+     * 获取转发数据阶段的异常次数
+     */
+    long getForwardErrors();
+
+    /**
+     * 获取按关闭原因统计的已关闭连接数<br>
+     * {关闭原因: 连接数}
+     */
+    Map<String, Long> getClosedConnections();
+
+    /**
+     * 获取按范围统计的限速次数 (转发后超出带宽限制、需要暂停读取来源端的次数)<br>
+     * {范围 (CONNECTION / CLIENT / GLOBAL): 次数}
+     */
+    Map<String, Long> getThrottledCount();
+
+    /**
+     * 获取按范围统计的累计限速等待时间 (毫秒)<br>
+     * {范围: 毫秒}
+     */
+    Map<String, Long> getThrottledMillis();
+
+    /**
+     * 获取各范围当前的带宽限制<br>
+     * {范围: 带宽限制}
+     */
+    Map<String, String> getBandwidthLimits();
+
+    /**
+     * 获取最近一个窗口内转发字节数最多的前 10 个客户端 IP (近似值)<br>
+     * {客户端 IP: 字节数}
+     */
+    Map<String, Long> getTopClientsByBytes();
+
+    /**
+     * 获取最近一个窗口内连接数最多的前 10 个客户端 IP (近似值)<br>
+     * {客户端 IP: 连接数}
+     */
+    Map<String, Long> getTopClientsByConnections();
+}
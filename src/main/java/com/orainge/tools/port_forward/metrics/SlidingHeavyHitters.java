@@ -0,0 +1,122 @@
+package com.orainge.tools.port_forward.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 滑动窗口的热点统计<br>
+ * 把窗口分为若干个时间片，每个时间片一个 {@link SpaceSavingSketch}，记录时写入当前时间片，时间片过期后清空复用；
+ * 查询时合并窗口内的时间片，按计数从大到小取前 N 个。内存固定为 时间片数 * 计数器数量，与 key 的数量无关<br>
+ * 记录和合并都在同一把锁内完成；转发时按连接批量汇总字节数后再记录，锁的竞争只与连接数有关，与读取次数无关
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class SlidingHeavyHitters {
+    /**
+     * 时间片的长度 (纳秒)
+     */
+    private final long slotNanos;
+
+    /**
+     * 时间的起点 (纳秒)
+     */
+    private final long baseNanos = System.nanoTime();
+
+    private final SpaceSavingSketch[] sketches;
+
+    /**
+     * 各时间片的序号 (从起点开始的第几个时间片，-1 代表未使用)
+     */
+    private final long[] epochs;
+
+    /**
+     * 创建滑动窗口的热点统计
+     *
+     * @param capacity     每个时间片的计数器数量
+     * @param windowMillis 窗口长度 (毫秒)
+     * @param slots        时间片的数量
+     */
+    public SlidingHeavyHitters(int capacity, long windowMillis, int slots) {
+        if (windowMillis <= 0 || slots <= 0) {
+            throw new IllegalArgumentException("窗口长度和时间片的数量必须大于 0");
+        }
+        this.slotNanos = Math.max(windowMillis * 1_000_000L / slots, 1);
+        this.sketches = new SpaceSavingSketch[slots];
+        this.epochs = new long[slots];
+        for (int i = 0; i < slots; i++) {
+            sketches[i] = new SpaceSavingSketch(capacity);
+            epochs[i] = -1;
+        }
+    }
+
+    /**
+     * 增加 key 的计数
+     *
+     * @param key    key
+     * @param weight 增加的计数
+     */
+    public synchronized void add(String key, long weight) {
+        long epoch = (System.nanoTime() - baseNanos) / slotNanos;
+        int index = (int) (epoch % sketches.length);
+
+        if (epochs[index] != epoch) {
+            // 时间片已过期，清空后复用
+            sketches[index].clear();
+            epochs[index] = epoch;
+        }
+        sketches[index].add(key, weight);
+    }
+
+    /**
+     * 获取窗口内计数最大的前 N 个 key
+     *
+     * @param n 数量
+     * @return 按计数从大到小排列的结果
+     */
+    public List<HeavyHitter> top(int n) {
+        Map<String, long[]> merged = new HashMap<>();
+        long now;
+        long oldestEpoch;
+
+        synchronized (this) {
+            now = System.nanoTime() - baseNanos;
+            oldestEpoch = now / slotNanos - sketches.length + 1;
+
+            for (int i = 0; i < sketches.length; i++) {
+                if (epochs[i] < oldestEpoch) {
+                    continue;
+                }
+                sketches[i].forEach((key, counter) -> {
+                    long[] value = merged.computeIfAbsent(key, k -> new long[2]);
+                    value[0] += counter.getCount();
+                    value[1] += counter.getError();
+                });
+            }
+        }
+
+        // 窗口实际覆盖的时间 (启动后不足一个窗口时按已经过的时间计算)
+        double seconds = Math.max(now - Math.max(oldestEpoch, 0) * slotNanos, 1) / 1e9;
+
+        List<HeavyHitter> result = new ArrayList<>(merged.size());
+        for (Map.Entry<String, long[]> entry : merged.entrySet()) {
+            long[] value = entry.getValue();
+            result.add(new HeavyHitter(entry.getKey(), value[0], value[1], value[0] / seconds));
+        }
+        result.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+        return result.size() > n ? new ArrayList<>(result.subList(0, n)) : result;
+    }
+
+    /**
+     * 清空计数
+     */
+    public synchronized void clear() {
+        for (int i = 0; i < sketches.length; i++) {
+            sketches[i].clear();
+            epochs[i] = -1;
+        }
+    }
+}
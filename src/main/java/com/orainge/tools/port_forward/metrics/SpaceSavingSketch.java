@@ -0,0 +1,183 @@
+package com.orainge.tools.port_forward.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Space-Saving 算法的热点统计 (非线程安全，由调用方加锁)<br>
+ * 只保存固定数量的计数器，内存与不同 key 的数量无关：计数器满了以后，新 key 替换计数最小的计数器，
+ * 并继承它的计数作为误差上限；真实值在 [计数 - 误差, 计数] 之间，真实值超过总数 / 容量的 key 一定会被保留<br>
+ * 计数器按计数组成最小堆，增加计数和替换最小值都是 O(log 容量)
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class SpaceSavingSketch {
+    /**
+     * 计数器的最小堆 (堆顶计数最小)
+     */
+    private final Counter[] heap;
+
+    /**
+     * key -> 计数器
+     */
+    private final Map<String, Counter> counters;
+
+    private int size = 0;
+
+    /**
+     * 所有 key 的计数总和
+     */
+    private long total = 0;
+
+    /**
+     * 创建热点统计
+     *
+     * @param capacity 计数器的数量
+     */
+    public SpaceSavingSketch(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("计数器的数量必须大于 0");
+        }
+        this.heap = new Counter[capacity];
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * 增加 key 的计数
+     *
+     * @param key    key
+     * @param weight 增加的计数 (如字节数、连接数)
+     */
+    public void add(String key, long weight) {
+        total += weight;
+
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.count += weight;
+            siftDown(counter.index);
+            return;
+        }
+
+        if (size < heap.length) {
+            counter = new Counter(key);
+            counter.count = weight;
+            counter.index = size;
+            heap[size++] = counter;
+            counters.put(key, counter);
+            siftUp(counter.index);
+            return;
+        }
+
+        // 计数器已满，替换计数最小的 key
+        counter = heap[0];
+        counters.remove(counter.key);
+        counter.key = key;
+        counter.error = counter.count;
+        counter.count += weight;
+        counters.put(key, counter);
+        siftDown(0);
+    }
+
+    /**
+     * 遍历所有计数器
+     *
+     * @param consumer (key, 计数器)
+     */
+    public void forEach(BiConsumer<String, Counter> consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(heap[i].key, heap[i]);
+        }
+    }
+
+    /**
+     * 清空计数
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            heap[i] = null;
+        }
+        counters.clear();
+        size = 0;
+        total = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    private void siftUp(int index) {
+        Counter counter = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(counter, index);
+    }
+
+    private void siftDown(int index) {
+        Counter counter = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && heap[right].count < heap[child].count) {
+                child = right;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], index);
+            index = child;
+        }
+        place(counter, index);
+    }
+
+    private void place(Counter counter, int index) {
+        heap[index] = counter;
+        counter.index = index;
+    }
+
+    /**
+     * 计数器
+     */
+    public static class Counter {
+        private String key;
+
+        /**
+         * 计数 (不小于真实值)
+         */
+        private long count;
+
+        /**
+         * 误差上限 (替换其他 key 时继承的计数)
+         */
+        private long error;
+
+        /**
+         * 在堆中的下标
+         */
+        private int index;
+
+        Counter(String key) {
+            this.key = key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.orainge.tools.port_forward.metrics;
+
+import com.orainge.tools.port_forward.upstream.UpstreamTarget;
+
+/**
+ * 目标端口的指标<br>
+ * 每个目标端口一个，记录转发到该目标端口的流量和连接耗时
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class TargetMetrics extends TrafficMetrics implements TargetMetricsMBean {
+    private final UpstreamTarget target;
+
+    public TargetMetrics(UpstreamTarget target) {
+        this.target = target;
+    }
+
+    @Override
+    public String getAddress() {
+        return target.toString();
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return target.getActiveConnections();
+    }
+
+    @Override
+    public int getConsecutiveFailures() {
+        return target.getConsecutiveFailures();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return target.isAvailable();
+    }
+}
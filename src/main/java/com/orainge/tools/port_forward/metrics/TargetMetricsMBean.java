@@ -0,0 +1,29 @@
+package com.orainge.tools.port_forward.metrics;
+
+/**
+ * 目标端口指标的 MBean 接口
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public interface TargetMetricsMBean extends TrafficMetricsMBean {
+    /**
+     * 获取目标地址
+     */
+    String getAddress();
+
+    /**
+     * 获取当前的活跃连接数
+     */
+    int getActiveConnections();
+
+    /**
+     * 获取连续失败次数 (包括健康检查)
+     */
+    int getConsecutiveFailures();
+
+    /**
+     * 当前是否可用 (未被摘除)
+     */
+    boolean isAvailable();
+}
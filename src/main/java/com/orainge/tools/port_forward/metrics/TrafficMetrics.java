@@ -0,0 +1,109 @@
+package com.orainge.tools.port_forward.metrics;
+
+import com.orainge.tools.port_forward.consts.PortForwardType;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 流量指标 (转发规则和目标端口共有的计数)<br>
+ * 计数使用 LongAdder 分段累加，多个转发线程同时更新时不会竞争同一个缓存行，热点路径上没有锁；
+ * 读取时汇总各段的值，因此读到的是近似的瞬时值，适合监控而不适合做精确的业务判断
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public abstract class TrafficMetrics implements TrafficMetricsMBean {
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    private final LongAdder bytesClientToTarget = new LongAdder();
+
+    private final LongAdder bytesTargetToClient = new LongAdder();
+
+    private final LongAdder connectSuccesses = new LongAdder();
+
+    private final LongAdder connectFailures = new LongAdder();
+
+    /**
+     * 连接目标端口成功的总耗时 (纳秒)
+     */
+    private final LongAdder connectNanos = new LongAdder();
+
+    /**
+     * 连接目标端口成功的最大耗时 (纳秒)
+     */
+    private final LongAccumulator maxConnectNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * 记录转发的字节数 (转发热点路径，每次读到数据调用一次)
+     *
+     * @param type  转发方向 (CLIENT_TO_TARGET 或 TARGET_TO_CLIENT)
+     * @param bytes 字节数
+     */
+    public void addBytes(PortForwardType type, long bytes) {
+        if (PortForwardType.CLIENT_TO_TARGET.equals(type)) {
+            bytesClientToTarget.add(bytes);
+        } else {
+            bytesTargetToClient.add(bytes);
+        }
+    }
+
+    /**
+     * 记录一次连接目标端口成功
+     *
+     * @param nanos 连接耗时 (纳秒)
+     */
+    public void recordConnectSuccess(long nanos) {
+        connectSuccesses.increment();
+        connectNanos.add(nanos);
+        maxConnectNanos.accumulate(nanos);
+    }
+
+    /**
+     * 记录一次连接目标端口失败
+     */
+    public void recordConnectFailure() {
+        connectFailures.increment();
+    }
+
+    @Override
+    public void reset() {
+        bytesClientToTarget.reset();
+        bytesTargetToClient.reset();
+        connectSuccesses.reset();
+        connectFailures.reset();
+        connectNanos.reset();
+        maxConnectNanos.reset();
+    }
+
+    @Override
+    public long getBytesClientToTarget() {
+        return bytesClientToTarget.sum();
+    }
+
+    @Override
+    public long getBytesTargetToClient() {
+        return bytesTargetToClient.sum();
+    }
+
+    @Override
+    public long getConnectSuccesses() {
+        return connectSuccesses.sum();
+    }
+
+    @Override
+    public long getConnectFailures() {
+        return connectFailures.sum();
+    }
+
+    @Override
+    public double getAverageConnectMillis() {
+        long count = connectSuccesses.sum();
+        return count == 0 ? 0 : connectNanos.sum() / NANOS_PER_MILLI / count;
+    }
+
+    @Override
+    public double getMaxConnectMillis() {
+        return maxConnectNanos.get() / NANOS_PER_MILLI;
+    }
+}
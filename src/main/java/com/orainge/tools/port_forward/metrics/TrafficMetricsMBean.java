@@ -0,0 +1,44 @@
+package com.orainge.tools.port_forward.metrics;
+
+/**
+ * 流量指标的 MBean 接口 (转发规则和目标端口共有的指标)
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public interface TrafficMetricsMBean {
+    /**
+     * 获取 [客户端->目标端口] 方向转发的字节数 (流入)
+     */
+    long getBytesClientToTarget();
+
+    /**
+     * 获取 [目标端口->客户端] 方向转发的字节数 (流出)
+     */
+    long getBytesTargetToClient();
+
+    /**
+     * 获取连接目标端口成功的次数
+     */
+    long getConnectSuccesses();
+
+    /**
+     * 获取连接目标端口失败的次数 (每次尝试计一次，不包括健康检查)
+     */
+    long getConnectFailures();
+
+    /**
+     * 获取连接目标端口的平均耗时 (毫秒)
+     */
+    double getAverageConnectMillis();
+
+    /**
+     * 获取连接目标端口的最大耗时 (毫秒)
+     */
+    double getMaxConnectMillis();
+
+    /**
+     * 清零所有计数
+     */
+    void reset();
+}
@@ -0,0 +1,19 @@
+package com.orainge.tools.port_forward.nio;
+
+import java.nio.channels.SelectionKey;
+
+/**
+ * NIO 通道事件处理器<br>
+ * 作为 SelectionKey 的附件，由所属的事件循环线程调用
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public interface NioChannelHandler {
+    /**
+     * 处理就绪的通道事件
+     *
+     * @param key 就绪的 SelectionKey
+     */
+    void handle(SelectionKey key);
+}
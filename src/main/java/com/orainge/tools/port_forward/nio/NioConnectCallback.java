@@ -0,0 +1,20 @@
+package com.orainge.tools.port_forward.nio;
+
+import java.nio.channels.SocketChannel;
+
+/**
+ * 非阻塞连接目标端口的回调<br>
+ * 在事件循环线程中执行
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public interface NioConnectCallback {
+    /**
+     * 连接完成后 (成功或失败)
+     *
+     * @param targetChannel [代理->目标端口] 的连接，失败时为 null
+     * @param e             连接异常，成功时为 null
+     */
+    void onComplete(SocketChannel targetChannel, Exception e);
+}
@@ -0,0 +1,447 @@
+package com.orainge.tools.port_forward.nio;
+
+import com.orainge.tools.port_forward.buffer.ByteBufferPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * NIO 事件循环<br>
+ * 一个线程持有一个 Selector，多路复用处理注册到该 Selector 上的所有连接<br>
+ * 通道的注册和读写都必须在事件循环线程内执行，其他线程通过 {@link #execute(Runnable)} 提交任务<br>
+ * 停止后事件循环线程先执行完已提交的任务 (未到期的定时任务立即执行，未完成的连接以失败回调)，再关闭所有通道；
+ * 之后提交的任务在提交任务的线程中直接执行，任务不会丢失
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class NioEventLoop implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(NioEventLoop.class);
+
+    /**
+     * 事件循环名称 (同时作为线程名称)
+     */
+    private final String name;
+
+    /**
+     * 多路复用器
+     */
+    private final Selector selector;
+
+    /**
+     * 待执行的任务队列
+     */
+    private final Queue<Runnable> taskQueue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 定时任务队列 (按执行时间排序，只在事件循环线程内访问)
+     */
+    private final Queue<ScheduledTask> scheduledTasks = new PriorityQueue<>();
+
+    /**
+     * 正在连接的通道 (连接完成、超时或事件循环退出时移除并回调，保证每个连接只回调一次)<br>
+     * {通道: 连接完成的回调}
+     */
+    private final Map<SocketChannel, NioConnectCallback> pendingConnects = new ConcurrentHashMap<>();
+
+    /**
+     * 定时任务的序号，执行时间相同时按提交顺序执行
+     */
+    private long scheduledSequence = 0;
+
+    /**
+     * 是否已经唤醒 Selector，避免重复调用 wakeup
+     */
+    private final AtomicBoolean wakenUp = new AtomicBoolean(false);
+
+    /**
+     * 事件循环线程
+     */
+    private volatile Thread thread = null;
+
+    /**
+     * 事件循环是否运行
+     */
+    private volatile boolean running = false;
+
+    /**
+     * 事件循环是否已经退出 (之后提交的任务在提交任务的线程中直接执行)
+     */
+    private volatile boolean terminated = false;
+
+    public NioEventLoop(String name) throws IOException {
+        this.name = name;
+        this.selector = Selector.open();
+    }
+
+    /**
+     * 启动事件循环线程
+     */
+    public synchronized void start() {
+        if (!running) {
+            running = true;
+            thread = new Thread(this, name);
+            thread.start();
+        }
+    }
+
+    /**
+     * 停止事件循环，执行完已提交的任务后关闭 Selector
+     */
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * 提交任务到事件循环线程执行 (事件循环已经退出时在当前线程执行)
+     *
+     * @param task 任务
+     */
+    public void execute(Runnable task) {
+        taskQueue.offer(task);
+
+        if (terminated) {
+            // 先写入队列再检查: 事件循环线程设置 terminated 之后还会再执行一次队列中的任务，任务不会被遗漏
+            runAllTasks();
+            return;
+        }
+
+        if (!inEventLoop() && wakenUp.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * 提交定时任务，延迟指定时间后在事件循环线程执行 (事件循环已经退出时不再等待，在当前线程执行)
+     *
+     * @param task        任务
+     * @param delayMillis 延迟时间 (毫秒)
+     */
+    public void schedule(Runnable task, long delayMillis) {
+        if (terminated) {
+            execute(task);
+            return;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+
+        if (inEventLoop()) {
+            scheduledTasks.offer(new ScheduledTask(deadline, scheduledSequence++, task));
+        } else {
+            execute(() -> {
+                if (terminated) {
+                    // 提交时事件循环还在运行，执行时已经退出
+                    task.run();
+                } else {
+                    scheduledTasks.offer(new ScheduledTask(deadline, scheduledSequence++, task));
+                }
+            });
+        }
+    }
+
+    /**
+     * 当前线程是否为事件循环线程
+     */
+    public boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * 注册通道 (须在事件循环线程内调用)<br>
+     * 如果通道已经注册过，则更新关注的事件和附件
+     *
+     * @param channel 通道
+     * @param ops     关注的事件
+     * @param handler 事件处理器
+     * @return SelectionKey
+     */
+    public SelectionKey register(SelectableChannel channel, int ops, NioChannelHandler handler) throws IOException {
+        SelectionKey key = channel.keyFor(selector);
+
+        if (key != null && key.isValid()) {
+            key.attach(handler);
+            key.interestOps(ops);
+            return key;
+        }
+
+        channel.configureBlocking(false);
+        return channel.register(selector, ops, handler);
+    }
+
+    /**
+     * 非阻塞连接目标地址 (须在事件循环线程内调用)
+     *
+     * @param address       目标地址
+     * @param timeoutMillis 连接超时时间 (毫秒，小于等于 0 代表不限制)
+     * @param callback      连接完成的回调
+     */
+    public void connect(SocketAddress address, long timeoutMillis, NioConnectCallback callback) {
+        SocketChannel channel = null;
+
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+
+            if (channel.connect(address)) {
+                // 本机连接可能立即完成
+                callback.onComplete(channel, null);
+                return;
+            }
+
+            SocketChannel connectingChannel = channel;
+            register(channel, SelectionKey.OP_CONNECT, key -> {
+                if (pendingConnects.remove(connectingChannel) == null) {
+                    return;
+                }
+
+                try {
+                    connectingChannel.finishConnect();
+                } catch (Exception e) {
+                    closeQuietly(connectingChannel);
+                    callback.onComplete(null, e);
+                    return;
+                }
+
+                // 连接完成，取消关注的事件，等待转发器重新注册
+                key.interestOps(0);
+                callback.onComplete(connectingChannel, null);
+            });
+            pendingConnects.put(connectingChannel, callback);
+
+            if (timeoutMillis > 0) {
+                // 超时后仍未完成连接，则关闭通道
+                schedule(() -> {
+                    if (connectingChannel.isConnectionPending()) {
+                        failConnect(connectingChannel, new SocketTimeoutException("连接超时 (" + timeoutMillis + " 毫秒)"));
+                    }
+                }, timeoutMillis);
+            }
+        } catch (Exception e) {
+            if (channel != null) {
+                pendingConnects.remove(channel);
+            }
+            closeQuietly(channel);
+            callback.onComplete(null, e);
+        }
+    }
+
+    /**
+     * 非阻塞依次连接多个目标地址，直到有一个地址连接成功 (须在事件循环线程内调用)<br>
+     * 每个地址分别计算连接超时时间；所有地址都连接失败时，以最后一个地址的异常回调
+     *
+     * @param addresses     依次尝试的目标地址 (不能为空)
+     * @param timeoutMillis 每个地址的连接超时时间 (毫秒，小于等于 0 代表不限制)
+     * @param callback      连接完成的回调
+     */
+    public void connect(List<? extends SocketAddress> addresses, long timeoutMillis, NioConnectCallback callback) {
+        connect(addresses, 0, timeoutMillis, callback, null);
+    }
+
+    private void connect(List<? extends SocketAddress> addresses, int index, long timeoutMillis,
+                         NioConnectCallback callback, Exception lastException) {
+        SocketAddress address = addresses.get(index);
+
+        connect(address, timeoutMillis, (channel, e) -> {
+            if (e != null && lastException != null) {
+                e.addSuppressed(lastException);
+            }
+
+            // 连接成功、已经是最后一个地址或事件循环已经退出时回调
+            if (e == null || index + 1 >= addresses.size() || terminated) {
+                callback.onComplete(channel, e);
+                return;
+            }
+
+            log.debug("[NIO 事件循环 {}] - 连接地址失败，尝试下一个地址 [{}]: {}", name, address, e.getMessage());
+            connect(addresses, index + 1, timeoutMillis, callback, e);
+        });
+    }
+
+    /**
+     * 关闭正在连接的通道，以失败回调 (已经回调过时忽略)
+     */
+    private void failConnect(SocketChannel channel, Exception e) {
+        NioConnectCallback callback = pendingConnects.remove(channel);
+        if (callback != null) {
+            closeQuietly(channel);
+            callback.onComplete(null, e);
+        }
+    }
+
+    @Override
+    public void run() {
+        log.debug("[NIO 事件循环 {}] - 已启动", name);
+
+        // 事件循环线程长期运行，启用缓冲区池的线程本地缓存
+        ByteBufferPool.enableThreadCache();
+
+        while (running) {
+            try {
+                // 有定时任务时，最多等待到最近一个定时任务的执行时间
+                ScheduledTask nextTask = scheduledTasks.peek();
+                if (nextTask == null) {
+                    selector.select();
+                } else {
+                    long timeoutMillis = TimeUnit.NANOSECONDS.toMillis(nextTask.deadline - System.nanoTime());
+                    if (timeoutMillis > 0) {
+                        selector.select(timeoutMillis);
+                    } else {
+                        selector.selectNow();
+                    }
+                }
+                wakenUp.set(false);
+
+                processSelectedKeys();
+                runAllTasks();
+                runScheduledTasks(false);
+            } catch (Exception e) {
+                log.error("[NIO 事件循环 " + name + "] - 处理事件异常", e);
+            }
+        }
+
+        // 之后提交的任务在提交任务的线程中直接执行；执行完已提交的任务 (包括未到期的定时任务)，
+        // 未完成的连接以失败回调，回调中提交的任务也一起执行，之后再关闭通道
+        terminated = true;
+        do {
+            runAllTasks();
+            runScheduledTasks(true);
+            for (SocketChannel channel : pendingConnects.keySet()) {
+                try {
+                    failConnect(channel, new IOException("事件循环已关闭"));
+                } catch (Exception e) {
+                    log.error("[NIO 事件循环 " + name + "] - 连接回调执行异常", e);
+                }
+            }
+        } while (!taskQueue.isEmpty() || !scheduledTasks.isEmpty() || !pendingConnects.isEmpty());
+
+        // 关闭所有注册的通道和 Selector
+        for (SelectionKey key : selector.keys()) {
+            closeQuietly(key.channel());
+        }
+        closeQuietly(selector);
+        ByteBufferPool.disableThreadCache();
+
+        log.debug("[NIO 事件循环 {}] - 已关闭", name);
+    }
+
+    /**
+     * 处理已就绪的通道事件
+     */
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+
+        while (iterator.hasNext()) {
+            SelectionKey key = iterator.next();
+            iterator.remove();
+
+            Object attachment = key.attachment();
+            if (!key.isValid() || !(attachment instanceof NioChannelHandler)) {
+                continue;
+            }
+
+            try {
+                ((NioChannelHandler) attachment).handle(key);
+            } catch (CancelledKeyException e) {
+                // 连接已被其他线程关闭，忽略
+            } catch (Exception e) {
+                log.error("[NIO 事件循环 " + name + "] - 通道事件处理异常", e);
+                closeQuietly(key.channel());
+            }
+        }
+    }
+
+    /**
+     * 执行任务队列中的所有任务
+     */
+    private void runAllTasks() {
+        Runnable task;
+
+        while ((task = taskQueue.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("[NIO 事件循环 " + name + "] - 任务执行异常", e);
+            }
+        }
+    }
+
+    /**
+     * 执行已到期的定时任务
+     *
+     * @param all 是否不论是否到期，执行所有定时任务 (事件循环退出时)
+     */
+    private void runScheduledTasks(boolean all) {
+        long now = System.nanoTime();
+        ScheduledTask task;
+
+        while ((task = scheduledTasks.peek()) != null && (all || task.deadline - now <= 0)) {
+            scheduledTasks.poll();
+
+            try {
+                task.task.run();
+            } catch (Exception e) {
+                log.error("[NIO 事件循环 " + name + "] - 定时任务执行异常", e);
+            }
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 定时任务
+     */
+    private static class ScheduledTask implements Comparable<ScheduledTask> {
+        /**
+         * 执行时间 (System.nanoTime)
+         */
+        private final long deadline;
+
+        private final long sequence;
+
+        private final Runnable task;
+
+        ScheduledTask(long deadline, long sequence, Runnable task) {
+            this.deadline = deadline;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(ScheduledTask o) {
+            long diff = deadline - o.deadline;
+            if (diff != 0) {
+                return diff < 0 ? -1 : 1;
+            }
+            return Long.compare(sequence, o.sequence);
+        }
+    }
+}
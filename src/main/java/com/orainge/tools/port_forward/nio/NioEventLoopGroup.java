@@ -0,0 +1,72 @@
+package com.orainge.tools.port_forward.nio;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * NIO 事件循环组<br>
+ * 持有固定数量的事件循环，新连接以轮询的方式分配到各个事件循环
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class NioEventLoopGroup {
+    /**
+     * 事件循环数组
+     */
+    private final NioEventLoop[] eventLoops;
+
+    /**
+     * 轮询分配的下标
+     */
+    private final AtomicInteger nextIndex = new AtomicInteger(0);
+
+    /**
+     * 创建并启动事件循环组
+     *
+     * @param threads    事件循环线程数
+     * @param namePrefix 事件循环线程名称前缀
+     */
+    public NioEventLoopGroup(int threads, String namePrefix) throws IOException {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("事件循环线程数必须大于 0");
+        }
+
+        this.eventLoops = new NioEventLoop[threads];
+
+        try {
+            for (int i = 0; i < threads; i++) {
+                eventLoops[i] = new NioEventLoop(namePrefix + "-" + i);
+            }
+        } catch (IOException e) {
+            shutdown();
+            throw e;
+        }
+
+        for (NioEventLoop eventLoop : eventLoops) {
+            eventLoop.start();
+        }
+    }
+
+    /**
+     * 获取下一个事件循环
+     */
+    public NioEventLoop next() {
+        return eventLoops[Math.abs(nextIndex.getAndIncrement() % eventLoops.length)];
+    }
+
+    /**
+     * 关闭所有事件循环
+     */
+    public void shutdown() {
+        for (NioEventLoop eventLoop : eventLoops) {
+            if (eventLoop != null) {
+                eventLoop.shutdown();
+            }
+        }
+    }
+
+    public int getThreads() {
+        return eventLoops.length;
+    }
+}
@@ -0,0 +1,354 @@
+package com.orainge.tools.port_forward.nio;
+
+import com.orainge.tools.port_forward.bean.PortForwardConnection;
+import com.orainge.tools.port_forward.buffer.AdaptiveBufferSizer;
+import com.orainge.tools.port_forward.buffer.ByteBufferPool;
+import com.orainge.tools.port_forward.consts.CloseReason;
+import com.orainge.tools.port_forward.consts.PortForwardType;
+import com.orainge.tools.port_forward.shaping.ConnectionShaper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NIO 转发器<br>
+ * 在事件循环线程内完成一个端口转发连接两个方向的数据转发，不占用额外线程<br>
+ * 当目标端写不完时，数据暂存在转发方向的待写出队列中；待写出的数据超过高水位时暂停读取来源端，写出到低于低水位时恢复读取<br>
+ * 来源端发送 FIN 后，待写出的数据全部写出再向目标端发送 FIN，另一个方向继续转发<br>
+ * 超出带宽限制时暂停读取来源端，由事件循环的定时任务在令牌恢复后恢复读取<br>
+ * 缓冲区只在读取和写出期间从缓冲区池借用，数据全部写出后立即归还，空闲连接不占用缓冲区
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class NioForwarder implements NioChannelHandler {
+    private static final Logger log = LoggerFactory.getLogger(NioForwarder.class);
+
+    /**
+     * 所属的事件循环
+     */
+    private final NioEventLoop eventLoop;
+
+    /**
+     * 转发的连接
+     */
+    private final PortForwardConnection connection;
+
+    /**
+     * 缓冲区池
+     */
+    private final ByteBufferPool bufferPool;
+
+    /**
+     * 连接的流量整形器
+     */
+    private final ConnectionShaper shaper;
+
+    /**
+     * 待写出数据的高水位 (字节)
+     */
+    private final int highWatermark;
+
+    /**
+     * 待写出数据的低水位 (字节)
+     */
+    private final int lowWatermark;
+
+    /**
+     * [客户端->代理] 的通道
+     */
+    private final SocketChannel clientChannel;
+
+    /**
+     * [代理->目标端口] 的通道
+     */
+    private final SocketChannel targetChannel;
+
+    /**
+     * [客户端->目标端口] 的转发方向
+     */
+    private final Direction clientToTarget;
+
+    /**
+     * [目标端口->客户端] 的转发方向
+     */
+    private final Direction targetToClient;
+
+    private SelectionKey clientKey;
+
+    private SelectionKey targetKey;
+
+    /**
+     * 创建 NIO 转发器
+     *
+     * @param eventLoop  所属的事件循环
+     * @param connection 转发的连接 (两个 Socket 都必须由 SocketChannel 创建)
+     * @param bufferPool 缓冲区池
+     */
+    public NioForwarder(NioEventLoop eventLoop, PortForwardConnection connection, ByteBufferPool bufferPool) {
+        this.eventLoop = eventLoop;
+        this.connection = connection;
+        this.bufferPool = bufferPool;
+        this.shaper = connection.getShaper();
+        this.highWatermark = connection.getServer().getHighWatermark();
+        this.lowWatermark = connection.getServer().getLowWatermark();
+        this.clientChannel = connection.getClientToListen().getChannel();
+        this.targetChannel = connection.getListenToTarget().getChannel();
+        this.clientToTarget = new Direction(PortForwardType.CLIENT_TO_TARGET, clientChannel, targetChannel);
+        this.targetToClient = new Direction(PortForwardType.TARGET_TO_CLIENT, targetChannel, clientChannel);
+    }
+
+    /**
+     * 注册两个通道开始转发 (须在事件循环线程内调用)
+     */
+    public void start() throws IOException {
+        clientKey = eventLoop.register(clientChannel, SelectionKey.OP_READ, this);
+        targetKey = eventLoop.register(targetChannel, SelectionKey.OP_READ, this);
+
+        // 连接关闭后，在事件循环线程内归还未写完的缓冲区
+        connection.addCloseHook(() -> eventLoop.execute(this::releaseBuffers));
+    }
+
+    /**
+     * 汇总两个转发方向累积的字节数，归还借用的缓冲区 (须在事件循环线程内调用)
+     */
+    private void releaseBuffers() {
+        connection.flushActivity(PortForwardType.CLIENT_TO_TARGET);
+        connection.flushActivity(PortForwardType.TARGET_TO_CLIENT);
+        clientToTarget.releaseBuffer();
+        clientToTarget.bufferSizer.close();
+        targetToClient.releaseBuffer();
+        targetToClient.bufferSizer.close();
+    }
+
+    @Override
+    public void handle(SelectionKey key) {
+        boolean isClient = key == clientKey;
+
+        try {
+            // 先写出积压的数据，再读取新的数据
+            if (key.isWritable()) {
+                (isClient ? targetToClient : clientToTarget).onWritable();
+            }
+
+            if (key.isValid() && key.isReadable()) {
+                (isClient ? clientToTarget : targetToClient).onReadable();
+            }
+        } catch (IOException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("[端口转发连接 {}] - NIO 转发连接异常关闭: {}", connection.getConnectionId(), e.getMessage());
+            }
+            connection.close();
+        } catch (CancelledKeyException e) {
+            // 连接已被其他线程关闭 (如停止服务)，忽略
+            connection.close();
+        } catch (Exception e) {
+            connection.getServer().onForwardError(connection, e);
+            connection.close(CloseReason.ERROR);
+        }
+    }
+
+    private SelectionKey keyOf(SocketChannel channel) {
+        return channel == clientChannel ? clientKey : targetKey;
+    }
+
+    private static void addInterest(SelectionKey key, int ops) {
+        if (key.isValid()) {
+            key.interestOps(key.interestOps() | ops);
+        }
+    }
+
+    private static void removeInterest(SelectionKey key, int ops) {
+        if (key.isValid()) {
+            key.interestOps(key.interestOps() & ~ops);
+        }
+    }
+
+    /**
+     * 单个转发方向: 从来源通道读取，写入到目标通道
+     */
+    private class Direction {
+        private final PortForwardType type;
+
+        private final SocketChannel source;
+
+        private final SocketChannel target;
+
+        /**
+         * 自适应缓冲区大小
+         */
+        private final AdaptiveBufferSizer bufferSizer;
+
+        /**
+         * 待写出的缓冲区 (读模式，flip 之后)，队首最先写出
+         */
+        private final Deque<ByteBuffer> pending = new ArrayDeque<>();
+
+        /**
+         * 待写出的字节数
+         */
+        private long pendingBytes = 0;
+
+        /**
+         * 是否因为超过高水位暂停读取来源端
+         */
+        private boolean paused = false;
+
+        /**
+         * 是否因为超出带宽限制暂停读取来源端
+         */
+        private boolean throttled = false;
+
+        /**
+         * 来源端是否已发送 FIN (待写出的数据写完后向目标端发送 FIN)
+         */
+        private boolean sourceFinished = false;
+
+        Direction(PortForwardType type, SocketChannel source, SocketChannel target) {
+            this.type = type;
+            this.source = source;
+            this.target = target;
+            this.bufferSizer = connection.getServer().newBufferSizer();
+        }
+
+        void onReadable() throws IOException {
+            ByteBuffer buffer = bufferPool.allocate(bufferSizer.size(), true);
+            buffer.limit(shaper.readLimit(buffer.capacity()));
+            int len;
+
+            try {
+                len = source.read(buffer);
+            } catch (IOException e) {
+                bufferPool.release(buffer);
+                throw e;
+            }
+
+            if (len <= 0) {
+                bufferPool.release(buffer);
+
+                if (len == -1) {
+                    // 来源端已发送 FIN，不再读取
+                    sourceFinished = true;
+                    removeInterest(keyOf(source), SelectionKey.OP_READ);
+                    if (pending.isEmpty()) {
+                        finish();
+                    }
+                }
+                return;
+            }
+
+            bufferSizer.record(len);
+            connection.recordActivity(type, len);
+            buffer.flip();
+
+            // 超出带宽限制，暂停读取来源端 (已读到的数据照常写出)
+            long delay = shaper.acquire(type, len);
+            if (delay > 0) {
+                throttle(delay);
+            }
+
+            // 没有积压的数据时直接写出
+            if (pending.isEmpty()) {
+                target.write(buffer);
+
+                if (!buffer.hasRemaining()) {
+                    bufferPool.release(buffer);
+                    return;
+                }
+
+                // 目标端写不完，等待目标端可写
+                addInterest(keyOf(target), SelectionKey.OP_WRITE);
+            }
+
+            pending.offerLast(buffer);
+            pendingBytes += buffer.remaining();
+
+            if (pendingBytes > highWatermark && !paused) {
+                // 超过高水位，暂停读取来源端
+                paused = true;
+                removeInterest(keyOf(source), SelectionKey.OP_READ);
+            }
+        }
+
+        void onWritable() throws IOException {
+            ByteBuffer buffer;
+            while ((buffer = pending.peekFirst()) != null) {
+                pendingBytes -= target.write(buffer);
+
+                if (buffer.hasRemaining()) {
+                    // 目标端的发送缓冲区已满，等待下一次可写
+                    break;
+                }
+
+                pending.pollFirst();
+                bufferPool.release(buffer);
+            }
+
+            if (paused && pendingBytes <= lowWatermark && !sourceFinished) {
+                // 低于低水位，恢复读取来源端
+                paused = false;
+                if (!throttled) {
+                    addInterest(keyOf(source), SelectionKey.OP_READ);
+                }
+            }
+
+            if (pending.isEmpty()) {
+                // 积压数据已写完
+                removeInterest(keyOf(target), SelectionKey.OP_WRITE);
+
+                if (sourceFinished) {
+                    finish();
+                }
+            }
+        }
+
+        /**
+         * 暂停读取来源端，等待时间过后由事件循环恢复读取
+         *
+         * @param delayNanos 等待时间 (纳秒)
+         */
+        private void throttle(long delayNanos) {
+            throttled = true;
+            removeInterest(keyOf(source), SelectionKey.OP_READ);
+
+            // 定时任务的精度为毫秒，向上取整
+            eventLoop.schedule(this::resume, (delayNanos + TimeUnit.MILLISECONDS.toNanos(1) - 1) / TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        /**
+         * 限速等待结束，没有因为水位暂停时恢复读取来源端
+         */
+        private void resume() {
+            throttled = false;
+            if (!paused && !sourceFinished && !connection.isClosed()) {
+                addInterest(keyOf(source), SelectionKey.OP_READ);
+            }
+        }
+
+        /**
+         * 来源端的数据已全部写出，把半关闭传递给目标端
+         */
+        private void finish() {
+            if (log.isDebugEnabled()) {
+                log.debug("[端口转发连接 {}] - [{}] 来源端已关闭", connection.getConnectionId(), type.getDescription());
+            }
+            connection.finishDirection(type);
+        }
+
+        void releaseBuffer() {
+            ByteBuffer buffer;
+            while ((buffer = pending.pollFirst()) != null) {
+                bufferPool.release(buffer);
+            }
+            pendingBytes = 0;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.orainge.tools.port_forward.server;
+
+import com.orainge.tools.port_forward.bean.PortForwardConnection;
+import com.orainge.tools.port_forward.consts.CloseReason;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 连接注册表<br>
+ * 以连接的数字 ID 为键保存已建立的连接，查找、添加和移除不需要加锁，可以在多个监听线程、转发线程和事件循环中同时调用<br>
+ * 遍历时不会阻塞添加和移除，得到的是弱一致的快照 (遍历期间添加或移除的连接不一定可见)
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class ConnectionRegistry {
+    /**
+     * 批量关闭时，连接数超过此值才分给多个线程并行关闭
+     */
+    private static final long PARALLEL_CLOSE_THRESHOLD = 1024;
+
+    /**
+     * 已建立的连接<br>
+     * {连接 ID: 端口转发连接}
+     */
+    private final ConcurrentHashMap<Long, PortForwardConnection> connections = new ConcurrentHashMap<>();
+
+    /**
+     * 添加连接
+     *
+     * @param connection 端口转发连接
+     */
+    public void register(PortForwardConnection connection) {
+        connections.put(connection.getId(), connection);
+    }
+
+    /**
+     * 移除指定 ID 的连接
+     *
+     * @param id 连接 ID
+     * @return 被移除的连接 (不存在时返回 null)
+     */
+    public PortForwardConnection remove(long id) {
+        return connections.remove(id);
+    }
+
+    /**
+     * 移除连接 (只有注册表中保存的是同一个连接对象时才移除)
+     *
+     * @param connection 端口转发连接
+     * @return 是否移除了连接
+     */
+    public boolean remove(PortForwardConnection connection) {
+        return connections.remove(connection.getId(), connection);
+    }
+
+    /**
+     * 获取指定 ID 的连接
+     *
+     * @param id 连接 ID
+     * @return 端口转发连接 (不存在时返回 null)
+     */
+    public PortForwardConnection get(long id) {
+        return connections.get(id);
+    }
+
+    /**
+     * 获取当前连接数
+     */
+    public int size() {
+        return connections.size();
+    }
+
+    /**
+     * 获取所有连接的快照
+     */
+    public List<PortForwardConnection> snapshot() {
+        return new ArrayList<>(connections.values());
+    }
+
+    /**
+     * 关闭并移除所有连接<br>
+     * 连接数较多时由公共线程池并行关闭，此时连接的关闭钩子和 Handler 会在其他线程中执行；方法在所有连接关闭后返回
+     *
+     * @param reason 关闭的原因
+     */
+    public void closeAll(CloseReason reason) {
+        connections.forEachValue(PARALLEL_CLOSE_THRESHOLD, connection -> connection.close(reason));
+
+        // 关闭连接时会自行移除，这里移除关闭过程中残留的连接
+        connections.clear();
+    }
+}
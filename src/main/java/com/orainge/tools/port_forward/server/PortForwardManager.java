@@ -0,0 +1,300 @@
+package com.orainge.tools.port_forward.server;
+
+import com.orainge.tools.port_forward.buffer.ByteBufferPool;
+import com.orainge.tools.port_forward.consts.PortForwardEngine;
+import com.orainge.tools.port_forward.nio.NioEventLoopGroup;
+import com.orainge.tools.port_forward.util.ThreadUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 端口转发管理器<br>
+ * 在同一个进程中运行多条转发规则 (每条规则对应一个 {@link PortForwardServer})，
+ * 所有规则共享 NIO 事件循环组、连接建立线程池和缓冲区池<br>
+ * 规则可以在运行时添加和移除，不影响其他规则；每条规则的 Handler 仍由对应的 PortForwardServer 提供
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class PortForwardManager {
+    private static final Logger log = LoggerFactory.getLogger(PortForwardManager.class);
+
+    /**
+     * 转发规则容器<br>
+     * {规则名称: 端口转发服务}
+     */
+    private final Map<String, PortForwardServer> rules = new ConcurrentHashMap<>();
+
+    /**
+     * 共享的 NIO 事件循环线程数，默认为 CPU 核数
+     */
+    private int ioThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 共享的连接建立线程池的最大线程数
+     */
+    private int acceptThreads = 64;
+
+    /**
+     * 共享的连接建立线程池的等待队列长度
+     */
+    private int acceptQueueSize = 1024;
+
+    /**
+     * 共享的缓冲区池
+     */
+    private ByteBufferPool bufferPool = ByteBufferPool.getDefault();
+
+    /**
+     * 是否使用虚拟线程执行连接建立和转发任务
+     */
+    private boolean virtualThreadEnabled = false;
+
+    /**
+     * 共享的 NIO 事件循环组 (第一条 NIO 规则添加时创建)
+     */
+    private NioEventLoopGroup eventLoopGroup = null;
+
+    /**
+     * 共享的连接建立线程池 (第一条非 NIO 规则添加时创建)
+     */
+    private ExecutorService acceptExecutor = null;
+
+    /**
+     * 管理器是否已关闭
+     */
+    private volatile boolean isShutdown = false;
+
+    /**
+     * 添加转发规则并启动监听
+     *
+     * @param name          规则名称 (唯一)
+     * @param listeningIp   监听的 IP 地址 (空代表任意地址 [0.0.0.0])
+     * @param listeningPort 本机监听的端口号
+     * @param targetIp      要转发的目标 IP 地址
+     * @param targetPort    要转发的目标端口号
+     * @param engine        转发引擎
+     * @return 规则对应的端口转发服务
+     */
+    public PortForwardServer addRule(String name, String listeningIp, Integer listeningPort,
+                                     String targetIp, Integer targetPort, PortForwardEngine engine) {
+        PortForwardServer server = new PortForwardServer(listeningIp, listeningPort, targetIp, targetPort);
+        server.setEngine(engine);
+        return addRule(name, server);
+    }
+
+    /**
+     * 添加转发规则并启动监听<br>
+     * 需要自定义 Handler 或其他设置时，传入未启动的 PortForwardServer (例如重写了 initConnectionHandler 的子类)，
+     * 管理器会为其设置共享的事件循环组、连接建立线程池和缓冲区池
+     *
+     * @param name   规则名称 (唯一)
+     * @param server 未启动的端口转发服务
+     * @return 规则对应的端口转发服务
+     */
+    public synchronized PortForwardServer addRule(String name, PortForwardServer server) {
+        if (isShutdown) {
+            throw new IllegalStateException("端口转发管理器已关闭");
+        }
+        if (name == null || "".equals(name)) {
+            throw new NullPointerException("规则名称不能为空");
+        }
+        if (server == null) {
+            throw new NullPointerException("端口转发服务不能为空");
+        }
+        if (server.isServerEnabled()) {
+            throw new IllegalArgumentException("端口转发服务已启动 [" + name + "]");
+        }
+        if (rules.containsKey(name)) {
+            throw new IllegalArgumentException("转发规则已存在 [" + name + "]");
+        }
+
+        // 设置共享的运行时
+        server.setBufferPool(bufferPool)
+                .setVirtualThreadEnabled(virtualThreadEnabled);
+
+        if (PortForwardEngine.NIO.equals(server.getEngine())) {
+            server.setEventLoopGroup(sharedEventLoopGroup());
+        } else {
+            server.setAcceptExecutor(sharedAcceptExecutor());
+        }
+
+        rules.put(name, server);
+        server.start();
+
+        log.info("[端口转发管理器] - 已添加转发规则 [{}] [{}:{} -> {}:{}]", name,
+                server.getListeningIp(), server.getListeningPort(), server.getTargetIp(), server.getTargetPort());
+        return server;
+    }
+
+    /**
+     * 移除转发规则，停止监听并关闭该规则的所有连接
+     *
+     * @param name 规则名称
+     * @return 被移除的端口转发服务 (规则不存在时返回 null)
+     */
+    public synchronized PortForwardServer removeRule(String name) {
+        PortForwardServer server = rules.remove(name);
+
+        if (server != null) {
+            // 移除后不再自动重启
+            server.setAlwaysRun(false);
+            server.stop();
+            log.info("[端口转发管理器] - 已移除转发规则 [{}]", name);
+        }
+
+        return server;
+    }
+
+    /**
+     * 获取转发规则对应的端口转发服务
+     *
+     * @param name 规则名称
+     * @return 端口转发服务 (规则不存在时返回 null)
+     */
+    public PortForwardServer getRule(String name) {
+        return rules.get(name);
+    }
+
+    /**
+     * 获取所有的转发规则 (只读)
+     */
+    public Map<String, PortForwardServer> getRules() {
+        return Collections.unmodifiableMap(rules);
+    }
+
+    /**
+     * 关闭管理器：移除所有的转发规则，关闭共享的事件循环组和连接建立线程池
+     */
+    public synchronized void shutdown() {
+        if (isShutdown) {
+            return;
+        }
+        isShutdown = true;
+
+        for (String name : rules.keySet()) {
+            removeRule(name);
+        }
+
+        if (eventLoopGroup != null) {
+            eventLoopGroup.shutdown();
+            eventLoopGroup = null;
+        }
+
+        if (acceptExecutor != null) {
+            acceptExecutor.shutdown();
+            acceptExecutor = null;
+        }
+
+        log.info("[端口转发管理器] - 已关闭");
+    }
+
+    /**
+     * 获取共享的 NIO 事件循环组 (不存在时创建)
+     */
+    private NioEventLoopGroup sharedEventLoopGroup() {
+        if (eventLoopGroup == null) {
+            try {
+                eventLoopGroup = new NioEventLoopGroup(ioThreads, "port-forward-nio");
+            } catch (IOException e) {
+                throw new IllegalStateException("创建 NIO 事件循环失败", e);
+            }
+        }
+        return eventLoopGroup;
+    }
+
+    /**
+     * 获取共享的连接建立线程池 (不存在时创建)
+     */
+    private ExecutorService sharedAcceptExecutor() {
+        if (acceptExecutor == null) {
+            AtomicInteger threadIndex = new AtomicInteger(0);
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    acceptThreads, acceptThreads,
+                    60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(acceptQueueSize),
+                    task -> ThreadUtil.newThread(task, "port-forward-accept-" + threadIndex.getAndIncrement(), virtualThreadEnabled)
+            );
+            executor.allowCoreThreadTimeOut(true);
+            acceptExecutor = executor;
+        }
+        return acceptExecutor;
+    }
+
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    public ByteBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    public boolean isVirtualThreadEnabled() {
+        return virtualThreadEnabled;
+    }
+
+    public boolean isShutdown() {
+        return isShutdown;
+    }
+
+    /**
+     * 设置共享的 NIO 事件循环线程数 (需要在添加规则前设置)
+     *
+     * @param ioThreads 事件循环线程数
+     */
+    public PortForwardManager setIoThreads(int ioThreads) {
+        if (ioThreads <= 0) {
+            throw new IllegalArgumentException("事件循环线程数必须大于 0");
+        }
+        this.ioThreads = ioThreads;
+        return this;
+    }
+
+    /**
+     * 设置共享的连接建立线程池的大小 (需要在添加规则前设置)
+     *
+     * @param acceptThreads   最大线程数
+     * @param acceptQueueSize 等待队列长度
+     */
+    public PortForwardManager setAcceptThreads(int acceptThreads, int acceptQueueSize) {
+        if (acceptThreads <= 0 || acceptQueueSize <= 0) {
+            throw new IllegalArgumentException("连接建立线程数和等待队列长度必须大于 0");
+        }
+        this.acceptThreads = acceptThreads;
+        this.acceptQueueSize = acceptQueueSize;
+        return this;
+    }
+
+    /**
+     * 设置共享的缓冲区池 (需要在添加规则前设置)
+     *
+     * @param bufferPool 缓冲区池
+     */
+    public PortForwardManager setBufferPool(ByteBufferPool bufferPool) {
+        if (bufferPool == null) {
+            throw new NullPointerException("缓冲区池不能为空");
+        }
+        this.bufferPool = bufferPool;
+        return this;
+    }
+
+    /**
+     * 设置是否使用虚拟线程执行连接建立和转发任务 (需要在添加规则前设置)
+     *
+     * @param virtualThreadEnabled 是否使用虚拟线程
+     */
+    public PortForwardManager setVirtualThreadEnabled(boolean virtualThreadEnabled) {
+        this.virtualThreadEnabled = virtualThreadEnabled;
+        return this;
+    }
+}
@@ -1,17 +1,65 @@
 package com.orainge.tools.port_forward.server;
 
+import com.orainge.tools.port_forward.acl.AccessRules;
+import com.orainge.tools.port_forward.acl.ClientLimiter;
 import com.orainge.tools.port_forward.bean.PortForwardConnection;
+import com.orainge.tools.port_forward.buffer.AdaptiveBufferSizer;
+import com.orainge.tools.port_forward.buffer.BufferSizeDistribution;
+import com.orainge.tools.port_forward.buffer.ByteBufferPool;
+import com.orainge.tools.port_forward.consts.ClientLimitReason;
+import com.orainge.tools.port_forward.consts.CloseReason;
+import com.orainge.tools.port_forward.consts.ConnectionPhase;
+import com.orainge.tools.port_forward.consts.HandlerOverflowPolicy;
+import com.orainge.tools.port_forward.consts.LoadBalanceStrategy;
+import com.orainge.tools.port_forward.consts.OverflowPolicy;
+import com.orainge.tools.port_forward.consts.PortForwardEngine;
+import com.orainge.tools.port_forward.dns.DnsCache;
+import com.orainge.tools.port_forward.consts.ShapingScope;
 import com.orainge.tools.port_forward.handler.ConnectionHandler;
+import com.orainge.tools.port_forward.handler.HandlerDispatcher;
 import com.orainge.tools.port_forward.handler.ServerHandler;
+import com.orainge.tools.port_forward.metrics.HeavyHitterTracker;
+import com.orainge.tools.port_forward.metrics.RuleMetrics;
+import com.orainge.tools.port_forward.nio.NioConnectCallback;
+import com.orainge.tools.port_forward.nio.NioEventLoop;
+import com.orainge.tools.port_forward.nio.NioEventLoopGroup;
+import com.orainge.tools.port_forward.nio.NioForwarder;
+import com.orainge.tools.port_forward.shaping.BandwidthLimit;
+import com.orainge.tools.port_forward.shaping.TrafficShaper;
+import com.orainge.tools.port_forward.timer.HashedWheelTimer;
+import com.orainge.tools.port_forward.upstream.UpstreamConnectionPool;
+import com.orainge.tools.port_forward.upstream.UpstreamGroup;
+import com.orainge.tools.port_forward.upstream.UpstreamTarget;
+import com.orainge.tools.port_forward.util.SocketUtil;
+import com.orainge.tools.port_forward.util.ThreadUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.net.BindException;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.HashMap;
+import java.nio.channels.ServerSocketChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * 端口转发服务端
@@ -22,6 +70,21 @@ import java.util.Map;
 public class PortForwardServer {
     private static final Logger log = LoggerFactory.getLogger(PortForwardServer.class);
 
+    /**
+     * 接收连接失败 (如文件描述符耗尽) 后，重新接收前的等待时间 (毫秒)
+     */
+    private static final long ACCEPT_ERROR_BACKOFF_MILLIS = 100;
+
+    /**
+     * 连接建立线程池已满时，监听线程每次等待线程池空位的最长时间 (毫秒)
+     */
+    private static final long SETUP_WAIT_MILLIS = 10;
+
+    /**
+     * 停止服务后等待异步执行的 Handler 事件执行完成的最长时间 (毫秒)
+     */
+    private static final long HANDLER_FLUSH_TIMEOUT_MILLIS = 5000;
+
     /**
      * 监听的 IP 地址 (空代表任意地址 [0.0.0.0])
      */
@@ -42,6 +105,56 @@ public class PortForwardServer {
      */
     private final int targetPort;
 
+    /**
+     * 要转发的所有目标端口 (第一个为构造函数指定的目标端口)
+     */
+    private final List<UpstreamTarget> targets = new ArrayList<>();
+
+    /**
+     * 多个目标端口的负载均衡策略
+     */
+    private LoadBalanceStrategy loadBalanceStrategy = LoadBalanceStrategy.ROUND_ROBIN;
+
+    /**
+     * 目标端口健康检查间隔 (毫秒，小于等于 0 代表不进行健康检查)
+     */
+    private long healthCheckIntervalMillis = 5000;
+
+    /**
+     * 目标端口连续失败多少次后暂时摘除
+     */
+    private int failureThreshold = 3;
+
+    /**
+     * 目标端口的摘除时长 (毫秒)
+     */
+    private long ejectMillis = 30000;
+
+    /**
+     * 目标端口组
+     */
+    private volatile UpstreamGroup upstreamGroup = null;
+
+    /**
+     * 连接目标端口的超时时间 (毫秒，小于等于 0 代表使用系统默认的超时时间)
+     */
+    private int connectTimeoutMillis = 5000;
+
+    /**
+     * 所有目标端口都连接失败后的重试次数
+     */
+    private int connectRetries = 0;
+
+    /**
+     * 首次重试前的等待时间 (毫秒)，之后每次重试翻倍
+     */
+    private long connectRetryBackoffMillis = 200;
+
+    /**
+     * 重试等待时间的上限 (毫秒)
+     */
+    private long maxConnectRetryBackoffMillis = 5000;
+
     /**
      * 端口转发连接的 Handler<br>
      * 默认为 null，如果需要 Handler，重写构造函数即可
@@ -54,22 +167,241 @@ public class PortForwardServer {
      */
     private final ServerHandler serverHandler = initServerHandler();
 
+    /**
+     * Handler 事件分发器 (默认同步执行 Handler)
+     */
+    private HandlerDispatcher handlerDispatcher = new HandlerDispatcher(this, connectionHandler, serverHandler);
+
     /**
      * 是否保持监听服务一直启动<br>
      * 即监听服务抛出异常后能自动重启
      */
     private boolean alwaysRun = false;
 
+    /**
+     * 转发引擎，默认为阻塞 IO 引擎
+     */
+    private PortForwardEngine engine = PortForwardEngine.BLOCKING;
+
+    /**
+     * NIO 引擎的事件循环线程数，默认为 CPU 核数
+     */
+    private int ioThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 每个转发方向的初始缓冲区大小
+     */
+    private int bufferSize = 16 * 1024;
+
+    /**
+     * 每个转发方向的最小缓冲区大小 (根据读取的数据量在最小值和最大值之间自适应调整)
+     */
+    private int minBufferSize = 1024;
+
+    /**
+     * 每个转发方向的最大缓冲区大小
+     */
+    private int maxBufferSize = 64 * 1024;
+
+    /**
+     * 每个转发方向待写出数据的高水位 (字节)<br>
+     * NIO 引擎下目标端待写出的数据超过高水位时暂停读取来源端，低于低水位时恢复读取
+     */
+    private int highWatermark = 256 * 1024;
+
+    /**
+     * 每个转发方向待写出数据的低水位 (字节)
+     */
+    private int lowWatermark = 64 * 1024;
+
+    /**
+     * [客户端->目标端口] 方向的空闲超时时间 (毫秒，小于等于 0 代表不检查)<br>
+     * 该方向超过此时间没有读到客户端的数据时关闭连接
+     */
+    private long clientToTargetIdleMillis = 0;
+
+    /**
+     * [目标端口->客户端] 方向的空闲超时时间 (毫秒，小于等于 0 代表不检查)
+     */
+    private long targetToClientIdleMillis = 0;
+
+    /**
+     * 连接的最长存活时间 (毫秒，小于等于 0 代表不限制)
+     */
+    private long maxLifetimeMillis = 0;
+
+    /**
+     * 空闲超时和最长存活时间使用的定时器
+     */
+    private HashedWheelTimer timer = HashedWheelTimer.getDefault();
+
+    /**
+     * 解析目标主机名的 DNS 缓存
+     */
+    private DnsCache dnsCache = DnsCache.getDefault();
+
+    /**
+     * 转发规则的指标
+     */
+    private final RuleMetrics metrics = new RuleMetrics(this);
+
+    /**
+     * 热点客户端和目标端口的统计 (null 代表不统计)
+     */
+    private HeavyHitterTracker heavyHitters = new HeavyHitterTracker(HeavyHitterTracker.DEFAULT_CAPACITY, HeavyHitterTracker.DEFAULT_WINDOW_MILLIS);
+
+    /**
+     * 是否统计转发的字节数 (关闭后转发时不更新字节数，连接数、连接耗时和异常次数仍然统计)
+     */
+    private boolean trafficMetricsEnabled = true;
+
+    /**
+     * 是否将指标注册为 MBean
+     */
+    private boolean jmxEnabled = true;
+
+    /**
+     * 流量整形器 (单个连接、单个客户端 IP 和整个转发服务的带宽限制)
+     */
+    private final TrafficShaper trafficShaper = new TrafficShaper();
+
+    /**
+     * 各个转发方向当前的缓冲区大小分布
+     */
+    private final BufferSizeDistribution bufferSizeDistribution = new BufferSizeDistribution();
+
+    /**
+     * 转发使用的缓冲区池
+     */
+    private ByteBufferPool bufferPool = ByteBufferPool.getDefault();
+
+    /**
+     * 是否使用虚拟线程执行连接建立和转发任务 (需要 JDK 21 及以上版本，否则使用平台线程)
+     */
+    private boolean virtualThreadEnabled = false;
+
+    /**
+     * 监听队列长度 (backlog)，即系统中已完成握手、等待 accept 的连接数上限
+     */
+    private int backlog = 50;
+
+    /**
+     * 监听线程数<br>
+     * 大于 1 时通过 SO_REUSEPORT 在同一端口上绑定多个监听 Socket，由系统内核把新连接分配到各个监听线程
+     */
+    private int acceptors = 1;
+
+    /**
+     * 最大并发连接数 (小于等于 0 代表不限制)
+     */
+    private int maxConnections = 0;
+
+    /**
+     * 连接数达到上限时的处理策略
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.QUEUE;
+
+    /**
+     * 默认连接建立线程池的最大线程数
+     */
+    private int acceptThreads = 64;
+
+    /**
+     * 默认连接建立线程池的等待队列长度
+     */
+    private int acceptQueueSize = 1024;
+
+    /**
+     * 自定义的连接建立线程池 (由调用方负责关闭)
+     */
+    private ExecutorService customAcceptExecutor = null;
+
+    /**
+     * 连接建立线程池 (阻塞 IO 引擎和通道直连引擎使用)
+     */
+    private volatile ExecutorService acceptExecutor = null;
+
+    /**
+     * 当前的连接数 (包括正在建立的连接)
+     */
+    private final AtomicInteger activeConnections = new AtomicInteger(0);
+
+    /**
+     * 累计拒绝的连接数
+     */
+    private final AtomicLong rejectedCount = new AtomicLong(0);
+
+    /**
+     * 客户端访问规则 (null 代表不限制)<br>
+     * 监听线程每次接收连接时读取，修改时整体替换，不需要暂停接收连接
+     */
+    private volatile AccessRules accessRules = null;
+
+    /**
+     * 累计因访问规则拒绝的连接数
+     */
+    private final AtomicLong deniedCount = new AtomicLong(0);
+
+    /**
+     * 单个客户端 IP 的并发连接数和建连速率限制 (null 代表不限制)
+     */
+    private volatile ClientLimiter clientLimiter = null;
+
+    /**
+     * 已占用客户端 IP 连接名额的连接 {客户端的 Socket: 占用名额的限制器}<br>
+     * 只释放确实占用了名额的连接 (运行期间才开启限制时，之前接收的连接没有占用名额)
+     */
+    private final Map<Socket, ClientLimiter> clientSlots = new ConcurrentHashMap<>();
+
+    /**
+     * 连接数达到上限时，排队等待连接释放的监听线程
+     */
+    private final Queue<Thread> permitWaiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 连接建立线程池已满时，排队等待线程池空位的监听线程
+     */
+    private final Queue<Thread> setupWaiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 目标端口预连接的最小空闲连接数 (小于等于 0 代表不使用预连接)
+     */
+    private int upstreamMinIdle = 0;
+
+    /**
+     * 目标端口预连接的最大空闲连接数
+     */
+    private int upstreamMaxIdle = 0;
+
+    /**
+     * 目标端口预连接的最长空闲时间 (毫秒)
+     */
+    private long upstreamMaxIdleMillis = 0;
+
+    /**
+     * 自定义的 NIO 事件循环组 (由调用方负责关闭)
+     */
+    private NioEventLoopGroup customEventLoopGroup = null;
+
+    /**
+     * NIO 引擎的事件循环组
+     */
+    private volatile NioEventLoopGroup eventLoopGroup = null;
+
     /**
      * 服务器监听的线程
      */
     private volatile Thread serverThread = null;
 
     /**
-     * 转发连接对象容器<br>
-     * {connectionId: 转发连接对象}
+     * 监听的 ServerSocket (关闭服务时关闭，以便立即释放监听端口)
+     */
+    private final List<ServerSocket> listeningServerSockets = new CopyOnWriteArrayList<>();
+
+    /**
+     * 已建立连接的注册表
      */
-    private volatile Map<String, PortForwardConnection> connContainer = null;
+    private final ConnectionRegistry connections = new ConnectionRegistry();
 
     /**
      * 服务器是否启用
@@ -114,6 +446,8 @@ public class PortForwardServer {
         } else {
             this.targetPort = targetPort;
         }
+
+        this.targets.add(new UpstreamTarget(this.targetIp, this.targetPort));
     }
 
     /**
@@ -126,18 +460,76 @@ public class PortForwardServer {
             // 标识该服务器已经开启
             isServerEnabled = true;
 
-            // 初始化转发连接对象容器
-            connContainer = new HashMap<>();
+            // 初始化 NIO 引擎的事件循环组
+            if (PortForwardEngine.NIO.equals(engine)) {
+                try {
+                    eventLoopGroup = customEventLoopGroup != null
+                            ? customEventLoopGroup
+                            : new NioEventLoopGroup(ioThreads, "port-forward-nio-" + listeningPort);
+                } catch (IOException e) {
+                    log.error("[端口转发服务] - 创建 NIO 事件循环失败", e);
+                    isServerEnabled = false;
+
+                    // 执行 Handler 的方法
+                    if (serverHandler != null) {
+                        serverHandler.onError(this, e);
+                    }
+                    return;
+                }
+            } else {
+                // 初始化连接建立线程池
+                acceptExecutor = customAcceptExecutor != null ? customAcceptExecutor : createAcceptExecutor();
+            }
+
+            // 目标为主机名时，提前在后台解析
+            for (UpstreamTarget target : targets) {
+                target.setDnsCache(dnsCache);
+                target.prefetch();
+            }
+
+            // 初始化目标端口组和健康检查
+            upstreamGroup = new UpstreamGroup(targets, loadBalanceStrategy,
+                    healthCheckIntervalMillis, failureThreshold, ejectMillis, "port-forward-health-" + listeningPort);
+            upstreamGroup.start();
+
+            // 注册指标的 MBean
+            if (jmxEnabled) {
+                metrics.registerMBeans();
+            }
+
+            // 初始化每个目标端口的预连接池
+            if (upstreamMinIdle > 0) {
+                for (int i = 0; i < targets.size(); i++) {
+                    UpstreamTarget target = targets.get(i);
+                    UpstreamConnectionPool pool = new UpstreamConnectionPool(target, engine.isChannelBased(),
+                            upstreamMinIdle, upstreamMaxIdle, upstreamMaxIdleMillis, "port-forward-upstream-" + listeningPort + "-" + i);
+                    target.setConnectionPool(pool);
+                    pool.start();
+                }
+            }
 
             // 创建线程对象
             serverThread = new Thread(() -> {
                 Exception serverException = null;
 
                 try (
-                        ServerSocket listeningServerSocket = new ServerSocket(); // 启动端口监听
+                        ServerSocket listeningServerSocket = openServerSocket(); // 启动端口监听
                 ) {
+                    listeningServerSockets.add(listeningServerSocket);
+
+                    // 多个监听线程需要开启 SO_REUSEPORT
+                    int acceptorCount = resolveAcceptorCount();
+                    if (acceptorCount > 1) {
+                        SocketUtil.setReusePort(listeningServerSocket);
+                    }
+
                     // 绑定监听的 IP 和端口
-                    listeningServerSocket.bind(new InetSocketAddress(listeningIp, listeningPort));
+                    listeningServerSocket.bind(new InetSocketAddress(listeningIp, listeningPort), backlog);
+
+                    // 启动其他的监听线程
+                    for (int i = 1; i < acceptorCount; i++) {
+                        startAcceptor(i);
+                    }
 
                     // 执行 Handler 的方法
                     if (serverHandler != null) {
@@ -145,75 +537,42 @@ public class PortForwardServer {
                     }
 
                     // 输出日志
-                    log.info("[端口转发服务] - 已启动 [{}:{}]", listeningIp, listeningPort);
-
-                    while (isServerEnabled) {
-                        // 阻塞，等待客户端的连接
-                        // 客户端连接的 Socket 连接对象
-                        Socket sourceSocket = listeningServerSocket.accept();
-
-                        // 服务器已关闭，关闭连接
-                        if (!isServerEnabled) {
-                            // 关闭当前客户端的连接和服务端的监听
-                            sourceSocket.close();
-                            listeningServerSocket.close();
-
-                            // 退出循环
-                            break;
-                        }
+                    log.info("[端口转发服务] - 已启动 [{}:{}] [监听线程数: {}]", listeningIp, listeningPort, acceptorCount);
 
-                        // 创建多线程处理连接
-                        new Thread(() -> {
-                            PortForwardConnection connection = null;
-
-                            try {
-                                // 创建端口转发的连接
-                                connection = new PortForwardConnection(server, sourceSocket);
-
-                                // 保存创建的连接
-                                connContainer.put(connection.getConnectionId(), connection);
-
-                                // 指定 Handler 的方法
-                                if (connectionHandler != null) {
-                                    connectionHandler.afterConnected(connection);
-                                }
-
-                                // 输出日志
-                                log.debug("[端口转发服务] - 连接成功 [{}]", connection);
-                            } catch (Exception e) {
-                                // 输出日志
-                                log.error("[端口转发服务] - 连接失败", e);
-
-                                // 执行 Handler 的方法
-                                if (connectionHandler != null) {
-                                    connectionHandler.onError(connection, e);
-                                }
-                            }
-                        }).start();
-                    }
+                    // 当前线程作为第一个监听线程
+                    acceptLoop(listeningServerSocket);
 
                     log.info("[端口转发服务] - 已关闭转发服务");
                 } catch (Exception e) {
-                    log.error("[端口转发服务] - 创建监听服务失败", e);
+                    if (isServerEnabled) {
+                        log.error("[端口转发服务] - 创建监听服务失败", e);
 
-                    // 服务启动失败，更新状态值
-                    synchronized (server) {
-                        isServerEnabled = false;
-                    }
+                        // 服务启动失败，更新状态值
+                        synchronized (server) {
+                            isServerEnabled = false;
+                        }
 
-                    // 执行 Handler 的方法
-                    if (serverHandler != null) {
-                        serverHandler.onError(server, e);
-                    }
+                        // 执行 Handler 的方法
+                        if (serverHandler != null) {
+                            serverHandler.onError(server, e);
+                        }
 
-                    serverException = e;
+                        serverException = e;
+                    } else {
+                        // 手动关闭服务时关闭了 ServerSocket，正常退出
+                        log.info("[端口转发服务] - 已关闭转发服务");
+                    }
                 }
 
+                // 手动关闭服务时已经重置了线程对象
+                boolean isStoppedManually = serverThread != Thread.currentThread();
+
                 // 关闭服务器
                 stop();
 
-                // 执行 Handler 的方法
+                // 执行 Handler 的方法 (等待异步执行的连接事件执行完成)
                 if (serverHandler != null) {
+                    handlerDispatcher.flush(HANDLER_FLUSH_TIMEOUT_MILLIS);
                     serverHandler.afterStop(server);
                 }
 
@@ -225,7 +584,7 @@ public class PortForwardServer {
                     }
 
                     // 如果是手动退出的，就不自启动
-                    if (serverThread == null && serverException != null) {
+                    if (isStoppedManually) {
                         return;
                     }
 
@@ -240,102 +599,1017 @@ public class PortForwardServer {
     }
 
     /**
-     * 关闭端口转发服务
+     * 获取实际的监听线程数 (当前 JDK 或平台不支持 SO_REUSEPORT 时只使用一个监听线程)
      */
-    public synchronized void stop() {
-        if (isServerEnabled) {
-            // 关闭所有已建立的连接（此方法已修改服务器状态）
-            closeAllConnection();
-
-            // 重置线程对象
-            serverThread = null;
+    private int resolveAcceptorCount() {
+        if (acceptors > 1 && !SocketUtil.isReusePortSupported()) {
+            log.warn("[端口转发服务] - 当前 JDK 或平台不支持 SO_REUSEPORT，使用单个监听线程");
+            return 1;
         }
+        return Math.max(acceptors, 1);
     }
 
     /**
-     * 关闭指定连接 ID 的连接
+     * 在同一端口上绑定新的监听 Socket (SO_REUSEPORT)，并启动监听线程
      *
-     * @param id 连接 ID
+     * @param index 监听线程序号
      */
-    public synchronized void closeConnection(String id) {
-        if (isServerEnabled && connContainer != null) {
-            // 移除连接
-            PortForwardConnection connection = connContainer.remove(id);
+    private void startAcceptor(int index) throws IOException {
+        ServerSocket serverSocket = openServerSocket();
 
-            if (connection != null) {
-                // 关闭连接
-                connection.close();
-            }
+        try {
+            SocketUtil.setReusePort(serverSocket);
+            serverSocket.bind(new InetSocketAddress(listeningIp, listeningPort), backlog);
+        } catch (IOException e) {
+            closeQuietly(serverSocket);
+            throw e;
         }
+        listeningServerSockets.add(serverSocket);
+
+        new Thread(() -> {
+            try {
+                acceptLoop(serverSocket);
+            } catch (Exception e) {
+                if (isServerEnabled) {
+                    log.error("[端口转发服务] - 监听线程异常退出 [" + index + "]", e);
+                }
+            } finally {
+                closeQuietly(serverSocket);
+                listeningServerSockets.remove(serverSocket);
+            }
+        }, "port-forward-acceptor-" + listeningPort + "-" + index).start();
     }
 
     /**
-     * 移除开指定连接 ID 的连接
+     * 循环接收客户端的连接，直到服务关闭
      *
-     * @param id 连接 ID
+     * @param serverSocket 监听的 ServerSocket
      */
-    public synchronized void removeConnection(String id) {
-        if (isServerEnabled && connContainer != null) {
-            PortForwardConnection connection = connContainer.remove(id);
-            log.debug("[端口转发服务] - 连接已移除 [{}]", connection);
-        }
-    }
+    private void acceptLoop(ServerSocket serverSocket) throws IOException {
+        while (isServerEnabled) {
+            // 阻塞，等待客户端的连接
+            // 客户端连接的 Socket 连接对象
+            Socket sourceSocket;
+            try {
+                sourceSocket = serverSocket.accept();
+            } catch (IOException e) {
+                // 服务关闭时关闭了 ServerSocket，正常退出
+                if (!isServerEnabled || serverSocket.isClosed()) {
+                    throw e;
+                }
 
-    /**
-     * 关闭所有已建立的连接
-     */
-    public synchronized void closeAllConnection() {
-        if (isServerEnabled) {
-            for (PortForwardConnection conn : connContainer.values()) {
-                conn.close();
+                // 文件描述符耗尽等暂时性的错误，等待连接释放后继续接收，不关闭整个服务
+                log.warn("[端口转发服务] - 接收连接失败，{} 毫秒后重试: {}", ACCEPT_ERROR_BACKOFF_MILLIS, e.getMessage());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(ACCEPT_ERROR_BACKOFF_MILLIS));
+                continue;
             }
 
-            // 移除所有的元素
-            connContainer = new HashMap<>();
+            // 服务器已关闭，关闭连接并退出循环
+            if (!isServerEnabled) {
+                sourceSocket.close();
+                break;
+            }
 
-            // 修改服务器状态
-            isServerEnabled = false;
+            // 处理客户端的连接
+            metrics.recordAccepted();
+            if (heavyHitters != null) {
+                heavyHitters.recordClientConnection(sourceSocket.getInetAddress().getHostAddress());
+            }
+
+            // 访问规则：在连接目标端口之前拒绝不允许的客户端
+            AccessRules rules = accessRules;
+            if (rules != null && !rules.isAllowed(sourceSocket.getInetAddress())) {
+                denyConnection(sourceSocket);
+                continue;
+            }
+            handleAccept(sourceSocket);
         }
     }
 
     /**
-     * 初始化端口转发 Handler 实例类<br>
-     * 通过重写实现自定义的 Handler
+     * 创建监听的 ServerSocket<br>
+     * NIO 引擎和通道直连引擎需要由 ServerSocketChannel 创建，以便接收到的连接可以使用 SocketChannel 转发
      */
-    protected ConnectionHandler initConnectionHandler() {
-        return null;
+    protected ServerSocket openServerSocket() throws IOException {
+        if (engine.isChannelBased()) {
+            return ServerSocketChannel.open().socket();
+        }
+
+        return new ServerSocket();
     }
 
     /**
-     * 初始化端口转发服务的 Handler 实例类<br>
-     * 通过重写实现自定义的 Handler
+     * 创建默认的连接建立线程池<br>
+     * 线程数和等待队列都有上限，避免连接风暴时无限制地创建线程
      */
-    protected ServerHandler initServerHandler() {
-        return null;
+    protected ExecutorService createAcceptExecutor() {
+        AtomicInteger threadIndex = new AtomicInteger(0);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                acceptThreads, acceptThreads,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(acceptQueueSize),
+                task -> newThread(task, "port-forward-accept-" + listeningPort + "-" + threadIndex.getAndIncrement())
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
-    public String getListeningIp() {
-        return listeningIp;
-    }
+    /**
+     * 处理客户端的连接<br>
+     * 阻塞 IO 引擎和通道直连引擎在连接建立线程池中建立转发；NIO 引擎交由事件循环异步连接目标端口
+     *
+     * @param sourceSocket 客户端连接的 Socket 连接对象
+     */
+    private void handleAccept(Socket sourceSocket) {
+        PortForwardServer server = this;
 
-    public int getListeningPort() {
-        return listeningPort;
-    }
+        // 单个客户端 IP 的并发连接数和建连速率限制
+        ClientLimiter limiter = clientLimiter;
+        if (limiter != null) {
+            ClientLimitReason reason = limiter.tryAcquire(sourceSocket.getInetAddress());
+            if (reason != null) {
+                limitConnection(sourceSocket, reason, limiter);
+                return;
+            }
+            clientSlots.put(sourceSocket, limiter);
+        }
 
-    public String getTargetIp() {
-        return targetIp;
-    }
+        // 准入控制：连接数达到上限时按照处理策略排队或拒绝
+        if (!acquireConnection()) {
+            releaseClient(sourceSocket);
+            if (isServerEnabled) {
+                rejectConnection(sourceSocket);
+            } else {
+                // 排队期间服务已关闭
+                closeQuietly(sourceSocket);
+            }
+            return;
+        }
+
+        if (PortForwardEngine.NIO.equals(engine)) {
+            connectNio(eventLoopGroup.next(), sourceSocket, new ArrayList<>(), 0, null);
+            return;
+        }
+
+        // 在连接建立线程池中处理连接
+        Runnable task = () -> {
+            // 连接目标端口
+            UpstreamTarget[] connected = new UpstreamTarget[1];
+            Socket targetSocket;
+
+            try {
+                targetSocket = connectUpstream(sourceSocket, connected);
+            } catch (Exception e) {
+                // 所有目标端口都连接失败，关闭客户端的连接
+                closeQuietly(sourceSocket);
+                onConnectError(null, sourceSocket, e, ConnectionPhase.CONNECT);
+                return;
+            }
+
+            PortForwardConnection connection = null;
+
+            try {
+                // 创建端口转发的连接
+                connection = new PortForwardConnection(server, sourceSocket, targetSocket, connected[0]);
+                if (onConnected(connection, acceptExecutorOrCaller())) {
+                    connection.startForwardThreads();
+                }
+            } catch (Exception e) {
+                closeQuietly(sourceSocket);
+                closeQuietly(targetSocket);
+                onConnectError(connection, sourceSocket, e, ConnectionPhase.SETUP);
+            }
+        };
+
+        if (!submitSetup(task)) {
+            releaseConnection(sourceSocket);
+            rejectConnection(sourceSocket);
+        }
+    }
+
+    /**
+     * 把建立连接的任务提交到连接建立线程池<br>
+     * 线程池已满时，QUEUE 策略会阻塞监听线程直到有任务执行完成 (暂停接收新连接，由系统的监听队列缓冲)，
+     * 不在监听线程中连接目标端口；其他策略直接返回 false
+     *
+     * @param task 建立连接的任务
+     * @return true: 提交成功 false: 线程池已满或服务已关闭
+     */
+    private boolean submitSetup(Runnable task) {
+        Runnable setupTask = () -> {
+            try {
+                task.run();
+            } finally {
+                // 唤醒一个等待线程池空位的监听线程
+                Thread waiter = setupWaiters.peek();
+                if (waiter != null) {
+                    LockSupport.unpark(waiter);
+                }
+            }
+        };
+
+        Thread currentThread = Thread.currentThread();
+        while (true) {
+            ExecutorService executor = acceptExecutor;
+            if (executor == null || !isServerEnabled) {
+                return false;
+            }
+
+            try {
+                executor.execute(setupTask);
+                return true;
+            } catch (RejectedExecutionException e) {
+                if (!OverflowPolicy.QUEUE.equals(overflowPolicy) || !isServerEnabled) {
+                    return false;
+                }
+            }
+
+            // 线程池已满，等待有任务执行完成后重试 (超时后也重试，防止错过唤醒)
+            setupWaiters.offer(currentThread);
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(SETUP_WAIT_MILLIS));
+            setupWaiters.remove(currentThread);
+        }
+    }
+
+    /**
+     * 按照负载均衡策略连接目标端口 (阻塞 IO 引擎和通道直连引擎)<br>
+     * 连接目标端口失败时，继续尝试其他未尝试过的目标端口；所有目标端口都失败后，等待退避时间后重试
+     *
+     * @param sourceSocket 客户端连接的 Socket 连接对象
+     * @param connected    连接成功的目标端口 (输出参数，[0] 为连接成功的目标端口)
+     * @return [代理->目标端口] 的 Socket 连接
+     */
+    private Socket connectUpstream(Socket sourceSocket, UpstreamTarget[] connected) throws IOException {
+        List<UpstreamTarget> triedTargets = new ArrayList<>();
+        IOException lastException = null;
+        int retries = 0;
+
+        while (true) {
+            UpstreamGroup group = upstreamGroup;
+            if (group == null || !isServerEnabled) {
+                throw new IOException("端口转发服务已关闭");
+            }
+
+            UpstreamTarget target = group.select(sourceSocket.getInetAddress(), triedTargets);
+
+            if (target == null) {
+                // 所有目标端口都已尝试失败
+                if (retries >= connectRetries) {
+                    throw lastException;
+                }
+
+                try {
+                    Thread.sleep(retryBackoffMillis(retries++));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw lastException;
+                }
+
+                triedTargets.clear();
+                continue;
+            }
+
+            long connectStart = System.nanoTime();
+            try {
+                Socket targetSocket = target.connect(engine.isChannelBased(), connectTimeoutMillis);
+                group.onConnectSuccess(target);
+                recordConnectSuccess(target, System.nanoTime() - connectStart);
+                connected[0] = target;
+                return targetSocket;
+            } catch (IOException e) {
+                group.onConnectFailure(target);
+                recordConnectFailure(target);
+                triedTargets.add(target);
+                lastException = e;
+                log.warn("[端口转发服务] - 连接目标端口失败 [{}]: {}", target, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 按照负载均衡策略在事件循环中异步连接目标端口并开始转发 (NIO 引擎)<br>
+     * 连接目标端口失败时，继续尝试其他未尝试过的目标端口；所有目标端口都失败后，由事件循环定时重试，不阻塞任何线程
+     *
+     * @param eventLoop     处理该连接的事件循环
+     * @param sourceSocket  客户端连接的 Socket 连接对象
+     * @param triedTargets  本轮已经尝试失败的目标端口
+     * @param retries       已经重试的次数
+     * @param lastException 上一次连接失败的异常
+     */
+    private void connectNio(NioEventLoop eventLoop, Socket sourceSocket, List<UpstreamTarget> triedTargets,
+                            int retries, Exception lastException) {
+        PortForwardServer server = this;
+        UpstreamGroup group = upstreamGroup;
+
+        if (group == null || !isServerEnabled) {
+            closeQuietly(sourceSocket);
+            onConnectError(null, sourceSocket, new IOException("端口转发服务已关闭"), ConnectionPhase.CONNECT);
+            return;
+        }
+
+        UpstreamTarget target = group.select(sourceSocket.getInetAddress(), triedTargets);
+
+        if (target == null) {
+            // 所有目标端口都已尝试失败
+            if (retries >= connectRetries) {
+                closeQuietly(sourceSocket);
+                onConnectError(null, sourceSocket, lastException, ConnectionPhase.CONNECT);
+                return;
+            }
+
+            triedTargets.clear();
+            eventLoop.schedule(() -> connectNio(eventLoop, sourceSocket, triedTargets, retries + 1, lastException),
+                    retryBackoffMillis(retries));
+            return;
+        }
+
+        long connectStart = System.nanoTime();
+        NioConnectCallback callback = (targetChannel, e) -> {
+            if (e != null && !isServerEnabled) {
+                // 停止服务时未完成的连接 (事件循环退出时以失败回调)，不计入目标端口的失败次数
+                closeQuietly(sourceSocket);
+                onConnectError(null, sourceSocket, e, ConnectionPhase.CONNECT);
+                return;
+            }
+
+            if (e != null) {
+                group.onConnectFailure(target);
+                recordConnectFailure(target);
+                triedTargets.add(target);
+                log.warn("[端口转发服务] - 连接目标端口失败 [{}]: {}", target, e.getMessage());
+                connectNio(eventLoop, sourceSocket, triedTargets, retries, e);
+                return;
+            }
+
+            group.onConnectSuccess(target);
+            recordConnectSuccess(target, System.nanoTime() - connectStart);
+            PortForwardConnection connection = null;
+
+            try {
+                // 创建端口转发的连接，并在事件循环中开始转发
+                connection = new PortForwardConnection(server, sourceSocket, targetChannel.socket(), target);
+                if (onConnected(connection, eventLoop::execute)) {
+                    new NioForwarder(eventLoop, connection, bufferPool).start();
+                }
+            } catch (Exception ex) {
+                closeQuietly(sourceSocket);
+                closeQuietly(targetChannel);
+                onConnectError(connection, sourceSocket, ex, ConnectionPhase.SETUP);
+            }
+        };
+
+        // 优先使用预连接，否则由事件循环异步连接目标端口
+        UpstreamConnectionPool pool = target.getConnectionPool();
+        Socket pooledSocket = pool != null ? pool.acquire() : null;
+
+        if (pooledSocket != null) {
+            eventLoop.execute(() -> callback.onComplete(pooledSocket.getChannel(), null));
+        } else {
+            // 通常命中 DNS 缓存并立即完成；没有缓存时在解析完成后继续，不阻塞监听线程和事件循环
+            // 目标端口有多个地址时依次尝试，全部失败才算作该目标端口连接失败
+            target.getAddressesAsync().whenComplete((targetAddresses, e) -> {
+                if (e == null) {
+                    eventLoop.execute(() -> eventLoop.connect(targetAddresses, connectTimeoutMillis, callback));
+                    return;
+                }
+
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                Exception error = cause instanceof Exception ? (Exception) cause : new IOException(cause);
+                eventLoop.execute(() -> callback.onComplete(null, error));
+            });
+        }
+    }
+
+    /**
+     * 记录一次连接目标端口成功 (转发规则和目标端口的指标)
+     *
+     * @param target 目标端口
+     * @param nanos  连接耗时 (纳秒)
+     */
+    private void recordConnectSuccess(UpstreamTarget target, long nanos) {
+        metrics.recordConnectSuccess(nanos);
+        target.getMetrics().recordConnectSuccess(nanos);
+        if (heavyHitters != null) {
+            heavyHitters.recordTargetConnection(target.toString());
+        }
+    }
+
+    /**
+     * 记录一次连接目标端口失败 (转发规则和目标端口的指标)
+     *
+     * @param target 目标端口
+     */
+    private void recordConnectFailure(UpstreamTarget target) {
+        metrics.recordConnectFailure();
+        target.getMetrics().recordConnectFailure();
+    }
+
+    /**
+     * 计算第几次重试前的等待时间 (指数退避，不超过上限)
+     *
+     * @param retries 已经重试的次数
+     */
+    private long retryBackoffMillis(int retries) {
+        long backoff = connectRetryBackoffMillis << Math.min(retries, 20);
+        return Math.min(backoff, maxConnectRetryBackoffMillis);
+    }
+
+    /**
+     * 获取连接建立线程池 (服务已关闭时返回在当前线程执行的 Executor)
+     */
+    private Executor acceptExecutorOrCaller() {
+        ExecutorService executor = acceptExecutor;
+        return executor != null ? executor : Runnable::run;
+    }
+
+    /**
+     * 获取一个连接名额<br>
+     * 连接数达到上限时，QUEUE 策略会阻塞监听线程直到有连接释放，其他策略直接返回 false
+     *
+     * @return true: 获取成功 false: 连接数已达上限
+     */
+    private boolean acquireConnection() {
+        if (maxConnections <= 0) {
+            activeConnections.incrementAndGet();
+            return true;
+        }
+
+        while (isServerEnabled) {
+            int current = activeConnections.get();
+
+            if (current < maxConnections) {
+                if (activeConnections.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+                continue;
+            }
+
+            if (!OverflowPolicy.QUEUE.equals(overflowPolicy)) {
+                return false;
+            }
+
+            // 排队等待连接释放
+            Thread currentThread = Thread.currentThread();
+            permitWaiters.offer(currentThread);
+            if (activeConnections.get() >= maxConnections) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+            }
+            permitWaiters.remove(currentThread);
+        }
+
+        return false;
+    }
+
+    /**
+     * 释放一个连接名额和客户端 IP 的连接名额，唤醒一个排队等待的监听线程
+     *
+     * @param sourceSocket 客户端连接的 Socket 连接对象 (关闭后仍然可以获取地址)
+     */
+    private void releaseConnection(Socket sourceSocket) {
+        releaseClient(sourceSocket);
+        activeConnections.decrementAndGet();
+
+        Thread waiter = permitWaiters.peek();
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+    }
+
+    /**
+     * 释放客户端 IP 的连接名额 (只释放接收连接时占用的名额，每个连接最多释放一次)
+     *
+     * @param sourceSocket 客户端连接的 Socket 连接对象
+     */
+    private void releaseClient(Socket sourceSocket) {
+        ClientLimiter limiter = clientSlots.remove(sourceSocket);
+        if (limiter != null) {
+            limiter.release(sourceSocket.getInetAddress());
+        }
+    }
+
+    /**
+     * 客户端 IP 的连接数或建连速率超出限制，拒绝客户端的连接，并执行 Handler 的方法
+     *
+     * @param sourceSocket 客户端连接的 Socket 连接对象
+     * @param reason       被限制的原因
+     * @param limiter      拒绝连接的限制器
+     */
+    private void limitConnection(Socket sourceSocket, ClientLimitReason reason, ClientLimiter limiter) {
+        // 直接发送 RST，不占用 TIME_WAIT
+        try {
+            sourceSocket.setSoLinger(true, 0);
+        } catch (Exception ignored) {
+        }
+        closeQuietly(sourceSocket);
+
+        log.debug("[端口转发服务] - 客户端 IP {}，拒绝连接 [{}]", reason.getDescription(), sourceSocket.getRemoteSocketAddress());
+
+        // 执行 Handler 的方法
+        handlerDispatcher.onClientLimited(sourceSocket, reason, limiter.getLimitedCount(reason));
+    }
+
+    /**
+     * 访问规则不允许，拒绝客户端的连接，并执行 Handler 的方法
+     *
+     * @param sourceSocket 客户端连接的 Socket 连接对象
+     */
+    private void denyConnection(Socket sourceSocket) {
+        long count = deniedCount.incrementAndGet();
+
+        // 直接发送 RST，不占用 TIME_WAIT
+        try {
+            sourceSocket.setSoLinger(true, 0);
+        } catch (Exception ignored) {
+        }
+        closeQuietly(sourceSocket);
+
+        log.debug("[端口转发服务] - 访问规则不允许，拒绝连接 [{}]", sourceSocket.getRemoteSocketAddress());
+
+        // 执行 Handler 的方法
+        handlerDispatcher.onDenied(sourceSocket, count);
+    }
+
+    /**
+     * 拒绝客户端的连接，并执行 Handler 的方法
+     *
+     * @param sourceSocket 客户端连接的 Socket 连接对象
+     */
+    private void rejectConnection(Socket sourceSocket) {
+        long count = rejectedCount.incrementAndGet();
+
+        if (OverflowPolicy.RESET.equals(overflowPolicy)) {
+            // SO_LINGER 为 0 时关闭连接会发送 RST
+            try {
+                sourceSocket.setSoLinger(true, 0);
+            } catch (Exception ignored) {
+            }
+        }
+        closeQuietly(sourceSocket);
+
+        log.debug("[端口转发服务] - 连接数已达上限，拒绝连接 [{}] [{}]", sourceSocket.getRemoteSocketAddress(), overflowPolicy.getDescription());
+
+        // 执行 Handler 的方法
+        handlerDispatcher.onRejected(sourceSocket, count);
+    }
+
+    /**
+     * 创建 (未启动的) 工作线程<br>
+     * 启用虚拟线程且当前 JDK 支持时创建虚拟线程，否则创建平台线程
+     *
+     * @param task 线程执行的任务
+     * @param name 线程名称
+     */
+    public Thread newThread(Runnable task, String name) {
+        return ThreadUtil.newThread(task, name, virtualThreadEnabled);
+    }
+
+    /**
+     * 连接建立成功后，保存连接并执行 Handler 的方法 (之后由调用方开始转发)
+     *
+     * @param connection    端口转发的连接
+     * @param closeExecutor 空闲超时或超过最长存活时间后执行关闭的线程 (不在定时器线程中关闭)
+     * @return true: 可以开始转发 false: 连接已关闭
+     */
+    private boolean onConnected(PortForwardConnection connection, Executor closeExecutor) {
+        // 开始转发前只有当前线程持有连接，状态一定可以改为 ACTIVE
+        if (!connection.activate()) {
+            return false;
+        }
+
+        // 保存创建的连接
+        connections.register(connection);
+
+        // 指定 Handler 的方法
+        handlerDispatcher.afterConnected(connection);
+
+        // 保存时服务已经关闭，则关闭连接 (关闭时会移除连接)
+        if (!isServerEnabled) {
+            connection.close(CloseReason.SERVER_STOPPED);
+            return false;
+        }
+
+        // 启动空闲超时和最长存活时间的检查
+        if (clientToTargetIdleMillis > 0 || targetToClientIdleMillis > 0 || maxLifetimeMillis > 0) {
+            connection.startTimeouts(timer, closeExecutor, clientToTargetIdleMillis, targetToClientIdleMillis, maxLifetimeMillis);
+        }
+
+        // 输出日志
+        log.debug("[端口转发服务] - 连接成功 [{}]", connection);
+        return true;
+    }
+
+    /**
+     * 连接建立失败后，释放连接，输出日志并执行 Handler 的方法
+     *
+     * @param connection   端口转发的连接 (可能为 null)
+     * @param sourceSocket 客户端连接的 Socket 连接对象
+     * @param e            异常
+     * @param phase        失败的阶段
+     */
+    private void onConnectError(PortForwardConnection connection, Socket sourceSocket, Exception e, ConnectionPhase phase) {
+        if (connection != null) {
+            // 连接已创建，关闭连接时会释放连接名额
+            connection.close(CloseReason.ERROR);
+        } else {
+            releaseConnection(sourceSocket);
+        }
+        metrics.recordError(phase, true);
+
+        // 输出日志
+        log.error("[端口转发服务] - 连接失败 [" + phase.getDescription() + "]", e);
+
+        // 执行 Handler 的方法
+        handlerDispatcher.onError(connection, e, phase);
+    }
+
+    /**
+     * 转发数据异常后，输出日志并执行 Handler 的方法 (由转发线程或 NIO 转发器调用，调用方负责关闭连接)
+     *
+     * @param connection 端口转发的连接
+     * @param e          异常
+     */
+    public void onForwardError(PortForwardConnection connection, Exception e) {
+        metrics.recordError(ConnectionPhase.FORWARD, false);
+
+        // 输出日志
+        log.error("[端口转发服务] - 转发异常 [" + connection.getConnectionId() + "]", e);
+
+        // 执行 Handler 的方法
+        handlerDispatcher.onError(connection, e, ConnectionPhase.FORWARD);
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception ignored) {
+        }
+    }
+
+    /**
+     * 关闭端口转发服务
+     */
+    public synchronized void stop() {
+        // 注销指标的 MBean (启动失败时同样需要注销)
+        metrics.unregisterMBeans();
+
+        if (isServerEnabled) {
+            // 关闭所有已建立的连接（此方法已修改服务器状态）
+            closeAllConnection();
+
+            // 关闭目标端口组的健康检查和预连接池
+            if (upstreamGroup != null) {
+                upstreamGroup.shutdown();
+                upstreamGroup = null;
+            }
+            for (UpstreamTarget target : targets) {
+                UpstreamConnectionPool pool = target.getConnectionPool();
+                if (pool != null) {
+                    pool.shutdown();
+                    target.setConnectionPool(null);
+                }
+            }
+
+            // 关闭 NIO 引擎的事件循环组 (不关闭自定义的事件循环组)
+            if (eventLoopGroup != null && eventLoopGroup != customEventLoopGroup) {
+                eventLoopGroup.shutdown();
+            }
+            eventLoopGroup = null;
+
+            // 关闭默认的连接建立线程池
+            if (acceptExecutor != null && acceptExecutor != customAcceptExecutor) {
+                acceptExecutor.shutdown();
+            }
+            acceptExecutor = null;
+
+            // 唤醒排队等待的监听线程
+            for (Thread waiter : permitWaiters) {
+                LockSupport.unpark(waiter);
+            }
+            for (Thread waiter : setupWaiters) {
+                LockSupport.unpark(waiter);
+            }
+
+            // 关闭监听，释放监听端口并结束阻塞的 accept
+            for (ServerSocket serverSocket : listeningServerSockets) {
+                closeQuietly(serverSocket);
+            }
+            listeningServerSockets.clear();
+
+            // 重置线程对象
+            serverThread = null;
+        }
+    }
+
+    /**
+     * 关闭指定连接 ID 的连接
+     *
+     * @param id 连接 ID
+     */
+    public void closeConnection(long id) {
+        PortForwardConnection connection = connections.remove(id);
+
+        if (connection != null) {
+            // 关闭连接
+            connection.close(CloseReason.MANUAL);
+        }
+    }
+
+    /**
+     * 关闭指定连接 ID 的连接<br>
+     * 需要遍历所有连接，应使用 {@link #closeConnection(long)}
+     *
+     * @param id 连接 ID (字符串)
+     */
+    @Deprecated
+    public void closeConnection(String id) {
+        for (PortForwardConnection connection : connections.snapshot()) {
+            if (connection.getConnectionId().equals(id)) {
+                closeConnection(connection.getId());
+                return;
+            }
+        }
+    }
+
+    /**
+     * 移除指定连接 ID 的连接
+     *
+     * @param id 连接 ID
+     */
+    public void removeConnection(long id) {
+        PortForwardConnection connection = connections.remove(id);
+        log.debug("[端口转发服务] - 连接已移除 [{}]", connection);
+    }
+
+    /**
+     * 连接关闭后的处理 (由端口转发连接调用，每个连接只调用一次)<br>
+     * 移除连接、释放连接名额并记录关闭的原因
+     *
+     * @param connection 已关闭的连接
+     */
+    public void afterConnectionClosed(PortForwardConnection connection) {
+        if (connections.remove(connection)) {
+            log.debug("[端口转发服务] - 连接已移除 [{}]", connection);
+        }
+        metrics.recordClosed(connection.getCloseReason());
+        releaseConnection(connection.getClientToListen());
+        connection.getUpstreamTarget().decrementActiveConnections();
+    }
+
+    /**
+     * 关闭所有已建立的连接<br>
+     * 连接较多时由多个线程并行关闭，此时连接的 Handler 会在其他线程中执行
+     */
+    public synchronized void closeAllConnection() {
+        if (isServerEnabled) {
+            // 先修改服务器状态，关闭过程中新建立的连接在保存时会被关闭
+            isServerEnabled = false;
+
+            connections.closeAll(CloseReason.SERVER_STOPPED);
+        }
+    }
+
+    /**
+     * 获取指定连接 ID 的连接
+     *
+     * @param id 连接 ID
+     * @return 端口转发连接 (不存在时返回 null)
+     */
+    public PortForwardConnection getConnection(long id) {
+        return connections.get(id);
+    }
+
+    /**
+     * 获取所有已建立连接的快照
+     */
+    public List<PortForwardConnection> getConnections() {
+        return connections.snapshot();
+    }
+
+    /**
+     * 获取已建立的连接数
+     */
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * 初始化端口转发 Handler 实例类<br>
+     * 通过重写实现自定义的 Handler
+     */
+    protected ConnectionHandler initConnectionHandler() {
+        return null;
+    }
+
+    /**
+     * 初始化端口转发服务的 Handler 实例类<br>
+     * 通过重写实现自定义的 Handler
+     */
+    protected ServerHandler initServerHandler() {
+        return null;
+    }
+
+    public String getListeningIp() {
+        return listeningIp;
+    }
+
+    public int getListeningPort() {
+        return listeningPort;
+    }
+
+    public String getTargetIp() {
+        return targetIp;
+    }
 
     public int getTargetPort() {
         return targetPort;
     }
 
-    public ConnectionHandler getConnectionHandler() {
-        return connectionHandler;
+    public ConnectionHandler getConnectionHandler() {
+        return connectionHandler;
+    }
+
+    public ServerHandler getServerHandler() {
+        return serverHandler;
+    }
+
+    public HandlerDispatcher getHandlerDispatcher() {
+        return handlerDispatcher;
+    }
+
+    public PortForwardEngine getEngine() {
+        return engine;
+    }
+
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getHighWatermark() {
+        return highWatermark;
+    }
+
+    public int getLowWatermark() {
+        return lowWatermark;
+    }
+
+    public long getClientToTargetIdleMillis() {
+        return clientToTargetIdleMillis;
+    }
+
+    public long getTargetToClientIdleMillis() {
+        return targetToClientIdleMillis;
+    }
+
+    public long getMaxLifetimeMillis() {
+        return maxLifetimeMillis;
+    }
+
+    public HashedWheelTimer getTimer() {
+        return timer;
+    }
+
+    public DnsCache getDnsCache() {
+        return dnsCache;
+    }
+
+    public int getBacklog() {
+        return backlog;
+    }
+
+    public int getAcceptors() {
+        return acceptors;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * 获取当前的连接数 (包括正在建立的连接)
+     */
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    /**
+     * 获取累计拒绝的连接数
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * 获取累计因访问规则拒绝的连接数
+     */
+    public long getDeniedCount() {
+        return deniedCount.get();
+    }
+
+    /**
+     * 获取单个客户端 IP 的连接限制 (不限制时为 null)
+     */
+    public ClientLimiter getClientLimiter() {
+        return clientLimiter;
+    }
+
+    /**
+     * 获取客户端访问规则 (不限制时为 null)
+     */
+    public AccessRules getAccessRules() {
+        return accessRules;
+    }
+
+    public int getMinBufferSize() {
+        return minBufferSize;
+    }
+
+    public int getMaxBufferSize() {
+        return maxBufferSize;
+    }
+
+    /**
+     * 获取各个转发方向当前的缓冲区大小分布
+     */
+    public BufferSizeDistribution getBufferSizeDistribution() {
+        return bufferSizeDistribution;
+    }
+
+    /**
+     * 为一个转发方向创建自适应缓冲区大小
+     */
+    public AdaptiveBufferSizer newBufferSizer() {
+        return new AdaptiveBufferSizer(minBufferSize, bufferSize, maxBufferSize, bufferSizeDistribution);
     }
 
-    public ServerHandler getServerHandler() {
-        return serverHandler;
+    /**
+     * 获取要转发的所有目标端口 (只读)
+     */
+    public List<UpstreamTarget> getTargets() {
+        return Collections.unmodifiableList(targets);
+    }
+
+    /**
+     * 获取目标端口组 (服务未启动时返回 null)
+     */
+    public UpstreamGroup getUpstreamGroup() {
+        return upstreamGroup;
+    }
+
+    public LoadBalanceStrategy getLoadBalanceStrategy() {
+        return loadBalanceStrategy;
+    }
+
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public int getConnectRetries() {
+        return connectRetries;
+    }
+
+    public ByteBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * 获取转发规则的指标
+     */
+    public RuleMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 获取热点客户端和目标端口的统计 (不统计时为 null)
+     */
+    public HeavyHitterTracker getHeavyHitters() {
+        return heavyHitters;
+    }
+
+    /**
+     * 获取流量整形器
+     */
+    public TrafficShaper getTrafficShaper() {
+        return trafficShaper;
+    }
+
+    public boolean isTrafficMetricsEnabled() {
+        return trafficMetricsEnabled;
+    }
+
+    public boolean isJmxEnabled() {
+        return jmxEnabled;
+    }
+
+    public boolean isVirtualThreadEnabled() {
+        return virtualThreadEnabled;
     }
 
     public boolean isAlwaysRun() {
@@ -350,4 +1624,454 @@ public class PortForwardServer {
         this.alwaysRun = alwaysRun;
         return this;
     }
+
+    /**
+     * 设置转发引擎 (需要在启动前设置)
+     *
+     * @param engine 转发引擎
+     */
+    public PortForwardServer setEngine(PortForwardEngine engine) {
+        if (engine == null) {
+            throw new NullPointerException("转发引擎不能为空");
+        }
+        this.engine = engine;
+        return this;
+    }
+
+    /**
+     * 设置每个转发方向自适应缓冲区大小的范围 (需要在启动前设置)<br>
+     * 最小值和最大值相同时，缓冲区大小固定不变
+     *
+     * @param minBufferSize 最小缓冲区大小 (字节)
+     * @param maxBufferSize 最大缓冲区大小 (字节)
+     */
+    public PortForwardServer setAdaptiveBufferSize(int minBufferSize, int maxBufferSize) {
+        if (minBufferSize <= 0 || maxBufferSize < minBufferSize) {
+            throw new IllegalArgumentException("缓冲区大小的范围无效");
+        }
+        this.minBufferSize = minBufferSize;
+        this.maxBufferSize = maxBufferSize;
+        return this;
+    }
+
+    /**
+     * 设置每个转发方向待写出数据的高低水位 (需要在启动前设置)<br>
+     * NIO 引擎下，目标端写得慢时来源端的数据先暂存在转发器中；暂存超过高水位时暂停读取来源端，
+     * 写出到低于低水位时恢复读取，每个方向暂存的数据不超过高水位加一个缓冲区<br>
+     * 阻塞 IO 引擎和通道直连引擎由转发线程阻塞写出，每个方向最多暂存一个缓冲区，不使用水位
+     *
+     * @param lowWatermark  低水位 (字节)
+     * @param highWatermark 高水位 (字节)
+     */
+    public PortForwardServer setWatermarks(int lowWatermark, int highWatermark) {
+        if (lowWatermark < 0 || highWatermark <= 0 || highWatermark < lowWatermark) {
+            throw new IllegalArgumentException("高低水位的范围无效");
+        }
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        return this;
+    }
+
+    /**
+     * 设置每个转发方向的空闲超时时间<br>
+     * 一个方向超过指定时间没有读到来源端的数据时关闭连接 (原因为 {@link CloseReason#IDLE_TIMEOUT})，
+     * 用于清理对端已失联 (如 NAT 映射过期) 的连接；来源端已发送 FIN 的方向不再检查<br>
+     * 两个方向设置相同的时间时，任意一个方向空闲都会关闭连接；只需要检查其中一个方向时，另一个方向设为 0
+     *
+     * @param clientToTargetIdleMillis [客户端->目标端口] 方向的空闲超时时间 (毫秒，小于等于 0 代表不检查)
+     * @param targetToClientIdleMillis [目标端口->客户端] 方向的空闲超时时间 (毫秒，小于等于 0 代表不检查)
+     */
+    public PortForwardServer setIdleTimeout(long clientToTargetIdleMillis, long targetToClientIdleMillis) {
+        this.clientToTargetIdleMillis = clientToTargetIdleMillis;
+        this.targetToClientIdleMillis = targetToClientIdleMillis;
+        return this;
+    }
+
+    /**
+     * 设置连接的最长存活时间<br>
+     * 连接建立后超过指定时间，无论是否有数据都关闭连接 (原因为 {@link CloseReason#MAX_LIFETIME})
+     *
+     * @param maxLifetimeMillis 最长存活时间 (毫秒，小于等于 0 代表不限制)
+     */
+    public PortForwardServer setMaxLifetime(long maxLifetimeMillis) {
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        return this;
+    }
+
+    /**
+     * 设置空闲超时和最长存活时间使用的定时器，默认使用全局共享的定时器
+     *
+     * @param timer 定时器
+     */
+    public PortForwardServer setTimer(HashedWheelTimer timer) {
+        if (timer == null) {
+            throw new NullPointerException("定时器不能为空");
+        }
+        this.timer = timer;
+        return this;
+    }
+
+    /**
+     * 设置异步执行 Handler (需要在启动前设置)，默认在产生事件的线程中同步执行<br>
+     * 开启后连接的事件 (ConnectionHandler) 和拒绝连接的事件 (ServerHandler 的 onRejected / onDenied / onClientLimited)
+     * 写入有界的事件队列，由一个分发线程按顺序执行，执行较慢的 Handler 不会阻塞转发线程和监听线程；
+     * 服务启动、停止和异常的事件仍然同步执行，停止服务后先等待队列中的事件执行完成再执行 afterStop
+     *
+     * @param capacity       事件队列容量 (向上取整为 2 的幂，小于等于 0 代表同步执行)
+     * @param overflowPolicy 事件队列已满的处理策略
+     */
+    public PortForwardServer setAsyncHandler(int capacity, HandlerOverflowPolicy overflowPolicy) {
+        this.handlerDispatcher = capacity > 0
+                ? new HandlerDispatcher(this, connectionHandler, serverHandler, capacity, overflowPolicy, "port-forward-handler-" + listeningPort)
+                : new HandlerDispatcher(this, connectionHandler, serverHandler);
+        return this;
+    }
+
+    /**
+     * 设置解析目标主机名的 DNS 缓存 (需要在启动前设置)，默认使用全局共享的 DNS 缓存<br>
+     * 可以传入使用自定义解析器或不同缓存时间的 DNS 缓存；目标为 IP 地址时不需要解析
+     *
+     * @param dnsCache DNS 缓存
+     */
+    public PortForwardServer setDnsCache(DnsCache dnsCache) {
+        if (dnsCache == null) {
+            throw new NullPointerException("DNS 缓存不能为空");
+        }
+        this.dnsCache = dnsCache;
+        return this;
+    }
+
+    /**
+     * 设置转发使用的缓冲区池 (需要在启动前设置)，默认使用全局共享的缓冲区池
+     *
+     * @param bufferPool 缓冲区池
+     */
+    public PortForwardServer setBufferPool(ByteBufferPool bufferPool) {
+        if (bufferPool == null) {
+            throw new NullPointerException("缓冲区池不能为空");
+        }
+        this.bufferPool = bufferPool;
+        return this;
+    }
+
+    /**
+     * 设置客户端访问规则 (可以在运行期间替换，立即对之后接收的连接生效，已建立的连接不受影响)，默认不限制<br>
+     * 监听线程接收连接后立即检查，不允许的客户端直接断开 (RST)，不会连接目标端口
+     *
+     * @param accessRules 访问规则 (null 代表不限制)
+     */
+    public PortForwardServer setAccessRules(AccessRules accessRules) {
+        this.accessRules = accessRules;
+        if (accessRules != null) {
+            log.info("[端口转发服务] - 访问规则 [{}:{}]: {}", listeningIp, listeningPort, accessRules);
+        }
+        return this;
+    }
+
+    /**
+     * 设置客户端访问规则 (可以在运行期间替换)<br>
+     * 按最长前缀匹配：匹配的最长网段在允许列表中则允许，在拒绝列表中则拒绝；没有匹配时，有允许列表则拒绝，否则允许
+     *
+     * @param allow 允许的 CIDR 网段 (如 10.0.0.0/8、2001:db8::/32，可以为 null)
+     * @param deny  拒绝的 CIDR 网段 (可以为 null)
+     * @throws IllegalArgumentException 网段格式无效 (原来的规则保持不变)
+     */
+    public PortForwardServer setAccessRules(Collection<String> allow, Collection<String> deny) {
+        return setAccessRules(AccessRules.of(allow, deny));
+    }
+
+    /**
+     * 设置单个客户端 IP 的并发连接数和建连速率限制 (可以在运行期间调整，立即生效)，默认不限制<br>
+     * 在连接目标端口之前检查，超出限制的连接直接断开 (RST)，并执行 {@link ServerHandler#onClientLimited}；
+     * 建连速率的突发容量为 1 秒的连接数。计数表按 IP 分段加锁，大小固定为 {@link ClientLimiter#DEFAULT_MAX_ENTRIES} 个 IP，
+     * 没有连接的 IP 会被自动清理<br>
+     * 运行期间才开启限制时，之前已建立的连接没有占用名额，不计入并发连接数，关闭时也不会释放其他连接的名额
+     *
+     * @param maxConnections       单个 IP 的最大并发连接数 (0 代表不限制)
+     * @param connectionsPerSecond 单个 IP 每秒最多新建的连接数 (0 代表不限制)
+     */
+    public synchronized PortForwardServer setClientLimit(int maxConnections, int connectionsPerSecond) {
+        if (maxConnections == 0 && connectionsPerSecond == 0 && clientLimiter == null) {
+            return this;
+        }
+
+        ClientLimiter limiter = clientLimiter != null ? clientLimiter : new ClientLimiter(ClientLimiter.DEFAULT_MAX_ENTRIES);
+        limiter.setLimits(maxConnections, connectionsPerSecond);
+        clientLimiter = limiter;
+        return this;
+    }
+
+    /**
+     * 设置单个连接每个转发方向的带宽限制 (可以在转发期间调整，立即对已建立的连接生效)，默认不限制<br>
+     * 超出限制时暂停读取来源端，由 TCP 流量控制让对端放慢发送；空闲一段时间后可以不受限制地连续转发突发容量的数据
+     *
+     * @param bytesPerSecond 速率 (字节/秒，0 代表不限制)
+     * @param burstBytes     突发容量 (字节)
+     */
+    public PortForwardServer setConnectionBandwidth(long bytesPerSecond, long burstBytes) {
+        trafficShaper.setLimit(ShapingScope.CONNECTION, new BandwidthLimit(bytesPerSecond, burstBytes));
+        return this;
+    }
+
+    /**
+     * 设置单个客户端 IP 每个转发方向的带宽限制 (该 IP 的所有连接共用，可以在转发期间调整)，默认不限制
+     *
+     * @param bytesPerSecond 速率 (字节/秒，0 代表不限制)
+     * @param burstBytes     突发容量 (字节)
+     */
+    public PortForwardServer setClientBandwidth(long bytesPerSecond, long burstBytes) {
+        trafficShaper.setLimit(ShapingScope.CLIENT, new BandwidthLimit(bytesPerSecond, burstBytes));
+        return this;
+    }
+
+    /**
+     * 设置整个转发服务每个转发方向的带宽限制 (所有连接共用，可以在转发期间调整)，默认不限制
+     *
+     * @param bytesPerSecond 速率 (字节/秒，0 代表不限制)
+     * @param burstBytes     突发容量 (字节)
+     */
+    public PortForwardServer setGlobalBandwidth(long bytesPerSecond, long burstBytes) {
+        trafficShaper.setLimit(ShapingScope.GLOBAL, new BandwidthLimit(bytesPerSecond, burstBytes));
+        return this;
+    }
+
+    /**
+     * 设置热点客户端和目标端口的统计 (需要在启动前设置)，默认每个时间片 256 个计数器、窗口为 60 秒<br>
+     * 使用固定内存的近似算法，按字节数和连接数统计最近一个窗口内的热点，通过 {@link #getHeavyHitters()} 查询
+     *
+     * @param capacity     每个时间片的计数器数量 (小于等于 0 代表不统计)
+     * @param windowMillis 窗口长度 (毫秒)
+     */
+    public PortForwardServer setHeavyHitters(int capacity, long windowMillis) {
+        this.heavyHitters = capacity > 0 ? new HeavyHitterTracker(capacity, windowMillis) : null;
+        return this;
+    }
+
+    /**
+     * 设置是否统计转发的字节数 (需要在启动前设置)，默认统计<br>
+     * 关闭后转发时不更新字节数，连接数、连接耗时和异常次数仍然统计
+     *
+     * @param trafficMetricsEnabled 是否统计转发的字节数
+     */
+    public PortForwardServer setTrafficMetricsEnabled(boolean trafficMetricsEnabled) {
+        this.trafficMetricsEnabled = trafficMetricsEnabled;
+        return this;
+    }
+
+    /**
+     * 设置是否将指标注册为 MBean (需要在启动前设置)，默认注册到平台 MBeanServer
+     *
+     * @param jmxEnabled 是否注册为 MBean
+     */
+    public PortForwardServer setJmxEnabled(boolean jmxEnabled) {
+        this.jmxEnabled = jmxEnabled;
+        return this;
+    }
+
+    /**
+     * 设置是否使用虚拟线程执行连接建立和转发任务 (需要在启动前设置)<br>
+     * 仅在 JDK 21 及以上版本生效，低版本 JDK 仍使用平台线程
+     *
+     * @param virtualThreadEnabled 是否使用虚拟线程
+     */
+    public PortForwardServer setVirtualThreadEnabled(boolean virtualThreadEnabled) {
+        if (virtualThreadEnabled && !ThreadUtil.isVirtualThreadSupported()) {
+            log.warn("[端口转发服务] - 当前 JDK 不支持虚拟线程，将使用平台线程");
+        }
+        this.virtualThreadEnabled = virtualThreadEnabled;
+        return this;
+    }
+
+    /**
+     * 设置监听队列长度 (需要在启动前设置)
+     *
+     * @param backlog 监听队列长度 (小于等于 0 时使用系统默认值)
+     */
+    public PortForwardServer setBacklog(int backlog) {
+        this.backlog = backlog;
+        return this;
+    }
+
+    /**
+     * 设置监听线程数 (需要在启动前设置)<br>
+     * 大于 1 时通过 SO_REUSEPORT 在同一端口上绑定多个监听 Socket，每个监听线程独立 accept，
+     * 适用于大量客户端同时重连的场景；当前 JDK (需要 JDK 9 及以上版本) 或平台 (需要 Linux) 不支持时只使用一个监听线程
+     *
+     * @param acceptors 监听线程数
+     */
+    public PortForwardServer setAcceptors(int acceptors) {
+        if (acceptors <= 0) {
+            throw new IllegalArgumentException("监听线程数必须大于 0");
+        }
+        this.acceptors = acceptors;
+        return this;
+    }
+
+    /**
+     * 设置最大并发连接数和达到上限时的处理策略
+     *
+     * @param maxConnections 最大并发连接数 (小于等于 0 代表不限制)
+     * @param overflowPolicy 连接数达到上限时的处理策略
+     */
+    public PortForwardServer setMaxConnections(int maxConnections, OverflowPolicy overflowPolicy) {
+        if (overflowPolicy == null) {
+            throw new NullPointerException("连接数达到上限时的处理策略不能为空");
+        }
+        this.maxConnections = maxConnections;
+        this.overflowPolicy = overflowPolicy;
+        return this;
+    }
+
+    /**
+     * 设置默认连接建立线程池的大小 (需要在启动前设置)
+     *
+     * @param acceptThreads   最大线程数
+     * @param acceptQueueSize 等待队列长度
+     */
+    public PortForwardServer setAcceptThreads(int acceptThreads, int acceptQueueSize) {
+        if (acceptThreads <= 0 || acceptQueueSize <= 0) {
+            throw new IllegalArgumentException("连接建立线程数和等待队列长度必须大于 0");
+        }
+        this.acceptThreads = acceptThreads;
+        this.acceptQueueSize = acceptQueueSize;
+        return this;
+    }
+
+    /**
+     * 设置自定义的连接建立线程池 (需要在启动前设置)<br>
+     * 停止服务时不会关闭自定义的线程池；线程池拒绝任务时按照连接数达到上限的处理策略处理
+     *
+     * @param acceptExecutor 连接建立线程池 (null 代表使用默认线程池)
+     */
+    public PortForwardServer setAcceptExecutor(ExecutorService acceptExecutor) {
+        this.customAcceptExecutor = acceptExecutor;
+        return this;
+    }
+
+    /**
+     * 添加要转发的目标端口 (需要在启动前设置)<br>
+     * 有多个目标端口时，新连接按照负载均衡策略分配，连接失败时自动尝试其他目标端口
+     *
+     * @param targetIp   目标 IP 地址
+     * @param targetPort 目标端口号
+     */
+    public PortForwardServer addTarget(String targetIp, int targetPort) {
+        this.targets.add(new UpstreamTarget(targetIp, targetPort));
+        return this;
+    }
+
+    /**
+     * 设置多个目标端口的负载均衡策略 (需要在启动前设置)
+     *
+     * @param loadBalanceStrategy 负载均衡策略
+     */
+    public PortForwardServer setLoadBalanceStrategy(LoadBalanceStrategy loadBalanceStrategy) {
+        if (loadBalanceStrategy == null) {
+            throw new NullPointerException("负载均衡策略不能为空");
+        }
+        this.loadBalanceStrategy = loadBalanceStrategy;
+        return this;
+    }
+
+    /**
+     * 设置连接目标端口的超时时间
+     *
+     * @param connectTimeoutMillis 连接超时时间 (毫秒，小于等于 0 代表使用系统默认的超时时间)
+     */
+    public PortForwardServer setConnectTimeout(int connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * 设置连接目标端口的重试策略<br>
+     * 每次连接依次尝试各个目标端口，所有目标端口都失败后等待退避时间再重试，每次重试的等待时间翻倍
+     *
+     * @param connectRetries        重试次数 (0 代表不重试)
+     * @param retryBackoffMillis    首次重试前的等待时间 (毫秒)
+     * @param maxRetryBackoffMillis 重试等待时间的上限 (毫秒)
+     */
+    public PortForwardServer setConnectRetry(int connectRetries, long retryBackoffMillis, long maxRetryBackoffMillis) {
+        if (connectRetries < 0 || retryBackoffMillis < 0 || maxRetryBackoffMillis < retryBackoffMillis) {
+            throw new IllegalArgumentException("重试策略的参数无效");
+        }
+        this.connectRetries = connectRetries;
+        this.connectRetryBackoffMillis = retryBackoffMillis;
+        this.maxConnectRetryBackoffMillis = maxRetryBackoffMillis;
+        return this;
+    }
+
+    /**
+     * 设置目标端口的健康检查和摘除 (需要在启动前设置)<br>
+     * 有多个目标端口时，后台定期探测目标端口；健康检查或连接连续失败达到阈值的目标端口暂时摘除，不再分配新连接
+     *
+     * @param healthCheckIntervalMillis 健康检查间隔 (毫秒，小于等于 0 代表只根据连接失败摘除)
+     * @param failureThreshold          连续失败多少次后摘除
+     * @param ejectMillis               摘除时长 (毫秒)
+     */
+    public PortForwardServer setHealthCheck(long healthCheckIntervalMillis, int failureThreshold, long ejectMillis) {
+        if (failureThreshold <= 0 || ejectMillis <= 0) {
+            throw new IllegalArgumentException("健康检查的参数无效");
+        }
+        this.healthCheckIntervalMillis = healthCheckIntervalMillis;
+        this.failureThreshold = failureThreshold;
+        this.ejectMillis = ejectMillis;
+        return this;
+    }
+
+    /**
+     * 设置目标端口预连接 (需要在启动前设置)<br>
+     * 后台预先与目标端口建立连接，客户端连接到达时直接使用，省去与目标端口握手的时间<br>
+     * 目标端口在连接建立后主动发送数据的协议 (如 SSH、SMTP) 不适合使用预连接
+     *
+     * @param minIdle       最小空闲连接数 (小于等于 0 代表不使用预连接)
+     * @param maxIdle       最大空闲连接数
+     * @param maxIdleMillis 空闲连接的最长存活时间 (毫秒)，应小于目标端口关闭空闲连接的时间
+     */
+    public PortForwardServer setUpstreamPool(int minIdle, int maxIdle, long maxIdleMillis) {
+        if (minIdle > 0 && (maxIdle < minIdle || maxIdleMillis <= 0)) {
+            throw new IllegalArgumentException("预连接的参数无效");
+        }
+        this.upstreamMinIdle = minIdle;
+        this.upstreamMaxIdle = maxIdle;
+        this.upstreamMaxIdleMillis = maxIdleMillis;
+        return this;
+    }
+
+    /**
+     * 设置自定义的 NIO 事件循环组 (需要在启动前设置)<br>
+     * 多个服务可以共享同一个事件循环组；停止服务时不会关闭自定义的事件循环组
+     *
+     * @param eventLoopGroup 事件循环组 (null 代表按照事件循环线程数创建)
+     */
+    public PortForwardServer setEventLoopGroup(NioEventLoopGroup eventLoopGroup) {
+        this.customEventLoopGroup = eventLoopGroup;
+        return this;
+    }
+
+    /**
+     * 设置 NIO 引擎的事件循环线程数 (需要在启动前设置)
+     *
+     * @param ioThreads 事件循环线程数
+     */
+    public PortForwardServer setIoThreads(int ioThreads) {
+        if (ioThreads <= 0) {
+            throw new IllegalArgumentException("事件循环线程数必须大于 0");
+        }
+        this.ioThreads = ioThreads;
+        return this;
+    }
+
+    /**
+     * 设置每个转发方向的初始缓冲区大小 (需要在启动前设置)
+     *
+     * @param bufferSize 缓冲区大小 (字节)
+     */
+    public PortForwardServer setBufferSize(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("缓冲区大小必须大于 0");
+        }
+        this.bufferSize = bufferSize;
+        return this;
+    }
 }
@@ -0,0 +1,83 @@
+package com.orainge.tools.port_forward.shaping;
+
+/**
+ * 带宽限制 (不可变)<br>
+ * 按每个转发方向分别限制：速率为持续转发的上限，突发容量为空闲一段时间后可以不受限制连续转发的字节数
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public final class BandwidthLimit {
+    /**
+     * 不限制
+     */
+    public static final BandwidthLimit UNLIMITED = new BandwidthLimit(0, 0);
+
+    /**
+     * 速率 (字节/秒，0 代表不限制)
+     */
+    private final long bytesPerSecond;
+
+    /**
+     * 突发容量 (字节)
+     */
+    private final long burstBytes;
+
+    /**
+     * 转发一个字节需要的时间 (纳秒)
+     */
+    private final double nanosPerByte;
+
+    /**
+     * 突发容量对应的时间 (纳秒)
+     */
+    private final long burstNanos;
+
+    /**
+     * 创建带宽限制
+     *
+     * @param bytesPerSecond 速率 (字节/秒，0 代表不限制)
+     * @param burstBytes     突发容量 (字节，限制速率时必须大于 0)
+     */
+    public BandwidthLimit(long bytesPerSecond, long burstBytes) {
+        if (bytesPerSecond < 0) {
+            throw new IllegalArgumentException("带宽限制的速率不能小于 0");
+        }
+        if (bytesPerSecond > 0 && burstBytes <= 0) {
+            throw new IllegalArgumentException("带宽限制的突发容量必须大于 0");
+        }
+
+        this.bytesPerSecond = bytesPerSecond;
+        this.burstBytes = bytesPerSecond > 0 ? burstBytes : 0;
+        this.nanosPerByte = bytesPerSecond > 0 ? 1e9 / bytesPerSecond : 0;
+        this.burstNanos = (long) (this.burstBytes * nanosPerByte);
+    }
+
+    /**
+     * 是否不限制
+     */
+    public boolean isUnlimited() {
+        return bytesPerSecond == 0;
+    }
+
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public long getBurstBytes() {
+        return burstBytes;
+    }
+
+    public double getNanosPerByte() {
+        return nanosPerByte;
+    }
+
+    public long getBurstNanos() {
+        return burstNanos;
+    }
+
+    @Override
+    public String toString() {
+        return isUnlimited() ? "不限制" : bytesPerSecond + " 字节/秒 (突发 " + burstBytes + " 字节)";
+    }
+}
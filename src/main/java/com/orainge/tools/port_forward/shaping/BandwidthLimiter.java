@@ -0,0 +1,90 @@
+package com.orainge.tools.port_forward.shaping;
+
+import com.orainge.tools.port_forward.consts.ShapingScope;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个范围的带宽限制器<br>
+ * 保存该范围当前的带宽限制和限速次数；该范围的所有令牌桶共用同一个限制，修改后立即对已建立的连接生效
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class BandwidthLimiter {
+    private final ShapingScope scope;
+
+    private volatile BandwidthLimit limit = BandwidthLimit.UNLIMITED;
+
+    /**
+     * 限速次数 (消耗令牌后需要等待的次数)
+     */
+    private final LongAdder throttledCount = new LongAdder();
+
+    /**
+     * 累计的限速等待时间 (纳秒)
+     */
+    private final LongAdder throttledNanos = new LongAdder();
+
+    public BandwidthLimiter(ShapingScope scope) {
+        this.scope = scope;
+    }
+
+    /**
+     * 从令牌桶中消耗令牌 (不限制时直接返回 0)
+     *
+     * @param bucket 令牌桶
+     * @param bytes  转发的字节数
+     * @param now    当前时间 (纳秒)
+     * @return 需要等待的时间 (纳秒)
+     */
+    public long acquire(TokenBucket bucket, long bytes, long now) {
+        BandwidthLimit limit = this.limit;
+        if (limit.isUnlimited()) {
+            return 0;
+        }
+
+        long delay = bucket.acquire(limit, bytes, now);
+        if (delay > 0) {
+            throttledCount.increment();
+            throttledNanos.add(delay);
+        }
+        return delay;
+    }
+
+    /**
+     * 清零限速次数和等待时间
+     */
+    public void reset() {
+        throttledCount.reset();
+        throttledNanos.reset();
+    }
+
+    public ShapingScope getScope() {
+        return scope;
+    }
+
+    public BandwidthLimit getLimit() {
+        return limit;
+    }
+
+    public long getThrottledCount() {
+        return throttledCount.sum();
+    }
+
+    public long getThrottledNanos() {
+        return throttledNanos.sum();
+    }
+
+    /**
+     * 设置带宽限制
+     *
+     * @param limit 带宽限制
+     */
+    public void setLimit(BandwidthLimit limit) {
+        if (limit == null) {
+            throw new NullPointerException("带宽限制不能为空");
+        }
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,71 @@
+package com.orainge.tools.port_forward.shaping;
+
+import com.orainge.tools.port_forward.consts.PortForwardType;
+import com.orainge.tools.port_forward.consts.ShapingScope;
+
+/**
+ * 单个连接的整形器<br>
+ * 持有该连接两个转发方向的令牌桶，以及所属客户端 IP 和转发服务的令牌桶
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class ConnectionShaper {
+    private final TrafficShaper shaper;
+
+    private final String clientIp;
+
+    private final TrafficShaper.ClientBuckets client;
+
+    /**
+     * 该连接的令牌桶 (每个转发方向一个)
+     */
+    private final TokenBucket[] buckets = TrafficShaper.newBuckets();
+
+    ConnectionShaper(TrafficShaper shaper, String clientIp, TrafficShaper.ClientBuckets client) {
+        this.shaper = shaper;
+        this.clientIp = clientIp;
+        this.client = client;
+    }
+
+    /**
+     * 转发了数据，从三个范围的令牌桶中消耗令牌 (由转发线程或 NIO 转发器调用，每次转发调用一次)
+     *
+     * @param type  转发方向 (CLIENT_TO_TARGET 或 TARGET_TO_CLIENT)
+     * @param bytes 转发的字节数
+     * @return 下一次读取来源端前需要等待的时间 (纳秒，0 代表不需要等待)
+     */
+    public long acquire(PortForwardType type, int bytes) {
+        int index = TrafficShaper.indexOf(type);
+        long now = System.nanoTime();
+
+        long delay = shaper.limiter(ShapingScope.CONNECTION).acquire(buckets[index], bytes, now);
+        delay = Math.max(delay, shaper.limiter(ShapingScope.CLIENT).acquire(client.buckets[index], bytes, now));
+        delay = Math.max(delay, shaper.limiter(ShapingScope.GLOBAL).acquire(shaper.globalBucket(index), bytes, now));
+        return delay;
+    }
+
+    /**
+     * 获取一次读取的字节数上限<br>
+     * 一次读取不超过各范围的突发容量，避免低速率时一次读入整个缓冲区后等待过长时间
+     *
+     * @param capacity 缓冲区大小
+     */
+    public int readLimit(int capacity) {
+        long limit = capacity;
+        for (ShapingScope scope : ShapingScope.values()) {
+            BandwidthLimit bandwidthLimit = shaper.limiter(scope).getLimit();
+            if (!bandwidthLimit.isUnlimited()) {
+                limit = Math.min(limit, bandwidthLimit.getBurstBytes());
+            }
+        }
+        return (int) Math.max(limit, 1);
+    }
+
+    /**
+     * 连接已关闭，释放客户端 IP 的令牌桶
+     */
+    public void close() {
+        shaper.release(clientIp);
+    }
+}
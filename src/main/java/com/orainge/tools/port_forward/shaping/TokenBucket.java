@@ -0,0 +1,41 @@
+package com.orainge.tools.port_forward.shaping;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 令牌桶 (无锁)<br>
+ * 不保存令牌数，而是保存 "已消耗的令牌全部恢复的时间"：消耗令牌时把该时间向后推移字节数对应的时长，
+ * 超出突发容量的部分就是调用方在下一次读取前需要等待的时间<br>
+ * 调用方先转发已经读到的数据再消耗令牌 (允许透支)，因此不需要预先知道要读取多少字节；
+ * 速率和突发容量由调用方每次传入，调整限制时已经存在的令牌桶立即按新的限制计算
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class TokenBucket {
+    /**
+     * 已消耗的令牌全部恢复的时间 (纳秒，不晚于当前时间代表令牌桶是满的)
+     */
+    private final AtomicLong refilledTime = new AtomicLong(System.nanoTime());
+
+    /**
+     * 消耗令牌
+     *
+     * @param limit 带宽限制 (不能为不限制)
+     * @param bytes 转发的字节数
+     * @param now   当前时间 (纳秒)
+     * @return 需要等待的时间 (纳秒，0 代表不需要等待)
+     */
+    public long acquire(BandwidthLimit limit, long bytes, long now) {
+        long cost = (long) (bytes * limit.getNanosPerByte());
+
+        while (true) {
+            long current = refilledTime.get();
+            long next = Math.max(current, now) + cost;
+
+            if (refilledTime.compareAndSet(current, next)) {
+                return Math.max(next - now - limit.getBurstNanos(), 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.orainge.tools.port_forward.shaping;
+
+import com.orainge.tools.port_forward.consts.PortForwardType;
+import com.orainge.tools.port_forward.consts.ShapingScope;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 转发服务的流量整形器<br>
+ * 按单个连接、单个客户端 IP 和整个转发服务三个范围限制带宽，每个范围的两个转发方向分别使用令牌桶；
+ * 转发时每次读到数据消耗三个范围的令牌，取最长的等待时间暂停读取来源端<br>
+ * 整形不使用额外的线程：NIO 引擎由事件循环定时恢复读取，阻塞 IO 引擎和通道直连引擎由转发线程自己等待
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class TrafficShaper {
+    /**
+     * 各范围的带宽限制器 (下标为 ShapingScope 的序号)
+     */
+    private final BandwidthLimiter[] limiters = new BandwidthLimiter[ShapingScope.values().length];
+
+    /**
+     * 整个转发服务的令牌桶 (每个转发方向一个)
+     */
+    private final TokenBucket[] globalBuckets = newBuckets();
+
+    /**
+     * 各客户端 IP 的令牌桶 (该 IP 的最后一个连接关闭后移除)
+     */
+    private final ConcurrentMap<String, ClientBuckets> clients = new ConcurrentHashMap<>();
+
+    public TrafficShaper() {
+        for (ShapingScope scope : ShapingScope.values()) {
+            limiters[scope.ordinal()] = new BandwidthLimiter(scope);
+        }
+    }
+
+    static TokenBucket[] newBuckets() {
+        return new TokenBucket[]{new TokenBucket(), new TokenBucket()};
+    }
+
+    /**
+     * 获取转发方向对应的令牌桶下标
+     */
+    static int indexOf(PortForwardType type) {
+        return PortForwardType.CLIENT_TO_TARGET.equals(type) ? 0 : 1;
+    }
+
+    /**
+     * 为新建立的连接创建整形器 (连接关闭后须调用 {@link ConnectionShaper#close()})
+     *
+     * @param clientIp 客户端 IP
+     */
+    public ConnectionShaper newConnectionShaper(String clientIp) {
+        ClientBuckets client = clients.compute(clientIp, (ip, buckets) -> {
+            if (buckets == null) {
+                buckets = new ClientBuckets();
+            }
+            buckets.connections++;
+            return buckets;
+        });
+        return new ConnectionShaper(this, clientIp, client);
+    }
+
+    /**
+     * 连接关闭，该客户端 IP 没有其他连接时移除它的令牌桶
+     */
+    void release(String clientIp) {
+        clients.computeIfPresent(clientIp, (ip, buckets) -> --buckets.connections > 0 ? buckets : null);
+    }
+
+    BandwidthLimiter limiter(ShapingScope scope) {
+        return limiters[scope.ordinal()];
+    }
+
+    TokenBucket globalBucket(int index) {
+        return globalBuckets[index];
+    }
+
+    /**
+     * 清零所有范围的限速次数
+     */
+    public void reset() {
+        for (BandwidthLimiter limiter : limiters) {
+            limiter.reset();
+        }
+    }
+
+    /**
+     * 获取指定范围的带宽限制器
+     *
+     * @param scope 范围
+     */
+    public BandwidthLimiter getLimiter(ShapingScope scope) {
+        return limiters[scope.ordinal()];
+    }
+
+    /**
+     * 获取当前有连接的客户端 IP 数
+     */
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    /**
+     * 设置指定范围的带宽限制 (可以在转发期间调整，立即生效)
+     *
+     * @param scope 范围
+     * @param limit 带宽限制
+     */
+    public void setLimit(ShapingScope scope, BandwidthLimit limit) {
+        limiters[scope.ordinal()].setLimit(limit);
+    }
+
+    /**
+     * 一个客户端 IP 的令牌桶
+     */
+    static class ClientBuckets {
+        final TokenBucket[] buckets = newBuckets();
+
+        /**
+         * 该 IP 的连接数 (只在 ConcurrentHashMap 的 compute 中修改)
+         */
+        int connections = 0;
+    }
+}
@@ -0,0 +1,391 @@
+package com.orainge.tools.port_forward.timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 哈希时间轮定时器<br>
+ * 时间轮由固定数量的槽组成，指针每个 tick 前进一格并执行当前槽中到期的任务；
+ * 超过一圈的任务记录剩余圈数，指针经过时减一<br>
+ * 添加和取消任务只是放入无锁队列，由唯一的定时器线程在每个 tick 中处理，都是 O(1) 操作，适合为大量连接设置超时<br>
+ * 定时精度为一个 tick，任务在定时器线程中执行，不应执行耗时的操作
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class HashedWheelTimer {
+    private static final Logger log = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+    /**
+     * 默认的定时器 (tick 为 100 毫秒，512 个槽)
+     */
+    private static final HashedWheelTimer DEFAULT = new HashedWheelTimer(100, TimeUnit.MILLISECONDS, 512, "port-forward-timer");
+
+    /**
+     * 每个 tick 最多从添加队列中转移到时间轮的任务数，避免大量添加时定时器线程长时间不推进
+     */
+    private static final int MAX_TRANSFER_PER_TICK = 100000;
+
+    /**
+     * tick 的时长 (纳秒)
+     */
+    private final long tickNanos;
+
+    /**
+     * 时间轮的槽
+     */
+    private final Bucket[] wheel;
+
+    /**
+     * 槽下标掩码 (槽数量为 2 的幂)
+     */
+    private final int mask;
+
+    /**
+     * 定时器线程名称
+     */
+    private final String name;
+
+    /**
+     * 待加入时间轮的任务
+     */
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 待从时间轮中移除的已取消任务
+     */
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 未到期且未取消的任务数
+     */
+    private final AtomicLong pendingCount = new AtomicLong(0);
+
+    /**
+     * 定时器是否已启动
+     */
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    /**
+     * 定时器是否已停止
+     */
+    private volatile boolean stopped = false;
+
+    /**
+     * 定时器创建的时间 (纳秒)，任务的到期时间和 tick 都相对于此时间
+     */
+    private final long startTime = System.nanoTime();
+
+    /**
+     * 定时器线程
+     */
+    private Thread workerThread = null;
+
+    /**
+     * 创建哈希时间轮定时器 (添加第一个任务时启动定时器线程)
+     *
+     * @param tickDuration tick 的时长
+     * @param unit         tick 时长的单位
+     * @param wheelSize    槽的数量 (向上取整为 2 的幂)
+     * @param name         定时器线程名称
+     */
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, int wheelSize, String name) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tick 的时长必须大于 0");
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("槽的数量无效");
+        }
+
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+
+        this.tickNanos = Math.max(unit.toNanos(tickDuration), TimeUnit.MILLISECONDS.toNanos(1));
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.name = name;
+    }
+
+    /**
+     * 获取默认的定时器 (所有转发服务共享一个定时器线程)
+     */
+    public static HashedWheelTimer getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 添加定时任务
+     *
+     * @param task  到期后执行的任务
+     * @param delay 延迟时间
+     * @param unit  延迟时间的单位
+     * @return 定时任务 (可用于取消)
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        if (task == null) {
+            throw new NullPointerException("定时任务不能为空");
+        }
+        if (stopped) {
+            throw new IllegalStateException("定时器已停止");
+        }
+
+        start();
+
+        long deadline = System.nanoTime() + unit.toNanos(Math.max(delay, 0)) - startTime;
+        Timeout timeout = new Timeout(this, task, deadline);
+        pendingCount.incrementAndGet();
+        pendingTimeouts.offer(timeout);
+        return timeout;
+    }
+
+    /**
+     * 启动定时器线程
+     */
+    private void start() {
+        if (started.get() || !started.compareAndSet(false, true)) {
+            return;
+        }
+
+        synchronized (this) {
+            workerThread = new Thread(this::run, name);
+            workerThread.setDaemon(true);
+            workerThread.start();
+        }
+    }
+
+    /**
+     * 停止定时器线程，未到期的任务不再执行 (默认的定时器不应停止)
+     */
+    public synchronized void stop() {
+        stopped = true;
+
+        if (workerThread != null) {
+            workerThread.interrupt();
+            workerThread = null;
+        }
+    }
+
+    /**
+     * 获取未到期且未取消的任务数
+     */
+    public long getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * 取消任务后由定时器线程从时间轮中移除
+     */
+    void onCancelled(Timeout timeout) {
+        pendingCount.decrementAndGet();
+        cancelledTimeouts.offer(timeout);
+    }
+
+    private void run() {
+        // 从当前时间对应的 tick 开始
+        long tick = (System.nanoTime() - startTime) / tickNanos;
+
+        while (!stopped) {
+            // 等待下一个 tick
+            long deadline = tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - startTime);
+
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (stopped) {
+                        return;
+                    }
+                }
+                continue;
+            }
+
+            removeCancelledTimeouts();
+            transferTimeoutsToBuckets(tick);
+            wheel[(int) (tick & mask)].expireTimeouts();
+            tick++;
+        }
+    }
+
+    private void removeCancelledTimeouts() {
+        Timeout timeout;
+        while ((timeout = cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferTimeoutsToBuckets(long tick) {
+        for (int i = 0; i < MAX_TRANSFER_PER_TICK; i++) {
+            Timeout timeout = pendingTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.isCancelled()) {
+                continue;
+            }
+
+            // 计算到期的 tick 和剩余圈数 (已经过期的任务放到当前槽，本次 tick 执行)
+            long expireTick = Math.max(timeout.deadline / tickNanos, tick);
+            timeout.remainingRounds = (expireTick - tick) / wheel.length;
+            wheel[(int) (expireTick & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * 任务到期，在定时器线程中执行
+     */
+    void expire(Timeout timeout) {
+        if (!timeout.expire()) {
+            return;
+        }
+        pendingCount.decrementAndGet();
+
+        try {
+            timeout.task.run();
+        } catch (Throwable e) {
+            log.error("[定时器 " + name + "] - 定时任务执行异常", e);
+        }
+    }
+
+    /**
+     * 时间轮的槽 (双向链表，只在定时器线程中访问)
+     */
+    private class Bucket {
+        private Timeout head;
+
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expireTimeouts() {
+            Timeout timeout = head;
+
+            while (timeout != null) {
+                Timeout next = timeout.next;
+
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    expire(timeout);
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+
+    /**
+     * 定时任务
+     */
+    public static class Timeout {
+        private static final int STATE_INIT = 0;
+        private static final int STATE_CANCELLED = 1;
+        private static final int STATE_EXPIRED = 2;
+
+        private final HashedWheelTimer timer;
+
+        private final Runnable task;
+
+        /**
+         * 到期时间 (相对于定时器启动时间的纳秒数)
+         */
+        private final long deadline;
+
+        /**
+         * 任务状态
+         */
+        private final AtomicInteger state = new AtomicInteger(STATE_INIT);
+
+        /**
+         * 剩余圈数 (只在定时器线程中访问，以下字段相同)
+         */
+        private long remainingRounds;
+
+        private Bucket bucket;
+
+        private Timeout prev;
+
+        private Timeout next;
+
+        private Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 取消任务 (任务已执行或已取消时不做任何操作)
+         *
+         * @return true: 取消成功 false: 任务已执行或已取消
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(STATE_INIT, STATE_CANCELLED)) {
+                return false;
+            }
+            timer.onCancelled(this);
+            return true;
+        }
+
+        private boolean expire() {
+            return state.compareAndSet(STATE_INIT, STATE_EXPIRED);
+        }
+
+        public boolean isCancelled() {
+            return state.get() == STATE_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == STATE_EXPIRED;
+        }
+    }
+}
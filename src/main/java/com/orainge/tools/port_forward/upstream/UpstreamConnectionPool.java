@@ -0,0 +1,416 @@
+package com.orainge.tools.port_forward.upstream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 目标端口预连接池<br>
+ * 后台线程预先与目标端口建立连接并保持空闲，客户端连接到达时直接取出使用，省去与目标端口握手的时间<br>
+ * 空闲连接数保持在最小值以上；连接被频繁取用时，按照上一个维护周期的取用次数多预备一些，但不超过最大值<br>
+ * 空闲时间超过上限的连接会被关闭；取出前会检查连接是否已被目标端口关闭<br>
+ * 注意: 目标端口在连接建立后主动发送数据的协议 (如 SSH、SMTP) 不适合使用预连接，这类连接在检查时会被丢弃
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class UpstreamConnectionPool {
+    private static final Logger log = LoggerFactory.getLogger(UpstreamConnectionPool.class);
+
+    /**
+     * 预连接的超时时间 (毫秒)
+     */
+    private static final int CONNECT_TIMEOUT_MILLIS = 3000;
+
+    /**
+     * 维护周期 (毫秒)
+     */
+    private static final long MAINTAIN_INTERVAL_MILLIS = 1000;
+
+    /**
+     * 目标端口 (每次建立连接时获取地址，目标为主机名时使用最新的解析结果)
+     */
+    private final UpstreamTarget target;
+
+    /**
+     * 是否由 SocketChannel 创建连接 (NIO 引擎和通道直连引擎)
+     */
+    private final boolean channelBased;
+
+    /**
+     * 最小空闲连接数
+     */
+    private final int minIdle;
+
+    /**
+     * 最大空闲连接数
+     */
+    private final int maxIdle;
+
+    /**
+     * 空闲连接的最长存活时间 (毫秒)
+     */
+    private final long maxIdleMillis;
+
+    /**
+     * 池的名称 (同时作为维护线程名称)
+     */
+    private final String name;
+
+    /**
+     * 空闲连接 (队尾为最新建立的连接)
+     */
+    private final Deque<IdleSocket> idleSockets = new ConcurrentLinkedDeque<>();
+
+    /**
+     * 空闲连接数
+     */
+    private final AtomicInteger idleCount = new AtomicInteger(0);
+
+    /**
+     * 当前维护周期内取用的次数
+     */
+    private final AtomicInteger acquiredInPeriod = new AtomicInteger(0);
+
+    /**
+     * 是否已提交补充连接的任务，避免重复提交
+     */
+    private final AtomicBoolean refillScheduled = new AtomicBoolean(false);
+
+    /**
+     * 命中次数 (取到预连接)
+     */
+    private final LongAdder hitCount = new LongAdder();
+
+    /**
+     * 未命中次数 (没有可用的预连接)
+     */
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * 检查不通过而关闭的连接数
+     */
+    private final LongAdder evictedCount = new LongAdder();
+
+    /**
+     * 维护线程
+     */
+    private ScheduledExecutorService scheduler = null;
+
+    /**
+     * 池是否运行
+     */
+    private volatile boolean running = false;
+
+    /**
+     * 创建目标端口预连接池
+     *
+     * @param target        目标端口
+     * @param channelBased  是否由 SocketChannel 创建连接
+     * @param minIdle       最小空闲连接数
+     * @param maxIdle       最大空闲连接数
+     * @param maxIdleMillis 空闲连接的最长存活时间 (毫秒)
+     * @param name          池的名称
+     */
+    public UpstreamConnectionPool(UpstreamTarget target, boolean channelBased,
+                                  int minIdle, int maxIdle, long maxIdleMillis, String name) {
+        if (minIdle <= 0 || maxIdle < minIdle) {
+            throw new IllegalArgumentException("预连接数的范围无效");
+        }
+        if (maxIdleMillis <= 0) {
+            throw new IllegalArgumentException("空闲连接的最长存活时间必须大于 0");
+        }
+
+        this.target = target;
+        this.channelBased = channelBased;
+        this.minIdle = minIdle;
+        this.maxIdle = maxIdle;
+        this.maxIdleMillis = maxIdleMillis;
+        this.name = name;
+    }
+
+    /**
+     * 启动维护线程，开始预连接
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::maintain, 0, MAINTAIN_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        scheduler = executor;
+    }
+
+    /**
+     * 停止维护线程，关闭所有空闲连接
+     */
+    public synchronized void shutdown() {
+        if (!running) {
+            return;
+        }
+        running = false;
+
+        // 等待正在执行的维护任务结束，避免检查中的连接在清空后被放回
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(CONNECT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+
+        IdleSocket idle;
+        while ((idle = idleSockets.pollFirst()) != null) {
+            idleCount.decrementAndGet();
+            closeQuietly(idle.socket);
+        }
+    }
+
+    /**
+     * 取出一个可用的预连接<br>
+     * 优先取最新建立的连接；取出前检查连接是否可用，不可用的连接直接关闭
+     *
+     * @return 已连接目标端口的 Socket (没有可用的预连接时返回 null)
+     */
+    public Socket acquire() {
+        acquiredInPeriod.incrementAndGet();
+
+        IdleSocket idle;
+        while ((idle = idleSockets.pollLast()) != null) {
+            idleCount.decrementAndGet();
+
+            if (isUsable(idle, false)) {
+                hitCount.increment();
+                triggerRefill();
+                return idle.socket;
+            }
+
+            evictedCount.increment();
+            closeQuietly(idle.socket);
+        }
+
+        missCount.increment();
+        triggerRefill();
+        return null;
+    }
+
+    /**
+     * 空闲连接低于最小值时，立即在维护线程中补充连接
+     */
+    private void triggerRefill() {
+        if (running && idleCount.get() < minIdle && refillScheduled.compareAndSet(false, true)) {
+            ScheduledExecutorService executor = scheduler;
+
+            try {
+                executor.execute(() -> refill(minIdle));
+            } catch (Exception e) {
+                // 池已关闭
+                refillScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * 定期维护: 关闭过期和不可用的空闲连接，然后补充连接
+     */
+    private void maintain() {
+        try {
+            // 从队首依次取出检查，可用的连接放回队尾 (检查期间连接不会被取用)，轮转一遍后顺序不变
+            for (int i = idleCount.get(); i > 0 && running; i--) {
+                IdleSocket idle = idleSockets.pollFirst();
+                if (idle == null) {
+                    break;
+                }
+
+                if (isUsable(idle, true)) {
+                    idleSockets.offerLast(idle);
+                } else {
+                    idleCount.decrementAndGet();
+                    evictedCount.increment();
+                    closeQuietly(idle.socket);
+                }
+            }
+
+            // 按照上一个维护周期的取用次数补充连接
+            refill(Math.min(maxIdle, Math.max(minIdle, acquiredInPeriod.getAndSet(0))));
+        } catch (Exception e) {
+            log.error("[目标端口预连接池 " + name + "] - 维护异常", e);
+        }
+    }
+
+    /**
+     * 补充连接 (只在维护线程中执行)
+     *
+     * @param target 目标空闲连接数
+     */
+    private void refill(int target) {
+        refillScheduled.set(false);
+
+        while (running && idleCount.get() < target) {
+            Socket socket;
+
+            try {
+                socket = connect();
+            } catch (IOException e) {
+                // 目标端口暂时不可用，等待下一个维护周期
+                log.debug("[目标端口预连接池 {}] - 预连接失败: {}", name, e.getMessage());
+                return;
+            }
+
+            if (!running) {
+                closeQuietly(socket);
+                return;
+            }
+
+            idleSockets.offerLast(new IdleSocket(socket));
+            idleCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * 与目标端口建立连接 (有多个地址时依次尝试)
+     */
+    private Socket connect() throws IOException {
+        return target.openSocket(channelBased, CONNECT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * 检查空闲连接是否可用<br>
+     * 连接未过期、未关闭，且目标端口没有关闭连接或发送数据时可用<br>
+     * 通道连接使用非阻塞读取检查；普通 Socket 在取出时只检查是否有未读数据，在维护线程中才进行阻塞 1 毫秒的读取检查
+     *
+     * @param idle     空闲连接
+     * @param thorough 是否进行完整的检查 (可能阻塞)
+     */
+    private boolean isUsable(IdleSocket idle, boolean thorough) {
+        Socket socket = idle.socket;
+
+        if (System.currentTimeMillis() - idle.createTime > maxIdleMillis || socket.isClosed()) {
+            return false;
+        }
+
+        try {
+            SocketChannel channel = socket.getChannel();
+
+            if (channel != null) {
+                // 非阻塞读取: 返回 0 代表没有数据且连接正常
+                channel.configureBlocking(false);
+                int len = channel.read(ByteBuffer.allocate(1));
+                channel.configureBlocking(true);
+                return len == 0;
+            }
+
+            if (socket.getInputStream().available() > 0) {
+                return false;
+            }
+
+            if (thorough) {
+                socket.setSoTimeout(1);
+                try {
+                    // 读取超时代表没有数据且连接正常
+                    socket.getInputStream().read();
+                    return false;
+                } catch (SocketTimeoutException e) {
+                    socket.setSoTimeout(0);
+                    return true;
+                }
+            }
+
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (Exception ignored) {
+        }
+    }
+
+    /**
+     * 获取当前空闲连接数
+     */
+    public int getIdleCount() {
+        return idleCount.get();
+    }
+
+    /**
+     * 获取命中次数
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * 获取未命中次数
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * 获取检查不通过而关闭的连接数
+     */
+    public long getEvictedCount() {
+        return evictedCount.sum();
+    }
+
+    public UpstreamTarget getTarget() {
+        return target;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    public long getMaxIdleMillis() {
+        return maxIdleMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "[目标端口预连接池 " + name + "] - 空闲: " + getIdleCount() + ", 命中: " + getHitCount() +
+                ", 未命中: " + getMissCount() + ", 关闭: " + getEvictedCount();
+    }
+
+    /**
+     * 空闲连接
+     */
+    private static class IdleSocket {
+        private final Socket socket;
+
+        /**
+         * 连接建立的时间
+         */
+        private final long createTime = System.currentTimeMillis();
+
+        IdleSocket(Socket socket) {
+            this.socket = socket;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.orainge.tools.port_forward.upstream;
+
+import com.orainge.tools.port_forward.consts.LoadBalanceStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 目标端口组<br>
+ * 按照负载均衡策略为新连接选择目标端口；多个目标端口时在后台定期探测目标端口，
+ * 连续失败的目标端口会被暂时摘除，不再分配新连接
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class UpstreamGroup {
+    private static final Logger log = LoggerFactory.getLogger(UpstreamGroup.class);
+
+    /**
+     * 一致性哈希环上每个目标端口的虚拟节点数
+     */
+    private static final int VIRTUAL_NODES = 160;
+
+    /**
+     * 健康检查的连接超时时间 (毫秒)
+     */
+    private static final int PROBE_TIMEOUT_MILLIS = 3000;
+
+    /**
+     * 目标端口列表
+     */
+    private final List<UpstreamTarget> targets;
+
+    /**
+     * 负载均衡策略
+     */
+    private final LoadBalanceStrategy strategy;
+
+    /**
+     * 健康检查间隔 (毫秒，小于等于 0 代表不进行健康检查)
+     */
+    private final long healthCheckIntervalMillis;
+
+    /**
+     * 连续失败多少次后摘除目标端口
+     */
+    private final int failureThreshold;
+
+    /**
+     * 摘除时长 (毫秒)
+     */
+    private final long ejectMillis;
+
+    /**
+     * 组的名称 (同时作为健康检查线程名称)
+     */
+    private final String name;
+
+    /**
+     * 轮询下标
+     */
+    private final AtomicInteger nextIndex = new AtomicInteger(0);
+
+    /**
+     * 一致性哈希环<br>
+     * {虚拟节点哈希值: 目标端口}
+     */
+    private final TreeMap<Long, UpstreamTarget> hashRing = new TreeMap<>();
+
+    /**
+     * 健康检查线程
+     */
+    private ScheduledExecutorService scheduler = null;
+
+    /**
+     * 创建目标端口组
+     *
+     * @param targets                   目标端口列表
+     * @param strategy                  负载均衡策略
+     * @param healthCheckIntervalMillis 健康检查间隔 (毫秒，小于等于 0 代表不进行健康检查)
+     * @param failureThreshold          连续失败多少次后摘除目标端口
+     * @param ejectMillis               摘除时长 (毫秒)
+     * @param name                      组的名称
+     */
+    public UpstreamGroup(List<UpstreamTarget> targets, LoadBalanceStrategy strategy,
+                         long healthCheckIntervalMillis, int failureThreshold, long ejectMillis, String name) {
+        if (targets == null || targets.isEmpty()) {
+            throw new IllegalArgumentException("目标端口不能为空");
+        }
+        if (strategy == null) {
+            throw new NullPointerException("负载均衡策略不能为空");
+        }
+
+        this.targets = Collections.unmodifiableList(new ArrayList<>(targets));
+        this.strategy = strategy;
+        this.healthCheckIntervalMillis = healthCheckIntervalMillis;
+        this.failureThreshold = failureThreshold;
+        this.ejectMillis = ejectMillis;
+        this.name = name;
+
+        if (LoadBalanceStrategy.CONSISTENT_HASH.equals(strategy)) {
+            for (UpstreamTarget target : this.targets) {
+                for (int i = 0; i < VIRTUAL_NODES; i++) {
+                    hashRing.put(hash((target + "#" + i).getBytes(StandardCharsets.UTF_8)), target);
+                }
+            }
+        }
+    }
+
+    /**
+     * 启动健康检查 (只有一个目标端口时不需要故障转移，不进行健康检查)
+     */
+    public synchronized void start() {
+        if (scheduler != null || healthCheckIntervalMillis <= 0 || targets.size() <= 1) {
+            return;
+        }
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::checkHealth, healthCheckIntervalMillis, healthCheckIntervalMillis, TimeUnit.MILLISECONDS);
+        scheduler = executor;
+    }
+
+    /**
+     * 停止健康检查
+     */
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * 为新连接选择目标端口<br>
+     * 优先在可用的目标端口中选择；全部被摘除时，仍在未尝试过的目标端口中选择，避免直接拒绝连接
+     *
+     * @param clientAddress 客户端地址 (一致性哈希使用)
+     * @param excluded      本次连接已经尝试失败的目标端口
+     * @return 目标端口 (全部尝试过时返回 null)
+     */
+    public UpstreamTarget select(InetAddress clientAddress, Collection<UpstreamTarget> excluded) {
+        UpstreamTarget target = select(clientAddress, excluded, true);
+        return target != null ? target : select(clientAddress, excluded, false);
+    }
+
+    private UpstreamTarget select(InetAddress clientAddress, Collection<UpstreamTarget> excluded, boolean availableOnly) {
+        switch (strategy) {
+            case LEAST_CONNECTIONS:
+                return selectLeastConnections(excluded, availableOnly);
+            case CONSISTENT_HASH:
+                return selectConsistentHash(clientAddress, excluded, availableOnly);
+            default:
+                return selectRoundRobin(excluded, availableOnly);
+        }
+    }
+
+    private UpstreamTarget selectRoundRobin(Collection<UpstreamTarget> excluded, boolean availableOnly) {
+        int size = targets.size();
+        int start = Math.abs(nextIndex.getAndIncrement() % size);
+
+        for (int i = 0; i < size; i++) {
+            UpstreamTarget target = targets.get((start + i) % size);
+            if (isCandidate(target, excluded, availableOnly)) {
+                return target;
+            }
+        }
+        return null;
+    }
+
+    private UpstreamTarget selectLeastConnections(Collection<UpstreamTarget> excluded, boolean availableOnly) {
+        // 从轮询下标开始比较，活跃连接数相同时分散到不同的目标端口
+        int size = targets.size();
+        int start = Math.abs(nextIndex.getAndIncrement() % size);
+        UpstreamTarget selected = null;
+
+        for (int i = 0; i < size; i++) {
+            UpstreamTarget target = targets.get((start + i) % size);
+            if (isCandidate(target, excluded, availableOnly)
+                    && (selected == null || target.getActiveConnections() < selected.getActiveConnections())) {
+                selected = target;
+            }
+        }
+        return selected;
+    }
+
+    private UpstreamTarget selectConsistentHash(InetAddress clientAddress, Collection<UpstreamTarget> excluded, boolean availableOnly) {
+        if (clientAddress == null) {
+            return selectRoundRobin(excluded, availableOnly);
+        }
+
+        // 从客户端 IP 的哈希值开始，沿哈希环顺时针查找第一个候选的目标端口
+        long hash = hash(clientAddress.getAddress());
+
+        for (Map.Entry<Long, UpstreamTarget> entry : hashRing.tailMap(hash, true).entrySet()) {
+            if (isCandidate(entry.getValue(), excluded, availableOnly)) {
+                return entry.getValue();
+            }
+        }
+        for (Map.Entry<Long, UpstreamTarget> entry : hashRing.headMap(hash, false).entrySet()) {
+            if (isCandidate(entry.getValue(), excluded, availableOnly)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isCandidate(UpstreamTarget target, Collection<UpstreamTarget> excluded, boolean availableOnly) {
+        return (excluded == null || !excluded.contains(target)) && (!availableOnly || target.isAvailable());
+    }
+
+    /**
+     * 记录连接目标端口成功
+     */
+    public void onConnectSuccess(UpstreamTarget target) {
+        target.onSuccess();
+    }
+
+    /**
+     * 记录连接目标端口失败
+     */
+    public void onConnectFailure(UpstreamTarget target) {
+        target.onFailure(failureThreshold, ejectMillis);
+    }
+
+    /**
+     * 探测所有目标端口: 能建立 TCP 连接即为健康 (有多个地址时任意一个地址能建立连接即可)
+     */
+    private void checkHealth() {
+        for (UpstreamTarget target : targets) {
+            try (Socket ignored = target.openSocket(false, PROBE_TIMEOUT_MILLIS)) {
+                onConnectSuccess(target);
+            } catch (Exception e) {
+                log.debug("[目标端口组 {}] - 健康检查失败 [{}]: {}", name, target, e.getMessage());
+                onConnectFailure(target);
+            }
+        }
+    }
+
+    /**
+     * 64 位哈希 (FNV-1a 后再做一次混合，使虚拟节点在哈希环上分布均匀)
+     */
+    private static long hash(byte[] bytes) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 获取目标端口列表 (只读)
+     */
+    public List<UpstreamTarget> getTargets() {
+        return targets;
+    }
+
+    public LoadBalanceStrategy getStrategy() {
+        return strategy;
+    }
+}
@@ -0,0 +1,304 @@
+package com.orainge.tools.port_forward.upstream;
+
+import com.orainge.tools.port_forward.dns.DnsCache;
+import com.orainge.tools.port_forward.metrics.TargetMetrics;
+import com.orainge.tools.port_forward.util.IpAddressUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 转发的目标端口<br>
+ * 记录目标端口的活跃连接数和健康状态；连续失败次数达到阈值后暂时摘除，摘除期满或健康检查成功后恢复<br>
+ * 目标为主机名时通过 DNS 缓存解析，有多个地址时每次连接轮流从不同的地址开始尝试，一个地址连接失败时继续尝试其他地址，
+ * 全部失败才算作目标端口连接失败
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class UpstreamTarget {
+    private static final Logger log = LoggerFactory.getLogger(UpstreamTarget.class);
+
+    /**
+     * 目标 IP 地址
+     */
+    private final String ip;
+
+    /**
+     * 目标端口号
+     */
+    private final int port;
+
+    /**
+     * 目标为 IP 地址时的固定地址 (目标为主机名时为 null)
+     */
+    private final InetSocketAddress literalAddress;
+
+    /**
+     * 解析目标主机名的 DNS 缓存
+     */
+    private volatile DnsCache dnsCache = DnsCache.getDefault();
+
+    /**
+     * 多个地址时的轮询下标 (每次连接开始尝试的地址)
+     */
+    private final AtomicInteger nextAddressIndex = new AtomicInteger(0);
+
+    /**
+     * 当前的活跃连接数
+     */
+    private final AtomicInteger activeConnections = new AtomicInteger(0);
+
+    /**
+     * 连续失败次数
+     */
+    private final AtomicInteger consecutiveFailures = new AtomicInteger(0);
+
+    /**
+     * 累计连接失败次数
+     */
+    private final LongAdder failureCount = new LongAdder();
+
+    /**
+     * 摘除截止时间 (毫秒时间戳，0 代表未摘除)
+     */
+    private volatile long ejectedUntil = 0;
+
+    /**
+     * 目标端口预连接池 (未启用预连接时为 null)
+     */
+    private volatile UpstreamConnectionPool connectionPool = null;
+
+    /**
+     * 目标端口的指标
+     */
+    private final TargetMetrics metrics = new TargetMetrics(this);
+
+    public UpstreamTarget(String ip, int port) {
+        if (ip == null || "".equals(ip)) {
+            throw new NullPointerException("要转发的目标 IP 地址不能为空");
+        }
+        this.ip = ip;
+        this.port = port;
+        // IP 地址直接使用，不经过解析器
+        InetAddress literal = IpAddressUtil.toInetAddress(ip);
+        this.literalAddress = literal != null ? new InetSocketAddress(literal, port) : null;
+    }
+
+    /**
+     * 与目标端口建立连接<br>
+     * 优先使用预连接；通道直连引擎和 NIO 引擎需要由 SocketChannel 创建连接
+     *
+     * @param channelBased  是否由 SocketChannel 创建连接
+     * @param timeoutMillis 连接超时时间 (毫秒，小于等于 0 代表不限制)
+     */
+    public Socket connect(boolean channelBased, int timeoutMillis) throws IOException {
+        UpstreamConnectionPool pool = connectionPool;
+        if (pool != null) {
+            Socket pooledSocket = pool.acquire();
+            if (pooledSocket != null) {
+                return pooledSocket;
+            }
+        }
+
+        return openSocket(channelBased, timeoutMillis);
+    }
+
+    /**
+     * 不使用预连接，新建与目标端口的连接<br>
+     * 有多个地址时依次尝试，直到有一个地址连接成功 (每个地址分别计算连接超时时间)
+     *
+     * @param channelBased  是否由 SocketChannel 创建连接
+     * @param timeoutMillis 每个地址的连接超时时间 (毫秒，小于等于 0 代表不限制)
+     * @throws IOException 所有地址都连接失败时，抛出最后一个地址的异常
+     */
+    public Socket openSocket(boolean channelBased, int timeoutMillis) throws IOException {
+        IOException lastException = null;
+
+        for (InetSocketAddress address : getAddresses()) {
+            Socket socket = channelBased ? SocketChannel.open().socket() : new Socket();
+
+            try {
+                socket.connect(address, Math.max(timeoutMillis, 0));
+                return socket;
+            } catch (IOException e) {
+                try {
+                    socket.close();
+                } catch (Exception ignored) {
+                }
+
+                if (lastException != null) {
+                    e.addSuppressed(lastException);
+                }
+                lastException = e;
+                log.debug("[目标端口] - 连接地址失败 [{} -> {}]: {}", this, address, e.getMessage());
+            }
+        }
+
+        throw lastException;
+    }
+
+    /**
+     * 获取连接时依次尝试的目标地址 (目标为主机名时从 DNS 缓存中获取，有多个地址时每次从下一个地址开始)
+     *
+     * @throws UnknownHostException 主机名解析失败
+     */
+    public List<InetSocketAddress> getAddresses() throws UnknownHostException {
+        if (literalAddress != null) {
+            return Collections.singletonList(literalAddress);
+        }
+
+        return orderAddresses(dnsCache.resolve(ip));
+    }
+
+    /**
+     * 异步获取连接时依次尝试的目标地址 (不阻塞调用线程，NIO 引擎使用)<br>
+     * 目标为 IP 地址或主机名有可用的缓存时返回已完成的结果，否则在解析完成后完成
+     *
+     * @return 目标地址，主机名解析失败时以 UnknownHostException 异常完成
+     */
+    public CompletableFuture<List<InetSocketAddress>> getAddressesAsync() {
+        if (literalAddress != null) {
+            return CompletableFuture.completedFuture(Collections.singletonList(literalAddress));
+        }
+        return dnsCache.resolveAsync(ip).thenApply(this::orderAddresses);
+    }
+
+    /**
+     * 主机名有多个地址时，轮流从不同的地址开始排列，分散各个地址的连接
+     */
+    private List<InetSocketAddress> orderAddresses(InetAddress[] addresses) {
+        if (addresses.length == 1) {
+            return Collections.singletonList(new InetSocketAddress(addresses[0], port));
+        }
+
+        int start = (nextAddressIndex.getAndIncrement() & Integer.MAX_VALUE) % addresses.length;
+        List<InetSocketAddress> result = new ArrayList<>(addresses.length);
+        for (int i = 0; i < addresses.length; i++) {
+            result.add(new InetSocketAddress(addresses[(start + i) % addresses.length], port));
+        }
+        return result;
+    }
+
+    /**
+     * 目标为主机名时，在后台提前解析 (启动服务时调用，第一个连接不需要等待解析)
+     */
+    public void prefetch() {
+        if (literalAddress == null) {
+            dnsCache.prefetch(ip);
+        }
+    }
+
+    /**
+     * 当前是否可用 (未被摘除)
+     */
+    public boolean isAvailable() {
+        long until = ejectedUntil;
+        return until == 0 || System.currentTimeMillis() >= until;
+    }
+
+    /**
+     * 连接成功 (包括健康检查成功)，清除连续失败次数并恢复目标端口
+     */
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+
+        if (ejectedUntil != 0) {
+            ejectedUntil = 0;
+            log.info("[目标端口] - 已恢复 [{}]", this);
+        }
+    }
+
+    /**
+     * 连接失败 (包括健康检查失败)，连续失败次数达到阈值后摘除目标端口
+     *
+     * @param failureThreshold 连续失败次数阈值
+     * @param ejectMillis      摘除时长 (毫秒)
+     */
+    public void onFailure(int failureThreshold, long ejectMillis) {
+        failureCount.increment();
+
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            boolean wasAvailable = isAvailable();
+            ejectedUntil = System.currentTimeMillis() + ejectMillis;
+
+            if (wasAvailable) {
+                log.warn("[目标端口] - 连续失败 {} 次，暂时摘除 {} 毫秒 [{}]", consecutiveFailures.get(), ejectMillis, this);
+            }
+        }
+    }
+
+    public void incrementActiveConnections() {
+        activeConnections.incrementAndGet();
+    }
+
+    public void decrementActiveConnections() {
+        activeConnections.decrementAndGet();
+    }
+
+    public String getIp() {
+        return ip;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * 获取当前的活跃连接数
+     */
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    /**
+     * 获取连续失败次数
+     */
+    public int getConsecutiveFailures() {
+        return consecutiveFailures.get();
+    }
+
+    /**
+     * 获取累计连接失败次数
+     */
+    public long getFailureCount() {
+        return failureCount.sum();
+    }
+
+    public DnsCache getDnsCache() {
+        return dnsCache;
+    }
+
+    public void setDnsCache(DnsCache dnsCache) {
+        this.dnsCache = dnsCache;
+    }
+
+    public UpstreamConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    public void setConnectionPool(UpstreamConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    public TargetMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public String toString() {
+        return ip + ":" + port;
+    }
+}
@@ -0,0 +1,184 @@
+package com.orainge.tools.port_forward.util;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * IP 地址字面量工具类<br>
+ * 只按语法解析 IPv4 (点分十进制，每段 0 ~ 255) 和 IPv6 (支持 :: 缩写和末尾的 IPv4 地址) 地址，不会查询 DNS；
+ * 不支持带区域 ID (如 fe80::1%eth0) 的地址
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class IpAddressUtil {
+    /**
+     * 是否为 IP 地址字面量
+     *
+     * @param text 主机名或 IP 地址
+     */
+    public static boolean isLiteral(String text) {
+        return parseLiteral(text) != null;
+    }
+
+    /**
+     * 将 IP 地址字面量转换为 InetAddress (不查询 DNS)
+     *
+     * @param text IP 地址
+     * @return 不是合法的 IP 地址字面量时返回 null
+     */
+    public static InetAddress toInetAddress(String text) {
+        byte[] address = parseLiteral(text);
+        if (address == null) {
+            return null;
+        }
+
+        try {
+            // IPv4 映射的 IPv6 地址 (::ffff:a.b.c.d) 会转换为 IPv4 地址
+            return InetAddress.getByAddress(address);
+        } catch (UnknownHostException e) {
+            // 长度只会是 4 或 16
+            return null;
+        }
+    }
+
+    /**
+     * 解析 IP 地址字面量
+     *
+     * @param text IP 地址
+     * @return IPv4 为 4 字节，IPv6 为 16 字节；不是合法的 IP 地址字面量时返回 null
+     */
+    public static byte[] parseLiteral(String text) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        return text.indexOf(':') >= 0 ? parseIpv6(text) : parseIpv4(text);
+    }
+
+    /**
+     * 解析 IPv4 地址 (4 段点分十进制，每段 1 ~ 3 位数字且不超过 255)
+     */
+    private static byte[] parseIpv4(String text) {
+        byte[] result = new byte[4];
+        int index = 0, value = 0, digits = 0;
+
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : '.';
+
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (++digits > 3 || value > 255) {
+                    return null;
+                }
+            } else if (c == '.' && digits > 0 && index < 4) {
+                result[index++] = (byte) value;
+                value = 0;
+                digits = 0;
+            } else {
+                return null;
+            }
+        }
+
+        return index == 4 ? result : null;
+    }
+
+    /**
+     * 解析 IPv6 地址 (8 组十六进制，最多一个 :: 缩写，最后两组可以写为 IPv4 地址)
+     */
+    private static byte[] parseIpv6(String text) {
+        int doubleColon = text.indexOf("::");
+        int[] head, tail;
+
+        if (doubleColon < 0) {
+            head = parseGroups(text, true);
+            tail = new int[0];
+            if (head == null || head.length != 8) {
+                return null;
+            }
+        } else {
+            if (text.indexOf("::", doubleColon + 1) >= 0) {
+                return null;
+            }
+            head = parseGroups(text.substring(0, doubleColon), false);
+            tail = parseGroups(text.substring(doubleColon + 2), true);
+            // :: 至少代表一组 0
+            if (head == null || tail == null || head.length + tail.length > 7) {
+                return null;
+            }
+        }
+
+        byte[] result = new byte[16];
+        for (int i = 0; i < head.length; i++) {
+            result[i * 2] = (byte) (head[i] >>> 8);
+            result[i * 2 + 1] = (byte) head[i];
+        }
+        for (int i = 0; i < tail.length; i++) {
+            int offset = 16 - (tail.length - i) * 2;
+            result[offset] = (byte) (tail[i] >>> 8);
+            result[offset + 1] = (byte) tail[i];
+        }
+        return result;
+    }
+
+    /**
+     * 解析以 : 分隔的十六进制组
+     *
+     * @param part     地址中 :: 之前或之后的部分 (可以为空)
+     * @param ipv4Tail 最后一组是否可以为 IPv4 地址 (占两组)
+     * @return 每组的值，格式无效时返回 null
+     */
+    private static int[] parseGroups(String part, boolean ipv4Tail) {
+        if (part.isEmpty()) {
+            return new int[0];
+        }
+
+        String[] fields = part.split(":", -1);
+        int[] groups = new int[fields.length + 1];
+        int count = 0;
+
+        for (int i = 0; i < fields.length; i++) {
+            String field = fields[i];
+
+            if (ipv4Tail && i == fields.length - 1 && field.indexOf('.') >= 0) {
+                byte[] ipv4 = parseIpv4(field);
+                if (ipv4 == null) {
+                    return null;
+                }
+                groups[count++] = (ipv4[0] & 0xFF) << 8 | (ipv4[1] & 0xFF);
+                groups[count++] = (ipv4[2] & 0xFF) << 8 | (ipv4[3] & 0xFF);
+                continue;
+            }
+
+            if (field.isEmpty() || field.length() > 4) {
+                return null;
+            }
+
+            int value = 0;
+            for (int j = 0; j < field.length(); j++) {
+                int digit = hexDigit(field.charAt(j));
+                if (digit < 0) {
+                    return null;
+                }
+                value = value << 4 | digit;
+            }
+            groups[count++] = value;
+        }
+
+        int[] result = new int[count];
+        System.arraycopy(groups, 0, result, 0, count);
+        return result;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,91 @@
+package com.orainge.tools.port_forward.util;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.ServerSocket;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.util.Set;
+
+/**
+ * Socket 工具类<br>
+ * SO_REUSEPORT 是 JDK 9 的 API，编译目标为 Java 8，因此通过反射查找；
+ * 只有 Linux 会把同一端口上多个监听 Socket 的新连接均衡分配，其他平台视为不支持
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class SocketUtil {
+    /**
+     * StandardSocketOptions.SO_REUSEPORT (当前 JDK 或平台不支持时为 null)
+     */
+    private static final SocketOption<Boolean> SO_REUSEPORT;
+
+    /**
+     * ServerSocket.setOption(SocketOption, Object) 方法句柄
+     */
+    private static final MethodHandle SERVER_SOCKET_SET_OPTION;
+
+    static {
+        SocketOption<Boolean> reusePort = null;
+        MethodHandle setOption = null;
+
+        if (System.getProperty("os.name", "").toLowerCase().contains("linux")) {
+            try {
+                @SuppressWarnings("unchecked")
+                SocketOption<Boolean> option = (SocketOption<Boolean>) StandardSocketOptions.class.getField("SO_REUSEPORT").get(null);
+
+                // 确认当前平台的 ServerSocketChannel 支持该选项
+                try (ServerSocketChannel channel = ServerSocketChannel.open()) {
+                    Set<SocketOption<?>> supportedOptions = channel.supportedOptions();
+                    if (supportedOptions.contains(option)) {
+                        reusePort = option;
+                    }
+                }
+
+                setOption = MethodHandles.publicLookup().findVirtual(ServerSocket.class, "setOption",
+                        MethodType.methodType(ServerSocket.class, SocketOption.class, Object.class));
+            } catch (Throwable e) {
+                reusePort = null;
+            }
+        }
+
+        SO_REUSEPORT = reusePort;
+        SERVER_SOCKET_SET_OPTION = setOption;
+    }
+
+    /**
+     * 当前 JDK 和平台是否支持 SO_REUSEPORT
+     */
+    public static boolean isReusePortSupported() {
+        return SO_REUSEPORT != null;
+    }
+
+    /**
+     * 为监听 Socket 开启 SO_REUSEPORT (需要在绑定前调用)
+     *
+     * @param serverSocket 未绑定的监听 Socket
+     */
+    public static void setReusePort(ServerSocket serverSocket) throws IOException {
+        if (SO_REUSEPORT == null) {
+            throw new UnsupportedOperationException("当前 JDK 或平台不支持 SO_REUSEPORT");
+        }
+
+        ServerSocketChannel channel = serverSocket.getChannel();
+        if (channel != null) {
+            channel.setOption(SO_REUSEPORT, true);
+            return;
+        }
+
+        try {
+            SERVER_SOCKET_SET_OPTION.invoke(serverSocket, SO_REUSEPORT, true);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IOException("设置 SO_REUSEPORT 失败", e);
+        }
+    }
+}
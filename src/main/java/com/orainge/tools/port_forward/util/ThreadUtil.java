@@ -0,0 +1,86 @@
+package com.orainge.tools.port_forward.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * 线程工具类<br>
+ * 运行在 JDK 21 及以上版本时支持创建虚拟线程，低版本 JDK 自动使用平台线程
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class ThreadUtil {
+    private static final Logger log = LoggerFactory.getLogger(ThreadUtil.class);
+
+    /**
+     * Thread.ofVirtual() 方法句柄 (当前 JDK 不支持虚拟线程时为 null)
+     */
+    private static final MethodHandle OF_VIRTUAL;
+
+    /**
+     * Thread.Builder.name(String) 方法句柄
+     */
+    private static final MethodHandle BUILDER_NAME;
+
+    /**
+     * Thread.Builder.unstarted(Runnable) 方法句柄
+     */
+    private static final MethodHandle BUILDER_UNSTARTED;
+
+    static {
+        MethodHandle ofVirtual = null, builderName = null, builderUnstarted = null;
+
+        try {
+            // 虚拟线程是 JDK 21 的 API，编译目标为 Java 8，因此通过反射查找
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Class<?> virtualBuilderClass = Class.forName("java.lang.Thread$Builder$OfVirtual");
+
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(virtualBuilderClass));
+            builderName = lookup.findVirtual(builderClass, "name", MethodType.methodType(builderClass, String.class));
+            builderUnstarted = lookup.findVirtual(builderClass, "unstarted", MethodType.methodType(Thread.class, Runnable.class));
+
+            // JDK 19/20 的虚拟线程为预览特性，未开启预览时调用会抛出异常
+            ofVirtual.invoke();
+        } catch (Throwable e) {
+            ofVirtual = null;
+        }
+
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_UNSTARTED = builderUnstarted;
+    }
+
+    /**
+     * 当前 JDK 是否支持虚拟线程
+     */
+    public static boolean isVirtualThreadSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 创建 (未启动的) 线程
+     *
+     * @param task    线程执行的任务
+     * @param name    线程名称
+     * @param virtual 是否使用虚拟线程 (当前 JDK 不支持时使用平台线程)
+     * @return 线程对象
+     */
+    public static Thread newThread(Runnable task, String name, boolean virtual) {
+        if (virtual && OF_VIRTUAL != null) {
+            try {
+                Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(), name);
+                return (Thread) BUILDER_UNSTARTED.invoke(builder, task);
+            } catch (Throwable e) {
+                log.warn("[线程工具] - 创建虚拟线程失败，使用平台线程: {}", e.toString());
+            }
+        }
+
+        return new Thread(task, name);
+    }
+}
@@ -3,11 +3,15 @@ package com.orainge.tools.port_forward.util;
 import java.util.UUID;
 
 /**
- * UUID 工具类
+ * UUID 工具类<br>
+ * 连接 ID 已改为进程内递增的数字 (见 {@link com.orainge.tools.port_forward.bean.PortForwardConnection#getId()})，本项目不再使用此类，
+ * 只为兼容保留，将在以后的版本中删除
  *
  * @author orainge
  * @since 2021/11/19
+ * @deprecated 使用 {@link java.util.UUID} 或自行生成 ID
  */
+@Deprecated
 public class UUIDUtil {
     /**
      * 生成短 UUID 的字符数组
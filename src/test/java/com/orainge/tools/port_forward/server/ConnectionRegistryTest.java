@@ -0,0 +1,267 @@
+package com.orainge.tools.port_forward.server;
+
+import com.orainge.tools.port_forward.bean.PortForwardConnection;
+import com.orainge.tools.port_forward.consts.CloseReason;
+import com.orainge.tools.port_forward.upstream.UpstreamTarget;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 连接注册表并发测试<br>
+ * 多个线程同时添加、移除、查找和遍历连接，结束后检查注册表的内容与每个线程记录的结果一致；
+ * 批量关闭与连接自行关闭同时进行时，检查所有连接都只关闭一次且注册表为空
+ *
+ * @author orainge
+ * @since 2026/10/17
+ */
+public class ConnectionRegistryTest {
+    /**
+     * 修改注册表的线程数 (每个线程只操作属于自己的连接)
+     */
+    private static final int WORKERS = 8;
+
+    /**
+     * 每个线程拥有的连接数
+     */
+    private static final int CONNECTIONS_PER_WORKER = 32;
+
+    /**
+     * 每个线程的操作次数
+     */
+    private static final int OPERATIONS_PER_WORKER = 50000;
+
+    /**
+     * 同时遍历注册表的线程数
+     */
+    private static final int READERS = 2;
+
+    /**
+     * 批量关闭测试的连接数 (超过并行关闭的阈值)
+     */
+    private static final int CLOSE_ALL_CONNECTIONS = 1500;
+
+    private PortForwardServer server;
+
+    private ServerSocket serverSocket;
+
+    private final List<Socket> sockets = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        serverSocket = new ServerSocket(0, 4096, InetAddress.getLoopbackAddress());
+        server = new PortForwardServer("127.0.0.1", serverSocket.getLocalPort(), "127.0.0.1", serverSocket.getLocalPort());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        serverSocket.close();
+    }
+
+    @Test
+    public void concurrentRegisterRemoveAndGet() throws Exception {
+        ConnectionRegistry registry = new ConnectionRegistry();
+        List<PortForwardConnection> connections = newConnections(WORKERS * CONNECTIONS_PER_WORKER);
+        boolean[] registered = new boolean[connections.size()];
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch workersDone = new CountDownLatch(WORKERS);
+        List<Thread> threads = new ArrayList<>();
+
+        // 修改线程: 随机添加、移除和查找自己的连接，并检查查找结果与自己记录的状态一致
+        for (int w = 0; w < WORKERS; w++) {
+            final int from = w * CONNECTIONS_PER_WORKER;
+            threads.add(startThread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS_PER_WORKER; i++) {
+                    int index = from + random.nextInt(CONNECTIONS_PER_WORKER);
+                    PortForwardConnection connection = connections.get(index);
+
+                    switch (random.nextInt(4)) {
+                        case 0:
+                            registry.register(connection);
+                            registered[index] = true;
+                            break;
+                        case 1:
+                            assertSame(registered[index] ? connection : null, registry.remove(connection.getId()));
+                            registered[index] = false;
+                            break;
+                        case 2:
+                            assertEquals(registered[index], registry.remove(connection));
+                            registered[index] = false;
+                            break;
+                        default:
+                            assertSame(registered[index] ? connection : null, registry.get(connection.getId()));
+                            break;
+                    }
+                }
+                workersDone.countDown();
+            }, start, error));
+        }
+
+        // 遍历线程: 快照中的连接不重复，按 ID 查找只能得到同一个连接或 null (已被移除)
+        for (int r = 0; r < READERS; r++) {
+            threads.add(startThread(() -> {
+                while (workersDone.getCount() > 0) {
+                    Set<Long> ids = new HashSet<>();
+                    for (PortForwardConnection connection : registry.snapshot()) {
+                        assertTrue("快照中存在重复的连接", ids.add(connection.getId()));
+
+                        PortForwardConnection found = registry.get(connection.getId());
+                        assertTrue("按 ID 查找到了其他连接", found == null || found == connection);
+                    }
+
+                    int size = registry.size();
+                    assertTrue("连接数超出范围: " + size, size >= 0 && size <= connections.size());
+                }
+            }, start, error));
+        }
+
+        start.countDown();
+        joinAll(threads, error);
+
+        // 注册表的内容与各线程最后记录的状态一致
+        Set<PortForwardConnection> expected = new HashSet<>();
+        for (int i = 0; i < connections.size(); i++) {
+            PortForwardConnection connection = connections.get(i);
+            if (registered[i]) {
+                expected.add(connection);
+                assertSame(connection, registry.get(connection.getId()));
+            } else {
+                assertNull(registry.get(connection.getId()));
+            }
+        }
+        assertEquals(expected.size(), registry.size());
+        assertEquals(expected, new HashSet<>(registry.snapshot()));
+
+        // 批量关闭只关闭已添加的连接
+        registry.closeAll(CloseReason.SERVER_STOPPED);
+        assertEquals(0, registry.size());
+        assertTrue(registry.snapshot().isEmpty());
+        for (PortForwardConnection connection : connections) {
+            assertEquals(expected.contains(connection), connection.isClosed());
+        }
+    }
+
+    @Test
+    public void closeAllWhileConnectionsCloseThemselves() throws Exception {
+        ConnectionRegistry registry = new ConnectionRegistry();
+        List<PortForwardConnection> connections = newConnections(CLOSE_ALL_CONNECTIONS);
+        AtomicInteger[] closeCounts = new AtomicInteger[connections.size()];
+
+        for (int i = 0; i < connections.size(); i++) {
+            PortForwardConnection connection = connections.get(i);
+            AtomicInteger closeCount = closeCounts[i] = new AtomicInteger();
+
+            // 与服务端相同: 连接关闭时从注册表中移除自己
+            connection.addCloseHook(() -> {
+                closeCount.incrementAndGet();
+                registry.remove(connection);
+            });
+            registry.register(connection);
+        }
+        assertEquals(connections.size(), registry.size());
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        // 关闭线程: 从两端同时关闭连接，与批量关闭竞争
+        threads.add(startThread(() -> {
+            for (int i = 0; i < connections.size(); i += 2) {
+                connections.get(i).close();
+            }
+        }, start, error));
+        threads.add(startThread(() -> {
+            for (int i = connections.size() - 1; i >= 0; i -= 3) {
+                connections.get(i).close();
+            }
+        }, start, error));
+        threads.add(startThread(() -> registry.closeAll(CloseReason.SERVER_STOPPED), start, error));
+
+        start.countDown();
+        joinAll(threads, error);
+
+        assertEquals(0, registry.size());
+        assertTrue(registry.snapshot().isEmpty());
+        for (int i = 0; i < connections.size(); i++) {
+            PortForwardConnection connection = connections.get(i);
+            assertTrue("连接未关闭: " + connection.getId(), connection.isClosed());
+            assertEquals("关闭钩子的执行次数", 1, closeCounts[i].get());
+        }
+    }
+
+    /**
+     * 创建指定数量的端口转发连接 (两端都是本机回环地址上的真实 Socket 连接)
+     */
+    private List<PortForwardConnection> newConnections(int count) throws Exception {
+        UpstreamTarget target = server.getTargets().get(0);
+        List<PortForwardConnection> connections = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            Socket client = new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+            Socket accepted = serverSocket.accept();
+            sockets.add(client);
+            sockets.add(accepted);
+
+            connections.add(new PortForwardConnection(server, accepted, client, target));
+        }
+        return connections;
+    }
+
+    /**
+     * 启动测试线程 (等待开始信号后执行，记录第一个异常或断言失败)
+     */
+    private static Thread startThread(Runnable task, CountDownLatch start, AtomicReference<Throwable> error) {
+        Thread thread = new Thread(() -> {
+            try {
+                start.await();
+                task.run();
+            } catch (Throwable e) {
+                error.compareAndSet(null, e);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * 等待所有测试线程结束，并抛出线程中的异常
+     */
+    private static void joinAll(List<Thread> threads, AtomicReference<Throwable> error) throws Exception {
+        for (Thread thread : threads) {
+            thread.join(60000);
+            assertTrue("测试线程超时: " + thread.getName(), !thread.isAlive());
+        }
+
+        Throwable e = error.get();
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        if (e != null) {
+            throw new AssertionError(e);
+        }
+    }
+}